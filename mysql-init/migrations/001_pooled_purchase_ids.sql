@@ -0,0 +1,15 @@
+-- Migrates a database created before purchases switched to pooled sequence IDs.
+-- Run once against existing databases; new ones get these tables from shopping_db.sql.
+-- Each sequence starts past the IDs already in use, leaving room for a full
+-- block of 50 IDs below its first value.
+USE shopping;
+
+CREATE TABLE compras_seq (
+    next_val BIGINT
+);
+INSERT INTO compras_seq SELECT COALESCE(MAX(id), 0) + 51 FROM compras;
+
+CREATE TABLE compra_productos_seq (
+    next_val BIGINT
+);
+INSERT INTO compra_productos_seq SELECT COALESCE(MAX(id), 0) + 51 FROM compra_productos;
@@ -0,0 +1,8 @@
+-- Adds the last modification time of products, which the product ETags are
+-- derived from. Run once against existing databases; new ones get the column
+-- from shopping_db.sql. Existing products start from their creation time.
+USE shopping;
+
+ALTER TABLE productos
+    ADD COLUMN fecha_modificacion TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6) AFTER fecha_creacion;
+UPDATE productos SET fecha_modificacion = fecha_creacion;
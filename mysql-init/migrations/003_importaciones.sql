@@ -0,0 +1,20 @@
+-- Adds the table tracking bulk product imports. Run once against existing
+-- databases; new ones get the table from shopping_db.sql.
+USE shopping;
+
+-- Bulk product imports, with the progress committed after every batch
+CREATE TABLE importaciones (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    nombre_archivo VARCHAR(255),
+    formato VARCHAR(10) NOT NULL,
+    estado VARCHAR(20) NOT NULL,
+    tamano_archivo BIGINT NOT NULL DEFAULT 0,
+    bytes_procesados BIGINT NOT NULL DEFAULT 0,
+    filas_procesadas BIGINT NOT NULL DEFAULT 0,
+    insertados BIGINT NOT NULL DEFAULT 0,
+    actualizados BIGINT NOT NULL DEFAULT 0,
+    errores BIGINT NOT NULL DEFAULT 0,
+    mensaje VARCHAR(255),
+    fecha_inicio TIMESTAMP NULL,
+    fecha_fin TIMESTAMP NULL
+);
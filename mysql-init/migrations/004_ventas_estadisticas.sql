@@ -0,0 +1,29 @@
+-- Adds the sales statistics tables. Run once against existing databases; new
+-- ones get the tables from shopping_db.sql. Then backfill the statistics of
+-- past purchases with "Rebuild statistics" on the admin Sales page.
+USE shopping;
+
+-- Hourly and daily sales statistics, updated with every purchase so that
+-- reports never scan the purchases. No foreign keys: statistics outlive
+-- deleted products and users.
+CREATE TABLE ventas_producto (
+    granularidad VARCHAR(10) NOT NULL,
+    periodo DATETIME NOT NULL,
+    producto_id BIGINT NOT NULL,
+    producto_nombre VARCHAR(200),
+    compras BIGINT NOT NULL DEFAULT 0,
+    unidades BIGINT NOT NULL DEFAULT 0,
+    importe DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (granularidad, periodo, producto_id)
+);
+
+CREATE TABLE ventas_usuario (
+    granularidad VARCHAR(10) NOT NULL,
+    periodo DATETIME NOT NULL,
+    usuario_id BIGINT NOT NULL,
+    usuario_email VARCHAR(150),
+    compras BIGINT NOT NULL DEFAULT 0,
+    unidades BIGINT NOT NULL DEFAULT 0,
+    importe DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (granularidad, periodo, usuario_id)
+);
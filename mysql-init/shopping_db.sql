@@ -4,44 +4,5 @@ CREATE DATABASE shopping
 CHARACTER SET utf8mb4
 COLLATE utf8mb4_spanish_ci;
 
-USE shopping;
-
--- Tabla Usuario
-CREATE TABLE usuario (
-    id BIGINT PRIMARY KEY AUTO_INCREMENT,
-    nombre VARCHAR(100) NOT NULL,
-    email VARCHAR(150) UNIQUE NOT NULL,
-    password VARCHAR(255) NOT NULL,
-    rol ENUM('ADMIN', 'USER') NOT NULL,
-    fecha_creacion TIMESTAMP DEFAULT CURRENT_TIMESTAMP
-);
-
--- Tabla Productos
-CREATE TABLE productos (
-    id BIGINT PRIMARY KEY AUTO_INCREMENT,
-    nombre VARCHAR(200) UNIQUE NOT NULL,
-    descripcion TEXT,
-    precio DECIMAL(10, 2) NOT NULL,
-    fecha_creacion TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    activo BOOLEAN DEFAULT TRUE
-);
-
--- Tabla Compras
-CREATE TABLE compras (
-    id BIGINT PRIMARY KEY AUTO_INCREMENT,
-    usuario_id BIGINT NOT NULL,
-    fecha TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    total DECIMAL(10, 2) NOT NULL,
-    FOREIGN KEY (usuario_id) REFERENCES usuario(id)
-);
-
--- Tabla Compra_Productos
-CREATE TABLE compra_productos (
-    id BIGINT PRIMARY KEY AUTO_INCREMENT,
-    compra_id BIGINT NOT NULL,
-    producto_id BIGINT NOT NULL,
-    cantidad INT NOT NULL,
-    subtotal DECIMAL(10, 2) NOT NULL,
-    FOREIGN KEY (compra_id) REFERENCES compras(id),
-    FOREIGN KEY (producto_id) REFERENCES productos(id)
-);
\ No newline at end of file
+-- The tables are created and upgraded by the application on startup, from the
+-- versioned migrations in src/main/resources/db/migration
@@ -0,0 +1,129 @@
+package com.gplanet.commerce.benchmarks;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.gplanet.commerce.CommerceApplication;
+import com.gplanet.commerce.dtos.compra.CompraDTO;
+import com.gplanet.commerce.dtos.compra.CompraProductoDTO;
+import com.gplanet.commerce.entities.Producto;
+import com.gplanet.commerce.entities.Usuario;
+import com.gplanet.commerce.repositories.ProductoRepository;
+import com.gplanet.commerce.repositories.UsuarioRepository;
+import com.gplanet.commerce.services.CompraService;
+import com.gplanet.commerce.services.ProductoSearchService;
+
+/**
+ * Starts the application on the embedded benchmark database and seeds it with
+ * a catalog, shoppers and purchase history of configurable size.
+ * The data is deterministic, so runs with the same volumes are comparable.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+public final class BenchmarkData {
+
+  /** Email of the first seeded shopper; the others follow the same pattern. */
+  public static final String SHOPPER_EMAIL = "shopper0@benchmark.local";
+
+  private static final String[] WORDS = {
+    "camiseta", "pantalon", "chaqueta", "zapatillas", "sudadera", "gorra", "bufanda", "calcetines",
+    "algodon", "lino", "lana", "denim", "verano", "invierno", "basica", "deportiva"
+  };
+  private static final int LINES_PER_ORDER = 3;
+  private static final long SEED = 42L;
+
+  private BenchmarkData() {
+    throw new AssertionError("BenchmarkData class should not be instantiated");
+  }
+
+  /**
+   * Starts the application with the benchmark profile.
+   *
+   * @return The running application context
+   */
+  public static ConfigurableApplicationContext start() {
+    return new SpringApplicationBuilder(CommerceApplication.class)
+        .profiles("benchmark")
+        .web(WebApplicationType.SERVLET)
+        .run();
+  }
+
+  /**
+   * Seeds the database and rebuilds the search index over the new catalog.
+   *
+   * @param context     The running application context
+   * @param catalogSize Number of products, three out of four of them active
+   * @param shoppers    Number of regular users
+   * @param orders      Number of purchases, spread over the shoppers
+   */
+  public static void seed(ConfigurableApplicationContext context, int catalogSize, int shoppers, int orders) {
+    Random random = new Random(SEED);
+    List<Producto> productos = context.getBean(ProductoRepository.class).saveAll(catalogo(catalogSize, random));
+    context.getBean(UsuarioRepository.class).saveAll(compradores(shoppers));
+    context.getBean(ProductoSearchService.class).rebuild();
+
+    CompraService compraService = context.getBean(CompraService.class);
+    for (int i = 0; i < orders; i++) {
+      compraService.realizarCompra("shopper" + (i % shoppers) + "@benchmark.local", pedido(productos, random));
+    }
+  }
+
+  /**
+   * Builds a purchase of a few random active products.
+   *
+   * @param productos The catalog to pick from
+   * @param random    Source of randomness
+   * @return The purchase request
+   */
+  public static CompraDTO pedido(List<Producto> productos, Random random) {
+    List<CompraProductoDTO> lineas = new ArrayList<>();
+    while (lineas.size() < LINES_PER_ORDER) {
+      Producto producto = productos.get(random.nextInt(productos.size()));
+      if (producto.isActivo()) {
+        lineas.add(new CompraProductoDTO(producto.getId(), 1 + random.nextInt(LINES_PER_ORDER)));
+      }
+    }
+    return new CompraDTO(lineas);
+  }
+
+  private static List<Producto> catalogo(int size, Random random) {
+    List<Producto> productos = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      Producto producto = new Producto();
+      producto.setNombre(palabra(random) + " " + palabra(random) + " " + i);
+      producto.setDescripcion(palabra(random) + " " + palabra(random) + " " + palabra(random));
+      producto.setPrecio(BigDecimal.valueOf(100 + random.nextInt(10_000), 2));
+      producto.setFechaCreacion(LocalDateTime.now().minusMinutes(i));
+      producto.setActivo(i % 4 != 0);
+      productos.add(producto);
+    }
+    return productos;
+  }
+
+  private static List<Usuario> compradores(int count) {
+    List<Usuario> usuarios = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      Usuario usuario = new Usuario();
+      usuario.setNombre("Shopper " + i);
+      usuario.setEmail("shopper" + i + "@benchmark.local");
+      // Never used to log in, so the hash does not need to match any password
+      usuario.setPassword("{noop}benchmark");
+      usuario.setRol(Usuario.Role.USER);
+      usuario.setFechaCreacion(LocalDateTime.now());
+      usuarios.add(usuario);
+    }
+    return usuarios;
+  }
+
+  private static String palabra(Random random) {
+    return WORDS[random.nextInt(WORDS.length)];
+  }
+}
@@ -0,0 +1,95 @@
+package com.gplanet.commerce.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.gplanet.commerce.dtos.compra.CompraDTO;
+import com.gplanet.commerce.dtos.compra.CompraProductoDTO;
+import com.gplanet.commerce.entities.Producto;
+import com.gplanet.commerce.repositories.ProductoRepository;
+import com.gplanet.commerce.services.CompraService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Benchmark of the cost of persisting one order, by number of order lines.
+ * Besides the time per order, prints the JDBC statements prepared per order
+ * (warmup included), which is what batched inserts reduce.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CompraInsertBenchmark {
+
+  @Param({"1", "10", "50"})
+  private int lines;
+
+  @Param("1000")
+  private int catalogSize;
+
+  private ConfigurableApplicationContext context;
+  private CompraService compraService;
+  private Statistics statistics;
+  private List<Producto> activos;
+  private Random random;
+  private long statements;
+  private long orders;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    context = BenchmarkData.start();
+    BenchmarkData.seed(context, catalogSize, 1, 0);
+    compraService = context.getBean(CompraService.class);
+    statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+    activos = context.getBean(ProductoRepository.class).findAll().stream().filter(Producto::isActivo).toList();
+    random = new Random(lines);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    System.out.printf("%nJDBC statements per order with %d lines: %.2f%n", lines, (double) statements / orders);
+    context.close();
+  }
+
+  @Benchmark
+  public void realizarCompra() {
+    long before = statistics.getPrepareStatementCount();
+    compraService.realizarCompra(BenchmarkData.SHOPPER_EMAIL, pedido());
+    statements += statistics.getPrepareStatementCount() - before;
+    orders++;
+  }
+
+  private CompraDTO pedido() {
+    int first = random.nextInt(activos.size() - lines);
+    List<CompraProductoDTO> lineas = new ArrayList<>(lines);
+    for (int i = 0; i < lines; i++) {
+      lineas.add(new CompraProductoDTO(activos.get(first + i).getId(), 1));
+    }
+    return new CompraDTO(lineas);
+  }
+}
@@ -0,0 +1,88 @@
+package com.gplanet.commerce.benchmarks;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gplanet.commerce.utilities.MoneyUtil;
+
+/**
+ * Benchmark of the subtotals and total of an order, by number of order
+ * lines: decimal arithmetic on every line against adding up cents and
+ * converting to decimals only to store each subtotal and the total.
+ * Both variants produce the same decimals. Run with {@code -prof gc} to
+ * compare the bytes allocated per order ({@code gc.alloc.rate.norm}).
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompraTotalBenchmark {
+
+  private static final int MAX_QUANTITY = 20;
+  private static final int MAX_PRICE_CENTS = 50_000;
+
+  @Param({"10", "100", "1000"})
+  private int lines;
+
+  private BigDecimal[] precios;
+  private int[] cantidades;
+  private BigDecimal[] subtotales;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(lines);
+    precios = new BigDecimal[lines];
+    cantidades = new int[lines];
+    subtotales = new BigDecimal[lines];
+    for (int i = 0; i < lines; i++) {
+      precios[i] = BigDecimal.valueOf(1 + random.nextInt(MAX_PRICE_CENTS), MoneyUtil.SCALE);
+      cantidades[i] = 1 + random.nextInt(MAX_QUANTITY);
+    }
+  }
+
+  /**
+   * The former calculation: one multiplication and one addition of decimals per line.
+   */
+  @Benchmark
+  public BigDecimal bigDecimal() {
+    BigDecimal total = BigDecimal.ZERO;
+    for (int i = 0; i < lines; i++) {
+      BigDecimal subtotal = precios[i].multiply(BigDecimal.valueOf(cantidades[i]));
+      subtotales[i] = subtotal;
+      total = total.add(subtotal);
+    }
+    return total;
+  }
+
+  /**
+   * The calculation of {@code CompraService}: cents per line, decimals only for what is stored.
+   */
+  @Benchmark
+  public BigDecimal cents() {
+    long total = 0;
+    for (int i = 0; i < lines; i++) {
+      long subtotal = MoneyUtil.multiply(MoneyUtil.toCents(precios[i]), cantidades[i]);
+      subtotales[i] = MoneyUtil.fromCents(subtotal);
+      total = Math.addExact(total, subtotal);
+    }
+    return MoneyUtil.fromCents(total);
+  }
+}
@@ -0,0 +1,123 @@
+package com.gplanet.commerce.benchmarks;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import com.gplanet.commerce.dtos.compra.CompraMapper;
+import com.gplanet.commerce.dtos.compra.CompraResponseDTO;
+import com.gplanet.commerce.dtos.pagination.PaginatedResponse;
+import com.gplanet.commerce.dtos.producto.ProductoMapper;
+import com.gplanet.commerce.dtos.producto.ProductoMapperImpl;
+import com.gplanet.commerce.dtos.producto.ProductoResponseDTO;
+import com.gplanet.commerce.dtos.usuario.UsuarioMapper;
+import com.gplanet.commerce.dtos.usuario.UsuarioMapperImpl;
+import com.gplanet.commerce.dtos.usuario.UsuarioResponseDTO;
+import com.gplanet.commerce.entities.Compra;
+import com.gplanet.commerce.entities.CompraProducto;
+import com.gplanet.commerce.entities.Producto;
+import com.gplanet.commerce.entities.Usuario;
+
+/**
+ * Benchmarks of the entity to DTO conversions and the pagination wrapper,
+ * isolated from the database.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+
+  private static final int PAGE_SIZE = 12;
+
+  @Param("5")
+  private int linesPerOrder;
+
+  private final ProductoMapper productoMapper = new ProductoMapperImpl();
+  private final UsuarioMapper usuarioMapper = new UsuarioMapperImpl();
+  private final CompraMapper compraMapper = new CompraMapper();
+
+  private Producto producto;
+  private Usuario usuario;
+  private Compra compra;
+  private Page<ProductoResponseDTO> page;
+
+  @Setup
+  public void setUp() {
+    producto = new Producto();
+    producto.setId(1L);
+    producto.setNombre("Camiseta Básica");
+    producto.setDescripcion("Camiseta de algodón orgánico");
+    producto.setPrecio(new BigDecimal("19.99"));
+    producto.setFechaCreacion(LocalDateTime.now());
+    producto.setActivo(true);
+
+    usuario = new Usuario();
+    usuario.setId(1L);
+    usuario.setNombre("Shopper");
+    usuario.setEmail("shopper@benchmark.local");
+    usuario.setRol(Usuario.Role.USER);
+    usuario.setFechaCreacion(LocalDateTime.now());
+
+    compra = new Compra();
+    compra.setId(1L);
+    compra.setUsuario(usuario);
+    compra.setFecha(LocalDateTime.now());
+    compra.setTotal(BigDecimal.ZERO);
+    for (int i = 0; i < linesPerOrder; i++) {
+      CompraProducto linea = new CompraProducto();
+      linea.setProducto(producto);
+      linea.setCantidad(2);
+      linea.setSubtotal(producto.getPrecio().multiply(BigDecimal.TWO));
+      compra.addCompraProducto(linea);
+    }
+
+    List<ProductoResponseDTO> content = new ArrayList<>();
+    for (int i = 0; i < PAGE_SIZE; i++) {
+      content.add(productoMapper.toProductoResponseDTO(producto));
+    }
+    page = new PageImpl<>(content, PageRequest.of(3, PAGE_SIZE), 1_000);
+  }
+
+  @Benchmark
+  public ProductoResponseDTO productoToDto() {
+    return productoMapper.toProductoResponseDTO(producto);
+  }
+
+  @Benchmark
+  public UsuarioResponseDTO usuarioToDto() {
+    return usuarioMapper.toUsuarioResponseDTO(usuario);
+  }
+
+  @Benchmark
+  public CompraResponseDTO compraToDto() {
+    return compraMapper.toCompraResponseDTO(compra);
+  }
+
+  @Benchmark
+  public PaginatedResponse<ProductoResponseDTO> paginatedResponseFromPage() {
+    return PaginatedResponse.fromPage(page);
+  }
+}
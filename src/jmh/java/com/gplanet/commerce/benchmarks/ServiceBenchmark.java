@@ -0,0 +1,106 @@
+package com.gplanet.commerce.benchmarks;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+
+import com.gplanet.commerce.dtos.compra.CompraResponseDTO;
+import com.gplanet.commerce.dtos.producto.ProductStatus;
+import com.gplanet.commerce.dtos.producto.ProductoResponseDTO;
+import com.gplanet.commerce.entities.Producto;
+import com.gplanet.commerce.repositories.ProductoRepository;
+import com.gplanet.commerce.services.CompraService;
+import com.gplanet.commerce.services.ProductoService;
+
+/**
+ * Benchmarks of the service hot paths, running the full application against
+ * an embedded H2 database seeded with {@link BenchmarkData}.
+ *
+ * Volumes are JMH parameters, e.g. {@code -p catalogSize=10000 -p orders=50000}.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceBenchmark {
+
+  private static final int PAGE_SIZE = 12;
+  private static final int PAGES = 10;
+
+  @Param("1000")
+  private int catalogSize;
+
+  @Param("50")
+  private int shoppers;
+
+  @Param("1000")
+  private int orders;
+
+  private ConfigurableApplicationContext context;
+  private ProductoService productoService;
+  private CompraService compraService;
+  private List<Producto> catalogo;
+  private Random random;
+  private int page;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    context = BenchmarkData.start();
+    BenchmarkData.seed(context, catalogSize, shoppers, orders);
+    productoService = context.getBean(ProductoService.class);
+    compraService = context.getBean(CompraService.class);
+    catalogo = context.getBean(ProductoRepository.class).findAll();
+    random = new Random(catalogSize);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  private int nextPage() {
+    page = (page + 1) % PAGES;
+    return page;
+  }
+
+  @Benchmark
+  public Page<ProductoResponseDTO> listarProductos() {
+    return productoService.listarProductos(ProductStatus.ACTIVE, "", nextPage(), PAGE_SIZE, "nombre", "ASC");
+  }
+
+  @Benchmark
+  public Page<ProductoResponseDTO> buscarProductos() {
+    return productoService.listarProductos(ProductStatus.ACTIVE, "algodon cami", 0, PAGE_SIZE, "relevancia", "DESC");
+  }
+
+  @Benchmark
+  public Page<CompraResponseDTO> listarCompras() {
+    return compraService.listarCompras(BenchmarkData.SHOPPER_EMAIL, 0, PAGE_SIZE, "fecha", "DESC");
+  }
+
+  @Benchmark
+  public void realizarCompra() {
+    compraService.realizarCompra(BenchmarkData.SHOPPER_EMAIL, BenchmarkData.pedido(catalogo, random));
+  }
+}
@@ -0,0 +1,49 @@
+package com.gplanet.commerce.loadtest;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Admin flow: product searches followed by the product detail modals, which
+ * only admins can open.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+public class AdminBrowser extends VirtualUser {
+
+  private static final int MODALS_PER_SEARCH = 3;
+
+  private final String email;
+  private final String password;
+
+  /**
+   * Creates an admin session.
+   *
+   * @param session  The session the admin browses with
+   * @param seed     Seed of the choices the admin makes
+   * @param email    Email of the admin account
+   * @param password Password of the admin account
+   */
+  public AdminBrowser(Session session, long seed, String email, String password) {
+    super(session, seed);
+    this.email = email;
+    this.password = password;
+  }
+
+  @Override
+  public boolean login() {
+    return session.login(email, password).success();
+  }
+
+  @Override
+  public void iterate() {
+    List<Long> ids = Session.productIds(session.fragment("GET /productos/filtrar",
+        Session.query("/productos/filtrar", Map.of("search", pick(SEARCHES), "sort", pick(SORTS)))));
+
+    for (int i = 0; i < Math.min(MODALS_PER_SEARCH, ids.size()); i++) {
+      Long id = ids.get(random.nextInt(ids.size()));
+      session.fragment("GET /productos/{id}", "/productos/" + id);
+    }
+  }
+}
@@ -0,0 +1,98 @@
+package com.gplanet.commerce.loadtest;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples the heap and Tomcat's worker threads while the load test is
+ * measured. Only meaningful when the application runs embedded, in the same
+ * JVM as the load generator.
+ *
+ * The live heap is taken from the usage of the heap pools right after each
+ * garbage collection, which leaves out the garbage a plain heap reading
+ * would include.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+public class JvmSampler {
+
+  private static final long INTERVAL_MILLIS = 250;
+  private static final double BYTES_PER_MB = 1024d * 1024d;
+  private static final String TOMCAT_WORKER = "-exec-";
+
+  private final List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+      .filter(pool -> pool.getType() == MemoryType.HEAP && pool.isCollectionUsageThresholdSupported())
+      .toList();
+  private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+  private volatile boolean sampling;
+  private Thread sampler;
+  private long peakLiveHeap;
+  private long peakCommittedHeap;
+  private int peakRequestThreads;
+
+  /**
+   * Usage of the JVM during the measurement.
+   *
+   * @param peakLiveHeapMb      Highest heap in use after a collection, in MB
+   * @param peakCommittedHeapMb Highest heap reserved by the JVM, in MB
+   * @param peakRequestThreads  Highest number of Tomcat's platform worker threads,
+   *                            zero when requests run on virtual threads
+   */
+  public record Usage(double peakLiveHeapMb, double peakCommittedHeapMb, int peakRequestThreads) {}
+
+  /**
+   * Starts sampling.
+   */
+  public void start() {
+    sampling = true;
+    sampler = Thread.ofPlatform().daemon().name("jvm-sampler").start(this::sample);
+  }
+
+  /**
+   * Stops sampling and returns the peaks seen.
+   *
+   * @return The usage of the JVM since {@link #start()}
+   * @throws InterruptedException if interrupted while waiting for the sampler
+   */
+  public Usage stop() throws InterruptedException {
+    sampling = false;
+    sampler.join();
+    return new Usage(peakLiveHeap / BYTES_PER_MB, peakCommittedHeap / BYTES_PER_MB, peakRequestThreads);
+  }
+
+  private int requestThreads() {
+    int count = 0;
+    for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds())) {
+      if (info != null && info.getThreadName().contains(TOMCAT_WORKER)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private void sample() {
+    try {
+      while (sampling) {
+        long live = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+          MemoryUsage afterCollection = pool.getCollectionUsage();
+          live += afterCollection == null ? 0 : afterCollection.getUsed();
+        }
+        peakLiveHeap = Math.max(peakLiveHeap, live);
+        peakCommittedHeap = Math.max(peakCommittedHeap,
+            ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getCommitted());
+        peakRequestThreads = Math.max(peakRequestThreads, requestThreads());
+        TimeUnit.MILLISECONDS.sleep(INTERVAL_MILLIS);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,220 @@
+package com.gplanet.commerce.loadtest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * HTTP load test driving the shopper flows with synthetic users, each on its
+ * own virtual thread and session. Reports throughput, latency percentiles and
+ * error rates per endpoint, and fails when the overall error rate is too high.
+ *
+ * Usage: {@code LoadTest [name=value ...]}, see {@link LoadTestConfig} for the options.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+@Slf4j
+public final class LoadTest {
+
+  private static final long SHUTDOWN_TIMEOUT_SECONDS = 60;
+  private static final double MB_PER_GB = 1024d;
+  /** Sign-ups and logins hash passwords, so they are ramped up instead of all at once. */
+  private static final int CONCURRENT_LOGINS = 16;
+
+  private LoadTest() {
+    throw new AssertionError("LoadTest class should not be instantiated");
+  }
+
+  /**
+   * Runs the load test.
+   *
+   * @param args Options of the run as {@code name=value} pairs
+   * @throws Exception if the application cannot be started or the report cannot be written
+   */
+  public static void main(String[] args) throws Exception {
+    LoadTestConfig config = LoadTestConfig.parse(args);
+    boolean passed;
+    if (config.embedded()) {
+      try (ConfigurableApplicationContext context = LoadTestData.start(config.profiles())) {
+        LoadTestData.seed(context, config.catalogSize());
+        passed = run(config, LoadTestData.baseUrl(context), new JvmSampler());
+      }
+    } else {
+      passed = run(config, config.baseUrl(), null);
+    }
+    System.exit(passed ? 0 : 1);
+  }
+
+  /**
+   * Logs the synthetic users in, runs the workload and reports the results.
+   *
+   * @param config  Options of the run
+   * @param baseUrl URL of the application
+   * @param sampler Samples the JVM of the embedded application, null when it runs elsewhere
+   * @return true if the overall error rate stayed within the limit
+   * @throws InterruptedException if interrupted while the workload runs
+   * @throws IOException if the report cannot be written
+   */
+  public static boolean run(LoadTestConfig config, String baseUrl, JvmSampler sampler)
+      throws InterruptedException, IOException {
+    Metrics metrics = new Metrics();
+    List<VirtualUser> users = new ArrayList<>();
+    for (int i = 0; i < config.users(); i++) {
+      users.add(new Shopper(new Session(baseUrl, metrics), i, config.password(), config.checkoutRatio()));
+    }
+    for (int i = 0; i < config.admins(); i++) {
+      users.add(new AdminBrowser(new Session(baseUrl, metrics), -1L - i, config.adminEmail(),
+          config.adminPassword()));
+    }
+
+    log.info("Load testing {} with {} shoppers and {} admins", baseUrl, config.users(), config.admins());
+    AtomicBoolean running = new AtomicBoolean(true);
+    JvmSampler.Usage usage = null;
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      List<VirtualUser> active = login(executor, users);
+      for (VirtualUser user : active) {
+        executor.submit(() -> browse(user, running, config));
+      }
+
+      TimeUnit.MILLISECONDS.sleep(config.warmup().toMillis());
+      metrics.start();
+      if (sampler != null) {
+        sampler.start();
+      }
+      log.info("Warmup finished, measuring for {} seconds", config.duration().toSeconds());
+      TimeUnit.MILLISECONDS.sleep(config.duration().toMillis());
+      metrics.stop();
+      if (sampler != null) {
+        usage = sampler.stop();
+      }
+      running.set(false);
+
+      executor.shutdown();
+      if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+        executor.shutdownNow();
+      }
+    }
+
+    List<Metrics.Summary> summaries = metrics.summarize();
+    Metrics.Summary total = summaries.get(summaries.size() - 1);
+    log.info("Results over {} seconds:\n{}", config.duration().toSeconds(), table(summaries));
+    if (usage != null) {
+      log.info("Peak live heap {} MB, peak Tomcat worker threads {}, {} requests in flight per GB of live heap",
+          Math.round(usage.peakLiveHeapMb()), usage.peakRequestThreads(),
+          Math.round(perGigabyte(total.concurrency(), usage)));
+    }
+    write(config, baseUrl, summaries, usage);
+
+    if (total.errorRate() > config.maxErrorRate()) {
+      log.error("Error rate {} exceeds the limit of {}", total.errorRate(), config.maxErrorRate());
+      return false;
+    }
+    return true;
+  }
+
+  private static List<VirtualUser> login(ExecutorService executor, List<VirtualUser> users)
+      throws InterruptedException {
+    Semaphore permits = new Semaphore(CONCURRENT_LOGINS);
+    List<Callable<Boolean>> logins = users.stream().<Callable<Boolean>>map(user -> () -> {
+      permits.acquire();
+      try {
+        return user.login();
+      } finally {
+        permits.release();
+      }
+    }).toList();
+    List<Future<Boolean>> results = executor.invokeAll(logins);
+
+    List<VirtualUser> active = new ArrayList<>();
+    for (int i = 0; i < users.size(); i++) {
+      try {
+        if (results.get(i).get()) {
+          active.add(users.get(i));
+        }
+      } catch (ExecutionException e) {
+        log.warn("Login of virtual user {} failed", i, e.getCause());
+      }
+    }
+    if (active.size() < users.size()) {
+      log.warn("Only {} of {} virtual users could log in", active.size(), users.size());
+    }
+    return active;
+  }
+
+  private static void browse(VirtualUser user, AtomicBoolean running, LoadTestConfig config) {
+    try {
+      while (running.get()) {
+        user.iterate();
+        if (!config.thinkTime().isZero()) {
+          TimeUnit.MILLISECONDS.sleep(config.thinkTime().toMillis());
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static String table(List<Metrics.Summary> summaries) {
+    StringBuilder table = new StringBuilder(String.format("%-26s %9s %8s %8s %9s %9s %9s %9s %9s %9s%n",
+        "Endpoint", "Requests", "Errors", "Req/s", "In flight", "p50 ms", "p90 ms", "p99 ms", "Max ms",
+        "Error %"));
+    for (Metrics.Summary summary : summaries) {
+      table.append(String.format("%-26s %9d %8d %8.1f %9.1f %9.1f %9.1f %9.1f %9.1f %9.2f%n",
+          summary.endpoint(), summary.requests(), summary.errors(), summary.throughput(), summary.concurrency(),
+          summary.p50(), summary.p90(), summary.p99(), summary.max(), summary.errorRate() * 100));
+    }
+    return table.toString();
+  }
+
+  private static double perGigabyte(double concurrency, JvmSampler.Usage usage) {
+    return usage.peakLiveHeapMb() == 0 ? 0 : concurrency / (usage.peakLiveHeapMb() / MB_PER_GB);
+  }
+
+  private static void write(LoadTestConfig config, String baseUrl, List<Metrics.Summary> summaries,
+      JvmSampler.Usage usage) throws IOException {
+    Double concurrencyPerGb = usage == null ? null
+        : perGigabyte(summaries.get(summaries.size() - 1).concurrency(), usage);
+    Report report = new Report(baseUrl, config.profiles(), config.users(), config.admins(),
+        config.warmup().toSeconds(), config.duration().toSeconds(), config.thinkTime().toMillis(),
+        config.checkoutRatio(), usage, concurrencyPerGb, summaries);
+    if (config.report().getParent() != null) {
+      Files.createDirectories(config.report().getParent());
+    }
+    new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(config.report().toFile(), report);
+    log.info("Report written to {}", config.report());
+  }
+
+  /**
+   * Contents of the JSON report.
+   */
+  private record Report(
+    String baseUrl,
+    String profiles,
+    int users,
+    int admins,
+    long warmupSeconds,
+    long durationSeconds,
+    long thinkTimeMillis,
+    double checkoutRatio,
+    JvmSampler.Usage jvm,
+    Double concurrencyPerGbLiveHeap,
+    List<Metrics.Summary> endpoints
+  ) {}
+}
@@ -0,0 +1,106 @@
+package com.gplanet.commerce.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Options of a load test run, given as {@code name=value} program arguments.
+ *
+ * @author Gustavo
+ * @version 1.0
+ *
+ * @param baseUrl       URL of an already running application; when blank the
+ *                      application is started on the embedded load test database
+ * @param users         Number of concurrent shopper sessions
+ * @param admins        Number of concurrent admin sessions opening product modals
+ * @param catalogSize   Number of products seeded when the application is started here
+ * @param warmup        Time the workload runs before measuring starts
+ * @param duration      Time the workload is measured for
+ * @param thinkTime     Pause of every session between two requests
+ * @param checkoutRatio Share of shopper iterations that end with a purchase
+ * @param password      Password of the synthetic shoppers
+ * @param adminEmail    Email of the admin account
+ * @param adminPassword Password of the admin account
+ * @param maxErrorRate  Error rate above which the run fails
+ * @param report        File the JSON report is written to
+ * @param profiles      Extra Spring profiles of the embedded application, comma
+ *                      separated, e.g. {@code virtual}
+ */
+public record LoadTestConfig(
+  String baseUrl,
+  int users,
+  int admins,
+  int catalogSize,
+  Duration warmup,
+  Duration duration,
+  Duration thinkTime,
+  double checkoutRatio,
+  String password,
+  String adminEmail,
+  String adminPassword,
+  double maxErrorRate,
+  Path report,
+  String profiles
+) {
+
+  private static final Set<String> OPTIONS = Set.of("baseUrl", "users", "admins", "catalogSize", "warmup",
+      "duration", "thinkTime", "checkoutRatio", "password", "adminEmail", "adminPassword", "maxErrorRate", "report",
+      "profiles");
+
+  /**
+   * Parses the program arguments, using defaults for the missing options.
+   *
+   * @param args Arguments such as {@code users=100} or {@code duration=120}
+   * @return The options of the run
+   * @throws IllegalArgumentException if an argument is not a known option
+   */
+  public static LoadTestConfig parse(String... args) {
+    Map<String, String> options = new HashMap<>();
+    for (String arg : args) {
+      int separator = arg.indexOf('=');
+      if (separator <= 0) {
+        throw new IllegalArgumentException("Expected name=value but got: " + arg);
+      }
+      options.put(arg.substring(0, separator), arg.substring(separator + 1));
+    }
+
+    Set<String> unknown = new HashSet<>(options.keySet());
+    unknown.removeAll(OPTIONS);
+    if (!unknown.isEmpty()) {
+      throw new IllegalArgumentException("Unknown options " + unknown + ", expected any of " + OPTIONS);
+    }
+
+    return new LoadTestConfig(
+        options.get("baseUrl"),
+        Integer.parseInt(options.getOrDefault("users", "20")),
+        Integer.parseInt(options.getOrDefault("admins", "1")),
+        Integer.parseInt(options.getOrDefault("catalogSize", "1000")),
+        seconds(options.getOrDefault("warmup", "10")),
+        seconds(options.getOrDefault("duration", "60")),
+        Duration.ofMillis(Long.parseLong(options.getOrDefault("thinkTime", "0"))),
+        Double.parseDouble(options.getOrDefault("checkoutRatio", "0.3")),
+        options.getOrDefault("password", "LoadTest123!"),
+        options.getOrDefault("adminEmail", "admin@loadtest.local"),
+        options.getOrDefault("adminPassword", "LoadTest123!"),
+        Double.parseDouble(options.getOrDefault("maxErrorRate", "0.01")),
+        Path.of(options.getOrDefault("report", "loadtest-report.json")),
+        options.getOrDefault("profiles", ""));
+  }
+
+  /**
+   * Indicates whether the application has to be started by the load test.
+   *
+   * @return true when no base URL was given
+   */
+  public boolean embedded() {
+    return baseUrl == null || baseUrl.isBlank();
+  }
+
+  private static Duration seconds(String value) {
+    return Duration.ofSeconds(Long.parseLong(value));
+  }
+}
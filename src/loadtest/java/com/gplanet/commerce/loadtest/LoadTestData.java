@@ -0,0 +1,88 @@
+package com.gplanet.commerce.loadtest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.gplanet.commerce.CommerceApplication;
+import com.gplanet.commerce.entities.Producto;
+import com.gplanet.commerce.repositories.ProductoRepository;
+import com.gplanet.commerce.services.ProductoSearchService;
+
+/**
+ * Starts the application on the embedded load test database and seeds its
+ * catalog. Shoppers are not seeded: they sign up through the registration
+ * form, like real users would.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+public final class LoadTestData {
+
+  private static final String[] WORDS = {
+    "camiseta", "pantalon", "chaqueta", "zapatillas", "sudadera", "gorra", "bufanda", "calcetines",
+    "algodon", "lino", "lana", "denim", "verano", "invierno", "basica", "deportiva"
+  };
+  private static final long SEED = 42L;
+
+  private LoadTestData() {
+    throw new AssertionError("LoadTestData class should not be instantiated");
+  }
+
+  /**
+   * Starts the application with the load test profile on a random port.
+   *
+   * @param profiles Extra profiles to activate, comma separated, may be blank
+   * @return The running application context
+   */
+  public static ConfigurableApplicationContext start(String profiles) {
+    // A DevTools restart would run the load test again on a new thread, without its arguments
+    System.setProperty("spring.devtools.restart.enabled", "false");
+    return new SpringApplicationBuilder(CommerceApplication.class)
+        .profiles(("loadtest," + profiles).split(","))
+        .web(WebApplicationType.SERVLET)
+        .run();
+  }
+
+  /**
+   * Returns the URL the started application listens on.
+   *
+   * @param context The running application context
+   * @return The base URL, without a trailing slash
+   */
+  public static String baseUrl(ConfigurableApplicationContext context) {
+    return "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+  }
+
+  /**
+   * Seeds the catalog and rebuilds the search index over it.
+   *
+   * @param context     The running application context
+   * @param catalogSize Number of products, three out of four of them active
+   */
+  public static void seed(ConfigurableApplicationContext context, int catalogSize) {
+    Random random = new Random(SEED);
+    List<Producto> productos = new ArrayList<>(catalogSize);
+    for (int i = 0; i < catalogSize; i++) {
+      Producto producto = new Producto();
+      producto.setNombre(palabra(random) + " " + palabra(random) + " " + i);
+      producto.setDescripcion(palabra(random) + " " + palabra(random) + " " + palabra(random));
+      producto.setPrecio(BigDecimal.valueOf(100 + random.nextInt(10_000), 2));
+      producto.setFechaCreacion(LocalDateTime.now().minusMinutes(i));
+      producto.setActivo(i % 4 != 0);
+      productos.add(producto);
+    }
+    context.getBean(ProductoRepository.class).saveAll(productos);
+    context.getBean(ProductoSearchService.class).rebuild();
+  }
+
+  private static String palabra(Random random) {
+    return WORDS[random.nextInt(WORDS.length)];
+  }
+}
@@ -0,0 +1,156 @@
+package com.gplanet.commerce.loadtest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Latencies and errors of the requests sent during the measured part of a
+ * load test, grouped by endpoint.
+ *
+ * Samples are ignored until {@link #start()} is called, so that the warmup
+ * and the session logins do not skew the results.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+public class Metrics {
+
+  private static final double NANOS_PER_MILLI = 1_000_000d;
+  private static final double NANOS_PER_SECOND = 1_000_000_000d;
+  private static final int INITIAL_CAPACITY = 1024;
+
+  private final Map<String, Endpoint> endpoints = new ConcurrentSkipListMap<>();
+  private volatile boolean recording;
+  private volatile long startedAt;
+  private volatile long stoppedAt;
+
+  /**
+   * Summary of the requests sent to one endpoint.
+   *
+   * @param endpoint    Method and URL template of the endpoint
+   * @param requests    Number of requests sent
+   * @param errors      Number of requests that failed or got an unexpected response
+   * @param errorRate   Share of failed requests
+   * @param throughput  Requests per second
+   * @param concurrency Average number of requests in flight, by Little's law
+   * @param p50         Median latency in milliseconds
+   * @param p90         90th percentile latency in milliseconds
+   * @param p99         99th percentile latency in milliseconds
+   * @param max         Maximum latency in milliseconds
+   */
+  public record Summary(
+    String endpoint,
+    long requests,
+    long errors,
+    double errorRate,
+    double throughput,
+    double concurrency,
+    double p50,
+    double p90,
+    double p99,
+    double max
+  ) {}
+
+  /**
+   * Starts recording samples.
+   */
+  public void start() {
+    startedAt = System.nanoTime();
+    recording = true;
+  }
+
+  /**
+   * Stops recording samples.
+   */
+  public void stop() {
+    recording = false;
+    stoppedAt = System.nanoTime();
+  }
+
+  /**
+   * Records the outcome of a request if the measurement is running.
+   *
+   * @param endpoint Method and URL template of the endpoint
+   * @param nanos    Time from sending the request to reading the whole response
+   * @param success  Whether the response was the expected one
+   */
+  public void record(String endpoint, long nanos, boolean success) {
+    if (recording) {
+      endpoints.computeIfAbsent(endpoint, k -> new Endpoint()).add(nanos, success);
+    }
+  }
+
+  /**
+   * Summarizes the recorded samples, one entry per endpoint plus a total.
+   *
+   * @return The summaries ordered by endpoint, with the total last
+   */
+  public List<Summary> summarize() {
+    double seconds = (stoppedAt - startedAt) / NANOS_PER_SECOND;
+    List<Summary> summaries = new ArrayList<>();
+    Endpoint total = new Endpoint();
+    endpoints.forEach((name, endpoint) -> {
+      summaries.add(endpoint.summarize(name, seconds));
+      total.addAll(endpoint);
+    });
+    summaries.add(total.summarize("TOTAL", seconds));
+    return summaries;
+  }
+
+  /**
+   * Samples of a single endpoint.
+   */
+  private static final class Endpoint {
+    private long[] latencies = new long[INITIAL_CAPACITY];
+    private int count;
+    private long errors;
+    private long totalNanos;
+
+    synchronized void add(long nanos, boolean success) {
+      if (count == latencies.length) {
+        latencies = Arrays.copyOf(latencies, count * 2);
+      }
+      latencies[count++] = nanos;
+      totalNanos += nanos;
+      if (!success) {
+        errors++;
+      }
+    }
+
+    synchronized void addAll(Endpoint other) {
+      synchronized (other) {
+        for (int i = 0; i < other.count; i++) {
+          add(other.latencies[i], true);
+        }
+        errors += other.errors;
+      }
+    }
+
+    synchronized Summary summarize(String name, double seconds) {
+      long[] sorted = Arrays.copyOf(latencies, count);
+      Arrays.sort(sorted);
+      return new Summary(
+          name,
+          count,
+          errors,
+          count == 0 ? 0 : (double) errors / count,
+          seconds == 0 ? 0 : count / seconds,
+          seconds == 0 ? 0 : totalNanos / NANOS_PER_SECOND / seconds,
+          percentile(sorted, 0.50),
+          percentile(sorted, 0.90),
+          percentile(sorted, 0.99),
+          count == 0 ? 0 : sorted[count - 1] / NANOS_PER_MILLI);
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+      if (sorted.length == 0) {
+        return 0;
+      }
+      int rank = (int) Math.ceil(quantile * sorted.length) - 1;
+      return sorted[Math.max(rank, 0)] / NANOS_PER_MILLI;
+    }
+  }
+}
@@ -0,0 +1,213 @@
+package com.gplanet.commerce.loadtest;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Browser-like HTTP session of one synthetic user: keeps its own cookies and
+ * CSRF token, does not follow redirects and records every request it sends.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+public class Session {
+
+  private static final Pattern CSRF = Pattern.compile("<meta name=\"_csrf\" content=\"([^\"]+)\"");
+  private static final Pattern PRODUCT_ID = Pattern.compile("data-product-id=\"(\\d+)\"");
+  private static final Duration TIMEOUT = Duration.ofSeconds(30);
+  private static final int OK = 200;
+  private static final int FOUND = 302;
+  /** Shared by every session so that clients do not add platform threads to the measured JVM. */
+  private static final ExecutorService EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+  private final String baseUrl;
+  private final Metrics metrics;
+  private final HttpClient client;
+  private String csrf;
+
+  /**
+   * Creates a session without cookies.
+   *
+   * @param baseUrl URL of the application
+   * @param metrics Where the requests are recorded
+   */
+  public Session(String baseUrl, Metrics metrics) {
+    this.baseUrl = baseUrl;
+    this.metrics = metrics;
+    this.client = HttpClient.newBuilder()
+        .cookieHandler(new CookieManager())
+        .followRedirects(HttpClient.Redirect.NEVER)
+        .connectTimeout(TIMEOUT)
+        .executor(EXECUTOR)
+        .build();
+  }
+
+  /**
+   * Outcome of a request.
+   *
+   * @param status   HTTP status, or -1 if the request failed
+   * @param body     Response body, empty if the request failed
+   * @param location Redirect target, empty if there is none
+   * @param success  Whether the response was the expected one
+   */
+  public record Response(int status, String body, String location, boolean success) {}
+
+  /**
+   * Registers the user through the sign-up form. A user left over from a
+   * previous run against the same database is reused as it is.
+   *
+   * @param nombre   Name of the user
+   * @param email    Email of the user
+   * @param password Password of the user
+   * @return The response of the sign-up form
+   */
+  public Response register(String nombre, String email, String password) {
+    page("GET /usuarios/registro", "/usuarios/registro");
+    return form("POST /usuarios/registro", "/usuarios/registro",
+        Map.of("nombre", nombre, "email", email, "password", password),
+        response -> response.status() == FOUND || response.status() == OK);
+  }
+
+  /**
+   * Logs in through the login form.
+   *
+   * @param email    Email of the user
+   * @param password Password of the user
+   * @return The response of the login form, successful when it redirects away from the login page
+   */
+  public Response login(String email, String password) {
+    page("GET /usuarios/login", "/usuarios/login");
+    return form("POST /usuarios/login", "/usuarios/login",
+        Map.of("username", email, "password", password),
+        response -> response.status() == FOUND && !response.location().contains("/usuarios/login"));
+  }
+
+  /**
+   * Loads a full page and keeps the CSRF token it carries.
+   *
+   * @param endpoint Name the request is recorded under
+   * @param path     Path and query of the page
+   * @return The response
+   */
+  public Response page(String endpoint, String path) {
+    Response response = send(endpoint, request(path).GET().build(), ok());
+    Matcher matcher = CSRF.matcher(response.body());
+    if (matcher.find()) {
+      csrf = matcher.group(1);
+    }
+    return response;
+  }
+
+  /**
+   * Loads a page fragment the way HTMX does.
+   *
+   * @param endpoint Name the request is recorded under
+   * @param path     Path and query of the fragment
+   * @return The response
+   */
+  public Response fragment(String endpoint, String path) {
+    return send(endpoint, request(path).header("HX-Request", "true").GET().build(), ok());
+  }
+
+  /**
+   * Submits a form with the current CSRF token.
+   *
+   * @param endpoint Name the request is recorded under
+   * @param path     Path the form is posted to
+   * @param fields   Form fields, in order
+   * @param expected Decides whether the response is the expected one
+   * @return The response
+   */
+  public Response form(String endpoint, String path, Map<String, String> fields,
+      Predicate<Response> expected) {
+    Map<String, String> body = new LinkedHashMap<>(fields);
+    if (csrf != null) {
+      body.put("_csrf", csrf);
+    }
+    String encoded = body.entrySet().stream()
+        .map(field -> encode(field.getKey()) + "=" + encode(field.getValue()))
+        .collect(Collectors.joining("&"));
+    HttpRequest request = request(path)
+        .header("Content-Type", "application/x-www-form-urlencoded")
+        .POST(HttpRequest.BodyPublishers.ofString(encoded))
+        .build();
+    return send(endpoint, request, expected);
+  }
+
+  /**
+   * Extracts the IDs of the products shown in a product listing.
+   *
+   * @param response A response containing product cards or rows
+   * @return The product IDs, in the order they appear
+   */
+  public static List<Long> productIds(Response response) {
+    List<Long> ids = new ArrayList<>();
+    Matcher matcher = PRODUCT_ID.matcher(response.body());
+    while (matcher.find()) {
+      ids.add(Long.valueOf(matcher.group(1)));
+    }
+    return ids;
+  }
+
+  /**
+   * Builds a query string, encoding every value.
+   *
+   * @param path   The path
+   * @param params Query parameters, in order
+   * @return The path followed by the query string
+   */
+  public static String query(String path, Map<String, ?> params) {
+    return path + "?" + params.entrySet().stream()
+        .map(param -> encode(param.getKey()) + "=" + encode(String.valueOf(param.getValue())))
+        .collect(Collectors.joining("&"));
+  }
+
+  private HttpRequest.Builder request(String path) {
+    return HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(TIMEOUT);
+  }
+
+  private Response send(String endpoint, HttpRequest request, Predicate<Response> expected) {
+    long start = System.nanoTime();
+    Response response;
+    try {
+      HttpResponse<String> http = client.send(request, HttpResponse.BodyHandlers.ofString());
+      response = new Response(http.statusCode(), http.body(),
+          http.headers().firstValue("Location").orElse(""), false);
+    } catch (IOException e) {
+      response = new Response(-1, "", "", false);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      response = new Response(-1, "", "", false);
+    }
+    long elapsed = System.nanoTime() - start;
+
+    boolean success = response.status() > 0 && expected.test(response);
+    metrics.record(endpoint, elapsed, success);
+    return new Response(response.status(), response.body(), response.location(), success);
+  }
+
+  private static Predicate<Response> ok() {
+    return response -> response.status() == OK;
+  }
+
+  private static String encode(String value) {
+    return URLEncoder.encode(value, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,76 @@
+package com.gplanet.commerce.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shopper flow: home page, HTMX product searches, an occasional checkout and
+ * the purchase history.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+public class Shopper extends VirtualUser {
+
+  private static final int MAX_LINES = 3;
+  private static final int MAX_QUANTITY = 3;
+  private static final int MAX_PAGE = 3;
+
+  private final String email;
+  private final String password;
+  private final double checkoutRatio;
+
+  /**
+   * Creates a shopper.
+   *
+   * @param session       The session the shopper browses with
+   * @param number        Number of the shopper, which determines its account
+   * @param password      Password of the account
+   * @param checkoutRatio Share of iterations that end with a purchase
+   */
+  public Shopper(Session session, int number, String password, double checkoutRatio) {
+    super(session, number);
+    this.email = "shopper" + number + "@loadtest.local";
+    this.password = password;
+    this.checkoutRatio = checkoutRatio;
+  }
+
+  @Override
+  public boolean login() {
+    session.register("Shopper " + email, email, password);
+    return session.login(email, password).success();
+  }
+
+  @Override
+  public void iterate() {
+    session.page("GET /", "/");
+
+    Map<String, Object> filter = new LinkedHashMap<>();
+    filter.put("page", random.nextInt(MAX_PAGE));
+    filter.put("size", 10);
+    filter.put("search", pick(SEARCHES));
+    filter.put("sort", pick(SORTS));
+    filter.put("direction", pick(DIRECTIONS));
+    List<Long> ids = Session.productIds(
+        session.fragment("GET /productos/filtrar", Session.query("/productos/filtrar", filter)));
+
+    if (!ids.isEmpty() && random.nextDouble() < checkoutRatio) {
+      session.form("POST /compras/nueva", "/compras/nueva", pedido(ids),
+          response -> response.location().contains("compraExitosa=true"));
+    }
+
+    session.fragment("GET /compras/filtrar", Session.query("/compras/filtrar",
+        Map.of("page", 0, "size", 10, "sort", "fecha", "direction", "DESC")));
+  }
+
+  private Map<String, String> pedido(List<Long> ids) {
+    Map<String, String> fields = new LinkedHashMap<>();
+    int lines = 1 + random.nextInt(Math.min(MAX_LINES, ids.size()));
+    for (int i = 0; i < lines; i++) {
+      fields.put("productos[" + i + "].productoId", String.valueOf(ids.get(i)));
+      fields.put("productos[" + i + "].cantidad", String.valueOf(1 + random.nextInt(MAX_QUANTITY)));
+    }
+    return fields;
+  }
+}
@@ -0,0 +1,57 @@
+package com.gplanet.commerce.loadtest;
+
+import java.util.Random;
+
+/**
+ * Synthetic user repeating a browsing flow over its own {@link Session}.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+public abstract class VirtualUser {
+
+  /** Search words matching the seeded catalog; an empty word lists everything. */
+  protected static final String[] SEARCHES = {"", "", "camiseta", "algodon", "invierno", "deportiva", "cami"};
+
+  /** Sort fields offered by the product grid. */
+  protected static final String[] SORTS = {"nombre", "precio", "fechaCreacion"};
+
+  /** Sort directions offered by the product grid. */
+  protected static final String[] DIRECTIONS = {"ASC", "DESC"};
+
+  protected final Session session;
+  protected final Random random;
+
+  /**
+   * Creates the user with its own session.
+   *
+   * @param session The session the user browses with
+   * @param seed    Seed of the choices the user makes
+   */
+  protected VirtualUser(Session session, long seed) {
+    this.session = session;
+    this.random = new Random(seed);
+  }
+
+  /**
+   * Signs the user in, creating the account first if needed.
+   *
+   * @return true if the user is logged in
+   */
+  public abstract boolean login();
+
+  /**
+   * Runs one pass of the browsing flow.
+   */
+  public abstract void iterate();
+
+  /**
+   * Picks a random element.
+   *
+   * @param values The values to pick from
+   * @return One of the values
+   */
+  protected String pick(String... values) {
+    return values[random.nextInt(values.length)];
+  }
+}
@@ -0,0 +1,17 @@
+package com.gplanet.commerce.configs;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class that enables Spring's annotation-driven caching.
+ * The caches themselves are Caffeine caches created from the
+ * {@code spring.cache.*} properties, which set their size and expiry.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+}
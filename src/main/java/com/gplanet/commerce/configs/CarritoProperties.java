@@ -0,0 +1,53 @@
+package com.gplanet.commerce.configs;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import lombok.Data;
+
+/**
+ * Configuration properties for the server-side carts of signed-in users.
+ * Carts are kept in memory and written to the database in the background
+ * shortly after they change.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "carrito")
+public class CarritoProperties {
+  private static final int DEFAULT_MAX_ENTRIES = 10_000;
+  private static final long DEFAULT_EXPIRE_AFTER_ACCESS_MINUTES = 30;
+  private static final long DEFAULT_WRITE_BEHIND_DELAY_SECONDS = 5;
+  private static final int DEFAULT_MAX_LINEAS = 50;
+  private static final int DEFAULT_MAX_CANTIDAD = 99;
+
+  /**
+   * Maximum number of carts kept in memory. Evicted carts are read again
+   * from the database when their owner comes back.
+   */
+  private int maxEntries = DEFAULT_MAX_ENTRIES;
+
+  /**
+   * How long a cart stays in memory after its last use.
+   */
+  private Duration expireAfterAccess = Duration.ofMinutes(DEFAULT_EXPIRE_AFTER_ACCESS_MINUTES);
+
+  /**
+   * How often changed carts are written to the database. Changes made
+   * within this delay of a crash are lost.
+   */
+  private Duration writeBehindDelay = Duration.ofSeconds(DEFAULT_WRITE_BEHIND_DELAY_SECONDS);
+
+  /**
+   * Maximum number of different products in a cart.
+   */
+  private int maxLineas = DEFAULT_MAX_LINEAS;
+
+  /**
+   * Maximum number of units of one product in a cart.
+   */
+  private int maxCantidad = DEFAULT_MAX_CANTIDAD;
+}
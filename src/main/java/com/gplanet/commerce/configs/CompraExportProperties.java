@@ -0,0 +1,25 @@
+package com.gplanet.commerce.configs;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import lombok.Data;
+
+/**
+ * Configuration properties for the export of the purchase history.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "compras.export")
+public class CompraExportProperties {
+  private static final int DEFAULT_FETCH_SIZE = 1_000;
+
+  /**
+   * Rows fetched from the database at a time. MySQL Connector/J reads the
+   * whole result into memory unless this is {@code Integer.MIN_VALUE}, which
+   * makes it stream the rows one by one.
+   */
+  private int fetchSize = DEFAULT_FETCH_SIZE;
+}
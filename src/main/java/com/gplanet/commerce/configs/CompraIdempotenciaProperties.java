@@ -0,0 +1,34 @@
+package com.gplanet.commerce.configs;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import lombok.Data;
+
+/**
+ * Configuration properties for the in-memory store of checkout outcomes,
+ * keyed by the idempotency key the cart sends with each checkout.
+ * The store only saves database lookups: once an outcome is evicted, the
+ * unique key on the purchases still prevents a duplicate purchase.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "compras.idempotencia")
+public class CompraIdempotenciaProperties {
+  private static final long DEFAULT_TTL_MINUTES = 30;
+  private static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+  /**
+   * How long the outcome of a checkout is replayed from memory.
+   */
+  private Duration ttl = Duration.ofMinutes(DEFAULT_TTL_MINUTES);
+
+  /**
+   * Maximum number of checkout outcomes kept in memory.
+   */
+  private int maxEntries = DEFAULT_MAX_ENTRIES;
+}
@@ -0,0 +1,52 @@
+package com.gplanet.commerce.configs;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import lombok.Data;
+
+/**
+ * Configuration properties for the asynchronous order-intake pipeline.
+ * When enabled, checkouts are validated and queued, and a small pool of
+ * writers persists them in batches instead of on the request thread.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "compras.intake")
+public class CompraIntakeProperties {
+  private static final int DEFAULT_QUEUE_CAPACITY = 1_000;
+  private static final int DEFAULT_WORKERS = 2;
+  private static final int DEFAULT_BATCH_SIZE = 50;
+  private static final long DEFAULT_STATUS_TTL_MINUTES = 10;
+
+  /**
+   * Whether checkouts go through the queue. When disabled they are written
+   * synchronously on the request thread.
+   */
+  private boolean enabled;
+
+  /**
+   * Maximum number of orders waiting to be written. Further orders are
+   * rejected until the writers catch up.
+   */
+  private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+
+  /**
+   * Number of writer threads draining the queue.
+   */
+  private int workers = DEFAULT_WORKERS;
+
+  /**
+   * Maximum number of orders written in a single transaction.
+   */
+  private int batchSize = DEFAULT_BATCH_SIZE;
+
+  /**
+   * How long the state of an order can be looked up after it was received.
+   */
+  private Duration statusTtl = Duration.ofMinutes(DEFAULT_STATUS_TTL_MINUTES);
+}
@@ -0,0 +1,40 @@
+package com.gplanet.commerce.configs;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import lombok.Data;
+
+/**
+ * Configuration properties for the cache of listing totals.
+ * Controls how stale the "1-10 of N" totals may be and how far the database
+ * is allowed to count before reporting an estimate instead.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "pagination.count-cache")
+public class CountCacheProperties {
+  private static final long DEFAULT_TTL_SECONDS = 30;
+  private static final int DEFAULT_MAX_EXACT_COUNT = 10_000;
+  private static final int DEFAULT_MAX_ENTRIES = 1_000;
+
+  /**
+   * How long a computed total is reused before counting again.
+   */
+  private Duration ttl = Duration.ofSeconds(DEFAULT_TTL_SECONDS);
+
+  /**
+   * Maximum number of rows counted exactly. Larger totals are reported as
+   * "more than" this value.
+   */
+  private int maxExactCount = DEFAULT_MAX_EXACT_COUNT;
+
+  /**
+   * Maximum number of query shapes cached per listing.
+   */
+  private int maxEntries = DEFAULT_MAX_ENTRIES;
+}
@@ -3,19 +3,24 @@ package com.gplanet.commerce.configs;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import com.gplanet.commerce.entities.Usuario;
 import com.gplanet.commerce.repositories.UsuarioRepository;
 
 import java.time.LocalDateTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Configuration class responsible for initializing default data in the
  * application.
- * Creates the default admin user if no users exist in the system.
+ * Creates the default admin user if no users exist in the system, on a
+ * virtual thread when virtual threads are enabled.
  * 
  * @author Gustavo
  * @version 1.0
@@ -28,6 +33,7 @@ public class DataInitializer {
   private final UsuarioRepository usuarioRepository;
   private final PasswordEncoder passwordEncoder;
   private final AdminProperties adminProperties;
+  private final Environment environment;
 
   /**
    * Creates a CommandLineRunner bean that initializes the default admin user.
@@ -39,22 +45,32 @@ public class DataInitializer {
   @Bean
   public CommandLineRunner initData() {
     return args -> {
-      if (adminProperties.getEmail() == null || adminProperties.getPassword() == null) {
-        log.warn("Admin credentials not configured. Skipping admin user creation.");
+      if (!Threading.VIRTUAL.isActive(environment)) {
+        crearAdmin();
         return;
       }
-
-      // Only create admin if no users exist in the system
-      if (usuarioRepository.count() == 0) {
-        Usuario admin = new Usuario();
-        admin.setNombre("Admin");
-        admin.setEmail(adminProperties.getEmail());
-        admin.setPassword(passwordEncoder.encode(adminProperties.getPassword()));
-        admin.setRol(Usuario.Role.ADMIN);
-        admin.setFechaCreacion(LocalDateTime.now());
-        usuarioRepository.save(admin);
-        log.info("Default admin user created successfully");
+      try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+        executor.submit(this::crearAdmin).get();
       }
     };
   }
+
+  private void crearAdmin() {
+    if (adminProperties.getEmail() == null || adminProperties.getPassword() == null) {
+      log.warn("Admin credentials not configured. Skipping admin user creation.");
+      return;
+    }
+
+    // Only create admin if no users exist in the system
+    if (usuarioRepository.count() == 0) {
+      Usuario admin = new Usuario();
+      admin.setNombre("Admin");
+      admin.setEmail(adminProperties.getEmail());
+      admin.setPassword(passwordEncoder.encode(adminProperties.getPassword()));
+      admin.setRol(Usuario.Role.ADMIN);
+      admin.setFechaCreacion(LocalDateTime.now());
+      usuarioRepository.save(admin);
+      log.info("Default admin user created successfully");
+    }
+  }
 }
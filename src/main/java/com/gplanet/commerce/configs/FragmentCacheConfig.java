@@ -0,0 +1,37 @@
+package com.gplanet.commerce.configs;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.gplanet.commerce.controllers.ProductoGridCacheFilter;
+import com.gplanet.commerce.services.FragmentCacheService;
+
+/**
+ * Configuration class that serves the public product grid from the cache of
+ * rendered fragments. The filter runs after Spring Security, so access rules
+ * apply to cached responses as well.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "productos.fragment-cache", name = "enabled", matchIfMissing = true)
+public class FragmentCacheConfig {
+
+  /**
+   * Registers the product grid cache filter on the grid endpoint only.
+   *
+   * @param fragmentCacheService Service that stores the rendered fragments
+   * @return The filter registration
+   */
+  @Bean
+  public FilterRegistrationBean<ProductoGridCacheFilter> productoGridCacheFilter(
+      FragmentCacheService fragmentCacheService) {
+    FilterRegistrationBean<ProductoGridCacheFilter> registration =
+        new FilterRegistrationBean<>(new ProductoGridCacheFilter(fragmentCacheService));
+    registration.addUrlPatterns("/productos/filtrar");
+    return registration;
+  }
+}
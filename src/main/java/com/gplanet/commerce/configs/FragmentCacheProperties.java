@@ -0,0 +1,38 @@
+package com.gplanet.commerce.configs;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import lombok.Data;
+
+/**
+ * Configuration properties for the cache of rendered product grid fragments.
+ * Entries are keyed by the catalog version, so the limits below only bound
+ * memory: a product change is visible on the next request regardless.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "productos.fragment-cache")
+public class FragmentCacheProperties {
+  private static final int DEFAULT_MAX_ENTRIES = 500;
+  private static final long DEFAULT_TTL_MINUTES = 10;
+
+  /**
+   * Whether rendered product grids are cached.
+   */
+  private boolean enabled = true;
+
+  /**
+   * Maximum number of rendered fragments kept.
+   */
+  private int maxEntries = DEFAULT_MAX_ENTRIES;
+
+  /**
+   * How long a rendered fragment is kept after it is rendered.
+   */
+  private Duration ttl = Duration.ofMinutes(DEFAULT_TTL_MINUTES);
+}
@@ -0,0 +1,32 @@
+package com.gplanet.commerce.configs;
+
+import java.nio.file.Path;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import lombok.Data;
+
+/**
+ * Configuration properties for the bulk import of products.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "productos.import")
+public class ProductoImportProperties {
+  private static final int DEFAULT_BATCH_SIZE = 500;
+
+  /**
+   * Directory where uploaded files and error reports are kept. Uploaded files
+   * stay there until their import completes, so interrupted imports can be
+   * resumed.
+   */
+  private Path directory = Path.of(System.getProperty("java.io.tmpdir"), "g-commerce-imports");
+
+  /**
+   * Maximum number of rows written in a single transaction.
+   */
+  private int batchSize = DEFAULT_BATCH_SIZE;
+}
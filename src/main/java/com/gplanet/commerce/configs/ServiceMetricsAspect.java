@@ -0,0 +1,80 @@
+package com.gplanet.commerce.configs;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aspect that times every public method of the product, purchase and user
+ * services. Each call is recorded in the {@code commerce.service} timer,
+ * tagged with the service, the method and the exception thrown, if any, so
+ * the timer also counts calls and failures. Slow calls are written to the
+ * {@code performance} log.
+ *
+ * Controller endpoints are timed by Spring Boot in the
+ * {@code http.server.requests} timer.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class ServiceMetricsAspect {
+
+  /** Name of the timer recording the service calls. */
+  public static final String TIMER_NAME = "commerce.service";
+
+  private static final Logger PERFORMANCE_LOG = LoggerFactory.getLogger("performance");
+  private static final String NO_EXCEPTION = "none";
+
+  private final MeterRegistry meterRegistry;
+  private final ServiceMetricsProperties properties;
+
+  /**
+   * Times a call to a service method.
+   *
+   * @param joinPoint The call
+   * @return The value returned by the method
+   * @throws Throwable The exception thrown by the method
+   */
+  @Around("execution(public * com.gplanet.commerce.services.ProductoService.*(..))"
+      + " || execution(public * com.gplanet.commerce.services.CompraService.*(..))"
+      + " || execution(public * com.gplanet.commerce.services.UsuarioService.*(..))")
+  public Object medir(ProceedingJoinPoint joinPoint) throws Throwable {
+    long inicio = System.nanoTime();
+    String exception = NO_EXCEPTION;
+    try {
+      return joinPoint.proceed();
+    } catch (Throwable e) {
+      exception = e.getClass().getSimpleName();
+      throw e;
+    } finally {
+      long duracion = System.nanoTime() - inicio;
+      String servicio = joinPoint.getSignature().getDeclaringType().getSimpleName();
+      String metodo = joinPoint.getSignature().getName();
+
+      Timer.builder(TIMER_NAME)
+          .description("Calls to the public methods of the services")
+          .tag("class", servicio)
+          .tag("method", metodo)
+          .tag("exception", exception)
+          .register(meterRegistry)
+          .record(duracion, TimeUnit.NANOSECONDS);
+
+      if (duracion >= properties.getSlowThreshold().toNanos()) {
+        PERFORMANCE_LOG.warn("Slow call {}.{} took {} ms (exception: {})",
+            servicio, metodo, TimeUnit.NANOSECONDS.toMillis(duracion), exception);
+      }
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package com.gplanet.commerce.configs;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import lombok.Data;
+
+/**
+ * Configuration properties for the timing of service methods.
+ * Controls which calls are slow enough to be written to the performance log.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "metrics.services")
+public class ServiceMetricsProperties {
+  private static final long DEFAULT_SLOW_THRESHOLD_MILLIS = 500;
+
+  /**
+   * Calls taking at least this long are logged to the performance log.
+   */
+  private Duration slowThreshold = Duration.ofMillis(DEFAULT_SLOW_THRESHOLD_MILLIS);
+}
@@ -0,0 +1,86 @@
+package com.gplanet.commerce.configs;
+
+import javax.sql.DataSource;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import com.gplanet.commerce.controllers.SqlBudgetFilter;
+import com.gplanet.commerce.utilities.SqlRequestStats;
+import com.gplanet.commerce.utilities.SqlStatementCounter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Configuration class that counts the database work of every request. The
+ * data source is wrapped to count and time statements, Hibernate reports
+ * every entity it loads, and a filter around the whole request, security
+ * included, checks the counts against the budget.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "sql.budget", name = "enabled", matchIfMissing = true)
+public class SqlBudgetConfig {
+
+  /**
+   * Wraps the data source so that its statements are counted.
+   *
+   * @return The post-processor wrapping the data source
+   */
+  @Bean
+  public static BeanPostProcessor sqlCountingDataSourcePostProcessor() {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        return bean instanceof DataSource dataSource ? SqlStatementCounter.wrap(dataSource) : bean;
+      }
+    };
+  }
+
+  /**
+   * Counts the entities loaded by Hibernate once the persistence unit is ready.
+   *
+   * @param entityManagerFactory The JPA entity manager factory
+   * @return The callback registering the listener
+   */
+  @Bean
+  public SmartInitializingSingleton sqlBudgetEntityLoadListener(EntityManagerFactory entityManagerFactory) {
+    return () -> entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+        .getServiceRegistry()
+        .requireService(EventListenerRegistry.class)
+        .appendListeners(EventType.POST_LOAD, (PostLoadEventListener) event -> {
+          SqlRequestStats stats = SqlRequestStats.current();
+          if (stats != null) {
+            stats.entityLoaded();
+          }
+        });
+  }
+
+  /**
+   * Registers the SQL budget filter before every other filter.
+   *
+   * @param properties    The budget
+   * @param meterRegistry Registry the counts are published to
+   * @return The filter registration
+   */
+  @Bean
+  public FilterRegistrationBean<SqlBudgetFilter> sqlBudgetFilter(SqlBudgetProperties properties,
+      MeterRegistry meterRegistry) {
+    FilterRegistrationBean<SqlBudgetFilter> registration =
+        new FilterRegistrationBean<>(new SqlBudgetFilter(properties, meterRegistry));
+    registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+    return registration;
+  }
+}
@@ -0,0 +1,57 @@
+package com.gplanet.commerce.configs;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import lombok.Data;
+
+/**
+ * Configuration properties for the per-request SQL budget.
+ * Requests doing more database work than allowed here are written to the
+ * performance log, as are statements repeated often enough to suggest an
+ * N+1 query.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "sql.budget")
+public class SqlBudgetProperties {
+  private static final int DEFAULT_MAX_STATEMENTS = 25;
+  private static final long DEFAULT_MAX_DB_TIME_MILLIS = 250;
+  private static final int DEFAULT_MAX_ENTITIES = 500;
+  private static final int DEFAULT_REPEATED_THRESHOLD = 5;
+
+  /**
+   * Whether the database work of each request is counted.
+   */
+  private boolean enabled = true;
+
+  /**
+   * Maximum number of JDBC statements per request.
+   */
+  private int maxStatements = DEFAULT_MAX_STATEMENTS;
+
+  /**
+   * Maximum time spent in the database per request.
+   */
+  private Duration maxDbTime = Duration.ofMillis(DEFAULT_MAX_DB_TIME_MILLIS);
+
+  /**
+   * Maximum number of entities loaded per request.
+   */
+  private int maxEntities = DEFAULT_MAX_ENTITIES;
+
+  /**
+   * Number of executions of the same statement in one request reported as
+   * a possible N+1 query.
+   */
+  private int repeatedThreshold = DEFAULT_REPEATED_THRESHOLD;
+
+  /**
+   * Whether the counts are sent in response headers. Disabled in production.
+   */
+  private boolean exposeHeaders = true;
+}
@@ -0,0 +1,152 @@
+package com.gplanet.commerce.controllers;
+
+import java.util.List;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import com.gplanet.commerce.dtos.compra.CompraProductoDTO;
+import com.gplanet.commerce.exceptions.CarritoLlenoException;
+import com.gplanet.commerce.exceptions.ResourceNotFoundException;
+import com.gplanet.commerce.services.CarritoService;
+import com.gplanet.commerce.utilities.ToastUtil;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Controller class that handles the cart of signed-in users, kept on the server.
+ * Every endpoint answers with the cart fragment, which HTMX swaps into the
+ * cart modal together with the cart badge.
+ * 
+ * @author Gustavo
+ * @version 1.0
+ */
+@Controller
+@RequestMapping("/carrito")
+@RequiredArgsConstructor
+@Slf4j
+public class CarritoController {
+
+  private static final String CONTENIDO = "carrito/carrito :: carrito-contenido";
+
+  private final CarritoService carritoService;
+
+  /**
+   * Shows the cart of the current user.
+   * 
+   * @param authentication Current user's authentication
+   * @param model Spring MVC model
+   * @return Fragment name containing the cart
+   */
+  @GetMapping
+  public String verCarrito(Authentication authentication, Model model) {
+    model.addAttribute("carrito", carritoService.obtener(authentication.getName()));
+    return CONTENIDO;
+  }
+
+  /**
+   * Shows the summary of the cart of the current user before the checkout.
+   * 
+   * @param authentication Current user's authentication
+   * @param model Spring MVC model
+   * @return Fragment name containing the summary
+   */
+  @GetMapping("/resumen")
+  public String resumen(Authentication authentication, Model model) {
+    model.addAttribute("carrito", carritoService.obtener(authentication.getName()));
+    return "carrito/carrito :: carrito-resumen";
+  }
+
+  /**
+   * Adds units of a product to the cart of the current user.
+   * 
+   * @param productoId ID of the product to add
+   * @param cantidad Units to add
+   * @param authentication Current user's authentication
+   * @param model Spring MVC model
+   * @return Fragment name containing the cart
+   */
+  @PostMapping("/agregar")
+  public String agregar(
+          @RequestParam Long productoId,
+          @RequestParam(defaultValue = "1") int cantidad,
+          Authentication authentication,
+          Model model) {
+      String email = authentication.getName();
+      try {
+          model.addAttribute("carrito", carritoService.agregar(email, productoId, cantidad));
+          ToastUtil.success(model, "Product added to cart");
+          return CONTENIDO;
+      } catch (IllegalArgumentException e) {
+          ToastUtil.error(model, "Quantity must be greater than 0");
+      } catch (ResourceNotFoundException e) {
+          log.warn("Product {} not added to the cart of user {} - not available", productoId, email);
+          ToastUtil.error(model, "This product is no longer available");
+      } catch (CarritoLlenoException e) {
+          log.warn("Product {} not added to the cart of user {} - cart full", productoId, email);
+          ToastUtil.error(model, "Your cart cannot hold more products");
+      }
+      model.addAttribute("carrito", carritoService.obtener(email));
+      return CONTENIDO;
+  }
+
+  /**
+   * Sets the units of a product in the cart of the current user. Zero units
+   * remove the product.
+   * 
+   * @param productoId ID of the product to update
+   * @param cantidad New units
+   * @param authentication Current user's authentication
+   * @param model Spring MVC model
+   * @return Fragment name containing the cart
+   */
+  @PostMapping("/actualizar")
+  public String actualizar(
+          @RequestParam Long productoId,
+          @RequestParam int cantidad,
+          Authentication authentication,
+          Model model) {
+      model.addAttribute("carrito", carritoService.actualizar(authentication.getName(), productoId, cantidad));
+      return CONTENIDO;
+  }
+
+  /**
+   * Removes a product from the cart of the current user.
+   * 
+   * @param productoId ID of the product to remove
+   * @param authentication Current user's authentication
+   * @param model Spring MVC model
+   * @return Fragment name containing the cart
+   */
+  @PostMapping("/eliminar/{productoId}")
+  public String eliminar(@PathVariable Long productoId, Authentication authentication, Model model) {
+      model.addAttribute("carrito", carritoService.eliminar(authentication.getName(), productoId));
+      return CONTENIDO;
+  }
+
+  /**
+   * Adds the cart the user filled in before signing in, sent by the page
+   * from its local storage, to the cart of the current user.
+   * 
+   * @param productos Products of the anonymous cart
+   * @param authentication Current user's authentication
+   * @param model Spring MVC model
+   * @return Fragment name containing the cart
+   */
+  @PostMapping("/fusionar")
+  public String fusionar(
+          @RequestBody List<CompraProductoDTO> productos,
+          Authentication authentication,
+          Model model) {
+      model.addAttribute("carrito", carritoService.fusionar(authentication.getName(), productos));
+      return CONTENIDO;
+  }
+}
@@ -11,15 +11,26 @@ import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import com.gplanet.commerce.dtos.carrito.CarritoDTO;
+import com.gplanet.commerce.dtos.carrito.CompraCarritoDTO;
 import com.gplanet.commerce.dtos.compra.CompraDTO;
 import com.gplanet.commerce.dtos.compra.CompraResponseDTO;
+import com.gplanet.commerce.dtos.compra.PedidoEstadoDTO;
+import com.gplanet.commerce.dtos.compra.ResultadoCompraDTO;
 import com.gplanet.commerce.dtos.pagination.PaginatedResponse;
+import com.gplanet.commerce.dtos.pagination.PaginationRequest;
+import com.gplanet.commerce.exceptions.PedidoQueueFullException;
 import com.gplanet.commerce.exceptions.ResourceNotFoundException;
+import com.gplanet.commerce.exceptions.StockInsuficienteException;
+import com.gplanet.commerce.services.CarritoService;
+import com.gplanet.commerce.services.CompraIdempotenciaService;
+import com.gplanet.commerce.services.CompraIntakeService;
 import com.gplanet.commerce.services.CompraService;
 import com.gplanet.commerce.utilities.ToastUtil;
 
@@ -41,9 +52,14 @@ import lombok.extern.slf4j.Slf4j;
 public class CompraController {
 
   private final CompraService compraService;
+  private final CompraIntakeService compraIntakeService;
+  private final CompraIdempotenciaService compraIdempotenciaService;
+  private final CarritoService carritoService;
 
   /**
-   * Processes a new purchase request from a user.
+   * Processes a new purchase request from a user. A request carrying the
+   * idempotency key of an earlier checkout gets that checkout's outcome
+   * instead of purchasing again.
    * 
    * @param compraDTO Purchase data transfer object containing purchase details
    * @param bindingResult Validation results for the purchase data
@@ -72,22 +88,147 @@ public class CompraController {
           return "redirect:/?compraExitosa=false";
       }
 
+      String email = authentication.getName();
+      String clave = compraDTO.claveIdempotencia();
+      Runnable realizar = () -> compraService.realizarCompra(email, compraDTO);
+      ResultadoCompraDTO resultado = clave == null
+          ? comprar(email, compraDTO, realizar, () -> { })
+          : compraIdempotenciaService.ejecutar(email, clave, () -> comprar(email, compraDTO, realizar, () -> { }));
+      return redirigir(resultado, redirectAttributes);
+  }
+
+  /**
+   * Processes the purchase of the cart the current user keeps on the server.
+   * The products and prices are those of the cart as last validated, so they
+   * are not resolved again. The purchased units are taken off the cart once
+   * the purchase is confirmed: right away when it is written synchronously,
+   * or when the writer confirms it when it is queued, so a rejected order
+   * leaves the cart as it was.
+   * Like {@link #processPurchase}, a request carrying the idempotency key of
+   * an earlier checkout gets that checkout's outcome.
+   * 
+   * @param compraCarritoDTO Checkout data, with the idempotency key
+   * @param bindingResult Validation results for the checkout data
+   * @param authentication Current user's authentication
+   * @param redirectAttributes Redirect attributes for toast messages
+   * @return Redirect URL with purchase status
+   */
+  @PostMapping("/carrito")
+  public String processCartPurchase(
+          @Valid @ModelAttribute CompraCarritoDTO compraCarritoDTO,
+          BindingResult bindingResult,
+          Authentication authentication,
+          RedirectAttributes redirectAttributes) {
+
+      if (bindingResult.hasErrors()) {
+          String errors = bindingResult.getFieldErrors().stream()
+                  .map(FieldError::getDefaultMessage)
+                  .collect(Collectors.joining("\n"));
+
+          log.warn("Cart checkout validation errors for user {}: {}", authentication.getName(), errors);
+          ToastUtil.errorRedirect(redirectAttributes, errors);
+          return "redirect:/?compraExitosa=false";
+      }
+
+      String email = authentication.getName();
+      String clave = compraCarritoDTO.claveIdempotencia();
+      ResultadoCompraDTO resultado = clave == null
+          ? comprarCarrito(email, null)
+          : compraIdempotenciaService.ejecutar(email, clave, () -> comprarCarrito(email, clave));
+      return redirigir(resultado, redirectAttributes);
+  }
+
+  /**
+   * Redirects to the home page with the outcome of a purchase.
+   *
+   * @param resultado The outcome of the purchase
+   * @param redirectAttributes Redirect attributes for toast messages
+   * @return Redirect URL with purchase status
+   */
+  private String redirigir(ResultadoCompraDTO resultado, RedirectAttributes redirectAttributes) {
+      if (!resultado.exitosa()) {
+          ToastUtil.errorRedirect(redirectAttributes, resultado.mensaje());
+          return "redirect:/?compraExitosa=false";
+      }
+      ToastUtil.successRedirect(redirectAttributes, resultado.mensaje());
+      return resultado.pedido() == null
+          ? "redirect:/?compraExitosa=true"
+          : "redirect:/?compraExitosa=true&pedido=" + resultado.pedido();
+  }
+
+  /**
+   * Purchases the cart of a user and takes the purchased units off the cart
+   * once the purchase is confirmed. Products added to the cart meanwhile,
+   * from another tab for instance, stay in it.
+   *
+   * @param email Email of the user making the purchase
+   * @param clave The idempotency key of the checkout, or null
+   * @return The outcome of the purchase
+   */
+  private ResultadoCompraDTO comprarCarrito(String email, String clave) {
+      CarritoDTO carrito = carritoService.obtener(email);
+      if (carrito.isEmpty()) {
+          return ResultadoCompraDTO.rechazada("Your cart is empty");
+      }
+      return comprar(email, carrito.toCompraDTO(clave),
+          () -> compraService.realizarCompra(email, carrito, clave),
+          () -> carritoService.descontar(email, carrito));
+  }
+
+  /**
+   * Writes or queues a purchase and describes its outcome to the buyer.
+   * When the order-intake mode is enabled the purchase request is queued;
+   * otherwise the given action writes it.
+   *
+   * @param email Email of the user making the purchase
+   * @param compraDTO Purchase data transfer object containing purchase details
+   * @param realizar Writes the purchase synchronously
+   * @param confirmada Runs once the purchase is written
+   * @return The outcome of the purchase
+   */
+  private ResultadoCompraDTO comprar(String email, CompraDTO compraDTO, Runnable realizar, Runnable confirmada) {
       try {
-          compraService.realizarCompra(authentication.getName(), compraDTO);
-          log.info("Purchase successfully completed for user: {}", authentication.getName());
-          ToastUtil.successRedirect(redirectAttributes, "Purchase completed successfully");
-          return "redirect:/?compraExitosa=true";
+          if (compraIntakeService.isEnabled()) {
+              PedidoEstadoDTO pedido = compraIntakeService.enviar(email, compraDTO, confirmada);
+              log.info("Purchase queued for user: {} - order: {}", email, pedido.token());
+              return ResultadoCompraDTO.recibida(pedido.token());
+          }
+
+          realizar.run();
+          log.info("Purchase successfully completed for user: {}", email);
+          confirmada.run();
+          return ResultadoCompraDTO.completada();
       } catch (UsernameNotFoundException e) {
-          log.error("Purchase failed - User not found: {}", authentication.getName(), e);
-          ToastUtil.errorRedirect(redirectAttributes, "Purchase failed: User not found");
-          return "redirect:/?compraExitosa=false";
+          log.error("Purchase failed - User not found: {}", email, e);
+          return ResultadoCompraDTO.rechazada("Purchase failed: User not found");
       } catch(ResourceNotFoundException e) {
-          log.error("Purchase failed - Product not found for user: {}", authentication.getName(), e);
-          ToastUtil.errorRedirect(redirectAttributes, "Purchase failed: Product not found");
-          return "redirect:/?compraExitosa=false";
+          log.error("Purchase failed - Product not found for user: {}", email, e);
+          return ResultadoCompraDTO.rechazada("Purchase failed: Product not found");
+      } catch (StockInsuficienteException e) {
+          log.warn("Purchase rejected for user {} - not enough stock of products {}", email, e.getProductoIds());
+          return ResultadoCompraDTO.rechazada("Purchase failed: some products are out of stock");
+      } catch (PedidoQueueFullException e) {
+          log.warn("Purchase rejected for user {} - order queue full", email);
+          return ResultadoCompraDTO.rechazada("We are receiving many orders right now, please try again");
       }
   }
 
+  /**
+   * Returns the state of an order received asynchronously. While the order is
+   * pending, the fragment polls this endpoint until it is confirmed or rejected.
+   *
+   * @param token The token of the order
+   * @param authentication Current user's authentication
+   * @param model Spring MVC model
+   * @return Fragment name containing the order state
+   */
+  @GetMapping("/pedido/{token}")
+  public String estadoPedido(@PathVariable String token, Authentication authentication, Model model) {
+      compraIntakeService.estado(authentication.getName(), token)
+          .ifPresent(pedido -> model.addAttribute("pedido", pedido));
+      return "compras/pedido :: pedido-estado";
+  }
+
   /**
    * Lists all purchases for the current user with pagination.
    * 
@@ -114,7 +255,7 @@ public class CompraController {
    * Filters and paginates purchase list based on provided parameters.
    * 
    * @param authentication Current user's authentication
-   * @param page Page number (zero-based)
+   * @param pagination Page number or keyset mode and cursor
    * @param size Items per page
    * @param sort Sort field
    * @param direction Sort direction
@@ -124,22 +265,27 @@ public class CompraController {
   @GetMapping("/filtrar")
   public String filterProducts(
           Authentication authentication,
-          @RequestParam(defaultValue = "0") int page,
           @RequestParam(defaultValue = "10") int size,
           @RequestParam(defaultValue = "fecha") String sort,
           @RequestParam(defaultValue = "DESC") String direction,
+          PaginationRequest pagination,
           Model model) {
       
     if (log.isDebugEnabled()) {
-        log.debug("Filtering purchases for user: {} - page: {}, size: {}, sort: {} {}", 
-            authentication.getName(), page, size, sort, direction);
+        log.debug("Filtering purchases for user: {} - page: {}, size: {}, sort: {} {}, keyset: {}", 
+            authentication.getName(), pagination.page(), size, sort, direction, pagination.isKeyset());
     }
       
-    Page<CompraResponseDTO> comprasPage = compraService.listarCompras(
-        authentication.getName(), page, size, sort, direction);
-    PaginatedResponse<CompraResponseDTO> paginatedResponse = PaginatedResponse.fromPage(comprasPage);
+    PaginatedResponse<CompraResponseDTO> paginatedResponse;
+    if (pagination.isKeyset()) {
+      paginatedResponse = compraService.scrollCompras(
+          authentication.getName(), pagination.cursor(), size, sort, direction);
+    } else {
+      paginatedResponse = PaginatedResponse.fromPage(compraService.listarCompras(
+          authentication.getName(), pagination.page(), size, sort, direction));
+    }
 
-    model.addAttribute("compras", comprasPage.getContent());
+    model.addAttribute("compras", paginatedResponse.getContent());
     model.addAttribute("pagination", paginatedResponse);
     
     return "compras/page :: compras-page";
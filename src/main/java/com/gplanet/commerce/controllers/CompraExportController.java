@@ -0,0 +1,81 @@
+package com.gplanet.commerce.controllers;
+
+import java.time.LocalDate;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.gplanet.commerce.dtos.compra.CompraExportFormat;
+import com.gplanet.commerce.services.CompraExportService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Controller class that lets admins export the purchase history. The export
+ * is streamed to the client as it is read from the database.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+@Controller
+@RequestMapping("/compras/admin/exportar")
+@RequiredArgsConstructor
+@Slf4j
+public class CompraExportController {
+
+  private final CompraExportService compraExportService;
+
+  /**
+   * Shows the export form.
+   *
+   * @param model Spring MVC model
+   * @return View name for the export page
+   */
+  @GetMapping
+  public String exportar(Model model) {
+    model.addAttribute("activePage", "adminCompras");
+    return "compras/exportar";
+  }
+
+  /**
+   * Downloads the purchases matching the given filters, with their lines.
+   *
+   * @param formato CSV or NDJSON
+   * @param desde   First day of the purchases to export, optional
+   * @param hasta   Last day of the purchases to export, inclusive, optional
+   * @param usuario Email of the customer whose purchases are exported, optional
+   * @return The export, streamed, or 400 if the date range is empty
+   */
+  @GetMapping("/descargar")
+  public ResponseEntity<StreamingResponseBody> descargar(
+      @RequestParam(defaultValue = "CSV") CompraExportFormat formato,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+      @RequestParam(required = false) String usuario) {
+    if (desde != null && hasta != null && desde.isAfter(hasta)) {
+      log.warn("Rejected purchase export with an empty date range: {} to {}", desde, hasta);
+      return ResponseEntity.badRequest().build();
+    }
+    log.info("Exporting purchases as {} - from: {}, to: {}, user: {}", formato, desde, hasta, usuario);
+
+    String nombre = "compras"
+        + (desde != null ? "-desde-" + desde : "")
+        + (hasta != null ? "-hasta-" + hasta : "")
+        + "." + formato.getExtension();
+    StreamingResponseBody body = out -> compraExportService.exportar(formato, desde, hasta, usuario, out);
+    return ResponseEntity.ok()
+        .contentType(MediaType.parseMediaType(formato.getContentType()))
+        .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(nombre).build().toString())
+        .body(body);
+  }
+}
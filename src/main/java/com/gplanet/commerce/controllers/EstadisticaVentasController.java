@@ -0,0 +1,88 @@
+package com.gplanet.commerce.controllers;
+
+import java.time.LocalDate;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+
+import com.gplanet.commerce.entities.Granularity;
+import com.gplanet.commerce.services.EstadisticaVentasService;
+import com.gplanet.commerce.utilities.ToastUtil;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Controller class for the sales dashboard of the admins. The dashboard
+ * reads only the sales statistics, never the purchases.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+@Controller
+@RequestMapping("/compras/admin/estadisticas")
+@RequiredArgsConstructor
+@Slf4j
+public class EstadisticaVentasController {
+
+  private static final int DEFAULT_DAYS = 30;
+
+  private final EstadisticaVentasService estadisticaVentasService;
+
+  /**
+   * Shows the sales of a range of days, by default the last 30.
+   *
+   * @param desde        First day of the report, optional
+   * @param hasta        Last day of the report, inclusive, optional
+   * @param granularidad Length of the periods of the sales series
+   * @param model        Spring MVC model
+   * @return View name for the sales dashboard
+   */
+  @GetMapping
+  public String estadisticas(
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+      @RequestParam(defaultValue = "DAY") Granularity granularidad,
+      Model model) {
+    LocalDate fin = hasta != null ? hasta : LocalDate.now();
+    LocalDate inicio = desde != null ? desde : fin.minusDays(DEFAULT_DAYS - 1L);
+    if (inicio.isAfter(fin)) {
+      ToastUtil.error(model, "The first day must not be after the last one.");
+      inicio = fin;
+    }
+
+    model.addAttribute("activePage", "adminEstadisticas");
+    model.addAttribute("resumen", estadisticaVentasService.resumen(inicio, fin, granularidad));
+    return "compras/estadisticas";
+  }
+
+  /**
+   * Rebuilds the sales statistics of a range of days from the purchases.
+   *
+   * @param desde              First day to rebuild
+   * @param hasta              Last day to rebuild, inclusive
+   * @param redirectAttributes Attributes for the redirect
+   * @return Redirect to the dashboard showing the rebuilt range
+   */
+  @PostMapping("/reconstruir")
+  public String reconstruir(
+      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+      RedirectAttributes redirectAttributes) {
+    try {
+      long compras = estadisticaVentasService.reconstruir(desde, hasta);
+      ToastUtil.successRedirect(redirectAttributes, "Statistics rebuilt from " + compras + " purchases.");
+    } catch (IllegalArgumentException e) {
+      log.warn("Rejected rebuild of sales statistics from {} to {}: {}", desde, hasta, e.getMessage());
+      ToastUtil.errorRedirect(redirectAttributes, "The first day must not be after the last one.");
+      return "redirect:/compras/admin/estadisticas";
+    }
+    return "redirect:/compras/admin/estadisticas?desde=" + desde + "&hasta=" + hasta;
+  }
+}
@@ -14,6 +14,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import com.gplanet.commerce.dtos.pagination.PaginatedResponse;
 import com.gplanet.commerce.dtos.producto.ProductStatus;
 import com.gplanet.commerce.dtos.producto.ProductoResponseDTO;
+import com.gplanet.commerce.services.CompraIntakeService;
 import com.gplanet.commerce.services.ProductoService;
 
 /**
@@ -29,6 +30,7 @@ import com.gplanet.commerce.services.ProductoService;
 public class MainController {
 
   private final ProductoService productoService;
+  private final CompraIntakeService compraIntakeService;
 
   /**
    * Handles requests to the home page, redirecting based on user role
@@ -38,11 +40,14 @@ public class MainController {
    * @param model          Spring MVC model
    * @param compraExitosa  Optional parameter indicating purchase success when
    *                       redirected
+   * @param pedido         Optional token of an order received asynchronously,
+   *                       whose state is shown on the page
    * @return View name for home page or redirect URL
    */
   @GetMapping("/")
   public String home(Authentication authentication, Model model,
-      @RequestParam(required = false) Boolean compraExitosa) {
+      @RequestParam(required = false) Boolean compraExitosa,
+      @RequestParam(required = false) String pedido) {
 
     if (log.isDebugEnabled()) {
       log.debug("Accessing home page - User authenticated: {}", 
@@ -63,6 +68,8 @@ public class MainController {
           log.info("Purchase status for user {}: {}", authentication.getName(), compraExitosa);
           model.addAttribute("compraExitosa", compraExitosa);
         }
+        compraIntakeService.estado(authentication.getName(), pedido)
+            .ifPresent(estado -> model.addAttribute("pedido", estado));
       }
     }
 
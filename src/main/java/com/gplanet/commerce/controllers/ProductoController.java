@@ -8,16 +8,23 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import com.gplanet.commerce.dtos.pagination.PaginatedResponse;
+import com.gplanet.commerce.dtos.pagination.PaginationRequest;
 import com.gplanet.commerce.dtos.producto.ProductStatus;
 import com.gplanet.commerce.dtos.producto.ProductoDTO;
 import com.gplanet.commerce.dtos.producto.ProductoResponseDTO;
 import com.gplanet.commerce.exceptions.ProductCreationException;
 import com.gplanet.commerce.exceptions.ResourceNotFoundException;
+import com.gplanet.commerce.services.CatalogVersionService;
 import com.gplanet.commerce.services.ProductoService;
+import com.gplanet.commerce.utilities.HttpCacheUtil;
 import com.gplanet.commerce.utilities.ToastUtil;
 
+import java.time.LocalDateTime;
+import java.util.Optional;
+
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -36,6 +43,7 @@ import lombok.extern.slf4j.Slf4j;
 public class ProductoController {
 
   private final ProductoService productoService;
+  private final CatalogVersionService catalogVersionService;
 
   /**
    * Lists all products with pagination support (admin view).
@@ -87,15 +95,24 @@ public class ProductoController {
   /**
    * Retrieves product details by ID.
    * 
-   * @param id    ID of the product to retrieve
-   * @param model Spring MVC model
-   * @return View name for product details page
+   * Answers 304 Not Modified when the admin already has the current
+   * version of the product.
+   * 
+   * @param id         ID of the product to retrieve
+   * @param model      Spring MVC model
+   * @param webRequest The current request, used for conditional GET
+   * @return View name for product details page, or null if not modified
    */
   @GetMapping("/{id}")
-  public String getProductById(@PathVariable Long id, Model model) {
+  public String getProductById(@PathVariable Long id, Model model, ServletWebRequest webRequest) {
     if (log.isDebugEnabled()) {
       log.debug("Retrieving product details for ID: {}", id);
     }
+    Optional<LocalDateTime> fechaModificacion = productoService.fechaModificacion(id);
+    if (fechaModificacion.isPresent() && HttpCacheUtil.notModified(webRequest, HttpCacheUtil.ADMIN,
+        HttpCacheUtil.productoETag(id, fechaModificacion.get()))) {
+      return null;
+    }
     try {
       ProductoResponseDTO producto = productoService.findById(id);
       model.addAttribute("producto", producto);
@@ -110,43 +127,66 @@ public class ProductoController {
   /**
    * Filters products for regular users with pagination support.
    * 
-   * @param page      Page number (zero-based)
+   * @param pagination Page number or keyset mode and cursor
    * @param size      Items per page
    * @param search    Text to search in product name and description
    * @param sort      Field to sort by
    * @param direction Sort direction (ASC or DESC)
    * @param model     Spring MVC model
-   * @return Fragment name containing filtered product grid
+   * @param webRequest The current request, used for conditional GET
+   * @return Fragment name containing filtered product grid, or null if not modified
    */
   @GetMapping("/filtrar")
   public String filterProducts(
-      @RequestParam(defaultValue = "0") int page,
       @RequestParam(defaultValue = "10") int size,
       @RequestParam(defaultValue = "") String search,
       @RequestParam(defaultValue = "nombre") String sort,
       @RequestParam(defaultValue = "ASC") String direction,
-      Model model) {
+      PaginationRequest pagination,
+      Model model,
+      ServletWebRequest webRequest) {
     if (log.isDebugEnabled()) {
-      log.debug("Filtering products - page: {}, size: {}, search: {}, sort: {} {}",
-          page, size, search, sort, direction);
+      log.debug("Filtering products - page: {}, size: {}, search: {}, sort: {} {}, keyset: {}",
+          pagination.page(), size, search, sort, direction, pagination.isKeyset());
+    }
+    if (HttpCacheUtil.notModified(webRequest, HttpCacheUtil.STOREFRONT,
+        HttpCacheUtil.catalogETag(catalogVersionService.current()))) {
+      return null;
     }
 
-    Page<ProductoResponseDTO> productosPage = productoService.listarProductos(
-        ProductStatus.ACTIVE, search, page, size, sort, direction);
-
-    PaginatedResponse<ProductoResponseDTO> paginatedResponse = PaginatedResponse.fromPage(productosPage);
+    PaginatedResponse<ProductoResponseDTO> paginatedResponse;
+    if (pagination.isKeyset()) {
+      paginatedResponse = productoService.scrollProductos(
+          ProductStatus.ACTIVE, search, pagination.cursor(), size, sort, direction);
+    } else {
+      paginatedResponse = PaginatedResponse.fromPage(productoService.listarProductos(
+          ProductStatus.ACTIVE, search, pagination.page(), size, sort, direction));
+    }
 
-    model.addAttribute("productos", productosPage.getContent());
+    model.addAttribute("productos", paginatedResponse.getContent());
     model.addAttribute("pagination", paginatedResponse);
 
     return "productos/user-grid :: user-grid";
   }
 
+  /**
+   * Suggests product names while the buyer types in the storefront search box.
+   *
+   * @param search The text typed so far
+   * @param model  Spring MVC model
+   * @return Fragment name containing the suggestion options
+   */
+  @GetMapping("/sugerencias")
+  public String sugerencias(@RequestParam(defaultValue = "") String search, Model model) {
+    model.addAttribute("sugerencias", productoService.sugerirNombres(search));
+    return "productos/sugerencias :: sugerencias";
+  }
+
   /**
    * Filters products for admin view with pagination and status filtering support.
    * 
    * @param status    Product status filter (ALL, ACTIVE, or INACTIVE)
-   * @param page      Page number (zero-based)
+   * @param pagination Page number or keyset mode and cursor
    * @param size      Items per page
    * @param search    Text to search in product name and description
    * @param sort      Field to sort by
@@ -157,23 +197,27 @@ public class ProductoController {
   @GetMapping("/admin/filtrar")
   public String filterAdminProducts(
       @RequestParam(defaultValue = "ALL") ProductStatus status,
-      @RequestParam(defaultValue = "0") int page,
       @RequestParam(defaultValue = "10") int size,
       @RequestParam(defaultValue = "") String search,
       @RequestParam(defaultValue = "nombre") String sort,
       @RequestParam(defaultValue = "ASC") String direction,
+      PaginationRequest pagination,
       Model model) {
     if (log.isDebugEnabled()) {
-      log.debug("Filtering admin products - status: {}, page: {}, size: {}, search: {}, sort: {} {}",
-          status, page, size, search, sort, direction);
+      log.debug("Filtering admin products - status: {}, page: {}, size: {}, search: {}, sort: {} {}, keyset: {}",
+          status, pagination.page(), size, search, sort, direction, pagination.isKeyset());
     }
 
-    Page<ProductoResponseDTO> productosPage = productoService.listarProductos(
-        status, search, page, size, sort, direction);
-
-    PaginatedResponse<ProductoResponseDTO> paginatedResponse = PaginatedResponse.fromPage(productosPage);
+    PaginatedResponse<ProductoResponseDTO> paginatedResponse;
+    if (pagination.isKeyset()) {
+      paginatedResponse = productoService.scrollProductos(
+          status, search, pagination.cursor(), size, sort, direction);
+    } else {
+      paginatedResponse = PaginatedResponse.fromPage(productoService.listarProductos(
+          status, search, pagination.page(), size, sort, direction));
+    }
 
-    model.addAttribute("productos", productosPage.getContent());
+    model.addAttribute("productos", paginatedResponse.getContent());
     model.addAttribute("pagination", paginatedResponse);
 
     return "productos/lista-admin-page :: producto-page";
@@ -250,4 +294,35 @@ public class ProductoController {
       return "empty :: empty";
     }
   }
-}
\ No newline at end of file
+
+  /**
+   * Adds units to the stock of a product.
+   * 
+   * @param id       ID of the product to restock
+   * @param unidades Units received, greater than zero
+   * @param model    Spring MVC model
+   * @return Fragment name containing updated product row or error message
+   */
+  @PostMapping("/admin/reponer/{id}")
+  public String reponerStock(@PathVariable Long id, @RequestParam int unidades, Model model) {
+    if (log.isDebugEnabled()) {
+      log.debug("Attempting to restock product ID: {} with {} units", id, unidades);
+    }
+    try {
+      ProductoResponseDTO updatedProduct = productoService.reponerStock(id, unidades);
+      log.info("Product successfully restocked - ID: {}, Stock: {}", id, updatedProduct.stock());
+      model.addAttribute("producto", updatedProduct);
+      ToastUtil.success(model, "Stock updated successfully.");
+      return "productos/lista-admin-row :: producto-row";
+    } catch (IllegalArgumentException e) {
+      log.warn("Invalid restock for product ID: {} - {}", id, e.getMessage());
+      model.addAttribute("producto", productoService.findById(id));
+      ToastUtil.error(model, "The units received must be greater than zero.");
+      return "productos/lista-admin-row :: producto-row";
+    } catch (ResourceNotFoundException e) {
+      log.error("Error restocking product - Product not found with ID: {}", id, e);
+      ToastUtil.error(model, "Product not found.");
+      return "empty :: empty";
+    }
+  }
+}
@@ -0,0 +1,99 @@
+package com.gplanet.commerce.controllers;
+
+import lombok.RequiredArgsConstructor;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import com.gplanet.commerce.dtos.pagination.PaginationMode;
+import com.gplanet.commerce.dtos.producto.ProductStatus;
+import com.gplanet.commerce.services.FragmentCacheService;
+import com.gplanet.commerce.utilities.HttpCacheUtil;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+/**
+ * Filter that serves the product grid of {@code /productos/filtrar} from the
+ * fragment cache, rendering it through {@link ProductoController} only when
+ * it is missing.
+ *
+ * The grid shows the same active products to every visitor, so the rendered
+ * HTML can be shared between users. The request parameters are read with
+ * the same defaults the controller applies, so that equivalent requests
+ * share an entry. Clients that already have the current version of the grid
+ * get 304 Not Modified, as they would from the controller.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+@RequiredArgsConstructor
+public class ProductoGridCacheFilter extends OncePerRequestFilter {
+
+  /** Template and fragment rendered by the product grid. */
+  public static final String TEMPLATE = "productos/user-grid :: user-grid";
+
+  /** Response header telling whether the grid came from the cache. */
+  public static final String CACHE_HEADER = "X-Fragment-Cache";
+
+  private final FragmentCacheService fragmentCacheService;
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !HttpMethod.GET.matches(request.getMethod());
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    FragmentCacheService.Key key = key(request);
+    if (HttpCacheUtil.notModified(new ServletWebRequest(request, response), HttpCacheUtil.STOREFRONT,
+        HttpCacheUtil.catalogETag(key.version()))) {
+      return;
+    }
+
+    Optional<String> cached = fragmentCacheService.get(key);
+    if (cached.isPresent()) {
+      response.setHeader(CACHE_HEADER, "HIT");
+      response.setContentType(MediaType.TEXT_HTML_VALUE);
+      response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+      response.getWriter().write(cached.get());
+      return;
+    }
+
+    response.setHeader(CACHE_HEADER, "MISS");
+    ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+    try {
+      chain.doFilter(request, wrapper);
+      if (wrapper.getStatus() == HttpStatus.OK.value()) {
+        fragmentCacheService.put(key,
+            new String(wrapper.getContentAsByteArray(), wrapper.getCharacterEncoding()));
+      }
+    } finally {
+      wrapper.copyBodyToResponse();
+    }
+  }
+
+  private FragmentCacheService.Key key(HttpServletRequest request) {
+    String page = PaginationMode.KEYSET.name().equals(request.getParameter("mode"))
+        ? "cursor:" + param(request, "cursor", "")
+        : param(request, "page", "0");
+    return fragmentCacheService.key(TEMPLATE, ProductStatus.ACTIVE, param(request, "search", ""), page,
+        param(request, "size", "10"), param(request, "sort", "nombre"), param(request, "direction", "ASC"));
+  }
+
+  private static String param(HttpServletRequest request, String name, String defaultValue) {
+    String value = request.getParameter(name);
+    return value == null ? defaultValue : value;
+  }
+}
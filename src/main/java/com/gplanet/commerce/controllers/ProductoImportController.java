@@ -0,0 +1,138 @@
+package com.gplanet.commerce.controllers;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.gplanet.commerce.dtos.producto.ImportacionResponseDTO;
+import com.gplanet.commerce.exceptions.ResourceNotFoundException;
+import com.gplanet.commerce.services.ProductoImportService;
+import com.gplanet.commerce.utilities.ToastUtil;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Controller class that handles bulk imports of products from CSV or JSON
+ * files. Imports run in the background; the returned fragment polls their
+ * progress until they finish.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+@Controller
+@RequestMapping("/productos/admin/importar")
+@RequiredArgsConstructor
+@Slf4j
+public class ProductoImportController {
+
+  private static final String ESTADO_FRAGMENT = "productos/importacion :: importacion-estado";
+  private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+  private final ProductoImportService productoImportService;
+
+  /**
+   * Uploads a file and starts importing its products.
+   *
+   * @param archivo The CSV or JSON file to import
+   * @param model   Spring MVC model
+   * @return Fragment name showing the progress of the import or error message
+   */
+  @PostMapping
+  public String importar(@RequestParam("archivo") MultipartFile archivo, Model model) {
+    if (log.isDebugEnabled()) {
+      log.debug("Attempting to import products from file: {}", archivo.getOriginalFilename());
+    }
+    try {
+      model.addAttribute("importacion", productoImportService.iniciar(archivo));
+      ToastUtil.success(model, "Import started.");
+      return ESTADO_FRAGMENT;
+    } catch (IllegalArgumentException e) {
+      log.warn("Rejected import of file '{}': {}", archivo.getOriginalFilename(), e.getMessage());
+      ToastUtil.error(model, e.getMessage());
+      return "empty :: empty";
+    } catch (IOException e) {
+      log.error("Error storing import file '{}'", archivo.getOriginalFilename(), e);
+      ToastUtil.error(model, "The file could not be uploaded.");
+      return "empty :: empty";
+    }
+  }
+
+  /**
+   * Shows the progress of an import.
+   *
+   * @param id    ID of the import
+   * @param model Spring MVC model
+   * @return Fragment name showing the progress of the import or error message
+   */
+  @GetMapping("/{id}")
+  public String estado(@PathVariable Long id, Model model) {
+    Optional<ImportacionResponseDTO> importacion = productoImportService.estado(id);
+    if (importacion.isEmpty()) {
+      ToastUtil.error(model, "Import not found.");
+      return "empty :: empty";
+    }
+    model.addAttribute("importacion", importacion.get());
+    return ESTADO_FRAGMENT;
+  }
+
+  /**
+   * Resumes an interrupted or failed import.
+   *
+   * @param id    ID of the import
+   * @param model Spring MVC model
+   * @return Fragment name showing the progress of the import or error message
+   */
+  @PostMapping("/{id}/reanudar")
+  public String reanudar(@PathVariable Long id, Model model) {
+    try {
+      model.addAttribute("importacion", productoImportService.reanudar(id));
+      ToastUtil.success(model, "Import resumed.");
+      return ESTADO_FRAGMENT;
+    } catch (ResourceNotFoundException e) {
+      log.error("Error resuming import - Import not found with ID: {}", id, e);
+      ToastUtil.error(model, "Import not found.");
+      return "empty :: empty";
+    } catch (IllegalStateException e) {
+      log.warn("Import {} cannot be resumed: {}", id, e.getMessage());
+      ToastUtil.error(model, e.getMessage());
+      return "empty :: empty";
+    }
+  }
+
+  /**
+   * Downloads the report of the rows rejected by an import.
+   *
+   * @param id ID of the import
+   * @return The CSV report, or 404 if the import has none
+   */
+  @GetMapping("/{id}/errores")
+  public ResponseEntity<Resource> errores(@PathVariable Long id) {
+    Optional<Path> errores = productoImportService.errores(id);
+    if (errores.isEmpty()) {
+      return ResponseEntity.notFound().build();
+    }
+    return ResponseEntity.ok()
+        .contentType(TEXT_CSV)
+        .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+            .filename("importacion-" + id + "-errores.csv")
+            .build()
+            .toString())
+        .body(new FileSystemResource(errores.get()));
+  }
+}
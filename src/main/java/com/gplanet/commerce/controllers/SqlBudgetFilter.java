@@ -0,0 +1,174 @@
+package com.gplanet.commerce.controllers;
+
+import lombok.RequiredArgsConstructor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.gplanet.commerce.configs.SqlBudgetProperties;
+import com.gplanet.commerce.utilities.SqlRequestStats;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Filter that counts the database work of each request: JDBC statements,
+ * time spent in the database and entities loaded. The counts are published
+ * as metrics per endpoint, and requests over the configured budget or
+ * repeating the same statement too often (a likely N+1 query) are written
+ * to the {@code performance} log.
+ *
+ * Outside production the counts are also sent in response headers. Headers
+ * must be set before the body starts, so they cover the work done until
+ * then; work done while rendering the view is only in the log and metrics.
+ * The final counts are left in the {@link SqlRequestStats#ATTRIBUTE} request
+ * attribute, where tests can check them.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+@RequiredArgsConstructor
+public class SqlBudgetFilter extends OncePerRequestFilter {
+
+  /** Response header with the number of statements executed. */
+  public static final String STATEMENTS_HEADER = "X-Sql-Statements";
+
+  /** Response header with the time spent in the database, in milliseconds. */
+  public static final String DB_TIME_HEADER = "X-Sql-Time-Ms";
+
+  /** Response header with the number of entities loaded. */
+  public static final String ENTITIES_HEADER = "X-Sql-Entities";
+
+  private static final Logger PERFORMANCE_LOG = LoggerFactory.getLogger("performance");
+  private static final String UNKNOWN_URI = "UNKNOWN";
+
+  private final SqlBudgetProperties properties;
+  private final MeterRegistry meterRegistry;
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    SqlRequestStats stats = SqlRequestStats.start();
+    HttpServletResponse target = properties.isExposeHeaders() ? new HeaderResponse(response, stats) : response;
+    try {
+      chain.doFilter(request, target);
+    } finally {
+      SqlRequestStats.stop();
+      request.setAttribute(SqlRequestStats.ATTRIBUTE, stats);
+      if (properties.isExposeHeaders() && !response.isCommitted()) {
+        setHeaders(response, stats);
+      }
+      publicar(request, stats);
+    }
+  }
+
+  private void publicar(HttpServletRequest request, SqlRequestStats stats) {
+    Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    String uri = pattern != null ? pattern.toString() : UNKNOWN_URI;
+
+    DistributionSummary.builder("commerce.request.statements")
+        .description("JDBC statements executed per request")
+        .tag("uri", uri)
+        .register(meterRegistry)
+        .record(stats.getStatements());
+    DistributionSummary.builder("commerce.request.entities")
+        .description("Entities loaded per request")
+        .tag("uri", uri)
+        .register(meterRegistry)
+        .record(stats.getEntities());
+    Timer.builder("commerce.request.db")
+        .description("Time spent in the database per request")
+        .tag("uri", uri)
+        .register(meterRegistry)
+        .record(Duration.ofNanos(stats.getDbNanos()));
+
+    if (stats.getStatements() > properties.getMaxStatements()
+        || stats.getDbNanos() > properties.getMaxDbTime().toNanos()
+        || stats.getEntities() > properties.getMaxEntities()) {
+      PERFORMANCE_LOG.warn("SQL budget exceeded by {} {}: {} statements, {} ms in the database, {} entities loaded",
+          request.getMethod(), request.getRequestURI(), stats.getStatements(), stats.getDbMillis(),
+          stats.getEntities());
+    }
+    for (Map.Entry<String, Integer> repetido : stats.repeated(properties.getRepeatedThreshold()).entrySet()) {
+      PERFORMANCE_LOG.warn("Possible N+1 query in {} {}: executed {} times: {}",
+          request.getMethod(), request.getRequestURI(), repetido.getValue(), repetido.getKey());
+    }
+  }
+
+  private static void setHeaders(HttpServletResponse response, SqlRequestStats stats) {
+    response.setHeader(STATEMENTS_HEADER, String.valueOf(stats.getStatements()));
+    response.setHeader(DB_TIME_HEADER, String.valueOf(stats.getDbMillis()));
+    response.setHeader(ENTITIES_HEADER, String.valueOf(stats.getEntities()));
+  }
+
+  /**
+   * Response that sets the count headers just before the body starts, while
+   * headers can still be set.
+   */
+  private static final class HeaderResponse extends HttpServletResponseWrapper {
+    private final SqlRequestStats stats;
+    private boolean written;
+
+    HeaderResponse(HttpServletResponse response, SqlRequestStats stats) {
+      super(response);
+      this.stats = stats;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+      writeHeaders();
+      return super.getOutputStream();
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+      writeHeaders();
+      return super.getWriter();
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+      writeHeaders();
+      super.flushBuffer();
+    }
+
+    @Override
+    public void sendError(int sc) throws IOException {
+      writeHeaders();
+      super.sendError(sc);
+    }
+
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+      writeHeaders();
+      super.sendError(sc, msg);
+    }
+
+    @Override
+    public void sendRedirect(String location) throws IOException {
+      writeHeaders();
+      super.sendRedirect(location);
+    }
+
+    private void writeHeaders() {
+      if (!written && !isCommitted()) {
+        written = true;
+        setHeaders((HttpServletResponse) getResponse(), stats);
+      }
+    }
+  }
+}
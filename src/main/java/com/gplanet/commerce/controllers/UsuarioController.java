@@ -15,12 +15,12 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 
 import com.gplanet.commerce.dtos.pagination.PaginatedResponse;
+import com.gplanet.commerce.dtos.pagination.PaginationRequest;
 import com.gplanet.commerce.dtos.usuario.ActualizacionUsuarioDTO;
 import com.gplanet.commerce.dtos.usuario.CambioPasswdDTO;
 import com.gplanet.commerce.dtos.usuario.UsuarioAdminDTO;
 import com.gplanet.commerce.dtos.usuario.UsuarioDTO;
 import com.gplanet.commerce.dtos.usuario.UsuarioResponseDTO;
-import com.gplanet.commerce.entities.Usuario;
 import com.gplanet.commerce.exceptions.EmailAlreadyExistsException;
 import com.gplanet.commerce.exceptions.InvalidPasswordException;
 import com.gplanet.commerce.exceptions.PasswordMismatchException;
@@ -136,9 +136,9 @@ public class UsuarioController {
     if (log.isDebugEnabled()) {
       log.debug("Accessing user profile: {}", authentication.getName());
     }
-    Usuario usuario = usuarioService.buscarPorEmail(authentication.getName());
+    UsuarioResponseDTO usuario = usuarioService.obtenerPerfil(authentication.getName());
     ActualizacionUsuarioDTO perfilDTO = new ActualizacionUsuarioDTO(
-        usuario.getNombre(), usuario.getEmail());
+        usuario.nombre(), usuario.email());
 
     model.addAttribute("usuario", perfilDTO);
     return "usuarios/perfil";
@@ -270,7 +270,7 @@ public class UsuarioController {
   /**
    * Filters and paginates user list (admin only).
    * 
-   * @param page      Page number (zero-based)
+   * @param pagination Page number or keyset mode and cursor
    * @param size      Items per page
    * @param sort      Sort field
    * @param direction Sort direction
@@ -279,20 +279,25 @@ public class UsuarioController {
    */
   @GetMapping("/admin/filtrar")
   public String filtrarUsuarios(
-      @RequestParam(defaultValue = "0") int page,
       @RequestParam(defaultValue = "10") int size,
       @RequestParam(defaultValue = "nombre") String sort,
       @RequestParam(defaultValue = "ASC") String direction,
+      PaginationRequest pagination,
       Model model) {
     if (log.isDebugEnabled()) {
-      log.debug("Filtering users - page: {}, size: {}, sort: {} {}", page, size, sort, direction);
+      log.debug("Filtering users - page: {}, size: {}, sort: {} {}, keyset: {}",
+          pagination.page(), size, sort, direction, pagination.isKeyset());
     }
 
-    Page<UsuarioResponseDTO> usuariosPage = usuarioService.listarUsuarios(
-        page, size, sort, direction);
-    PaginatedResponse<UsuarioResponseDTO> paginatedResponse = PaginatedResponse.fromPage(usuariosPage);
+    PaginatedResponse<UsuarioResponseDTO> paginatedResponse;
+    if (pagination.isKeyset()) {
+      paginatedResponse = usuarioService.scrollUsuarios(pagination.cursor(), size, sort, direction);
+    } else {
+      paginatedResponse = PaginatedResponse.fromPage(usuarioService.listarUsuarios(
+          pagination.page(), size, sort, direction));
+    }
 
-    model.addAttribute("usuarios", usuariosPage.getContent());
+    model.addAttribute("usuarios", paginatedResponse.getContent());
     model.addAttribute("pagination", paginatedResponse);
     return "usuarios/lista-usuario-page :: usuario-page";
   }
@@ -0,0 +1,47 @@
+package com.gplanet.commerce.dtos.carrito;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import com.gplanet.commerce.dtos.compra.CompraDTO;
+import com.gplanet.commerce.dtos.compra.CompraProductoDTO;
+
+/**
+ * Data Transfer Object (DTO) for the cart of a signed-in user, validated
+ * against the current catalog: it only holds products that exist and are
+ * active, with their current prices.
+ *
+ * @author Gustavo
+ * @version 1.0
+ *
+ * @param lineas   The products in the cart, in the order they were added.
+ * @param unidades The total number of units in the cart.
+ * @param total    The sum of the subtotals of all lines.
+ */
+public record CarritoDTO(
+  List<CarritoLineaDTO> lineas,
+  int unidades,
+  BigDecimal total
+) {
+
+  /**
+   * Indicates whether the cart has no products.
+   *
+   * @return true if the cart is empty
+   */
+  public boolean isEmpty() {
+    return lineas.isEmpty();
+  }
+
+  /**
+   * Builds a purchase request for the products in the cart.
+   *
+   * @param claveIdempotencia The idempotency key of the checkout, or null
+   * @return The purchase request
+   */
+  public CompraDTO toCompraDTO(String claveIdempotencia) {
+    return new CompraDTO(lineas.stream()
+        .map(linea -> new CompraProductoDTO(linea.productoId(), linea.cantidad()))
+        .toList(), claveIdempotencia);
+  }
+}
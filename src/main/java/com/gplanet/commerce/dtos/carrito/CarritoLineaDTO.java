@@ -0,0 +1,23 @@
+package com.gplanet.commerce.dtos.carrito;
+
+import java.math.BigDecimal;
+
+/**
+ * Data Transfer Object (DTO) for one product of a validated cart.
+ *
+ * @author Gustavo
+ * @version 1.0
+ *
+ * @param productoId The ID of the product.
+ * @param nombre     The current name of the product.
+ * @param precio     The current unit price of the product.
+ * @param cantidad   The number of units in the cart.
+ * @param subtotal   The unit price times the number of units.
+ */
+public record CarritoLineaDTO(
+  Long productoId,
+  String nombre,
+  BigDecimal precio,
+  int cantidad,
+  BigDecimal subtotal
+) {}
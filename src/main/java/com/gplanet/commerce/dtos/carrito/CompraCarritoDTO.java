@@ -0,0 +1,19 @@
+package com.gplanet.commerce.dtos.carrito;
+
+import jakarta.validation.constraints.Pattern;
+
+/**
+ * Data Transfer Object (DTO) for the checkout of the cart kept on the server.
+ * The products are not sent: they are taken from the cart of the buyer.
+ *
+ * @author Gustavo
+ * @version 1.0
+ *
+ * @param claveIdempotencia The key the page generated for this checkout, so
+ *                          that resubmitting it does not purchase twice.
+ *                          Optional.
+ */
+public record CompraCarritoDTO(
+  @Pattern(regexp = "[A-Za-z0-9-]{1,64}", message = "Clave de compra no válida")
+  String claveIdempotencia
+) {}
@@ -2,6 +2,7 @@ package com.gplanet.commerce.dtos.compra;
 
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Pattern;
 import java.util.List;
 
 /**
@@ -12,11 +13,27 @@ import java.util.List;
  * @author Gustavo
  * @version 1.0
  *
- * @param productos  The list of products to be purchased.
- *                   Must contain at least one product.
+ * @param productos          The list of products to be purchased.
+ *                           Must contain at least one product.
+ * @param claveIdempotencia  The key the cart generated for this checkout, so
+ *                           that resubmitting it does not purchase twice.
+ *                           Optional.
  */
 public record CompraDTO(
   @NotEmpty(message = "Debe incluir al menos un producto")
   @Valid
-  List<CompraProductoDTO> productos
-) {}
\ No newline at end of file
+  List<CompraProductoDTO> productos,
+
+  @Pattern(regexp = "[A-Za-z0-9-]{1,64}", message = "Clave de compra no válida")
+  String claveIdempotencia
+) {
+
+  /**
+   * Creates a purchase request without an idempotency key.
+   *
+   * @param productos The list of products to be purchased
+   */
+  public CompraDTO(List<CompraProductoDTO> productos) {
+    this(productos, null);
+  }
+}
@@ -0,0 +1,44 @@
+package com.gplanet.commerce.dtos.compra;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) for a purchase in the NDJSON export of the
+ * purchase history.
+ *
+ * @author Gustavo
+ * @version 1.0
+ *
+ * @param id            The unique identifier of the purchase.
+ * @param fecha         The date and time when the purchase was made.
+ * @param usuarioEmail  The email of the customer who made the purchase.
+ * @param usuarioNombre The name of the customer who made the purchase.
+ * @param total         The total amount of the purchase.
+ * @param productos     The lines of the purchase.
+ */
+public record CompraExportDTO(
+  Long id,
+  LocalDateTime fecha,
+  String usuarioEmail,
+  String usuarioNombre,
+  BigDecimal total,
+  List<Linea> productos
+) {
+
+  /**
+   * A line of an exported purchase.
+   *
+   * @param productoId     The ID of the purchased product.
+   * @param productoNombre The name of the purchased product.
+   * @param cantidad       The quantity purchased.
+   * @param subtotal       The amount of the line.
+   */
+  public record Linea(
+    Long productoId,
+    String productoNombre,
+    Integer cantidad,
+    BigDecimal subtotal
+  ) {}
+}
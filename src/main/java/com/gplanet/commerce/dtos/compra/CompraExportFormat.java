@@ -0,0 +1,40 @@
+package com.gplanet.commerce.dtos.compra;
+
+/**
+ * Formats in which the purchase history can be exported.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+public enum CompraExportFormat {
+  /** One row per purchase line, with the purchase repeated on each of its lines. */
+  CSV("text/csv", "csv"),
+  /** One JSON object per line, each a purchase with its lines nested. */
+  NDJSON("application/x-ndjson", "ndjson");
+
+  private final String contentType;
+  private final String extension;
+
+  CompraExportFormat(String contentType, String extension) {
+    this.contentType = contentType;
+    this.extension = extension;
+  }
+
+  /**
+   * Returns the media type of the exported file.
+   *
+   * @return the media type
+   */
+  public String getContentType() {
+    return contentType;
+  }
+
+  /**
+   * Returns the extension of the exported file.
+   *
+   * @return the extension, without the dot
+   */
+  public String getExtension() {
+    return extension;
+  }
+}
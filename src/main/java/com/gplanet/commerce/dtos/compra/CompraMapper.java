@@ -43,6 +43,8 @@ public class CompraMapper {
   /**
    * Converts a CompraProducto entity to its response DTO representation.
    * Maps product details, quantity, and pricing info to the corresponding DTO.
+   * The name and unit price come from the snapshot taken at purchase time, so
+   * the product itself is not loaded: reading the ID of its reference is free.
    *
    * @param entity the purchase product entity to convert
    * @return the corresponding CompraProductoResponseDTO
@@ -50,8 +52,8 @@ public class CompraMapper {
   private CompraProductoResponseDTO toCompraProductoResponseDTO(CompraProducto entity) {
       return new CompraProductoResponseDTO(
           entity.getProducto().getId(),
-          entity.getProducto().getNombre(),
-          entity.getProducto().getPrecio(),
+          entity.getProductoNombre(),
+          entity.getPrecioUnitario(),
           entity.getCantidad(),
           entity.getSubtotal()
       );
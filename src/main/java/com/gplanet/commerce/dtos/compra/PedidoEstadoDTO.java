@@ -0,0 +1,18 @@
+package com.gplanet.commerce.dtos.compra;
+
+/**
+ * Data Transfer Object (DTO) describing the state of an order received by
+ * the asynchronous order-intake pipeline.
+ *
+ * @author Gustavo
+ * @version 1.0
+ *
+ * @param token    The order token handed to the buyer.
+ * @param status   The current state of the order.
+ * @param compraId The ID of the purchase once confirmed, null otherwise.
+ */
+public record PedidoEstadoDTO(
+  String token,
+  PedidoStatus status,
+  Long compraId
+) {}
@@ -0,0 +1,37 @@
+package com.gplanet.commerce.dtos.compra;
+
+import java.util.Map;
+
+/**
+ * Purchase that passed validation and waits in the order-intake queue to be
+ * written to the database.
+ *
+ * @author Gustavo
+ * @version 1.0
+ *
+ * @param token      The order token handed to the buyer.
+ * @param email      The email of the buyer.
+ * @param usuarioId  The ID of the buyer.
+ * @param cantidades The quantity ordered of each product, keyed by product ID.
+ * @param claveIdempotencia The idempotency key sent with the checkout, or null.
+ */
+public record PedidoPendiente(
+  String token,
+  String email,
+  Long usuarioId,
+  Map<Long, Integer> cantidades,
+  String claveIdempotencia
+) {
+
+  /**
+   * Creates a pending order without an idempotency key.
+   *
+   * @param token      The order token handed to the buyer
+   * @param email      The email of the buyer
+   * @param usuarioId  The ID of the buyer
+   * @param cantidades The quantity ordered of each product, keyed by product ID
+   */
+  public PedidoPendiente(String token, String email, Long usuarioId, Map<Long, Integer> cantidades) {
+    this(token, email, usuarioId, cantidades, null);
+  }
+}
@@ -0,0 +1,25 @@
+package com.gplanet.commerce.dtos.compra;
+
+/**
+ * Represents the states an order goes through when it is received by the
+ * asynchronous order-intake pipeline.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+public enum PedidoStatus {
+  /**
+   * The order was accepted and waits in the queue to be written.
+   */
+  PENDING,
+
+  /**
+   * The order was written and is now a purchase.
+   */
+  CONFIRMED,
+
+  /**
+   * The order could not be written, for example because a product was removed.
+   */
+  REJECTED
+}
@@ -0,0 +1,49 @@
+package com.gplanet.commerce.dtos.compra;
+
+/**
+ * Data Transfer Object (DTO) describing the outcome of a checkout as shown
+ * to the buyer, so that it can be shown again when the checkout is repeated.
+ *
+ * @author Gustavo
+ * @version 1.0
+ *
+ * @param exitosa Whether the purchase was completed or accepted.
+ * @param mensaje The message shown to the buyer.
+ * @param pedido  The token of the queued order, null if the purchase was
+ *                not queued.
+ */
+public record ResultadoCompraDTO(
+  boolean exitosa,
+  String mensaje,
+  String pedido
+) {
+
+  /**
+   * Outcome of a purchase written synchronously.
+   *
+   * @return The successful outcome
+   */
+  public static ResultadoCompraDTO completada() {
+    return new ResultadoCompraDTO(true, "Purchase completed successfully", null);
+  }
+
+  /**
+   * Outcome of an order accepted by the order-intake queue.
+   *
+   * @param token The token of the queued order
+   * @return The successful outcome
+   */
+  public static ResultadoCompraDTO recibida(String token) {
+    return new ResultadoCompraDTO(true, "Order received, we are processing it", token);
+  }
+
+  /**
+   * Outcome of a rejected purchase.
+   *
+   * @param mensaje The reason shown to the buyer
+   * @return The failed outcome
+   */
+  public static ResultadoCompraDTO rechazada(String mensaje) {
+    return new ResultadoCompraDTO(false, mensaje, null);
+  }
+}
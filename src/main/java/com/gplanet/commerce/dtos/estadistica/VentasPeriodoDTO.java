@@ -0,0 +1,23 @@
+package com.gplanet.commerce.dtos.estadistica;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object (DTO) with the sales of the whole store during one
+ * hour or day.
+ *
+ * @param periodo  The start of the period.
+ * @param compras  The number of purchases made.
+ * @param unidades The number of units sold.
+ * @param importe  The revenue.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+public record VentasPeriodoDTO(
+  LocalDateTime periodo,
+  Long compras,
+  Long unidades,
+  BigDecimal importe
+) {}
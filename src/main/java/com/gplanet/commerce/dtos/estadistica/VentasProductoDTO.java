@@ -0,0 +1,23 @@
+package com.gplanet.commerce.dtos.estadistica;
+
+import java.math.BigDecimal;
+
+/**
+ * Data Transfer Object (DTO) with the sales of one product over a date range.
+ *
+ * @param productoId     The ID of the product.
+ * @param productoNombre The name of the product at its last sale.
+ * @param compras        The number of purchases that included the product.
+ * @param unidades       The number of units sold.
+ * @param importe        The revenue from the product.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+public record VentasProductoDTO(
+  Long productoId,
+  String productoNombre,
+  Long compras,
+  Long unidades,
+  BigDecimal importe
+) {}
@@ -0,0 +1,36 @@
+package com.gplanet.commerce.dtos.estadistica;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import com.gplanet.commerce.entities.Granularity;
+
+/**
+ * Data Transfer Object (DTO) with the sales report shown on the admin
+ * dashboard, built from the sales statistics only.
+ *
+ * @param desde         The first day of the report.
+ * @param hasta         The last day of the report, inclusive.
+ * @param granularidad  The length of the periods of the series.
+ * @param compras       The number of purchases made in the range.
+ * @param unidades      The number of units sold in the range.
+ * @param importe       The revenue in the range.
+ * @param serie         The sales of every period with sales, in order.
+ * @param topProductos  The products with the highest revenue.
+ * @param topUsuarios   The users who spent the most.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+public record VentasResumenDTO(
+  LocalDate desde,
+  LocalDate hasta,
+  Granularity granularidad,
+  long compras,
+  long unidades,
+  BigDecimal importe,
+  List<VentasPeriodoDTO> serie,
+  List<VentasProductoDTO> topProductos,
+  List<VentasUsuarioDTO> topUsuarios
+) {}
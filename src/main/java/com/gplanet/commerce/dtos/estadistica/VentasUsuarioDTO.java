@@ -0,0 +1,23 @@
+package com.gplanet.commerce.dtos.estadistica;
+
+import java.math.BigDecimal;
+
+/**
+ * Data Transfer Object (DTO) with the purchases of one user over a date range.
+ *
+ * @param usuarioId    The ID of the buyer.
+ * @param usuarioEmail The email of the buyer at their last purchase.
+ * @param compras      The number of purchases made.
+ * @param unidades     The number of units bought.
+ * @param importe      The amount spent.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+public record VentasUsuarioDTO(
+  Long usuarioId,
+  String usuarioEmail,
+  Long compras,
+  Long unidades,
+  BigDecimal importe
+) {}
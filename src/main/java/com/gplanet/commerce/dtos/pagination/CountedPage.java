@@ -0,0 +1,44 @@
+package com.gplanet.commerce.dtos.pagination;
+
+import java.util.List;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Page whose total may come from a cache or be a lower bound estimate rather
+ * than an exact count of the current data.
+ *
+ * @param <T> The type of content being paginated
+ * 
+ * @author Gustavo
+ * @version 1.0
+ */
+public class CountedPage<T> extends PageImpl<T> {
+
+  private static final long serialVersionUID = 1L;
+
+  private final boolean totalExact;
+
+  /**
+   * Creates a new page.
+   *
+   * @param content The content of this page
+   * @param pageable The paging information
+   * @param total The total number of elements, or a lower bound when not exact
+   * @param totalExact Whether the total is an exact count
+   */
+  public CountedPage(List<T> content, Pageable pageable, long total, boolean totalExact) {
+    super(content, pageable, total);
+    this.totalExact = totalExact;
+  }
+
+  /**
+   * Indicates whether the total is an exact count or only a lower bound.
+   *
+   * @return true if the total is exact
+   */
+  public boolean isTotalExact() {
+    return totalExact;
+  }
+}
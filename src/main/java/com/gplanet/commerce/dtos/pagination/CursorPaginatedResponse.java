@@ -0,0 +1,76 @@
+package com.gplanet.commerce.dtos.pagination;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * Paginated response for keyset (cursor-based) listings.
+ * Instead of page numbers it carries opaque cursors pointing to the next and
+ * previous pages. The total number of elements is not known in this mode, so
+ * it only reflects the current page.
+ *
+ * @param <T> The type of content being paginated
+ * 
+ * @author Gustavo
+ * @version 1.0
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@NoArgsConstructor
+public class CursorPaginatedResponse<T> extends PaginatedResponse<T> {
+  private String nextCursor;
+  private String previousCursor;
+
+  /**
+   * Creates a CursorPaginatedResponse from a Spring Data Window.
+   *
+   * @param <T> The type of content being paginated
+   * @param window The window returned by the keyset query
+   * @param position The position the window was requested from
+   * @param size The requested page size
+   * @return A new CursorPaginatedResponse with the cursors of the adjacent pages
+   */
+  public static <T> CursorPaginatedResponse<T> fromWindow(
+      Window<T> window, KeysetScrollPosition position, int size) {
+    List<T> content = window.getContent();
+    CursorPaginatedResponse<T> response = new CursorPaginatedResponse<>();
+    response.setContent(content);
+    response.setPageSize(size);
+    response.setTotalElements(content.size());
+    response.setTotalPages(content.isEmpty() ? 0 : 1);
+
+    if (!content.isEmpty()) {
+      // A backward window always has rows after it, but only knows about earlier rows via hasNext()
+      boolean backward = position.scrollsBackward();
+      boolean hasNext = backward || window.hasNext();
+      boolean hasPrevious = backward ? window.hasNext() : !position.isInitial();
+
+      if (hasNext) {
+        response.setNextCursor(KeysetCursor.encode(
+            ScrollPosition.forward(keysAt(window, content.size() - 1))));
+      }
+      if (hasPrevious) {
+        response.setPreviousCursor(KeysetCursor.encode(ScrollPosition.backward(keysAt(window, 0))));
+      }
+    }
+    response.setLastPage(response.getNextCursor() == null);
+    return response;
+  }
+
+  @Override
+  public boolean isCursorBased() {
+    return true;
+  }
+
+  private static Map<String, ?> keysAt(Window<?> window, int index) {
+    return ((KeysetScrollPosition) window.positionAt(index)).getKeys();
+  }
+}
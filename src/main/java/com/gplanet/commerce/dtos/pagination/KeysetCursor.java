@@ -0,0 +1,138 @@
+package com.gplanet.commerce.dtos.pagination;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Utility class that converts keyset scroll positions to and from the opaque
+ * cursors exchanged with the browser.
+ *
+ * A cursor holds the scroll direction and the typed value of every sort key
+ * of the boundary row, encoded as URL-safe Base64 so clients cannot rely on
+ * its contents.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+public final class KeysetCursor {
+
+  private static final char FORWARD = 'F';
+  private static final char BACKWARD = 'B';
+  private static final String ENTRY_SEPARATOR = "\u001E";
+  private static final String KEY_SEPARATOR = "\u001F";
+
+  /**
+   * Private constructor to prevent instantiation of this utility class.
+   * This class contains only static methods and should not be instantiated.
+   *
+   * @throws AssertionError if this constructor is invoked
+   */
+  private KeysetCursor() {
+    throw new AssertionError("KeysetCursor class should not be instantiated");
+  }
+
+  /**
+   * Encodes a keyset scroll position as an opaque cursor.
+   *
+   * @param position The position to encode
+   * @return The URL-safe cursor
+   * @throws IllegalArgumentException if a key has an unsupported type
+   */
+  public static String encode(KeysetScrollPosition position) {
+    StringBuilder raw = new StringBuilder();
+    raw.append(position.scrollsBackward() ? BACKWARD : FORWARD);
+    position.getKeys().forEach((key, value) -> raw.append(ENTRY_SEPARATOR)
+        .append(key).append(KEY_SEPARATOR).append(encodeValue(value)));
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Decodes a cursor into the scroll position it represents. Missing cursors,
+   * cursors that cannot be parsed and cursors created for a different sort
+   * all resolve to the initial position, so the listing restarts from the
+   * first page.
+   *
+   * @param cursor The cursor received from the client, may be null
+   * @param sort   The sort of the listing the cursor is used with
+   * @return The decoded position, or the initial position
+   */
+  public static KeysetScrollPosition decode(String cursor, Sort sort) {
+    if (cursor == null || cursor.isBlank()) {
+      return ScrollPosition.keyset();
+    }
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      String[] entries = raw.split(ENTRY_SEPARATOR);
+
+      Map<String, Object> keys = new LinkedHashMap<>();
+      for (int i = 1; i < entries.length; i++) {
+        String[] entry = entries[i].split(KEY_SEPARATOR, 2);
+        keys.put(entry[0], decodeValue(entry[1]));
+      }
+
+      if (!matchesSort(keys, sort)) {
+        return ScrollPosition.keyset();
+      }
+      return switch (entries[0].charAt(0)) {
+        case FORWARD -> ScrollPosition.forward(keys);
+        case BACKWARD -> ScrollPosition.backward(keys);
+        default -> ScrollPosition.keyset();
+      };
+    } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeException e) {
+      return ScrollPosition.keyset();
+    }
+  }
+
+  private static boolean matchesSort(Map<String, Object> keys, Sort sort) {
+    return !keys.isEmpty() && sort.stream().allMatch(order -> keys.containsKey(order.getProperty()));
+  }
+
+  private static String encodeValue(Object value) {
+    if (value == null) {
+      return "N";
+    }
+    if (value instanceof String text) {
+      return "S" + text;
+    }
+    if (value instanceof Long number) {
+      return "L" + number;
+    }
+    if (value instanceof Integer number) {
+      return "I" + number;
+    }
+    if (value instanceof BigDecimal decimal) {
+      return "D" + decimal.toPlainString();
+    }
+    if (value instanceof LocalDateTime dateTime) {
+      return "T" + dateTime;
+    }
+    if (value instanceof Boolean bool) {
+      return "B" + bool;
+    }
+    throw new IllegalArgumentException("Unsupported keyset value type: " + value.getClass().getName());
+  }
+
+  private static Object decodeValue(String encoded) {
+    String value = encoded.substring(1);
+    return switch (encoded.charAt(0)) {
+      case 'N' -> null;
+      case 'S' -> value;
+      case 'L' -> Long.valueOf(value);
+      case 'I' -> Integer.valueOf(value);
+      case 'D' -> new BigDecimal(value);
+      case 'T' -> LocalDateTime.parse(value);
+      case 'B' -> Boolean.valueOf(value);
+      default -> throw new IllegalArgumentException("Unknown keyset value type: " + encoded.charAt(0));
+    };
+  }
+}
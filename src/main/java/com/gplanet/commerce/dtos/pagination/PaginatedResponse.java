@@ -26,9 +26,11 @@ public class PaginatedResponse<T> {
   private long totalElements;
   private int totalPages;
   private boolean isLastPage;
+  private boolean totalEstimated;
 
   /**
    * Creates a PaginatedResponse from a Spring Page object.
+   * Totals of a {@link CountedPage} that are not exact are flagged as estimated.
    *
    * @param <T> The type of content being paginated
    * @param page The Spring Page object to convert
@@ -41,7 +43,17 @@ public class PaginatedResponse<T> {
           page.getSize(),
           page.getTotalElements(),
           page.getTotalPages(),
-          page.isLast()
+          page.isLast(),
+          page instanceof CountedPage<T> counted && !counted.isTotalExact()
       );
   }
+
+  /**
+   * Indicates whether this response uses cursors instead of page numbers.
+   *
+   * @return false for numbered pages
+   */
+  public boolean isCursorBased() {
+    return false;
+  }
 }
@@ -0,0 +1,21 @@
+package com.gplanet.commerce.dtos.pagination;
+
+/**
+ * Represents the pagination strategies supported by the listing endpoints.
+ * 
+ * @author Gustavo
+ * @version 1.0
+ */
+public enum PaginationMode {
+  /**
+   * Numbered pages backed by LIMIT/OFFSET and a COUNT query.
+   * Deep pages get slower as the database has to skip every previous row.
+   */
+  OFFSET,
+
+  /**
+   * Cursor-based pages that seek directly after the last row seen.
+   * Every page costs the same, but the total number of rows is not known.
+   */
+  KEYSET
+}
@@ -0,0 +1,36 @@
+package com.gplanet.commerce.dtos.pagination;
+
+/**
+ * Request parameters that select the page of a listing.
+ * Listings use numbered pages unless {@code mode=KEYSET} is requested, in
+ * which case the page is identified by a cursor instead of a page number.
+ * 
+ * @author Gustavo
+ * @version 1.0
+ *
+ * @param page   The page number (zero-based) in offset mode, 0 when absent
+ * @param mode   The pagination mode requested, OFFSET when absent
+ * @param cursor The cursor of the requested page in keyset mode, absent for the first page
+ */
+public record PaginationRequest(
+  Integer page,
+  PaginationMode mode,
+  String cursor
+) {
+  /**
+   * Applies the defaults of the parameters that were not provided.
+   */
+  public PaginationRequest {
+    page = page == null ? 0 : page;
+    mode = mode == null ? PaginationMode.OFFSET : mode;
+  }
+
+  /**
+   * Indicates whether keyset pagination was requested.
+   *
+   * @return true when the listing should be paginated with cursors
+   */
+  public boolean isKeyset() {
+    return mode == PaginationMode.KEYSET;
+  }
+}
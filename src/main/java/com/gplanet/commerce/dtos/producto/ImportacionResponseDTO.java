@@ -0,0 +1,33 @@
+package com.gplanet.commerce.dtos.producto;
+
+import com.gplanet.commerce.entities.Importacion;
+
+/**
+ * Data Transfer Object (DTO) describing the progress of a bulk product import.
+ *
+ * @param id              The unique identifier of the import.
+ * @param nombreArchivo   The name of the uploaded file.
+ * @param formato         The format of the uploaded file.
+ * @param estado          The current state of the import.
+ * @param porcentaje      The share of the file processed, from 0 to 100.
+ * @param filasProcesadas The number of rows handled so far.
+ * @param insertados      The number of products created.
+ * @param actualizados    The number of existing products updated.
+ * @param errores         The number of rejected rows.
+ * @param mensaje         The reason why the import failed, null otherwise.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+public record ImportacionResponseDTO(
+  Long id,
+  String nombreArchivo,
+  Importacion.Format formato,
+  Importacion.Status estado,
+  int porcentaje,
+  long filasProcesadas,
+  long insertados,
+  long actualizados,
+  long errores,
+  String mensaje
+) {}
@@ -2,6 +2,7 @@ package com.gplanet.commerce.dtos.producto;
 
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import java.math.BigDecimal;
 
 /**
@@ -13,6 +14,9 @@ import java.math.BigDecimal;
  * @param descripcion  The detailed description of the product. Optional field.
  * @param precio       The price of the product. Must be a positive number.
  * @param activo       Indicates if the product is active. Defaults to true.
+ * @param stock        The units in stock when the product is created, or null
+ *                     to leave its stock untracked. Ignored on updates, where
+ *                     units are added with a restock instead.
  * 
  * @author Gustavo
  * @version 1.0
@@ -26,7 +30,10 @@ public record ProductoDTO(
   @Positive(message = "The price must be greater than 0")
   BigDecimal precio,
 
-  boolean activo
+  boolean activo,
+
+  @PositiveOrZero(message = "The stock cannot be negative")
+  Integer stock
 ) {
   /**
    * Constructs a ProductoDTO with the 'activo' field defaulting to true if not provided.
@@ -34,4 +41,11 @@ public record ProductoDTO(
   public ProductoDTO(String nombre, String descripcion, BigDecimal precio) {
       this(nombre, descripcion, precio, true);
   }
+
+  /**
+   * Constructs a ProductoDTO whose stock is not tracked.
+   */
+  public ProductoDTO(String nombre, String descripcion, BigDecimal precio, boolean activo) {
+      this(nombre, descripcion, precio, activo, null);
+  }
 }
\ No newline at end of file
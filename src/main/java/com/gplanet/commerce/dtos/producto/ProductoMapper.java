@@ -39,12 +39,13 @@ public interface ProductoMapper {
 
   /**
    * Updates an existing Product entity with data from a ProductoDTO.
-   * Preserves the id and fechaCreacion fields of the existing entity.
+   * Preserves the id, fechaCreacion and stock fields of the existing entity.
    *
    * @param productoDTO the source DTO containing updated data
    * @param producto the target Product entity to update
    */
   @Mapping(target = "id", ignore = true)
   @Mapping(target = "fechaCreacion", ignore = true)
+  @Mapping(target = "stock", ignore = true)
   void updateProductoFromDTO(ProductoDTO productoDTO, @MappingTarget Producto producto);
 }
\ No newline at end of file
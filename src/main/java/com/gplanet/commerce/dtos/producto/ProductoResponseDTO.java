@@ -13,6 +13,7 @@ import java.time.LocalDateTime;
  * @param precio         The price of the product.
  * @param fechaCreacion  The timestamp when the product was created.
  * @param activo         Indicates whether the product is currently active in the system.
+ * @param stock          The units in stock, or null if the stock is not tracked.
  * 
  * @author Gustavo
  * @version 1.0
@@ -23,5 +24,6 @@ public record ProductoResponseDTO(
   String descripcion,
   BigDecimal precio,
   LocalDateTime fechaCreacion,
-  boolean activo
+  boolean activo,
+  Integer stock
 ) {}
\ No newline at end of file
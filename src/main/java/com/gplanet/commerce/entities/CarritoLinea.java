@@ -0,0 +1,64 @@
+package com.gplanet.commerce.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+
+/**
+ * Entity class representing one product in the cart of a signed-in user.
+ * Carts are kept in memory and written behind to this table (see
+ * {@link com.gplanet.commerce.services.CarritoService}), so that they survive
+ * restarts without a database write on every change.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+@Data
+@Entity
+@Table(name = "carrito")
+@IdClass(CarritoLinea.Clave.class)
+public class CarritoLinea {
+
+  /**
+   * ID of the owner of the cart.
+   */
+  @Id
+  @Column(name = "usuario_id")
+  private Long usuarioId;
+
+  /**
+   * ID of the product in the cart.
+   */
+  @Id
+  @Column(name = "producto_id")
+  private Long productoId;
+
+  /**
+   * Number of units in the cart.
+   */
+  private int cantidad;
+
+  /**
+   * Position of the product in the cart, in the order it was added.
+   */
+  private int posicion;
+
+  /**
+   * Composite primary key of {@link CarritoLinea}.
+   */
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Clave implements Serializable {
+    private Long usuarioId;
+    private Long productoId;
+  }
+}
@@ -9,6 +9,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
@@ -17,7 +18,9 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 
 /**
  * Entity class representing a purchase in the system.
@@ -29,10 +32,21 @@ import jakarta.persistence.Table;
 @Getter
 @Setter
 @Entity
-@Table(name = "compras")
+@Table(name = "compras", uniqueConstraints = @UniqueConstraint(
+    name = "uk_compras_usuario_clave", columnNames = {"usuario_id", "clave_idempotencia"}))
 public class Compra {
+
+  /** Number of IDs reserved on each sequence call. */
+  private static final int ID_ALLOCATION_SIZE = 50;
+
+  /**
+   * Identifier taken from a pooled sequence, so that inserts can be batched.
+   * Databases without sequences, such as MySQL, emulate it with a table.
+   */
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "compras_seq")
+  @SequenceGenerator(name = "compras_seq", sequenceName = "compras_seq",
+      allocationSize = ID_ALLOCATION_SIZE)
   private Long id;
   
   /**
@@ -51,6 +65,13 @@ public class Compra {
    * Total amount of the purchase.
    */
   private BigDecimal total;
+
+  /**
+   * Key the cart sent with the checkout that created this purchase, unique
+   * per user. Null for purchases made without a key.
+   */
+  @Column(name = "clave_idempotencia", length = 64, updatable = false)
+  private String claveIdempotencia;
   
   /**
    * List of products included in this purchase.
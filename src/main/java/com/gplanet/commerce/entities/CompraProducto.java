@@ -5,6 +5,7 @@ import lombok.Setter;
 
 import java.math.BigDecimal;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
@@ -12,11 +13,13 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 
 /**
  * Entity class representing a product entry in a purchase.
- * This is a join table between Purchase and Product that includes quantity and subtotal.
+ * This is a join table between Purchase and Product that includes quantity and subtotal,
+ * along with the name and unit price the product had when it was purchased.
  *
  * @author Gustavo
  * @version 1.0
@@ -26,8 +29,18 @@ import jakarta.persistence.Table;
 @Entity
 @Table(name = "compra_productos")
 public class CompraProducto {
+
+  /** Number of IDs reserved on each sequence call. */
+  private static final int ID_ALLOCATION_SIZE = 50;
+
+  /**
+   * Identifier taken from a pooled sequence, so that inserts can be batched.
+   * Databases without sequences, such as MySQL, emulate it with a table.
+   */
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "compra_productos_seq")
+  @SequenceGenerator(name = "compra_productos_seq", sequenceName = "compra_productos_seq",
+      allocationSize = ID_ALLOCATION_SIZE)
   private Long id;
   
   /**
@@ -43,6 +56,18 @@ public class CompraProducto {
   @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "producto_id")
   private Producto producto;
+
+  /**
+   * Name of the product when it was purchased.
+   */
+  @Column(name = "producto_nombre", nullable = false, updatable = false)
+  private String productoNombre;
+
+  /**
+   * Unit price of the product when it was purchased.
+   */
+  @Column(name = "precio_unitario", nullable = false, updatable = false)
+  private BigDecimal precioUnitario;
   
   /**
    * Quantity of the product purchased.
@@ -53,4 +78,29 @@ public class CompraProducto {
    * Subtotal for this product entry (price * quantity).
    */
   private BigDecimal subtotal;
+
+  /**
+   * Sets the purchased product and takes a snapshot of its current name and
+   * price, so the line keeps showing what was paid after the product changes.
+   *
+   * @param producto The purchased product
+   */
+  public void setProducto(Producto producto) {
+    setProducto(producto, producto.getNombre(), producto.getPrecio());
+  }
+
+  /**
+   * Sets the purchased product with the name and price it had when the buyer
+   * saw it, without reading them from the product. Lets the product be a
+   * reference that is never loaded.
+   *
+   * @param producto       The purchased product
+   * @param productoNombre The name of the product
+   * @param precioUnitario The unit price of the product
+   */
+  public void setProducto(Producto producto, String productoNombre, BigDecimal precioUnitario) {
+    this.producto = producto;
+    this.productoNombre = productoNombre;
+    this.precioUnitario = precioUnitario;
+  }
 }
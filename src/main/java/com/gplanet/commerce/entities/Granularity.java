@@ -0,0 +1,31 @@
+package com.gplanet.commerce.entities;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Length of the periods into which the sales statistics are rolled up.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+public enum Granularity {
+  HOUR(ChronoUnit.HOURS),
+  DAY(ChronoUnit.DAYS);
+
+  private final ChronoUnit unidad;
+
+  Granularity(ChronoUnit unidad) {
+    this.unidad = unidad;
+  }
+
+  /**
+   * Returns the start of the period that contains the given instant.
+   *
+   * @param fecha The instant
+   * @return The start of its period
+   */
+  public LocalDateTime inicio(LocalDateTime fecha) {
+    return fecha.truncatedTo(unidad);
+  }
+}
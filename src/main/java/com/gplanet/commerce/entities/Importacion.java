@@ -0,0 +1,120 @@
+package com.gplanet.commerce.entities;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Entity class representing a bulk import of products from an uploaded file.
+ * Keeps the progress of the import, which is committed together with every
+ * batch of rows so that an interrupted import can be resumed after the last
+ * batch that was written.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+@Data
+@Entity
+@Table(name = "importaciones")
+public class Importacion {
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  /**
+   * Name of the uploaded file.
+   */
+  @Column(name = "nombre_archivo")
+  private String nombreArchivo;
+
+  /**
+   * Format of the uploaded file.
+   */
+  @Enumerated(EnumType.STRING)
+  private Format formato;
+
+  /**
+   * Current state of the import.
+   */
+  @Enumerated(EnumType.STRING)
+  private Status estado;
+
+  /**
+   * Size of the uploaded file in bytes.
+   */
+  @Column(name = "tamano_archivo")
+  private long tamanoArchivo;
+
+  /**
+   * Bytes of the file read up to the last written batch.
+   */
+  @Column(name = "bytes_procesados")
+  private long bytesProcesados;
+
+  /**
+   * Rows of the file handled up to the last written batch, whether they were
+   * saved or rejected. A resumed import skips this many rows.
+   */
+  @Column(name = "filas_procesadas")
+  private long filasProcesadas;
+
+  /**
+   * Number of products created.
+   */
+  private long insertados;
+
+  /**
+   * Number of existing products updated.
+   */
+  private long actualizados;
+
+  /**
+   * Number of rejected rows.
+   */
+  private long errores;
+
+  /**
+   * Reason why the import failed, if it did.
+   */
+  private String mensaje;
+
+  /**
+   * Timestamp when the import was started.
+   */
+  @Column(name = "fecha_inicio")
+  private LocalDateTime fechaInicio;
+
+  /**
+   * Timestamp when the import finished, if it did.
+   */
+  @Column(name = "fecha_fin")
+  private LocalDateTime fechaFin;
+
+  /**
+   * Enumeration of the states of an import.
+   */
+  public enum Status {
+    RUNNING,
+    COMPLETED,
+    FAILED,
+    INTERRUPTED
+  }
+
+  /**
+   * Enumeration of the supported file formats.
+   */
+  public enum Format {
+    /** Comma-separated values with a header row. */
+    CSV,
+    /** A JSON array of product objects. */
+    JSON
+  }
+}
@@ -4,6 +4,11 @@ import lombok.Data;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
@@ -14,6 +19,8 @@ import jakarta.persistence.Table;
 /**
  * Entity class representing a product in the system.
  * Products can be purchased by users and can be active or inactive.
+ * Products are read far more often than they change, so they are kept in the
+ * second-level cache, which is updated when a change commits.
  *
  * @author Gustavo
  * @version 1.0
@@ -21,6 +28,8 @@ import jakarta.persistence.Table;
 @Data
 @Entity
 @Table(name = "productos")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "productos")
 public class Producto {
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -48,8 +57,25 @@ public class Producto {
   @Column(name = "fecha_creacion")
   private LocalDateTime fechaCreacion;
   
+  /**
+   * Timestamp of the last change to the product, set on every insert and
+   * update. Identifies the version of the product shown to clients.
+   */
+  @UpdateTimestamp
+  @Column(name = "fecha_modificacion")
+  private LocalDateTime fechaModificacion;
+
   /**
    * Flag indicating if the product is currently active and available for purchase.
    */
   private boolean activo;
+
+  /**
+   * Units in stock, or null if the stock of the product is not tracked.
+   * Set when the product is created and only changed afterwards through
+   * conditional updates (see StockService), so that saving the entity never
+   * overwrites units reserved concurrently.
+   */
+  @Column(updatable = false)
+  private Integer stock;
 }
@@ -0,0 +1,89 @@
+package com.gplanet.commerce.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+
+/**
+ * Entity class representing the sales of one product during one hour or day.
+ * Rows are kept up to date as purchases are made (see
+ * {@link com.gplanet.commerce.services.EstadisticaVentasService}), so that
+ * reports never have to scan the purchases.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+@Data
+@Entity
+@Table(name = "ventas_producto")
+@IdClass(VentaProducto.Clave.class)
+public class VentaProducto {
+
+  /**
+   * Length of the period.
+   */
+  @Id
+  @Enumerated(EnumType.STRING)
+  @Column(length = 10)
+  private Granularity granularidad;
+
+  /**
+   * Start of the period.
+   */
+  @Id
+  private LocalDateTime periodo;
+
+  /**
+   * ID of the product sold. There is no foreign key, so statistics outlive
+   * deleted products.
+   */
+  @Id
+  @Column(name = "producto_id")
+  private Long productoId;
+
+  /**
+   * Name of the product at its last sale in the period.
+   */
+  @Column(name = "producto_nombre")
+  private String productoNombre;
+
+  /**
+   * Number of purchases that included the product.
+   */
+  private long compras;
+
+  /**
+   * Number of units sold.
+   */
+  private long unidades;
+
+  /**
+   * Revenue from the product.
+   */
+  @Column(precision = 14, scale = 2)
+  private BigDecimal importe;
+
+  /**
+   * Composite primary key of {@link VentaProducto}.
+   */
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Clave implements Serializable {
+    private Granularity granularidad;
+    private LocalDateTime periodo;
+    private Long productoId;
+  }
+}
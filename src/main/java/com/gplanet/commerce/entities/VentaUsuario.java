@@ -0,0 +1,89 @@
+package com.gplanet.commerce.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+
+/**
+ * Entity class representing the purchases of one user during one hour or day.
+ * Rows are kept up to date as purchases are made (see
+ * {@link com.gplanet.commerce.services.EstadisticaVentasService}). As every
+ * purchase belongs to exactly one user, adding up these rows gives the
+ * totals of the whole store.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+@Data
+@Entity
+@Table(name = "ventas_usuario")
+@IdClass(VentaUsuario.Clave.class)
+public class VentaUsuario {
+
+  /**
+   * Length of the period.
+   */
+  @Id
+  @Enumerated(EnumType.STRING)
+  @Column(length = 10)
+  private Granularity granularidad;
+
+  /**
+   * Start of the period.
+   */
+  @Id
+  private LocalDateTime periodo;
+
+  /**
+   * ID of the buyer.
+   */
+  @Id
+  @Column(name = "usuario_id")
+  private Long usuarioId;
+
+  /**
+   * Email of the buyer at their last purchase in the period.
+   */
+  @Column(name = "usuario_email")
+  private String usuarioEmail;
+
+  /**
+   * Number of purchases made.
+   */
+  private long compras;
+
+  /**
+   * Number of units bought.
+   */
+  private long unidades;
+
+  /**
+   * Amount spent.
+   */
+  @Column(precision = 14, scale = 2)
+  private BigDecimal importe;
+
+  /**
+   * Composite primary key of {@link VentaUsuario}.
+   */
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Clave implements Serializable {
+    private Granularity granularidad;
+    private LocalDateTime periodo;
+    private Long usuarioId;
+  }
+}
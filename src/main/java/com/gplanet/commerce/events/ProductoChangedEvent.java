@@ -0,0 +1,17 @@
+package com.gplanet.commerce.events;
+
+import com.gplanet.commerce.dtos.producto.ProductoResponseDTO;
+
+/**
+ * Application event published by the product service whenever a product is
+ * created, updated or has its status toggled.
+ * Listeners keep in-memory views of the catalog in sync with the database.
+ *
+ * @author Gustavo
+ * @version 1.0
+ *
+ * @param producto The state of the product after the change.
+ */
+public record ProductoChangedEvent(
+  ProductoResponseDTO producto
+) {}
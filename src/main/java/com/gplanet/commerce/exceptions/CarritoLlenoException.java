@@ -0,0 +1,19 @@
+package com.gplanet.commerce.exceptions;
+
+/**
+ * Exception thrown when a product cannot be added to a cart because the cart
+ * already holds the maximum number of different products.
+ * 
+ * @author Gustavo
+ * @version 1.0
+ */
+public class CarritoLlenoException extends RuntimeException {
+  /**
+   * Creates a new full cart exception.
+   * 
+   * @param message The detailed message explaining why the product was not added
+   */
+  public CarritoLlenoException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,22 @@
+package com.gplanet.commerce.exceptions;
+
+/**
+ * Exception thrown when an order cannot be accepted because the order-intake
+ * queue is full.
+ * 
+ * Callers should ask the buyer to try again later instead of waiting, so that
+ * bursts of orders cannot exhaust the request threads.
+ * 
+ * @author Gustavo
+ * @version 1.0
+ */
+public class PedidoQueueFullException extends RuntimeException {
+  /**
+   * Creates a new queue full exception.
+   * 
+   * @param message The detailed message explaining why the order was rejected
+   */
+  public PedidoQueueFullException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,36 @@
+package com.gplanet.commerce.exceptions;
+
+import java.util.List;
+
+/**
+ * Exception thrown when an order cannot be written because some of its
+ * products do not have enough units in stock.
+ * 
+ * No units are reserved for an order rejected with this exception.
+ * 
+ * @author Gustavo
+ * @version 1.0
+ */
+public class StockInsuficienteException extends RuntimeException {
+
+  private final List<Long> productoIds;
+
+  /**
+   * Creates a new insufficient stock exception.
+   * 
+   * @param productoIds The IDs of the products without enough units
+   */
+  public StockInsuficienteException(List<Long> productoIds) {
+    super("Stock insuficiente: " + productoIds);
+    this.productoIds = List.copyOf(productoIds);
+  }
+
+  /**
+   * Returns the products that do not have enough units.
+   * 
+   * @return The IDs of the products without enough units
+   */
+  public List<Long> getProductoIds() {
+    return productoIds;
+  }
+}
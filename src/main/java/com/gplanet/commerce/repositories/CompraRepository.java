@@ -1,9 +1,16 @@
 package com.gplanet.commerce.repositories;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -40,14 +47,89 @@ public interface CompraRepository extends JpaRepository<Compra, Long> {
   Page<Compra> findByFechaBetween(LocalDateTime yesterday, LocalDateTime tomorrow, Pageable pageable);
 
   /**
-   * Finds all purchases made by a user, including their associated products, with pagination support.
-   * Uses JOIN FETCH to avoid N+1 query problems.
-   * 
+   * Finds one slice of purchase IDs, without counting the total number of
+   * purchases. The slice can then be loaded with {@link #findAllWithDetailsByIdIn(Collection)}.
+   *
+   * @param pageable pagination and sorting information
+   * @return a slice of purchase IDs
+   */
+  @Query("SELECT c.id FROM Compra c")
+  Slice<Long> findSliceIds(Pageable pageable);
+
+  /**
+   * Finds one slice of the IDs of the purchases made by a user, without
+   * counting the total number of purchases. The slice can then be loaded
+   * with {@link #findAllWithDetailsByIdIn(Collection)}.
+   *
    * @param usuarioId the ID of the user
-   * @param pageable pagination information
-   * @return a page of purchases with their products
+   * @param pageable pagination and sorting information
+   * @return a slice of purchase IDs
+   */
+  @Query("SELECT c.id FROM Compra c WHERE c.usuario.id = :usuarioId")
+  Slice<Long> findSliceIdsByUsuarioId(@Param("usuarioId") Long usuarioId, Pageable pageable);
+
+  /**
+   * Counts all purchases, stopping at the given limit so that large totals
+   * do not require a full scan.
+   *
+   * @param limit the maximum number of purchases to count
+   * @return the number of purchases, at most the given limit
+   */
+  @Query("SELECT COUNT(*) FROM (SELECT c.id AS id FROM Compra c ORDER BY c.id LIMIT :limit) compras")
+  long countUpTo(@Param("limit") int limit);
+
+  /**
+   * Counts the purchases made by a user, stopping at the given limit so that
+   * large totals do not require a full scan.
+   *
+   * @param usuarioId the ID of the user
+   * @param limit the maximum number of purchases to count
+   * @return the number of purchases of the user, at most the given limit
+   */
+  @Query("SELECT COUNT(*) FROM (SELECT c.id AS id FROM Compra c WHERE c.usuario.id = :usuarioId " +
+         "ORDER BY c.id LIMIT :limit) compras")
+  long countByUsuarioIdUpTo(@Param("usuarioId") Long usuarioId, @Param("limit") int limit);
+
+  /**
+   * Scrolls through all purchases using keyset pagination.
+   *
+   * @param position the position to scroll from
+   * @param sort sorting information, must end with a unique key
+   * @param limit the maximum number of purchases to return
+   * @return a window of purchases after (or before) the given position
+   */
+  Window<Compra> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
+  /**
+   * Scrolls through the purchases made by a user using keyset pagination.
+   *
+   * @param usuarioId the ID of the user
+   * @param position the position to scroll from
+   * @param sort sorting information, must end with a unique key
+   * @param limit the maximum number of purchases to return
+   * @return a window of purchases after (or before) the given position
+   */
+  Window<Compra> findByUsuarioId(Long usuarioId, ScrollPosition position, Sort sort, Limit limit);
+
+  /**
+   * Loads the given purchases together with their buyer and lines in a
+   * single query. The lines keep the name and price of their products, so
+   * the products are not joined. The result is not ordered.
+   *
+   * @param ids the IDs of the purchases to load
+   * @return the purchases with all the associations needed to display them
+   */
+  @Query("SELECT DISTINCT c FROM Compra c JOIN FETCH c.usuario "
+      + "LEFT JOIN FETCH c.productos WHERE c.id IN :ids")
+  List<Compra> findAllWithDetailsByIdIn(@Param("ids") Collection<Long> ids);
+
+  /**
+   * Checks whether a user already has a purchase created with the given
+   * idempotency key. Resolved by the unique index on both columns.
+   *
+   * @param usuarioId the ID of the user
+   * @param claveIdempotencia the idempotency key sent with the checkout
+   * @return true if the purchase exists
    */
-  @Query(value = "SELECT c FROM Compra c LEFT JOIN FETCH c.productos WHERE c.usuario.id = :usuarioId",
-         countQuery = "SELECT COUNT(c) FROM Compra c WHERE c.usuario.id = :usuarioId")
-  Page<Compra> findAllByUsuarioIdWithProductos(@Param("usuarioId") Long usuarioId, Pageable pageable);
+  boolean existsByUsuarioIdAndClaveIdempotencia(Long usuarioId, String claveIdempotencia);
 }
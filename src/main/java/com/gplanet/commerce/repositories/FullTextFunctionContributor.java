@@ -0,0 +1,46 @@
+package com.gplanet.commerce.repositories;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.query.sqm.produce.function.FunctionParameterType;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Registers the {@value #FULLTEXT_MATCH} query function, which scores a row
+ * against a full-text search over two text columns.
+ * The function takes the two columns, a MySQL boolean-mode query and a LIKE
+ * pattern. On MySQL it is resolved by the FULLTEXT index on those columns and
+ * the LIKE pattern is ignored; on other databases, such as the H2 database of
+ * the tests, it falls back to matching the pattern and the query is ignored.
+ * A score greater than zero means the row matches.
+ *
+ * <p>Registered through {@code META-INF/services/org.hibernate.boot.model.FunctionContributor}.</p>
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+public class FullTextFunctionContributor implements FunctionContributor {
+
+  /** Name of the function in HQL and criteria queries. */
+  public static final String FULLTEXT_MATCH = "fulltext_match";
+
+  private static final String MYSQL_PATTERN = "match(?1, ?2) against (?3 in boolean mode)";
+  private static final String LIKE_PATTERN =
+      "case when lower(?1) like ?4 or lower(?2) like ?4 then 1.0 else 0.0 end";
+
+  @Override
+  public void contributeFunctions(FunctionContributions functionContributions) {
+    String pattern = functionContributions.getDialect() instanceof MySQLDialect ? MYSQL_PATTERN : LIKE_PATTERN;
+
+    functionContributions.getFunctionRegistry()
+        .patternDescriptorBuilder(FULLTEXT_MATCH, pattern)
+        .setExactArgumentCount(4)
+        .setParameterTypes(FunctionParameterType.STRING, FunctionParameterType.STRING,
+            FunctionParameterType.STRING, FunctionParameterType.STRING)
+        .setInvariantType(functionContributions.getTypeConfiguration()
+            .getBasicTypeRegistry().resolve(StandardBasicTypes.DOUBLE))
+        .setArgumentListSignature("(STRING column1, STRING column2, STRING booleanQuery, STRING likePattern)")
+        .register();
+  }
+}
@@ -0,0 +1,29 @@
+package com.gplanet.commerce.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.gplanet.commerce.entities.Importacion;
+
+/**
+ * Repository interface for managing product imports (Importacion) in the database.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+public interface ImportacionRepository extends JpaRepository<Importacion, Long> {
+
+  /**
+   * Marks the imports left running by a previous run of the application as
+   * interrupted, so they can be resumed.
+   *
+   * @return the number of imports marked
+   */
+  @Modifying
+  @Transactional
+  @Query("UPDATE Importacion i SET i.estado = com.gplanet.commerce.entities.Importacion.Status.INTERRUPTED "
+      + "WHERE i.estado = com.gplanet.commerce.entities.Importacion.Status.RUNNING")
+  int interrumpirEnCurso();
+}
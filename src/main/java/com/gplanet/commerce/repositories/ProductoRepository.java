@@ -1,69 +1,80 @@
 package com.gplanet.commerce.repositories;
 
-import org.springframework.data.domain.Page;
+import java.util.List;
+
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.gplanet.commerce.entities.Producto;
 
+import jakarta.persistence.QueryHint;
+
 /**
  * Repository interface for managing Product (Producto) entities in the database.
  * Provides CRUD operations and custom queries for product-related operations.
+ * Listing queries are cacheable: their results are kept in the query cache
+ * until the products table changes. Searches are resolved by the FULLTEXT
+ * index on name and description (see {@link FullTextFunctionContributor}).
  * 
  * @author Gustavo
  * @version 1.0
  */
 @Repository
-public interface ProductoRepository extends JpaRepository<Producto, Long> {
+public interface ProductoRepository
+    extends JpaRepository<Producto, Long>, JpaSpecificationExecutor<Producto>, ProductoRepositoryCustom {
   
   /**
-   * Finds all active products in the system with pagination support.
-   * 
-   * @param pageable pagination information
-   * @return a page of products where the 'activo' flag is true
-   */
-  Page<Producto> findByActivoTrue(Pageable pageable);
-
-  /**
-   * Finds all non-active products in the system with pagination support.
+   * Finds one slice of the products matching the given filters, without
+   * counting the total number of matches.
    * 
-   * @param pageable pagination information
-   * @return a page of products where the 'activo' flag is false
-   */
-  Page<Producto> findByActivoFalse(Pageable pageable);
-
-  /**
-   * Finds active products containing the search term in either name or description.
-   * 
-   * @param searchTerm The search term to match against name or description (should include % wildcards)
+   * @param activo The value of the 'activo' flag to match, or null for every product
+   * @param searchQuery The full-text query to match against name and description, built by
+   *                    {@link ProductoSpecifications#fullTextQuery(String)}, or null to skip the search
+   * @param searchTerm The LIKE pattern matched instead of the full-text query on databases other than MySQL,
+   *                   built by {@link ProductoSpecifications#likePattern(String)}
    * @param pageable Pagination information
-   * @return Page of Producto entities matching the criteria
+   * @return Slice of Producto entities matching the criteria
    */
-  @Query("SELECT p FROM Producto p "+
-         "WHERE p.activo = true AND (LOWER(p.nombre) LIKE :searchTerm OR LOWER(p.descripcion) LIKE :searchTerm)")
-  Page<Producto> findByActivoTrueAndSearch(String searchTerm, Pageable pageable);
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+  @Query("SELECT p FROM Producto p " +
+         "WHERE (:activo IS NULL OR p.activo = :activo) " +
+         "AND (:searchQuery IS NULL OR fulltext_match(p.nombre, p.descripcion, :searchQuery, :searchTerm) > 0)")
+  Slice<Producto> findSlice(@Param("activo") Boolean activo, @Param("searchQuery") String searchQuery,
+      @Param("searchTerm") String searchTerm, Pageable pageable);
 
   /**
-   * Finds inactive products containing the search term in either name or description.
+   * Counts the products matching the given filters, stopping at the given limit
+   * so that large totals do not require a full scan.
    * 
-   * @param searchTerm The search term to match against name or description (should include % wildcards)
-   * @param pageable Pagination information
-   * @return Page of Producto entities matching the criteria
+   * @param activo The value of the 'activo' flag to match, or null for every product
+   * @param searchQuery The full-text query to match against name and description, built by
+   *                    {@link ProductoSpecifications#fullTextQuery(String)}, or null to skip the search
+   * @param searchTerm The LIKE pattern matched instead of the full-text query on databases other than MySQL,
+   *                   built by {@link ProductoSpecifications#likePattern(String)}
+   * @param limit The maximum number of products to count
+   * @return The number of matching products, at most the given limit
    */
-  @Query("SELECT p FROM Producto p " + 
-         "WHERE p.activo = false AND (LOWER(p.nombre) LIKE :searchTerm OR LOWER(p.descripcion) LIKE :searchTerm)")
-  Page<Producto> findByActivoFalseAndSearch(String searchTerm, Pageable pageable);
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+  @Query("SELECT COUNT(*) FROM (SELECT p.id AS id FROM Producto p " +
+         "WHERE (:activo IS NULL OR p.activo = :activo) " +
+         "AND (:searchQuery IS NULL OR fulltext_match(p.nombre, p.descripcion, :searchQuery, :searchTerm) > 0) " +
+         "ORDER BY p.id LIMIT :limit) matches")
+  long countUpTo(@Param("activo") Boolean activo, @Param("searchQuery") String searchQuery,
+      @Param("searchTerm") String searchTerm, @Param("limit") int limit);
 
   /**
-   * Finds all products (active and inactive) containing the search term in either name or description.
+   * Finds the next chunk of products ordered by ID, starting after the given ID.
+   * Used to walk the whole catalog without OFFSET scans.
    * 
-   * @param searchTerm The search term to match against name or description (should include % wildcards)
-   * @param pageable Pagination information
-   * @return Page of Producto entities matching the criteria
+   * @param id The last ID already processed (exclusive)
+   * @return Up to 1000 products with an ID greater than the given one
    */
-  @Query("SELECT p FROM Producto p "+
-         "WHERE LOWER(p.nombre) LIKE :searchTerm OR LOWER(p.descripcion) LIKE :searchTerm")
-  Page<Producto> findBySearch(String searchTerm, Pageable pageable);
+  List<Producto> findTop1000ByIdGreaterThanOrderByIdAsc(Long id);
 }
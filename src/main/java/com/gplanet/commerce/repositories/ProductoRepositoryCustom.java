@@ -0,0 +1,25 @@
+package com.gplanet.commerce.repositories;
+
+import java.util.List;
+
+import com.gplanet.commerce.entities.Producto;
+
+/**
+ * Custom repository fragment for Product (Producto) entities.
+ * Overrides the default batch lookup so that it goes through the
+ * second-level cache.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+public interface ProductoRepositoryCustom {
+
+  /**
+   * Loads the products with the given IDs, serving them from the second-level
+   * cache when possible and fetching the rest with a single batch query.
+   *
+   * @param ids The IDs of the products to load
+   * @return The products found, in the order of the given IDs
+   */
+  List<Producto> findAllById(Iterable<Long> ids);
+}
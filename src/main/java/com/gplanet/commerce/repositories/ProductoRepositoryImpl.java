@@ -0,0 +1,45 @@
+package com.gplanet.commerce.repositories;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+
+import com.gplanet.commerce.entities.Producto;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Implementation of {@link ProductoRepositoryCustom} based on Hibernate's
+ * multi-ID loading, which checks the persistence context and the
+ * second-level cache before querying the database.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+class ProductoRepositoryImpl implements ProductoRepositoryCustom {
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Override
+  public List<Producto> findAllById(Iterable<Long> ids) {
+    List<Long> idList = new ArrayList<>();
+    ids.forEach(idList::add);
+    if (idList.isEmpty()) {
+      return List.of();
+    }
+
+    return entityManager.unwrap(Session.class)
+        .byMultipleIds(Producto.class)
+        .with(CacheMode.NORMAL)
+        .enableSessionCheck(true)
+        .multiLoad(idList)
+        .stream()
+        .filter(Objects::nonNull)
+        .toList();
+  }
+}
@@ -0,0 +1,81 @@
+package com.gplanet.commerce.repositories;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.gplanet.commerce.entities.Producto;
+import com.gplanet.commerce.utilities.TextUtil;
+
+/**
+ * Factory of JPA specifications used to combine product filters in queries
+ * that cannot be expressed as a single derived query, such as keyset scrolling.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+public final class ProductoSpecifications {
+
+  /**
+   * Private constructor to prevent instantiation of this utility class.
+   * This class contains only static methods and should not be instantiated.
+   *
+   * @throws AssertionError if this constructor is invoked
+   */
+  private ProductoSpecifications() {
+    throw new AssertionError("ProductoSpecifications class should not be instantiated");
+  }
+
+  /**
+   * Matches products with the given active flag.
+   *
+   * @param activo The value of the 'activo' flag to match
+   * @return Specification filtering by status
+   */
+  public static Specification<Producto> activo(boolean activo) {
+    return (root, query, cb) -> cb.equal(root.get("activo"), activo);
+  }
+
+  /**
+   * Matches products whose name or description contain words starting with
+   * every token of the search, through the FULLTEXT index on those columns.
+   *
+   * @param searchQuery The full-text query built by {@link #fullTextQuery(String)}
+   * @param searchTerm The LIKE pattern used instead on databases other than MySQL,
+   *                   built by {@link #likePattern(String)}
+   * @return Specification filtering by search text
+   */
+  public static Specification<Producto> contiene(String searchQuery, String searchTerm) {
+    return (root, query, cb) -> cb.greaterThan(
+        cb.function(FullTextFunctionContributor.FULLTEXT_MATCH, Double.class,
+            root.get("nombre"), root.get("descripcion"), cb.literal(searchQuery), cb.literal(searchTerm)),
+        0.0);
+  }
+
+  /**
+   * Builds a MySQL boolean-mode full-text query requiring a word that starts
+   * with each token of the given text, like the in-memory search index does.
+   *
+   * @param searchText The text searched by the user
+   * @return The full-text query, or null if the text has no searchable tokens
+   */
+  public static String fullTextQuery(String searchText) {
+    List<String> tokens = TextUtil.tokenize(searchText);
+    if (tokens.isEmpty()) {
+      return null;
+    }
+    return tokens.stream().map(token -> "+" + token + "*").collect(Collectors.joining(" "));
+  }
+
+  /**
+   * Builds the LIKE pattern matching the given text anywhere in a lower-cased
+   * column, used where full-text search is not available.
+   *
+   * @param searchText The text searched by the user
+   * @return The LIKE pattern
+   */
+  public static String likePattern(String searchText) {
+    return "%" + searchText.toLowerCase() + "%";
+  }
+}
@@ -3,7 +3,15 @@ package com.gplanet.commerce.repositories;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.gplanet.commerce.entities.Usuario;
 import com.gplanet.commerce.entities.Usuario.Role;
@@ -41,4 +49,32 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
    * @return a list of users with the specified role
    */
   List<Usuario> findByRol(Role role);
+
+  /**
+   * Scrolls through all users using keyset pagination.
+   * 
+   * @param position the position to scroll from
+   * @param sort sorting information, must end with a unique key
+   * @param limit the maximum number of users to return
+   * @return a window of users after (or before) the given position
+   */
+  Window<Usuario> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
+  /**
+   * Finds one slice of users, without counting the total number of users.
+   * 
+   * @param pageable pagination and sorting information
+   * @return a slice of users
+   */
+  Slice<Usuario> findAllBy(Pageable pageable);
+
+  /**
+   * Counts all users, stopping at the given limit so that large totals do
+   * not require a full scan.
+   * 
+   * @param limit the maximum number of users to count
+   * @return the number of users, at most the given limit
+   */
+  @Query("SELECT COUNT(*) FROM (SELECT u.id AS id FROM Usuario u ORDER BY u.id LIMIT :limit) usuarios")
+  long countUpTo(@Param("limit") int limit);
 }
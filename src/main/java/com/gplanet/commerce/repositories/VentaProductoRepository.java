@@ -0,0 +1,41 @@
+package com.gplanet.commerce.repositories;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.gplanet.commerce.dtos.estadistica.VentasProductoDTO;
+import com.gplanet.commerce.entities.Granularity;
+import com.gplanet.commerce.entities.VentaProducto;
+
+/**
+ * Repository interface for reading the sales statistics of each product
+ * (VentaProducto). The statistics are written by
+ * {@link com.gplanet.commerce.services.EstadisticaVentasService}.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+public interface VentaProductoRepository extends JpaRepository<VentaProducto, VentaProducto.Clave> {
+
+  /**
+   * Adds up the sales of each product over a range of periods, products with
+   * the highest revenue first.
+   *
+   * @param granularidad the length of the periods to add up
+   * @param desde the start of the first period (inclusive)
+   * @param hasta the end of the last period (exclusive)
+   * @param pageable the number of products to return
+   * @return the sales of each product
+   */
+  @Query("SELECT new com.gplanet.commerce.dtos.estadistica.VentasProductoDTO("
+      + "v.productoId, MAX(v.productoNombre), SUM(v.compras), SUM(v.unidades), SUM(v.importe)) "
+      + "FROM VentaProducto v WHERE v.granularidad = :granularidad AND v.periodo >= :desde AND v.periodo < :hasta "
+      + "GROUP BY v.productoId ORDER BY SUM(v.importe) DESC, v.productoId")
+  List<VentasProductoDTO> findTopProductos(@Param("granularidad") Granularity granularidad,
+      @Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta, Pageable pageable);
+}
@@ -0,0 +1,58 @@
+package com.gplanet.commerce.repositories;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.gplanet.commerce.dtos.estadistica.VentasPeriodoDTO;
+import com.gplanet.commerce.dtos.estadistica.VentasUsuarioDTO;
+import com.gplanet.commerce.entities.Granularity;
+import com.gplanet.commerce.entities.VentaUsuario;
+
+/**
+ * Repository interface for reading the sales statistics of each user
+ * (VentaUsuario). The statistics are written by
+ * {@link com.gplanet.commerce.services.EstadisticaVentasService}.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+public interface VentaUsuarioRepository extends JpaRepository<VentaUsuario, VentaUsuario.Clave> {
+
+  /**
+   * Adds up the sales of all users in each period of a range. As every
+   * purchase belongs to one user, these are the sales of the whole store.
+   *
+   * @param granularidad the length of the periods
+   * @param desde the start of the first period (inclusive)
+   * @param hasta the end of the last period (exclusive)
+   * @return the sales of each period with sales, in order
+   */
+  @Query("SELECT new com.gplanet.commerce.dtos.estadistica.VentasPeriodoDTO("
+      + "v.periodo, SUM(v.compras), SUM(v.unidades), SUM(v.importe)) "
+      + "FROM VentaUsuario v WHERE v.granularidad = :granularidad AND v.periodo >= :desde AND v.periodo < :hasta "
+      + "GROUP BY v.periodo ORDER BY v.periodo")
+  List<VentasPeriodoDTO> findSerie(@Param("granularidad") Granularity granularidad,
+      @Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
+
+  /**
+   * Adds up the purchases of each user over a range of periods, users who
+   * spent the most first.
+   *
+   * @param granularidad the length of the periods to add up
+   * @param desde the start of the first period (inclusive)
+   * @param hasta the end of the last period (exclusive)
+   * @param pageable the number of users to return
+   * @return the purchases of each user
+   */
+  @Query("SELECT new com.gplanet.commerce.dtos.estadistica.VentasUsuarioDTO("
+      + "v.usuarioId, MAX(v.usuarioEmail), SUM(v.compras), SUM(v.unidades), SUM(v.importe)) "
+      + "FROM VentaUsuario v WHERE v.granularidad = :granularidad AND v.periodo >= :desde AND v.periodo < :hasta "
+      + "GROUP BY v.usuarioId ORDER BY SUM(v.importe) DESC, v.usuarioId")
+  List<VentasUsuarioDTO> findTopUsuarios(@Param("granularidad") Granularity granularidad,
+      @Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta, Pageable pageable);
+}
@@ -2,10 +2,13 @@ package com.gplanet.commerce.security;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
@@ -26,6 +29,28 @@ public class SecurityConfig {
 
   private final UsuarioDetallesService customUserDetailsService;
 
+  /**
+   * Configures the security filter chain of the Prometheus scrape endpoint.
+   * Scrapers cannot use the login form, so this endpoint takes the
+   * credentials of an admin with HTTP Basic and keeps no session.
+   *
+   * @param http the HttpSecurity to configure
+   * @return the configured SecurityFilterChain
+   * @throws Exception if there's an error during configuration
+   */
+  @Bean
+  @Order(1)
+  public SecurityFilterChain prometheusFilterChain(HttpSecurity http) throws Exception {
+    http
+        .securityMatcher("/actuator/prometheus")
+        .authorizeHttpRequests(authz -> authz.anyRequest().hasRole("ADMIN"))
+        .httpBasic(Customizer.withDefaults())
+        .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+        .csrf(csrf -> csrf.disable());
+
+    return http.build();
+  }
+
   /**
    * Configures the security filter chain with specific security rules and permissions.
    *
@@ -39,11 +64,15 @@ public class SecurityConfig {
         .authorizeHttpRequests(authz -> authz
             .requestMatchers("/css/**", "/js/**", "/img/**").permitAll()
             .requestMatchers("/", "/usuarios/registro", "/usuarios/login", 
-                            "/usuarios/authenticated", "/productos/filtrar").permitAll()
+                            "/usuarios/authenticated", "/productos/filtrar",
+                            "/productos/sugerencias").permitAll()
+            .requestMatchers("/actuator/health").permitAll()
+            .requestMatchers("/actuator/**").hasRole("ADMIN")
             .requestMatchers("/usuarios/admin/**").hasRole("ADMIN")
             .requestMatchers("/usuarios/perfil", "/usuarios/password").authenticated()
             .requestMatchers("/productos/**").hasRole("ADMIN")
-            .requestMatchers("/compras/nueva").hasRole("USER")
+            .requestMatchers("/compras/admin/**").hasRole("ADMIN")
+            .requestMatchers("/compras/nueva", "/compras/carrito", "/carrito/**").hasRole("USER")
             .requestMatchers("/compras/**").authenticated()
             .anyRequest().authenticated()
         )
@@ -2,20 +2,26 @@ package com.gplanet.commerce.security;
 
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import com.gplanet.commerce.dtos.usuario.UsuarioMapper;
 import com.gplanet.commerce.entities.Usuario;
 import com.gplanet.commerce.repositories.UsuarioRepository;
+import com.gplanet.commerce.services.UsuarioService;
 
 import java.util.Collections;
 
 /**
  * Service class that implements Spring Security's UserDetailsService.
  * Provides user authentication and authority information to Spring Security.
+ * Loading a user also warms the identity cache used to resolve the current
+ * user on later requests.
  * 
  * @author Gustavo
  * @version 1.0
@@ -25,6 +31,8 @@ import java.util.Collections;
 public class UsuarioDetallesService implements UserDetailsService {
 
   private final UsuarioRepository usuarioRepository;
+  private final UsuarioMapper usuarioMapper;
+  private final CacheManager cacheManager;
 
   /**
    * Loads user details by email for Spring Security authentication.
@@ -38,6 +46,12 @@ public class UsuarioDetallesService implements UserDetailsService {
     Usuario usuario = usuarioRepository.findByEmail(email)
         .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado"));
 
+    // The password hash is only needed here, so only the identity is cached
+    Cache identidades = cacheManager.getCache(UsuarioService.IDENTIDAD_CACHE);
+    if (identidades != null) {
+      identidades.put(email, usuarioMapper.toUsuarioResponseDTO(usuario));
+    }
+
     return new UsuarioDetalles(usuario,
         Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + usuario.getRol()))
     );
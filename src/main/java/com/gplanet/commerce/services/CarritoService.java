@@ -0,0 +1,467 @@
+package com.gplanet.commerce.services;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.gplanet.commerce.configs.CarritoProperties;
+import com.gplanet.commerce.dtos.carrito.CarritoDTO;
+import com.gplanet.commerce.dtos.carrito.CarritoLineaDTO;
+import com.gplanet.commerce.dtos.compra.CompraProductoDTO;
+import com.gplanet.commerce.entities.Producto;
+import com.gplanet.commerce.exceptions.CarritoLlenoException;
+import com.gplanet.commerce.exceptions.ResourceNotFoundException;
+import com.gplanet.commerce.repositories.ProductoRepository;
+import com.gplanet.commerce.utilities.MoneyUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Service class that keeps the carts of signed-in users on the server.
+ *
+ * Carts live in memory, one compact entry per user holding product IDs and
+ * quantities in two arrays, and are written behind: a change only marks the
+ * cart as pending, and a background thread replaces the rows of each
+ * pending cart in the {@code carrito} table every few seconds, so adding
+ * and removing products never waits for the database. Carts evicted from
+ * memory are read back from the table, or from the pending carts if they
+ * were not written yet.
+ *
+ * The cart is validated against the catalog with one batch query when it is
+ * shown, and the result is kept until the cart or the catalog changes, so
+ * the checkout takes the products and prices the buyer was shown without
+ * resolving them again.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+@Slf4j
+@Service
+public class CarritoService implements SmartLifecycle {
+
+  private static final String SELECT =
+      "SELECT producto_id, cantidad FROM carrito WHERE usuario_id = ? ORDER BY posicion";
+  private static final String DELETE = "DELETE FROM carrito WHERE usuario_id = ?";
+  private static final String INSERT =
+      "INSERT INTO carrito (usuario_id, producto_id, cantidad, posicion) VALUES (?, ?, ?, ?)";
+  private static final long STOP_TIMEOUT_SECONDS = 10;
+
+  private final CarritoProperties properties;
+  private final CatalogVersionService catalogVersionService;
+  private final ProductoRepository productoRepository;
+  private final UsuarioService usuarioService;
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final LoadingCache<Long, Carrito> carritos;
+  private final Map<Long, Carrito> pendientes = new ConcurrentHashMap<>();
+  private ScheduledExecutorService escritor;
+  private volatile boolean running;
+
+  /**
+   * Creates the service with an in-memory store sized from the configuration.
+   *
+   * @param properties            Configuration of the carts
+   * @param catalogVersionService Service that tells when the catalog changed
+   * @param productoRepository    Repository used to validate the products
+   * @param usuarioService        Service that resolves the owner of a cart
+   * @param jdbcTemplate          Template used to read and write the carts
+   * @param transactionTemplate   Template of the transaction of each write
+   */
+  public CarritoService(CarritoProperties properties, CatalogVersionService catalogVersionService,
+      ProductoRepository productoRepository, UsuarioService usuarioService, JdbcTemplate jdbcTemplate,
+      TransactionTemplate transactionTemplate) {
+    this.properties = properties;
+    this.catalogVersionService = catalogVersionService;
+    this.productoRepository = productoRepository;
+    this.usuarioService = usuarioService;
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.carritos = Caffeine.newBuilder()
+        .maximumSize(properties.getMaxEntries())
+        .expireAfterAccess(properties.getExpireAfterAccess())
+        .build(this::cargar);
+  }
+
+  /**
+   * Returns the cart of a user validated against the current catalog.
+   * Products that no longer exist or are no longer active are removed from
+   * the cart.
+   *
+   * @param email Email of the owner of the cart
+   * @return The validated cart
+   * @throws UsernameNotFoundException if user is not found
+   */
+  public CarritoDTO obtener(String email) {
+    Long usuarioId = usuarioService.obtenerPerfil(email).id();
+    Carrito carrito = carritos.get(usuarioId);
+    long catalogo = catalogVersionService.current();
+
+    long[] ids;
+    int[] cantidades;
+    long version;
+    synchronized (carrito) {
+      if (carrito.validado != null && carrito.validadoVersion == carrito.version
+          && carrito.validadoCatalogo == catalogo) {
+        return carrito.validado;
+      }
+      ids = Arrays.copyOf(carrito.productoIds, carrito.size);
+      cantidades = Arrays.copyOf(carrito.cantidades, carrito.size);
+      version = carrito.version;
+    }
+
+    Map<Long, Producto> productos = cargarActivos(Arrays.stream(ids).boxed().toList());
+    List<CarritoLineaDTO> lineas = new ArrayList<>(ids.length);
+    List<Long> retirados = new ArrayList<>();
+    int unidades = 0;
+    long total = 0;
+    for (int i = 0; i < ids.length; i++) {
+      Producto producto = productos.get(ids[i]);
+      if (producto == null) {
+        retirados.add(ids[i]);
+        continue;
+      }
+      long subtotal = MoneyUtil.multiply(MoneyUtil.toCents(producto.getPrecio()), cantidades[i]);
+      lineas.add(new CarritoLineaDTO(producto.getId(), producto.getNombre(), producto.getPrecio(),
+          cantidades[i], MoneyUtil.fromCents(subtotal)));
+      unidades += cantidades[i];
+      total = Math.addExact(total, subtotal);
+    }
+    CarritoDTO validado = new CarritoDTO(List.copyOf(lineas), unidades, MoneyUtil.fromCents(total));
+
+    synchronized (carrito) {
+      // Keep the result only if the cart did not change while it was validated
+      if (carrito.version == version) {
+        if (!retirados.isEmpty()) {
+          log.info("Removed unavailable products {} from the cart of user: {}", retirados, email);
+          retirados.forEach(carrito::quitar);
+          pendientes.put(usuarioId, carrito);
+        }
+        carrito.validado = validado;
+        carrito.validadoVersion = carrito.version;
+        carrito.validadoCatalogo = catalogo;
+      }
+    }
+    return validado;
+  }
+
+  /**
+   * Adds units of a product to the cart of a user, up to the maximum
+   * quantity of a line.
+   *
+   * @param email      Email of the owner of the cart
+   * @param productoId The ID of the product
+   * @param cantidad   The units to add, greater than zero
+   * @return The validated cart
+   * @throws IllegalArgumentException if the units are not positive
+   * @throws ResourceNotFoundException if the product does not exist or is not active
+   * @throws CarritoLlenoException if the product is not in the cart and the cart is full
+   */
+  public CarritoDTO agregar(String email, Long productoId, int cantidad) {
+    if (cantidad <= 0) {
+      throw new IllegalArgumentException("The quantity must be greater than zero");
+    }
+    productoRepository.findById(productoId)
+        .filter(Producto::isActivo)
+        .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado"));
+
+    modificar(email, carrito -> {
+      if (carrito.indexOf(productoId) < 0 && carrito.size >= properties.getMaxLineas()) {
+        throw new CarritoLlenoException("El carrito no admite más productos");
+      }
+      carrito.sumar(productoId, cantidad, properties.getMaxCantidad());
+    });
+    return obtener(email);
+  }
+
+  /**
+   * Sets the units of a product already in the cart of a user, removing the
+   * product when the units are zero or less.
+   *
+   * @param email      Email of the owner of the cart
+   * @param productoId The ID of the product
+   * @param cantidad   The new units
+   * @return The validated cart
+   */
+  public CarritoDTO actualizar(String email, Long productoId, int cantidad) {
+    modificar(email, carrito -> {
+      if (cantidad <= 0) {
+        carrito.quitar(productoId);
+      } else {
+        carrito.poner(productoId, Math.min(cantidad, properties.getMaxCantidad()));
+      }
+    });
+    return obtener(email);
+  }
+
+  /**
+   * Removes a product from the cart of a user.
+   *
+   * @param email      Email of the owner of the cart
+   * @param productoId The ID of the product
+   * @return The validated cart
+   */
+  public CarritoDTO eliminar(String email, Long productoId) {
+    modificar(email, carrito -> carrito.quitar(productoId));
+    return obtener(email);
+  }
+
+  /**
+   * Takes the units of a purchased cart off the cart of a user. Only the
+   * purchased units are removed, under the lock of the cart, so products and
+   * units added after the cart was checked out stay in it. The lines are
+   * compared rather than a version, since the version of a cart starts over
+   * when an evicted cart is read back.
+   *
+   * @param email    Email of the owner of the cart
+   * @param comprado The cart as it was purchased
+   */
+  public void descontar(String email, CarritoDTO comprado) {
+    modificar(email, carrito -> {
+      for (CarritoLineaDTO linea : comprado.lineas()) {
+        carrito.descontar(linea.productoId(), linea.cantidad());
+      }
+    });
+  }
+
+  /**
+   * Adds the products of the cart a user filled in before signing in. The
+   * products are validated with one batch query; products that do not exist
+   * or are not active, and products that no longer fit in the cart, are
+   * skipped.
+   *
+   * @param email     Email of the owner of the cart
+   * @param productos The products of the anonymous cart
+   * @return The validated cart
+   */
+  public CarritoDTO fusionar(String email, List<CompraProductoDTO> productos) {
+    List<CompraProductoDTO> validos = productos.stream()
+        .filter(item -> item.productoId() != null && item.cantidad() != null && item.cantidad() > 0)
+        .toList();
+    Map<Long, Producto> activos = cargarActivos(validos.stream().map(CompraProductoDTO::productoId).toList());
+
+    modificar(email, carrito -> {
+      for (CompraProductoDTO item : validos) {
+        boolean cabe = carrito.indexOf(item.productoId()) >= 0 || carrito.size < properties.getMaxLineas();
+        if (activos.containsKey(item.productoId()) && cabe) {
+          carrito.sumar(item.productoId(), item.cantidad(), properties.getMaxCantidad());
+        }
+      }
+    });
+    log.info("Merged {} products into the cart of user: {}", validos.size(), email);
+    return obtener(email);
+  }
+
+  /**
+   * Writes every pending cart to the database. Called periodically by the
+   * writer thread and once more on shutdown. A cart that fails to be written
+   * stays pending and is retried on the next call, unless the database
+   * rejects it because its owner or one of its products no longer exists.
+   */
+  public void escribirPendientes() {
+    for (Map.Entry<Long, Carrito> pendiente : pendientes.entrySet()) {
+      try {
+        escribir(pendiente.getKey(), pendiente.getValue());
+      } catch (DataIntegrityViolationException e) {
+        log.warn("Discarding the cart of user {}: it refers to rows that no longer exist", pendiente.getKey(), e);
+        pendientes.remove(pendiente.getKey(), pendiente.getValue());
+      } catch (RuntimeException e) {
+        // Includes failures to start the transaction while the database is unreachable
+        log.error("Writing the cart of user {} failed, retrying later", pendiente.getKey(), e);
+      }
+    }
+  }
+
+  /**
+   * Starts the thread that writes the pending carts.
+   */
+  @Override
+  public void start() {
+    long delay = properties.getWriteBehindDelay().toMillis();
+    escritor = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("carrito-writer").factory());
+    escritor.scheduleWithFixedDelay(this::escribirPendientes, delay, delay, TimeUnit.MILLISECONDS);
+    running = true;
+    log.info("Cart writer started, writing every {}", properties.getWriteBehindDelay());
+  }
+
+  /**
+   * Stops the writer thread and writes the carts still pending.
+   */
+  @Override
+  public void stop() {
+    running = false;
+    escritor.shutdown();
+    try {
+      escritor.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    escribirPendientes();
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * Applies a change to the cart of a user and marks the cart as pending.
+   */
+  private void modificar(String email, Consumer<Carrito> cambio) {
+    Long usuarioId = usuarioService.obtenerPerfil(email).id();
+    Carrito carrito = carritos.get(usuarioId);
+    synchronized (carrito) {
+      cambio.accept(carrito);
+      pendientes.put(usuarioId, carrito);
+    }
+  }
+
+  /**
+   * Loads a cart that is not in memory: a cart evicted before it was written
+   * is taken from the pending carts, any other is read from the database.
+   */
+  private Carrito cargar(Long usuarioId) {
+    Carrito pendiente = pendientes.get(usuarioId);
+    if (pendiente != null) {
+      return pendiente;
+    }
+    Carrito carrito = new Carrito();
+    jdbcTemplate.query(SELECT, rs -> {
+      carrito.sumar(rs.getLong("producto_id"), rs.getInt("cantidad"), Integer.MAX_VALUE);
+    }, usuarioId);
+    return carrito;
+  }
+
+  /**
+   * Replaces the rows of a cart with its current lines in one transaction.
+   * The cart stops being pending only if it did not change meanwhile.
+   */
+  private void escribir(Long usuarioId, Carrito carrito) {
+    long[] ids;
+    int[] cantidades;
+    long version;
+    synchronized (carrito) {
+      ids = Arrays.copyOf(carrito.productoIds, carrito.size);
+      cantidades = Arrays.copyOf(carrito.cantidades, carrito.size);
+      version = carrito.version;
+    }
+
+    transactionTemplate.executeWithoutResult(status -> {
+      jdbcTemplate.update(DELETE, usuarioId);
+      if (ids.length > 0) {
+        List<Integer> posiciones = new ArrayList<>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+          posiciones.add(i);
+        }
+        jdbcTemplate.batchUpdate(INSERT, posiciones, posiciones.size(), (ps, i) -> {
+          ps.setLong(1, usuarioId);
+          ps.setLong(2, ids[i]);
+          ps.setInt(3, cantidades[i]);
+          ps.setInt(4, i);
+        });
+      }
+    });
+
+    synchronized (carrito) {
+      if (carrito.version == version) {
+        pendientes.remove(usuarioId, carrito);
+      }
+    }
+  }
+
+  /**
+   * Loads the given products with one batch query, keeping only the active ones.
+   */
+  private Map<Long, Producto> cargarActivos(List<Long> ids) {
+    if (ids.isEmpty()) {
+      return Map.of();
+    }
+    return productoRepository.findAllById(ids).stream()
+        .filter(Producto::isActivo)
+        .collect(Collectors.toMap(Producto::getId, Function.identity()));
+  }
+
+  /**
+   * The lines of one cart, in the order the products were added, with the
+   * last validation of the cart. Guarded by its own monitor.
+   */
+  private static final class Carrito {
+    private static final int CAPACIDAD_INICIAL = 4;
+
+    private long[] productoIds = new long[CAPACIDAD_INICIAL];
+    private int[] cantidades = new int[CAPACIDAD_INICIAL];
+    private int size;
+    private long version;
+    private CarritoDTO validado;
+    private long validadoVersion;
+    private long validadoCatalogo;
+
+    private int indexOf(long productoId) {
+      for (int i = 0; i < size; i++) {
+        if (productoIds[i] == productoId) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    private void sumar(long productoId, int cantidad, int maxCantidad) {
+      int i = indexOf(productoId);
+      if (i < 0) {
+        if (size == productoIds.length) {
+          productoIds = Arrays.copyOf(productoIds, size * 2);
+          cantidades = Arrays.copyOf(cantidades, size * 2);
+        }
+        i = size++;
+        productoIds[i] = productoId;
+        cantidades[i] = 0;
+      }
+      cantidades[i] = (int) Math.min((long) cantidades[i] + cantidad, maxCantidad);
+      version++;
+    }
+
+    private void poner(long productoId, int cantidad) {
+      int i = indexOf(productoId);
+      if (i >= 0) {
+        cantidades[i] = cantidad;
+        version++;
+      }
+    }
+
+    private void quitar(long productoId) {
+      int i = indexOf(productoId);
+      if (i >= 0) {
+        System.arraycopy(productoIds, i + 1, productoIds, i, size - i - 1);
+        System.arraycopy(cantidades, i + 1, cantidades, i, size - i - 1);
+        size--;
+        version++;
+      }
+    }
+
+    private void descontar(long productoId, int cantidad) {
+      int i = indexOf(productoId);
+      if (i >= 0 && cantidades[i] > cantidad) {
+        cantidades[i] -= cantidad;
+        version++;
+      } else {
+        quitar(productoId);
+      }
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package com.gplanet.commerce.services;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service class that keeps a version number of the product catalog.
+ * Every product write bumps the version, so anything derived from the catalog
+ * and keyed by its version, such as rendered product grids and their ETags,
+ * is left behind once the catalog changes. Versions start from the startup
+ * time, so that a restart never reuses the version of an older catalog.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+@Service
+public class CatalogVersionService {
+
+  private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+  /**
+   * Returns the current version of the catalog. Read it before querying the
+   * catalog, so that data read concurrently with a write is never stored
+   * under the version that follows the write.
+   *
+   * @return The current catalog version
+   */
+  public long current() {
+    return version.get();
+  }
+
+  /**
+   * Moves the catalog to a new version. When called inside a transaction the
+   * version changes once it commits, so that a concurrent request cannot
+   * store data read before the commit under the new version.
+   */
+  public void bump() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          version.incrementAndGet();
+        }
+      });
+    } else {
+      version.incrementAndGet();
+    }
+  }
+}
@@ -0,0 +1,270 @@
+package com.gplanet.commerce.services;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.gplanet.commerce.configs.CompraExportProperties;
+import com.gplanet.commerce.dtos.compra.CompraExportDTO;
+import com.gplanet.commerce.dtos.compra.CompraExportFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+/**
+ * Service class that exports the purchase history with the lines of every
+ * purchase, as CSV or NDJSON.
+ *
+ * Rows are read from a forward-only database cursor, a fetch at a time, and
+ * written to the output as they arrive, so memory use does not depend on the
+ * number of purchases exported. The purchases are read in ID order, which
+ * lets the NDJSON export gather the lines of one purchase at a time.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+@Slf4j
+@Service
+public class CompraExportService {
+
+  private static final String SELECT = "SELECT c.id, c.fecha, c.total, u.email, u.nombre AS usuario_nombre, "
+      + "cp.producto_id, cp.producto_nombre, cp.cantidad, cp.subtotal "
+      + "FROM compras c "
+      + "JOIN usuario u ON u.id = c.usuario_id "
+      + "LEFT JOIN compra_productos cp ON cp.compra_id = c.id "
+      + "WHERE 1 = 1";
+  private static final String ORDER_BY = " ORDER BY c.id, cp.id";
+
+  private static final CsvSchema CSV_SCHEMA = CsvSchema.builder()
+      .addColumn("compra_id")
+      .addColumn("fecha")
+      .addColumn("usuario_email")
+      .addColumn("usuario_nombre")
+      .addColumn("total")
+      .addColumn("producto_id")
+      .addColumn("producto_nombre")
+      .addColumn("cantidad")
+      .addColumn("subtotal")
+      .build()
+      .withHeader();
+
+  private final NamedParameterJdbcTemplate jdbcTemplate;
+  private final ObjectMapper objectMapper;
+  private final CsvMapper csvMapper = new CsvMapper();
+
+  /**
+   * Creates the service with a JDBC template that reads through a cursor.
+   *
+   * @param dataSource   The data source of the purchases
+   * @param objectMapper The application's JSON mapper, used for the NDJSON export
+   * @param properties   Configuration of the export
+   */
+  public CompraExportService(DataSource dataSource, ObjectMapper objectMapper,
+      CompraExportProperties properties) {
+    JdbcTemplate cursor = new JdbcTemplate(dataSource);
+    cursor.setFetchSize(properties.getFetchSize());
+    this.jdbcTemplate = new NamedParameterJdbcTemplate(cursor);
+    this.objectMapper = objectMapper;
+  }
+
+  /**
+   * Writes the purchases matching the given filters to a stream.
+   *
+   * @param formato The format of the export
+   * @param desde   First day of the purchases to export, or null for no lower bound
+   * @param hasta   Last day of the purchases to export, inclusive, or null for no upper bound
+   * @param usuario Email of the customer whose purchases are exported, or null for all customers
+   * @param out     Where the export is written; it is not closed
+   * @return The number of purchases exported
+   * @throws IOException if the export cannot be written
+   */
+  public long exportar(CompraExportFormat formato, LocalDate desde, LocalDate hasta, String usuario,
+      OutputStream out) throws IOException {
+    StringBuilder sql = new StringBuilder(SELECT);
+    MapSqlParameterSource params = new MapSqlParameterSource();
+    if (desde != null) {
+      sql.append(" AND c.fecha >= :desde");
+      params.addValue("desde", desde.atStartOfDay());
+    }
+    if (hasta != null) {
+      sql.append(" AND c.fecha < :hasta");
+      params.addValue("hasta", hasta.plusDays(1).atStartOfDay());
+    }
+    if (StringUtils.hasText(usuario)) {
+      sql.append(" AND u.email = :usuario");
+      params.addValue("usuario", usuario.trim());
+    }
+    sql.append(ORDER_BY);
+
+    if (log.isDebugEnabled()) {
+      log.debug("Exporting purchases as {} - from: {}, to: {}, user: {}", formato, desde, hasta, usuario);
+    }
+    long start = System.nanoTime();
+    Exportador exportador = switch (formato) {
+      case CSV -> new CsvExportador(csvMapper.writer(CSV_SCHEMA)
+          .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+          .writeValues(out));
+      case NDJSON -> new NdjsonExportador(objectMapper.writer()
+          .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+          .withRootValueSeparator("\n")
+          .writeValues(out));
+    };
+    try (exportador) {
+      jdbcTemplate.query(sql.toString(), params, rs -> {
+        try {
+          exportador.fila(rs);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    log.info("Exported {} purchases as {} in {} ms", exportador.compras(), formato,
+        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    return exportador.compras();
+  }
+
+  private static LocalDateTime fecha(ResultSet rs) throws SQLException {
+    Timestamp fecha = rs.getTimestamp("fecha");
+    return fecha == null ? null : fecha.toLocalDateTime();
+  }
+
+  private static Long productoId(ResultSet rs) throws SQLException {
+    long productoId = rs.getLong("producto_id");
+    return rs.wasNull() ? null : productoId;
+  }
+
+  /**
+   * Writes the rows of the result, in order, in one of the export formats.
+   */
+  private abstract static class Exportador implements AutoCloseable {
+    private final SequenceWriter writer;
+    private long compras;
+    private Long ultimaCompra;
+
+    Exportador(SequenceWriter writer) {
+      this.writer = writer;
+    }
+
+    /**
+     * Handles the current row of the result.
+     */
+    void fila(ResultSet rs) throws SQLException, IOException {
+      long compraId = rs.getLong("id");
+      if (ultimaCompra == null || ultimaCompra != compraId) {
+        compras++;
+        ultimaCompra = compraId;
+        nuevaCompra(rs);
+      }
+      linea(rs);
+    }
+
+    abstract void nuevaCompra(ResultSet rs) throws SQLException, IOException;
+
+    abstract void linea(ResultSet rs) throws SQLException, IOException;
+
+    long compras() {
+      return compras;
+    }
+
+    SequenceWriter writer() {
+      return writer;
+    }
+
+    @Override
+    public void close() throws IOException {
+      writer.close();
+    }
+  }
+
+  /**
+   * One CSV row per purchase line.
+   */
+  private static final class CsvExportador extends Exportador {
+    private Object[] compra;
+
+    CsvExportador(SequenceWriter writer) {
+      super(writer);
+    }
+
+    @Override
+    void nuevaCompra(ResultSet rs) throws SQLException {
+      LocalDateTime fecha = fecha(rs);
+      compra = new Object[] {rs.getLong("id"), fecha == null ? "" : fecha.toString(), rs.getString("email"),
+          rs.getString("usuario_nombre"), rs.getBigDecimal("total")};
+    }
+
+    @Override
+    void linea(ResultSet rs) throws SQLException, IOException {
+      Long productoId = productoId(rs);
+      BigDecimal subtotal = rs.getBigDecimal("subtotal");
+      Object cantidad = rs.getObject("cantidad");
+      writer().write(new Object[] {compra[0], compra[1], compra[2], compra[3], compra[4],
+          productoId == null ? "" : productoId,
+          productoId == null ? "" : rs.getString("producto_nombre"),
+          cantidad == null ? "" : cantidad,
+          subtotal == null ? "" : subtotal});
+    }
+  }
+
+  /**
+   * One JSON object per purchase, written once all of its lines have been read.
+   */
+  private static final class NdjsonExportador extends Exportador {
+    private CompraExportDTO compra;
+
+    NdjsonExportador(SequenceWriter writer) {
+      super(writer);
+    }
+
+    @Override
+    void nuevaCompra(ResultSet rs) throws SQLException, IOException {
+      escribir();
+      compra = new CompraExportDTO(rs.getLong("id"), fecha(rs), rs.getString("email"),
+          rs.getString("usuario_nombre"), rs.getBigDecimal("total"), new ArrayList<>());
+    }
+
+    @Override
+    void linea(ResultSet rs) throws SQLException {
+      Long productoId = productoId(rs);
+      if (productoId != null) {
+        compra.productos().add(new CompraExportDTO.Linea(productoId, rs.getString("producto_nombre"),
+            rs.getInt("cantidad"), rs.getBigDecimal("subtotal")));
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      escribir();
+      super.close();
+    }
+
+    private void escribir() throws IOException {
+      if (compra != null) {
+        writer().write(compra);
+        compra = null;
+      }
+    }
+  }
+}
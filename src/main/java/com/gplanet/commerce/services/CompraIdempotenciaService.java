@@ -0,0 +1,136 @@
+package com.gplanet.commerce.services;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.gplanet.commerce.configs.CompraIdempotenciaProperties;
+import com.gplanet.commerce.dtos.compra.ResultadoCompraDTO;
+import com.gplanet.commerce.repositories.CompraRepository;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Service class that makes checkouts idempotent, so that double clicks,
+ * browser retries and resubmits of the same cart purchase only once.
+ *
+ * The cart sends a key with each checkout. The outcome of the first
+ * checkout with a key that created or queued a purchase is kept in a bounded
+ * in-memory store for a while, and repeats with the same key get that
+ * outcome back without purchasing again;
+ * a repeat that arrives while the first checkout is still running waits for
+ * it. The store is only a shortcut: every purchase is written with its key
+ * under a unique constraint, so once an outcome is evicted, or on another
+ * instance, the repeat is recognized by the database instead.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+@Slf4j
+@Service
+public class CompraIdempotenciaService {
+
+  private final CompraRepository compraRepository;
+  private final UsuarioService usuarioService;
+  private final Cache<Clave, CompletableFuture<ResultadoCompraDTO>> resultados;
+
+  /**
+   * Creates the service with a store sized from the configuration.
+   *
+   * @param compraRepository Repository used to find purchases by key
+   * @param usuarioService   Service that resolves the ID of the buyer
+   * @param properties       Configuration of the store
+   */
+  public CompraIdempotenciaService(CompraRepository compraRepository, UsuarioService usuarioService,
+      CompraIdempotenciaProperties properties) {
+    this.compraRepository = compraRepository;
+    this.usuarioService = usuarioService;
+    this.resultados = Caffeine.newBuilder()
+        .maximumSize(properties.getMaxEntries())
+        .expireAfterWrite(properties.getTtl())
+        .build();
+  }
+
+  /**
+   * Runs a checkout once per user and key.
+   *
+   * Successful outcomes, which created or queued a purchase, are replayed to
+   * repeats. Rejections, such as a full order queue or products out of stock,
+   * are returned to the requests waiting on this checkout but not remembered,
+   * and neither are exceptions: a later repeat runs the checkout again.
+   *
+   * @param email   Email of the user making the purchase
+   * @param clave   The idempotency key sent with the checkout
+   * @param compra  The checkout to run
+   * @return The outcome of the checkout, or of the first checkout with the same key
+   */
+  public ResultadoCompraDTO ejecutar(String email, String clave, Supplier<ResultadoCompraDTO> compra) {
+    Clave id = new Clave(email, clave);
+    CompletableFuture<ResultadoCompraDTO> nuevo = new CompletableFuture<>();
+    CompletableFuture<ResultadoCompraDTO> previo = resultados.asMap().putIfAbsent(id, nuevo);
+    if (previo != null) {
+      log.info("Repeated checkout {} for user {} - replaying its outcome", clave, email);
+      return esperar(previo);
+    }
+
+    try {
+      ResultadoCompraDTO resultado = yaRealizada(email, clave)
+          ? ResultadoCompraDTO.completada()
+          : realizar(email, clave, compra);
+      if (!resultado.exitosa()) {
+        resultados.asMap().remove(id, nuevo);
+      }
+      nuevo.complete(resultado);
+      return resultado;
+    } catch (RuntimeException e) {
+      resultados.asMap().remove(id, nuevo);
+      nuevo.completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  /**
+   * Runs the checkout. When it fails on the unique key because another
+   * request with the same key got there first, its purchase is the outcome.
+   */
+  private ResultadoCompraDTO realizar(String email, String clave, Supplier<ResultadoCompraDTO> compra) {
+    try {
+      return compra.get();
+    } catch (DataIntegrityViolationException e) {
+      if (yaRealizada(email, clave)) {
+        log.info("Concurrent checkout {} for user {} already purchased", clave, email);
+        return ResultadoCompraDTO.completada();
+      }
+      throw e;
+    }
+  }
+
+  private boolean yaRealizada(String email, String clave) {
+    return compraRepository.existsByUsuarioIdAndClaveIdempotencia(usuarioService.obtenerPerfil(email).id(), clave);
+  }
+
+  /**
+   * Waits for the outcome of a checkout running on another request, throwing
+   * what it threw.
+   */
+  private static ResultadoCompraDTO esperar(CompletableFuture<ResultadoCompraDTO> resultado) {
+    try {
+      return resultado.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException causa) {
+        throw causa;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Idempotency key scoped to the user who sent it.
+   */
+  private record Clave(String email, String clave) {}
+}
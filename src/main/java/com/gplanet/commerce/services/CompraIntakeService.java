@@ -0,0 +1,254 @@
+package com.gplanet.commerce.services;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.context.SmartLifecycle;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.gplanet.commerce.configs.CompraIntakeProperties;
+import com.gplanet.commerce.dtos.compra.CompraDTO;
+import com.gplanet.commerce.dtos.compra.PedidoEstadoDTO;
+import com.gplanet.commerce.dtos.compra.PedidoPendiente;
+import com.gplanet.commerce.dtos.compra.PedidoStatus;
+import com.gplanet.commerce.exceptions.PedidoQueueFullException;
+import com.gplanet.commerce.exceptions.ResourceNotFoundException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service class that receives checkouts asynchronously when the order-intake
+ * mode is enabled.
+ *
+ * Orders are validated on the request thread and put in a bounded queue,
+ * and the buyer gets a token to follow them. A small pool of writer threads
+ * drains the queue and writes the pending orders in groups, one transaction
+ * and one set of JDBC batches per group. When the queue is full new orders
+ * are rejected right away instead of making the request wait. An order can
+ * carry an action that runs once the writer confirms it.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+@Slf4j
+@Service
+public class CompraIntakeService implements SmartLifecycle {
+
+  private static final long POLL_TIMEOUT_MILLIS = 200;
+
+  private final CompraService compraService;
+  private final CompraIntakeProperties properties;
+  private final BlockingQueue<PedidoPendiente> cola;
+  private final Cache<String, Seguimiento> seguimientos;
+  private final Map<String, Runnable> alConfirmar = new ConcurrentHashMap<>();
+  private final List<Thread> writers = new ArrayList<>();
+  private volatile boolean running;
+
+  /**
+   * Creates the service with a queue sized from the configuration.
+   *
+   * @param compraService Service that validates and writes the purchases
+   * @param properties    Configuration of the order-intake pipeline
+   */
+  public CompraIntakeService(CompraService compraService, CompraIntakeProperties properties) {
+    this.compraService = compraService;
+    this.properties = properties;
+    this.cola = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+    this.seguimientos = Caffeine.newBuilder()
+        .expireAfterWrite(properties.getStatusTtl())
+        .build();
+  }
+
+  /**
+   * Indicates whether checkouts should go through the queue.
+   *
+   * @return true if the order-intake mode is enabled
+   */
+  public boolean isEnabled() {
+    return properties.isEnabled();
+  }
+
+  /**
+   * Validates an order and queues it to be written.
+   *
+   * @param email     Email of the user making the purchase
+   * @param compraDTO Data transfer object containing purchase information
+   * @return The state of the accepted order, including its token
+   * @throws UsernameNotFoundException if user is not found
+   * @throws ResourceNotFoundException if any product in the purchase is not found
+   * @throws PedidoQueueFullException if the queue cannot take more orders
+   */
+  public PedidoEstadoDTO enviar(String email, CompraDTO compraDTO) {
+    return enviar(email, compraDTO, () -> { });
+  }
+
+  /**
+   * Validates an order and queues it to be written, running the given action
+   * on the writer thread once the order is confirmed. The action does not run
+   * if the order is rejected.
+   *
+   * @param email      Email of the user making the purchase
+   * @param compraDTO  Data transfer object containing purchase information
+   * @param confirmada Runs once the order is written
+   * @return The state of the accepted order, including its token
+   * @throws UsernameNotFoundException if user is not found
+   * @throws ResourceNotFoundException if any product in the purchase is not found
+   * @throws PedidoQueueFullException if the queue cannot take more orders
+   */
+  public PedidoEstadoDTO enviar(String email, CompraDTO compraDTO, Runnable confirmada) {
+    String token = UUID.randomUUID().toString();
+    PedidoPendiente pedido = compraService.validarCompra(token, email, compraDTO);
+
+    PedidoEstadoDTO estado = new PedidoEstadoDTO(token, PedidoStatus.PENDING, null);
+    seguimientos.put(token, new Seguimiento(email, estado));
+    alConfirmar.put(token, confirmada);
+    if (!running || !cola.offer(pedido)) {
+      seguimientos.invalidate(token);
+      alConfirmar.remove(token);
+      log.warn("Order intake queue full, rejecting order for user: {}", email);
+      throw new PedidoQueueFullException("Order intake queue is full");
+    }
+
+    if (log.isDebugEnabled()) {
+      log.debug("Order {} queued for user: {} ({} waiting)", token, email, cola.size());
+    }
+    return estado;
+  }
+
+  /**
+   * Returns the state of an order received from the given user.
+   *
+   * @param email Email of the user asking
+   * @param token The token of the order
+   * @return The state of the order, or empty if it is unknown, expired or
+   *         belongs to another user
+   */
+  public Optional<PedidoEstadoDTO> estado(String email, String token) {
+    Seguimiento seguimiento = token == null ? null : seguimientos.getIfPresent(token);
+    if (seguimiento == null || !seguimiento.email().equals(email)) {
+      return Optional.empty();
+    }
+    return Optional.of(seguimiento.estado());
+  }
+
+  /**
+   * Starts the writer threads when the order-intake mode is enabled.
+   */
+  @Override
+  public void start() {
+    if (!properties.isEnabled()) {
+      return;
+    }
+    running = true;
+    for (int i = 0; i < properties.getWorkers(); i++) {
+      writers.add(Thread.ofPlatform().name("compra-intake-" + i).start(this::drenar));
+    }
+    log.info("Order intake started with {} writers and a queue of {}",
+        properties.getWorkers(), properties.getQueueCapacity());
+  }
+
+  /**
+   * Stops accepting orders and waits for the writers to write the ones
+   * already queued.
+   */
+  @Override
+  public void stop() {
+    running = false;
+    for (Thread writer : writers) {
+      try {
+        writer.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+    writers.clear();
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * Writer loop: takes the oldest order plus whatever else is waiting, up to
+   * the batch size, and writes them together. Only an interrupt ends the loop
+   * before shutdown; any other failure is logged and the writer goes on with
+   * the next orders.
+   */
+  private void drenar() {
+    List<PedidoPendiente> lote = new ArrayList<>(properties.getBatchSize());
+    while (running || !cola.isEmpty()) {
+      try {
+        PedidoPendiente primero = cola.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        if (primero != null) {
+          lote.add(primero);
+          cola.drainTo(lote, properties.getBatchSize() - 1);
+          escribir(lote);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (RuntimeException e) {
+        log.error("Writer failed on {} queued orders", lote.size(), e);
+      } finally {
+        lote.clear();
+      }
+    }
+  }
+
+  /**
+   * Writes a group of orders in one transaction. If the transaction fails,
+   * the orders are retried one at a time so that a single bad order does not
+   * reject the whole group. An order that fails on its own for any reason is
+   * rejected.
+   */
+  private void escribir(List<PedidoPendiente> lote) {
+    try {
+      registrar(lote, compraService.registrarCompras(lote));
+    } catch (RuntimeException e) {
+      log.error("Writing {} queued orders failed, retrying them one by one", lote.size(), e);
+      for (PedidoPendiente pedido : lote) {
+        try {
+          registrar(List.of(pedido), compraService.registrarCompras(List.of(pedido)));
+        } catch (RuntimeException ex) {
+          log.error("Order {} rejected for user: {}", pedido.token(), pedido.email(), ex);
+          registrar(List.of(pedido), Map.of());
+        }
+      }
+    }
+  }
+
+  private void registrar(List<PedidoPendiente> pedidos, Map<String, Long> compraIds) {
+    for (PedidoPendiente pedido : pedidos) {
+      Long compraId = compraIds.get(pedido.token());
+      PedidoStatus status = compraId != null ? PedidoStatus.CONFIRMED : PedidoStatus.REJECTED;
+      // Run the action before publishing the state, so a buyer who sees the order confirmed sees its effect
+      Runnable confirmada = alConfirmar.remove(pedido.token());
+      if (confirmada != null && compraId != null) {
+        try {
+          confirmada.run();
+        } catch (RuntimeException e) {
+          log.error("Confirmation action of order {} failed for user: {}", pedido.token(), pedido.email(), e);
+        }
+      }
+      seguimientos.put(pedido.token(),
+          new Seguimiento(pedido.email(), new PedidoEstadoDTO(pedido.token(), status, compraId)));
+    }
+  }
+
+  /**
+   * State of an order together with the user it belongs to.
+   */
+  private record Seguimiento(String email, PedidoEstadoDTO estado) {}
+}
@@ -0,0 +1,63 @@
+package com.gplanet.commerce.services;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import com.gplanet.commerce.entities.Compra;
+
+import java.util.Collection;
+
+/**
+ * Records the value and the number of lines of the purchases written, as
+ * histograms that can be scraped with the other metrics. Purchases written
+ * right away and those written by the order-intake writers are tagged apart.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+@Component
+public class CompraMetrics {
+
+  /** Tag value of purchases written by the request that made them. */
+  public static final String DIRECTA = "direct";
+
+  /** Tag value of purchases written by the order-intake writers. */
+  public static final String COLA = "intake";
+
+  private final MeterRegistry meterRegistry;
+
+  /**
+   * Creates the metrics on the given registry.
+   *
+   * @param meterRegistry Registry the histograms are published to
+   */
+  public CompraMetrics(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * Records the value and number of lines of the given purchases.
+   *
+   * @param compras The purchases written
+   * @param modo    How they were written, {@link #DIRECTA} or {@link #COLA}
+   */
+  public void registrar(Collection<Compra> compras, String modo) {
+    DistributionSummary importe = DistributionSummary.builder("compras.importe")
+        .description("Total amount of the purchases")
+        .tag("mode", modo)
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+    DistributionSummary lineas = DistributionSummary.builder("compras.lineas")
+        .description("Number of lines of the purchases")
+        .tag("mode", modo)
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+
+    for (Compra compra : compras) {
+      importe.record(compra.getTotal().doubleValue());
+      lineas.record(compra.getProductos().size());
+    }
+  }
+}
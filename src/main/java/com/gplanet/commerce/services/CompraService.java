@@ -3,29 +3,51 @@ package com.gplanet.commerce.services;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.gplanet.commerce.dtos.carrito.CarritoDTO;
+import com.gplanet.commerce.dtos.carrito.CarritoLineaDTO;
 import com.gplanet.commerce.dtos.compra.CompraDTO;
 import com.gplanet.commerce.dtos.compra.CompraMapper;
 import com.gplanet.commerce.dtos.compra.CompraProductoDTO;
 import com.gplanet.commerce.dtos.compra.CompraResponseDTO;
+import com.gplanet.commerce.dtos.compra.PedidoPendiente;
+import com.gplanet.commerce.dtos.pagination.CursorPaginatedResponse;
+import com.gplanet.commerce.dtos.pagination.KeysetCursor;
+import com.gplanet.commerce.dtos.usuario.UsuarioResponseDTO;
 import com.gplanet.commerce.entities.Compra;
 import com.gplanet.commerce.entities.CompraProducto;
 import com.gplanet.commerce.entities.Producto;
 import com.gplanet.commerce.entities.Usuario;
 import com.gplanet.commerce.exceptions.ResourceNotFoundException;
+import com.gplanet.commerce.exceptions.StockInsuficienteException;
 import com.gplanet.commerce.repositories.CompraRepository;
 import com.gplanet.commerce.repositories.ProductoRepository;
 import com.gplanet.commerce.repositories.UsuarioRepository;
+import com.gplanet.commerce.utilities.MoneyUtil;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Service class that handles purchase-related operations including
@@ -43,9 +65,14 @@ import java.time.LocalDateTime;
 @RequiredArgsConstructor
 public class CompraService {
   private final CompraMapper compraMapper;
+  private final CompraMetrics compraMetrics;
+  private final CountCacheService countCacheService;
+  private final EstadisticaVentasService estadisticaVentasService;
   private final CompraRepository compraRepository;
   private final ProductoRepository productoRepository;
+  private final StockService stockService;
   private final UsuarioRepository usuarioRepository;
+  private final UsuarioService usuarioService;
 
   /**
    * Lists purchases based on user role with pagination support.
@@ -66,24 +93,24 @@ public class CompraService {
         email, page, size, sort, direction);
     }
 
-    Usuario usuario = usuarioRepository.findByEmail(email)
-        .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado"));
+    UsuarioResponseDTO usuario = usuarioService.obtenerPerfil(email);
 
     // Create Pageable object with sort direction
     Sort.Direction sortDirection = Sort.Direction.fromString(direction);
     Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sort));
 
-    // Get paginated result based on user role
-    Page<Compra> comprasPage;
-    if (usuario.getRol() == Usuario.Role.ADMIN) {
-      comprasPage = compraRepository.findAll(pageable);
+    // Page the purchase IDs in SQL based on user role, taking the total from the count cache
+    Page<CompraResponseDTO> result;
+    if (usuario.rol() == Usuario.Role.ADMIN) {
+      result = countCacheService.toPage(cargarCompras(compraRepository.findSliceIds(pageable)),
+          CountCacheService.COMPRAS, "all", compraRepository::countUpTo);
     } else {
-      comprasPage = compraRepository.findByUsuario(usuario, pageable);
+      Long usuarioId = usuario.id();
+      result = countCacheService.toPage(cargarCompras(compraRepository.findSliceIdsByUsuarioId(usuarioId, pageable)),
+          CountCacheService.COMPRAS, "usuario:" + usuarioId,
+          limit -> compraRepository.countByUsuarioIdUpTo(usuarioId, limit));
     }
 
-    // Map to DTOs
-    Page<CompraResponseDTO> result = comprasPage.map(compraMapper::toCompraResponseDTO);
-
     if(log.isDebugEnabled()) {
       log.debug("Found {} purchases on page {} of {}",
           result.getNumberOfElements(),
@@ -94,53 +121,305 @@ public class CompraService {
     return result;
   }
 
+  /**
+   * Lists purchases like {@link #listarCompras} but with keyset pagination,
+   * so deep pages cost the same as the first one and no COUNT query is issued.
+   * 
+   * @param email     Email of the requesting user
+   * @param cursor    Cursor returned with a previous page, or null for the first page
+   * @param size      The page size
+   * @param sort      The field to sort by
+   * @param direction The sort direction (ASC or DESC)
+   * @return CursorPaginatedResponse containing the purchases of the requested page
+   * @throws UsernameNotFoundException if user is not found
+   */
+  @Transactional(readOnly = true)
+  public CursorPaginatedResponse<CompraResponseDTO> scrollCompras(
+      String email, String cursor, int size, String sort, String direction) {
+    if(log.isDebugEnabled()) {
+      log.debug("Scrolling purchases for user: {} - cursor: {}, size: {}, sort: {}, direction: {}",
+        email, cursor, size, sort, direction);
+    }
+
+    UsuarioResponseDTO usuario = usuarioService.obtenerPerfil(email);
+
+    Sort keysetSort = Sort.by(Sort.Direction.fromString(direction), sort, "id");
+    KeysetScrollPosition position = KeysetCursor.decode(cursor, keysetSort);
+
+    Window<Compra> window;
+    if (usuario.rol() == Usuario.Role.ADMIN) {
+      window = compraRepository.findAllBy(position, keysetSort, Limit.of(size));
+    } else {
+      window = compraRepository.findByUsuarioId(usuario.id(), position, keysetSort, Limit.of(size));
+    }
+
+    Map<Long, Compra> compras = cargarDetalles(window.map(Compra::getId).getContent());
+    return CursorPaginatedResponse.fromWindow(
+        window.map(compra -> compraMapper.toCompraResponseDTO(compras.get(compra.getId()))), position, size);
+  }
+
   /**
    * Processes a new purchase for a user, calculating totals and
    * creating all necessary purchase records.
+   * Lines referring to the same product are merged into a single line, and
+   * all products are resolved with one batch query. The units are reserved
+   * and the sales statistics updated in the same transaction. The purchase
+   * keeps the idempotency key of the request, so a second purchase with the
+   * same key fails on commit.
    * 
    * @param email     Email of the user making the purchase
    * @param compraDTO Data transfer object containing purchase information
    * @return CompraResponseDTO containing the created purchase information
    * @throws UsernameNotFoundException if user is not found
    * @throws ResourceNotFoundException if any product in the purchase is not found
+   * @throws StockInsuficienteException if any product does not have enough units
    */
   @Transactional
   public void realizarCompra(String email, CompraDTO compraDTO) {
     log.info("Starting new purchase for user: {}", email);
 
-    // Find user by email
-    Usuario usuario = usuarioRepository.findByEmail(email)
-        .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado"));
+    // Resolve the user from the identity cache, referencing the entity without loading it
+    Long usuarioId = usuarioService.obtenerPerfil(email).id();
 
-    // Initialize Compra entity
-    Compra compra = new Compra();
-    compra.setUsuario(usuario);
-    compra.setFecha(LocalDateTime.now());
-    compra.setTotal(BigDecimal.ZERO);
+    Map<Long, Integer> cantidades = agruparLineas(compraDTO);
+    Compra compra = construirCompra(usuarioId, cantidades, resolverProductos(cantidades.keySet()));
+    compra.setClaveIdempotencia(compraDTO.claveIdempotencia());
+    guardarCompra(email, compra, cantidades);
+  }
+
+  /**
+   * Processes the purchase of a cart already validated against the current
+   * catalog, as returned by {@link CarritoService#obtener}. The products are
+   * referenced without being loaded again: each line takes the name and
+   * price the buyer was shown. The units are reserved and the sales
+   * statistics updated in the same transaction.
+   *
+   * @param email             Email of the user making the purchase
+   * @param carrito           The validated cart, with at least one line
+   * @param claveIdempotencia The idempotency key of the checkout, or null
+   * @throws UsernameNotFoundException if user is not found
+   * @throws StockInsuficienteException if any product does not have enough units
+   */
+  @Transactional
+  public void realizarCompra(String email, CarritoDTO carrito, String claveIdempotencia) {
+    log.info("Starting purchase of the cart of user: {}", email);
 
-    BigDecimal total = BigDecimal.ZERO;
+    Long usuarioId = usuarioService.obtenerPerfil(email).id();
 
-    // Process each product in the purchase
+    Map<Long, Integer> cantidades = new LinkedHashMap<>();
+    List<CompraProducto> lineas = new ArrayList<>(carrito.lineas().size());
+    for (CarritoLineaDTO item : carrito.lineas()) {
+      CompraProducto linea = new CompraProducto();
+      linea.setProducto(productoRepository.getReferenceById(item.productoId()), item.nombre(), item.precio());
+      linea.setCantidad(item.cantidad());
+      lineas.add(linea);
+      cantidades.put(item.productoId(), item.cantidad());
+    }
+
+    Compra compra = construirCompra(usuarioId, lineas);
+    compra.setClaveIdempotencia(claveIdempotencia);
+    guardarCompra(email, compra, cantidades);
+  }
+
+  /**
+   * Validates a purchase without writing it, so that it can be queued and
+   * written later by {@link #registrarCompras}.
+   * Lines referring to the same product are merged into a single line.
+   *
+   * @param token     The token identifying the order
+   * @param email     Email of the user making the purchase
+   * @param compraDTO Data transfer object containing purchase information
+   * @return The validated order
+   * @throws UsernameNotFoundException if user is not found
+   * @throws ResourceNotFoundException if any product in the purchase is not found
+   */
+  public PedidoPendiente validarCompra(String token, String email, CompraDTO compraDTO) {
+    Long usuarioId = usuarioService.obtenerPerfil(email).id();
+    Map<Long, Integer> cantidades = agruparLineas(compraDTO);
+    resolverProductos(cantidades.keySet());
+    return new PedidoPendiente(token, email, usuarioId, cantidades, compraDTO.claveIdempotencia());
+  }
+
+  /**
+   * Writes a group of validated orders in a single transaction, so that their
+   * inserts share JDBC batches. The products of all orders are resolved with
+   * one batch query. Orders referring to products that no longer exist, or
+   * to products without enough units left, are skipped. The units of all
+   * orders are reserved together, and the sales statistics of all written
+   * orders are updated together.
+   *
+   * @param pedidos The orders to write
+   * @return The ID of the purchase created for each written order, keyed by order token
+   */
+  @Transactional
+  public Map<String, Long> registrarCompras(List<PedidoPendiente> pedidos) {
+    Set<Long> ids = new HashSet<>();
+    pedidos.forEach(pedido -> ids.addAll(pedido.cantidades().keySet()));
+    Map<Long, Producto> productos = productoRepository.findAllById(ids).stream()
+        .collect(Collectors.toMap(Producto::getId, Function.identity()));
+
+    Map<String, PedidoPendiente> validos = new LinkedHashMap<>();
+    for (PedidoPendiente pedido : pedidos) {
+      if (productos.keySet().containsAll(pedido.cantidades().keySet())) {
+        validos.put(pedido.token(), pedido);
+      } else {
+        log.warn("Order {} rejected - products no longer exist", pedido.token());
+      }
+    }
+
+    Map<String, Map<Long, Integer>> cantidades = new LinkedHashMap<>();
+    validos.forEach((token, pedido) -> cantidades.put(token, pedido.cantidades()));
+    Set<String> sinStock = stockService.reservarPedidos(cantidades);
+
+    Map<String, Compra> compras = new LinkedHashMap<>();
+    Map<Compra, String> emails = new IdentityHashMap<>();
+    for (PedidoPendiente pedido : validos.values()) {
+      if (sinStock.contains(pedido.token())) {
+        log.warn("Order {} rejected - not enough stock", pedido.token());
+        continue;
+      }
+      Compra compra = construirCompra(pedido.usuarioId(), pedido.cantidades(), productos);
+      compra.setClaveIdempotencia(pedido.claveIdempotencia());
+      compras.put(pedido.token(), compra);
+      emails.put(compra, pedido.email());
+    }
+
+    compraRepository.saveAll(compras.values());
+    estadisticaVentasService.registrar(compras.values(), emails::get);
+    compraMetrics.registrar(compras.values(), CompraMetrics.COLA);
+    countCacheService.invalidate(CountCacheService.COMPRAS);
+
+    log.info("Wrote {} of {} queued orders", compras.size(), pedidos.size());
+    Map<String, Long> compraIds = new HashMap<>();
+    compras.forEach((token, compra) -> compraIds.put(token, compra.getId()));
+    return compraIds;
+  }
+
+  /**
+   * Merges the lines of a purchase that refer to the same product, so each
+   * product is only charged on one line.
+   *
+   * @param compraDTO The purchase request
+   * @return The quantity of each product, in the order they were first requested
+   */
+  private Map<Long, Integer> agruparLineas(CompraDTO compraDTO) {
+    Map<Long, Integer> cantidades = new LinkedHashMap<>();
     for (CompraProductoDTO item : compraDTO.productos()) {
-      Producto producto = productoRepository.findById(item.productoId())
-          .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado"));
+      cantidades.merge(item.productoId(), item.cantidad(), Integer::sum);
+    }
+    return cantidades;
+  }
+
+  /**
+   * Builds a purchase with one line per product, calculating subtotals and total.
+   * Each line keeps the name and unit price the product has now.
+   *
+   * @param usuarioId  The ID of the buyer
+   * @param cantidades The quantity of each product
+   * @param productos  The products, which must include every product ordered
+   * @return The purchase, not yet persisted
+   */
+  private Compra construirCompra(Long usuarioId, Map<Long, Integer> cantidades, Map<Long, Producto> productos) {
+    List<CompraProducto> lineas = new ArrayList<>(cantidades.size());
+    for (Map.Entry<Long, Integer> item : cantidades.entrySet()) {
+      CompraProducto linea = new CompraProducto();
+      linea.setProducto(productos.get(item.getKey()));
+      linea.setCantidad(item.getValue());
+      lineas.add(linea);
+    }
+    return construirCompra(usuarioId, lineas);
+  }
 
-      CompraProducto compraProducto = new CompraProducto();
-      compraProducto.setProducto(producto);
-      compraProducto.setCantidad(item.cantidad());
+  /**
+   * Builds a purchase from lines that already have their product, unit price
+   * and quantity, calculating subtotals and total.
+   * Amounts are added up in cents and only converted to decimals to be stored.
+   *
+   * @param usuarioId The ID of the buyer
+   * @param lineas    The lines of the purchase
+   * @return The purchase, not yet persisted
+   */
+  private Compra construirCompra(Long usuarioId, List<CompraProducto> lineas) {
+    Compra compra = new Compra();
+    compra.setUsuario(usuarioRepository.getReferenceById(usuarioId));
+    compra.setFecha(LocalDateTime.now());
 
-      BigDecimal subtotal = producto.getPrecio()
-          .multiply(BigDecimal.valueOf(item.cantidad()));
+    long total = 0;
+    for (CompraProducto linea : lineas) {
+      long subtotal = MoneyUtil.multiply(MoneyUtil.toCents(linea.getPrecioUnitario()), linea.getCantidad());
 
-      compraProducto.setSubtotal(subtotal);
-      compra.addCompraProducto(compraProducto);
+      linea.setSubtotal(MoneyUtil.fromCents(subtotal));
+      compra.addCompraProducto(linea);
 
-      total = total.add(subtotal);
+      total = Math.addExact(total, subtotal);
     }
 
-    compra.setTotal(total);
+    compra.setTotal(MoneyUtil.fromCents(total));
+    return compra;
+  }
+
+  /**
+   * Reserves the units of a purchase built on the request thread, writes it
+   * and updates the sales statistics and metrics.
+   *
+   * @param email      Email of the buyer
+   * @param compra     The purchase to write
+   * @param cantidades The quantity of each product
+   * @throws StockInsuficienteException if any product does not have enough units
+   */
+  private void guardarCompra(String email, Compra compra, Map<Long, Integer> cantidades) {
+    stockService.reservar(cantidades);
+
     Compra savedCompra = compraRepository.save(compra);
+    estadisticaVentasService.registrar(List.of(savedCompra), c -> email);
+    compraMetrics.registrar(List.of(savedCompra), CompraMetrics.DIRECTA);
+    countCacheService.invalidate(CountCacheService.COMPRAS);
 
     log.info("Purchase completed - ID: {}, Total: {}", savedCompra.getId(), savedCompra.getTotal());
   }
-}
\ No newline at end of file
+
+  /**
+   * Loads a slice of purchases with their buyer, lines and products in one
+   * query and maps them to DTOs, keeping the order of the given IDs.
+   *
+   * @param ids Slice of purchase IDs
+   * @return Slice of CompraResponseDTO with the same pagination information
+   */
+  private Slice<CompraResponseDTO> cargarCompras(Slice<Long> ids) {
+    Map<Long, Compra> compras = cargarDetalles(ids.getContent());
+    return ids.map(id -> compraMapper.toCompraResponseDTO(compras.get(id)));
+  }
+
+  /**
+   * Loads the given purchases with their buyer, lines and products in one query.
+   *
+   * @param ids IDs of the purchases to load
+   * @return Map of the loaded purchases keyed by ID
+   */
+  private Map<Long, Compra> cargarDetalles(List<Long> ids) {
+    if (ids.isEmpty()) {
+      return Map.of();
+    }
+    return compraRepository.findAllWithDetailsByIdIn(ids).stream()
+        .collect(Collectors.toMap(Compra::getId, Function.identity()));
+  }
+
+  /**
+   * Loads all the given products with a single IN query.
+   *
+   * @param ids The IDs of the products to load
+   * @return Map of the loaded products keyed by ID
+   * @throws ResourceNotFoundException if any of the products does not exist
+   */
+  private Map<Long, Producto> resolverProductos(Collection<Long> ids) {
+    Map<Long, Producto> productos = productoRepository.findAllById(ids).stream()
+        .collect(Collectors.toMap(Producto::getId, Function.identity()));
+
+    if (productos.size() < ids.size()) {
+      List<Long> missing = ids.stream().filter(id -> !productos.containsKey(id)).toList();
+      log.warn("Purchase rejected - products not found: {}", missing);
+      throw new ResourceNotFoundException("Producto no encontrado: " + missing);
+    }
+    return productos;
+  }
+}
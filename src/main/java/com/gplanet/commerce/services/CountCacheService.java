@@ -0,0 +1,183 @@
+package com.gplanet.commerce.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.gplanet.commerce.configs.CountCacheProperties;
+import com.gplanet.commerce.dtos.pagination.CountedPage;
+import com.gplanet.commerce.events.ProductoChangedEvent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Service class that caches the totals shown by paginated listings, so that
+ * most requests only run the query for the page itself.
+ *
+ * Totals are cached per listing (region) and query shape, reused for a
+ * configurable time and dropped when a write affecting the listing commits.
+ * Counting is capped: beyond a configurable number of rows the total is
+ * reported as a "more than N" estimate instead of an exact count.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CountCacheService {
+
+  /** Region of the product listings. */
+  public static final String PRODUCTOS = "productos";
+
+  /** Region of the purchase listings. */
+  public static final String COMPRAS = "compras";
+
+  /** Region of the user listings. */
+  public static final String USUARIOS = "usuarios";
+
+  private final CountCacheProperties properties;
+
+  private final Map<String, Region> regions = new ConcurrentHashMap<>();
+
+  /**
+   * Total number of elements of a listing.
+   *
+   * @param value The total, or a lower bound when not exact
+   * @param exact Whether the value is an exact count
+   */
+  public record Total(long value, boolean exact) {}
+
+  /**
+   * Builds a page from a slice, taking the total from the cache when it
+   * cannot be derived from the slice itself.
+   *
+   * @param <T>       The type of content being paginated
+   * @param slice     The slice returned by the page query
+   * @param region    The listing the slice belongs to
+   * @param key       The query shape, such as the filters applied
+   * @param countUpTo Counts the matching rows, stopping at the given limit
+   * @return Page with the content of the slice and its total
+   */
+  public <T> Page<T> toPage(Slice<T> slice, String region, String key, IntToLongFunction countUpTo) {
+    Pageable pageable = slice.getPageable();
+    long seen = (pageable.isPaged() ? pageable.getOffset() : 0) + slice.getNumberOfElements();
+
+    // On the last page the exact total is known without counting
+    if (!slice.hasNext() && (slice.hasContent() || seen == 0)) {
+      Region cache = region(region);
+      store(cache, cache.generation.get(), key, new Total(seen, true));
+      return new CountedPage<>(slice.getContent(), pageable, seen, true);
+    }
+
+    // Rows seen on this page prove a lower bound for the total
+    long minimum = slice.hasContent() ? seen + (slice.hasNext() ? 1 : 0) : 0;
+    Total total = count(region, key, countUpTo);
+    boolean exact = total.exact() && total.value() >= minimum;
+    return new CountedPage<>(slice.getContent(), pageable, Math.max(total.value(), minimum), exact);
+  }
+
+  /**
+   * Returns the cached total for a query shape, counting it if it is missing
+   * or expired.
+   *
+   * @param region    The listing the query belongs to
+   * @param key       The query shape, such as the filters applied
+   * @param countUpTo Counts the matching rows, stopping at the given limit
+   * @return The total number of matching rows
+   */
+  public Total count(String region, String key, IntToLongFunction countUpTo) {
+    Region cache = region(region);
+    long generation = cache.generation.get();
+
+    Entry cached = cache.entries.get(key);
+    if (cached != null && cached.expiresAt() - System.nanoTime() > 0) {
+      return cached.total();
+    }
+
+    int limit = properties.getMaxExactCount();
+    long counted = countUpTo.applyAsLong(limit + 1);
+    Total total = counted > limit ? new Total(limit, false) : new Total(counted, true);
+
+    if (log.isDebugEnabled()) {
+      log.debug("Counted {} {} for '{}' (exact: {})", total.value(), region, key, total.exact());
+    }
+    store(cache, generation, key, total);
+    return total;
+  }
+
+  /**
+   * Drops every cached total of a listing. When called inside a transaction
+   * the totals are dropped once it commits, so that a concurrent request
+   * cannot cache a count that misses the new data.
+   *
+   * @param region The listing whose totals are no longer valid
+   */
+  public void invalidate(String region) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          clear(region);
+        }
+      });
+    } else {
+      clear(region);
+    }
+  }
+
+  /**
+   * Drops the product totals once the transaction that changed a product commits.
+   *
+   * @param event The event describing the product change
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onProductoChanged(ProductoChangedEvent event) {
+    clear(PRODUCTOS);
+  }
+
+  private void clear(String region) {
+    Region cache = region(region);
+    cache.generation.incrementAndGet();
+    cache.entries.clear();
+  }
+
+  private void store(Region cache, long generation, String key, Total total) {
+    if (cache.entries.size() >= properties.getMaxEntries()) {
+      cache.entries.clear();
+    }
+    cache.entries.put(key, new Entry(total, System.nanoTime() + properties.getTtl().toNanos()));
+
+    // The data changed while counting, so the count may already be stale
+    if (cache.generation.get() != generation) {
+      cache.entries.remove(key);
+    }
+  }
+
+  private Region region(String name) {
+    return regions.computeIfAbsent(name, k -> new Region());
+  }
+
+  /**
+   * Cached total and the moment it expires, in {@link System#nanoTime()} units.
+   */
+  private record Entry(Total total, long expiresAt) {}
+
+  /**
+   * Totals of a single listing. The generation changes on every invalidation.
+   */
+  private static final class Region {
+    private final AtomicLong generation = new AtomicLong();
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+  }
+}
@@ -0,0 +1,393 @@
+package com.gplanet.commerce.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.gplanet.commerce.dtos.estadistica.VentasPeriodoDTO;
+import com.gplanet.commerce.dtos.estadistica.VentasResumenDTO;
+import com.gplanet.commerce.entities.Compra;
+import com.gplanet.commerce.entities.CompraProducto;
+import com.gplanet.commerce.entities.Granularity;
+import com.gplanet.commerce.repositories.VentaProductoRepository;
+import com.gplanet.commerce.repositories.VentaUsuarioRepository;
+import com.gplanet.commerce.utilities.MoneyUtil;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Service class that keeps the sales statistics and builds the sales reports
+ * from them.
+ *
+ * The statistics are hourly and daily totals per product
+ * ({@code ventas_producto}) and per user ({@code ventas_usuario}). They are
+ * updated incrementally in the same transaction that writes the purchases,
+ * so reports are always consistent with the purchases and never need to
+ * read {@code compras} or {@code compra_productos}. Past days can be rebuilt
+ * from the purchases with {@link #reconstruir}, to backfill the statistics
+ * of purchases made before they existed.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EstadisticaVentasService {
+
+  private static final int TOP_SIZE = 10;
+
+  private static final String UPDATE_VENTA_PRODUCTO =
+      "UPDATE ventas_producto SET compras = compras + :compras, unidades = unidades + :unidades, "
+      + "importe = importe + :importe, producto_nombre = :nombre "
+      + "WHERE granularidad = :granularidad AND periodo = :periodo AND producto_id = :id";
+  private static final String INSERT_VENTA_PRODUCTO =
+      "INSERT INTO ventas_producto (granularidad, periodo, producto_id, producto_nombre, compras, unidades, importe) "
+      + "VALUES (:granularidad, :periodo, :id, :nombre, :compras, :unidades, :importe)";
+  private static final String UPSERT_VENTA_PRODUCTO = INSERT_VENTA_PRODUCTO
+      + " ON DUPLICATE KEY UPDATE compras = compras + VALUES(compras), unidades = unidades + VALUES(unidades), "
+      + "importe = importe + VALUES(importe), producto_nombre = VALUES(producto_nombre)";
+  private static final String DELETE_VENTAS_PRODUCTO =
+      "DELETE FROM ventas_producto WHERE periodo >= :desde AND periodo < :hasta";
+  private static final String UPDATE_VENTA_USUARIO =
+      "UPDATE ventas_usuario SET compras = compras + :compras, unidades = unidades + :unidades, "
+      + "importe = importe + :importe, usuario_email = :nombre "
+      + "WHERE granularidad = :granularidad AND periodo = :periodo AND usuario_id = :id";
+  private static final String INSERT_VENTA_USUARIO =
+      "INSERT INTO ventas_usuario (granularidad, periodo, usuario_id, usuario_email, compras, unidades, importe) "
+      + "VALUES (:granularidad, :periodo, :id, :nombre, :compras, :unidades, :importe)";
+  private static final String UPSERT_VENTA_USUARIO = INSERT_VENTA_USUARIO
+      + " ON DUPLICATE KEY UPDATE compras = compras + VALUES(compras), unidades = unidades + VALUES(unidades), "
+      + "importe = importe + VALUES(importe), usuario_email = VALUES(usuario_email)";
+  private static final String DELETE_VENTAS_USUARIO =
+      "DELETE FROM ventas_usuario WHERE periodo >= :desde AND periodo < :hasta";
+  private static final String SELECT_LINEAS =
+      "SELECT c.id AS compra_id, c.fecha, c.usuario_id, u.email, cp.producto_id, cp.producto_nombre, "
+      + "cp.cantidad, cp.subtotal "
+      + "FROM compras c "
+      + "JOIN usuario u ON u.id = c.usuario_id "
+      + "JOIN compra_productos cp ON cp.compra_id = c.id "
+      + "WHERE c.fecha >= :desde AND c.fecha < :hasta "
+      + "ORDER BY c.id";
+
+  private final VentaProductoRepository ventaProductoRepository;
+  private final VentaUsuarioRepository ventaUsuarioRepository;
+  private final NamedParameterJdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+
+  /** Whether the database supports ON DUPLICATE KEY UPDATE; found on first use. */
+  private volatile Boolean upsert;
+
+  /**
+   * Adds new purchases to the statistics. Must be called in the transaction
+   * that writes the purchases, after their lines have been built, so both
+   * are committed or rolled back together.
+   *
+   * The totals of all the purchases are added up in memory first, in cents,
+   * so each statistic is written once per call. On MySQL every statistic is
+   * written by a single {@code INSERT ... ON DUPLICATE KEY UPDATE}, sent in one
+   * batch in key order, so concurrent checkouts lock the rows in the same
+   * order. An {@code UPDATE} that finds no row would take a gap lock instead,
+   * and two checkouts adding the same new statistic would then deadlock on
+   * their inserts.
+   *
+   * @param compras The purchases, with their lines
+   * @param emails  Returns the email of the buyer of each purchase
+   */
+  @Transactional
+  public void registrar(Collection<Compra> compras, Function<Compra, String> emails) {
+    Acumulador acumulador = new Acumulador();
+    for (Compra compra : compras) {
+      // The buyer is a reference; reading its ID does not load it
+      Long usuarioId = compra.getUsuario().getId();
+      String email = emails.apply(compra);
+      long unidades = 0;
+      for (CompraProducto linea : compra.getProductos()) {
+        acumulador.producto(compra.getFecha(), linea.getProducto().getId(), linea.getProductoNombre(),
+            linea.getCantidad(), MoneyUtil.toCents(linea.getSubtotal()));
+        unidades += linea.getCantidad();
+      }
+      acumulador.usuario(compra.getFecha(), usuarioId, email, unidades, MoneyUtil.toCents(compra.getTotal()));
+    }
+
+    sumar(acumulador.productos, UPSERT_VENTA_PRODUCTO, UPDATE_VENTA_PRODUCTO, INSERT_VENTA_PRODUCTO);
+    sumar(acumulador.usuarios, UPSERT_VENTA_USUARIO, UPDATE_VENTA_USUARIO, INSERT_VENTA_USUARIO);
+  }
+
+  /**
+   * Rebuilds the statistics of a range of days from the purchases. Each day
+   * is rebuilt in its own transaction, so long backfills neither hold locks
+   * nor keep rows in memory for more than one day at a time.
+   *
+   * Meant for days with no checkouts in progress: a purchase committed while
+   * its day is being rebuilt may be left out of the statistics.
+   *
+   * @param desde The first day to rebuild
+   * @param hasta The last day to rebuild, inclusive
+   * @return The number of purchases found in the range
+   * @throws IllegalArgumentException if the range is empty
+   */
+  public long reconstruir(LocalDate desde, LocalDate hasta) {
+    if (desde.isAfter(hasta)) {
+      throw new IllegalArgumentException("The first day is after the last one");
+    }
+    log.info("Rebuilding sales statistics from {} to {}", desde, hasta);
+
+    long total = 0;
+    for (LocalDate dia = desde; !dia.isAfter(hasta); dia = dia.plusDays(1)) {
+      LocalDate actual = dia;
+      Long compras = transactionTemplate.execute(status -> reconstruirDia(actual));
+      total += compras == null ? 0 : compras;
+    }
+
+    log.info("Sales statistics rebuilt from {} to {} - {} purchases", desde, hasta, total);
+    return total;
+  }
+
+  /**
+   * Builds the sales report of a range of days, reading only the statistics.
+   *
+   * @param desde        The first day of the report
+   * @param hasta        The last day of the report, inclusive
+   * @param granularidad The length of the periods of the sales series
+   * @return The sales report
+   */
+  @Transactional(readOnly = true)
+  public VentasResumenDTO resumen(LocalDate desde, LocalDate hasta, Granularity granularidad) {
+    LocalDateTime inicio = desde.atStartOfDay();
+    LocalDateTime fin = hasta.plusDays(1).atStartOfDay();
+
+    List<VentasPeriodoDTO> serie = ventaUsuarioRepository.findSerie(granularidad, inicio, fin);
+    long compras = 0;
+    long unidades = 0;
+    BigDecimal importe = BigDecimal.ZERO;
+    for (VentasPeriodoDTO periodo : serie) {
+      compras += periodo.compras();
+      unidades += periodo.unidades();
+      importe = importe.add(periodo.importe());
+    }
+
+    // The top lists add up the daily rows, which are fewer than the hourly ones
+    PageRequest top = PageRequest.of(0, TOP_SIZE);
+    return new VentasResumenDTO(desde, hasta, granularidad, compras, unidades, importe, serie,
+        ventaProductoRepository.findTopProductos(Granularity.DAY, inicio, fin, top),
+        ventaUsuarioRepository.findTopUsuarios(Granularity.DAY, inicio, fin, top));
+  }
+
+  /**
+   * Replaces the statistics of one day with the totals of its purchases.
+   *
+   * @param dia The day to rebuild
+   * @return The number of purchases of the day
+   */
+  private long reconstruirDia(LocalDate dia) {
+    MapSqlParameterSource rango = new MapSqlParameterSource()
+        .addValue("desde", Timestamp.valueOf(dia.atStartOfDay()))
+        .addValue("hasta", Timestamp.valueOf(dia.plusDays(1).atStartOfDay()));
+    jdbcTemplate.update(DELETE_VENTAS_PRODUCTO, rango);
+    jdbcTemplate.update(DELETE_VENTAS_USUARIO, rango);
+
+    Reconstruccion reconstruccion = new Reconstruccion();
+    jdbcTemplate.query(SELECT_LINEAS, rango, reconstruccion);
+    Acumulador acumulador = reconstruccion.terminar();
+
+    insertar(acumulador.productos, INSERT_VENTA_PRODUCTO);
+    insertar(acumulador.usuarios, INSERT_VENTA_USUARIO);
+
+    if (log.isDebugEnabled()) {
+      log.debug("Rebuilt sales statistics of {} - {} purchases", dia, reconstruccion.compras);
+    }
+    return reconstruccion.compras;
+  }
+
+  /**
+   * Adds totals to the statistics, inserting the ones that do not exist yet.
+   * On MySQL this is one JDBC batch of upserts. Other databases, such as the
+   * H2 database of the tests, get one batch of updates and then an insert per
+   * missing statistic; if another transaction inserts the same statistic
+   * first, the total is added to its row.
+   *
+   * @param totales The totals to add, in key order
+   * @param upsert  Statement inserting a row or adding to the existing one, on MySQL
+   * @param update  Statement adding a total to an existing row
+   * @param insert  Statement inserting a new row
+   */
+  private void sumar(Map<Clave, Total> totales, String upsert, String update, String insert) {
+    if (totales.isEmpty()) {
+      return;
+    }
+    List<SqlParameterSource> params = parametros(totales);
+    if (soportaUpsert()) {
+      jdbcTemplate.batchUpdate(upsert, params.toArray(SqlParameterSource[]::new));
+      return;
+    }
+
+    int[] actualizados = jdbcTemplate.batchUpdate(update, params.toArray(SqlParameterSource[]::new));
+
+    for (int i = 0; i < actualizados.length; i++) {
+      if (actualizados[i] == 0) {
+        try {
+          jdbcTemplate.update(insert, params.get(i));
+        } catch (DuplicateKeyException e) {
+          jdbcTemplate.update(update, params.get(i));
+        }
+      }
+    }
+  }
+
+  /**
+   * Inserts new statistics with one JDBC batch.
+   *
+   * @param totales The totals to insert
+   * @param insert  Statement inserting a new row
+   */
+  private void insertar(Map<Clave, Total> totales, String insert) {
+    if (!totales.isEmpty()) {
+      jdbcTemplate.batchUpdate(insert, parametros(totales).toArray(SqlParameterSource[]::new));
+    }
+  }
+
+  private boolean soportaUpsert() {
+    Boolean soporta = upsert;
+    if (soporta == null) {
+      String producto = jdbcTemplate.getJdbcTemplate().execute(
+          (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+      soporta = "MySQL".equals(producto) || "MariaDB".equals(producto);
+      upsert = soporta;
+    }
+    return soporta;
+  }
+
+  private List<SqlParameterSource> parametros(Map<Clave, Total> totales) {
+    List<SqlParameterSource> params = new ArrayList<>(totales.size());
+    totales.forEach((clave, total) -> params.add(new MapSqlParameterSource()
+        .addValue("granularidad", clave.granularidad().name())
+        .addValue("periodo", Timestamp.valueOf(clave.periodo()))
+        .addValue("id", clave.id())
+        .addValue("nombre", total.nombre)
+        .addValue("compras", total.compras)
+        .addValue("unidades", total.unidades)
+        .addValue("importe", MoneyUtil.fromCents(total.importe))));
+    return params;
+  }
+
+  /**
+   * Key of a statistic: the period and the product or user it belongs to.
+   * Keys are sorted so rows are always written in the same order.
+   */
+  private record Clave(Granularity granularidad, LocalDateTime periodo, Long id) {
+    private static final Comparator<Clave> ORDEN = Comparator.comparing(Clave::granularidad)
+        .thenComparing(Clave::periodo)
+        .thenComparing(Clave::id);
+  }
+
+  /**
+   * Totals being added to one statistic, with the amount in cents.
+   */
+  private static final class Total {
+    private String nombre;
+    private long compras;
+    private long unidades;
+    private long importe;
+
+    private void sumar(String nombre, long unidades, long importe) {
+      this.nombre = nombre;
+      this.compras++;
+      this.unidades += unidades;
+      this.importe = Math.addExact(this.importe, importe);
+    }
+  }
+
+  /**
+   * Adds up the sales of each product and user in every hour and day.
+   */
+  private static final class Acumulador {
+    private final Map<Clave, Total> productos = new TreeMap<>(Clave.ORDEN);
+    private final Map<Clave, Total> usuarios = new TreeMap<>(Clave.ORDEN);
+
+    private void producto(LocalDateTime fecha, Long id, String nombre, long unidades, long importe) {
+      sumar(productos, fecha, id, nombre, unidades, importe);
+    }
+
+    private void usuario(LocalDateTime fecha, Long id, String email, long unidades, long importe) {
+      sumar(usuarios, fecha, id, email, unidades, importe);
+    }
+
+    private static void sumar(Map<Clave, Total> totales, LocalDateTime fecha, Long id, String nombre,
+        long unidades, long importe) {
+      for (Granularity granularidad : Granularity.values()) {
+        totales.computeIfAbsent(new Clave(granularidad, granularidad.inicio(fecha), id), clave -> new Total())
+            .sumar(nombre, unidades, importe);
+      }
+    }
+  }
+
+  /**
+   * Adds up the lines of the purchases read by a rebuild. Lines come ordered
+   * by purchase, so the buyer's totals are added when the purchase changes.
+   */
+  private static final class Reconstruccion implements RowCallbackHandler {
+    private final Acumulador acumulador = new Acumulador();
+    private long compras;
+    private Long compraId;
+    private LocalDateTime fecha;
+    private Long usuarioId;
+    private String email;
+    private long unidades;
+    private long total;
+
+    @Override
+    public void processRow(ResultSet rs) throws SQLException {
+      long id = rs.getLong("compra_id");
+      if (compraId == null || compraId != id) {
+        cerrarCompra();
+        compraId = id;
+        fecha = rs.getTimestamp("fecha").toLocalDateTime();
+        usuarioId = rs.getLong("usuario_id");
+        email = rs.getString("email");
+        unidades = 0;
+        total = 0;
+        compras++;
+      }
+      int cantidad = rs.getInt("cantidad");
+      long subtotal = MoneyUtil.toCents(rs.getBigDecimal("subtotal"));
+      acumulador.producto(fecha, rs.getLong("producto_id"), rs.getString("producto_nombre"), cantidad, subtotal);
+      unidades += cantidad;
+      total = Math.addExact(total, subtotal);
+    }
+
+    private Acumulador terminar() {
+      cerrarCompra();
+      return acumulador;
+    }
+
+    private void cerrarCompra() {
+      if (compraId != null) {
+        acumulador.usuario(fecha, usuarioId, email, unidades, total);
+        compraId = null;
+      }
+    }
+  }
+}
@@ -0,0 +1,124 @@
+package com.gplanet.commerce.services;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.gplanet.commerce.configs.FragmentCacheProperties;
+import com.gplanet.commerce.dtos.producto.ProductStatus;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.util.Optional;
+
+/**
+ * Service class that caches rendered HTML fragments of product listings, so
+ * that popular grid pages skip both the database and template rendering.
+ *
+ * Fragments are keyed by the template, the listing parameters and the
+ * catalog version. A product write bumps the version, which leaves the old
+ * fragments unreachable until they are evicted by size or age.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+@Slf4j
+@Service
+public class FragmentCacheService {
+
+  /** Name the cache statistics are published under. */
+  public static final String CACHE_NAME = "productoFragments";
+
+  private final CatalogVersionService catalogVersionService;
+  private final Cache<Key, String> fragments;
+
+  /**
+   * Creates the cache sized from the configuration and publishes its
+   * statistics as cache metrics.
+   *
+   * @param catalogVersionService Service that provides the catalog version
+   * @param properties            Configuration of the fragment cache
+   * @param meterRegistry         Registry the cache statistics are published to
+   */
+  public FragmentCacheService(CatalogVersionService catalogVersionService, FragmentCacheProperties properties,
+      MeterRegistry meterRegistry) {
+    this.catalogVersionService = catalogVersionService;
+    this.fragments = Caffeine.newBuilder()
+        .maximumSize(properties.getMaxEntries())
+        .expireAfterWrite(properties.getTtl())
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, fragments, CACHE_NAME);
+  }
+
+  /**
+   * Identifies a rendered fragment.
+   *
+   * @param template  The template and fragment rendered
+   * @param status    The product status shown
+   * @param search    The search text
+   * @param page      The page number, or the cursor in keyset mode
+   * @param size      The page size
+   * @param sort      The field sorted by
+   * @param direction The sort direction
+   * @param version   The catalog version the fragment was rendered from
+   */
+  public record Key(
+    String template,
+    ProductStatus status,
+    String search,
+    String page,
+    String size,
+    String sort,
+    String direction,
+    long version
+  ) {}
+
+  /**
+   * Builds the key of a fragment rendered from the current catalog version.
+   * Build it before the catalog is read.
+   *
+   * @param template  The template and fragment rendered
+   * @param status    The product status shown
+   * @param search    The search text
+   * @param page      The page number, or the cursor in keyset mode
+   * @param size      The page size
+   * @param sort      The field sorted by
+   * @param direction The sort direction
+   * @return The key of the fragment
+   */
+  public Key key(String template, ProductStatus status, String search, String page, String size, String sort,
+      String direction) {
+    return new Key(template, status, search, page, size, sort, direction, catalogVersionService.current());
+  }
+
+  /**
+   * Returns a rendered fragment if it is cached.
+   *
+   * @param key The key of the fragment
+   * @return The rendered HTML, or empty if it has to be rendered
+   */
+  public Optional<String> get(Key key) {
+    return Optional.ofNullable(fragments.getIfPresent(key));
+  }
+
+  /**
+   * Stores a rendered fragment, unless the catalog changed while it was
+   * being rendered.
+   *
+   * @param key  The key of the fragment, built before the catalog was read
+   * @param html The rendered HTML
+   */
+  public void put(Key key, String html) {
+    if (key.version() != catalogVersionService.current()) {
+      return;
+    }
+    fragments.put(key, html);
+    if (log.isDebugEnabled()) {
+      log.debug("Cached rendered fragment {} ({} chars)", key, html.length());
+    }
+  }
+}
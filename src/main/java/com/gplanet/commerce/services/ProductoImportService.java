@@ -0,0 +1,577 @@
+package com.gplanet.commerce.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.gplanet.commerce.configs.ProductoImportProperties;
+import com.gplanet.commerce.dtos.producto.ImportacionResponseDTO;
+import com.gplanet.commerce.dtos.producto.ProductoDTO;
+import com.gplanet.commerce.entities.Importacion;
+import com.gplanet.commerce.entities.Producto;
+import com.gplanet.commerce.exceptions.ResourceNotFoundException;
+import com.gplanet.commerce.repositories.ImportacionRepository;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Service class that imports products in bulk from CSV or JSON files.
+ *
+ * The uploaded file is written to disk and parsed as a stream, one row at a
+ * time, so memory use does not grow with the size of the file. Rows are
+ * validated against the {@link ProductoDTO} constraints and upserted by name
+ * in batches: each batch is one transaction with one JDBC batch of inserts
+ * and one of updates, and it commits the progress of the import along with
+ * the products. Rejected rows are written to an error report that can be
+ * downloaded. An import stopped by a shutdown or a crash is marked as
+ * interrupted and can be resumed after the last committed batch.
+ *
+ * Imports run one after another on a dedicated thread, so two files
+ * touching the same products never write at the same time.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductoImportService {
+
+  private static final String ERRORES_SUFFIX = "-errores.csv";
+  private static final int MAX_MENSAJE_LENGTH = 255;
+  private static final int PERCENT = 100;
+  private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+  private static final String SELECT_EXISTENTES =
+      "SELECT id, nombre FROM productos WHERE nombre IN (:nombres)";
+  private static final String INSERT_PRODUCTO =
+      "INSERT INTO productos (nombre, descripcion, precio, activo, fecha_creacion, fecha_modificacion) "
+      + "VALUES (:nombre, :descripcion, :precio, :activo, :fecha, :fecha)";
+  private static final String UPDATE_PRODUCTO =
+      "UPDATE productos SET descripcion = :descripcion, precio = :precio, activo = :activo, "
+      + "fecha_modificacion = :fecha WHERE id = :id";
+  private static final String UPDATE_PROGRESO =
+      "UPDATE importaciones SET filas_procesadas = :filas, bytes_procesados = :bytes, "
+      + "insertados = insertados + :insertados, actualizados = actualizados + :actualizados, "
+      + "errores = errores + :errores WHERE id = :id";
+
+  private static final TypeReference<Map<String, Object>> FILA_TYPE = new TypeReference<>() {};
+  private static final CsvSchema ERRORES_SCHEMA = CsvSchema.builder()
+      .addColumn("fila")
+      .addColumn("nombre")
+      .addColumn("error")
+      .build();
+
+  private final ImportacionRepository importacionRepository;
+  private final ProductoImportProperties properties;
+  private final NamedParameterJdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final Validator validator;
+  private final EntityManagerFactory entityManagerFactory;
+  private final ProductoSearchService productoSearchService;
+  private final CatalogVersionService catalogVersionService;
+  private final CountCacheService countCacheService;
+
+  // Sources are closed by the service, which reads the position of the file after the last row
+  private final CsvMapper csvMapper = CsvMapper.builder()
+      .disable(StreamReadFeature.AUTO_CLOSE_SOURCE)
+      .enable(CsvParser.Feature.TRIM_SPACES, CsvParser.Feature.SKIP_EMPTY_LINES,
+          CsvParser.Feature.IGNORE_TRAILING_UNMAPPABLE)
+      .build();
+  private final ObjectMapper jsonMapper = JsonMapper.builder()
+      .disable(StreamReadFeature.AUTO_CLOSE_SOURCE)
+      .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+      .build();
+  private final ExecutorService executor = Executors.newSingleThreadExecutor(
+      Thread.ofPlatform().name("producto-import-", 0).factory());
+
+  /**
+   * Stores an uploaded file and starts importing it in the background.
+   *
+   * @param archivo The uploaded CSV or JSON file
+   * @return The state of the new import
+   * @throws IllegalArgumentException if the file is empty or its format is not supported
+   * @throws IOException if the file cannot be stored
+   */
+  public ImportacionResponseDTO iniciar(MultipartFile archivo) throws IOException {
+    if (archivo.isEmpty()) {
+      throw new IllegalArgumentException("The file is empty");
+    }
+    Importacion.Format formato = formato(archivo.getOriginalFilename());
+
+    Importacion importacion = new Importacion();
+    importacion.setNombreArchivo(StringUtils.getFilename(archivo.getOriginalFilename()));
+    importacion.setFormato(formato);
+    importacion.setEstado(Importacion.Status.RUNNING);
+    importacion.setTamanoArchivo(archivo.getSize());
+    importacion.setFechaInicio(LocalDateTime.now());
+    importacion = importacionRepository.save(importacion);
+
+    try {
+      Files.createDirectories(properties.getDirectory());
+      Files.deleteIfExists(informe(importacion.getId()));
+      archivo.transferTo(origen(importacion));
+    } catch (IOException e) {
+      finalizar(importacion.getId(), Importacion.Status.FAILED, "The file could not be stored");
+      throw e;
+    }
+
+    log.info("Import {} of file '{}' ({} bytes) started", importacion.getId(),
+        importacion.getNombreArchivo(), importacion.getTamanoArchivo());
+    Long id = importacion.getId();
+    executor.execute(() -> ejecutar(id));
+    return toDTO(importacion);
+  }
+
+  /**
+   * Resumes an interrupted or failed import after its last committed batch.
+   *
+   * @param id The ID of the import
+   * @return The state of the resumed import
+   * @throws ResourceNotFoundException if the import does not exist
+   * @throws IllegalStateException if the import cannot be resumed
+   */
+  public synchronized ImportacionResponseDTO reanudar(Long id) {
+    Importacion importacion = importacionRepository.findById(id)
+        .orElseThrow(() -> new ResourceNotFoundException("Import not found"));
+    if (importacion.getEstado() != Importacion.Status.INTERRUPTED
+        && importacion.getEstado() != Importacion.Status.FAILED) {
+      throw new IllegalStateException("Only interrupted or failed imports can be resumed");
+    }
+    if (!Files.exists(origen(importacion))) {
+      throw new IllegalStateException("The uploaded file is no longer available");
+    }
+
+    importacion.setEstado(Importacion.Status.RUNNING);
+    importacion.setMensaje(null);
+    importacion.setFechaFin(null);
+    importacion = importacionRepository.save(importacion);
+
+    log.info("Import {} resumed after row {}", id, importacion.getFilasProcesadas());
+    executor.execute(() -> ejecutar(id));
+    return toDTO(importacion);
+  }
+
+  /**
+   * Returns the state of an import.
+   *
+   * @param id The ID of the import
+   * @return The state of the import, or empty if it does not exist
+   */
+  public Optional<ImportacionResponseDTO> estado(Long id) {
+    return importacionRepository.findById(id).map(this::toDTO);
+  }
+
+  /**
+   * Returns the report of the rows rejected by an import, a CSV file with
+   * the row number, the product name and the reason of each rejection.
+   *
+   * @param id The ID of the import
+   * @return The path of the report, or empty if the import has not produced one
+   */
+  public Optional<Path> errores(Long id) {
+    Path errores = informe(id);
+    return Files.exists(errores) ? Optional.of(errores) : Optional.empty();
+  }
+
+  /**
+   * Marks the imports left running by a previous run of the application as
+   * interrupted, so that they can be resumed.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void marcarInterrumpidas() {
+    int interrumpidas = importacionRepository.interrumpirEnCurso();
+    if (interrumpidas > 0) {
+      log.warn("{} product imports were interrupted and can be resumed", interrumpidas);
+    }
+  }
+
+  /**
+   * Stops the running import, which is left as interrupted.
+   */
+  @PreDestroy
+  public void stop() {
+    executor.shutdownNow();
+    try {
+      executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Runs an import from its first unprocessed row and records how it ended.
+   */
+  private void ejecutar(Long id) {
+    Importacion importacion = importacionRepository.findById(id).orElseThrow();
+    Progreso progreso = new Progreso(importacion.getFilasProcesadas());
+    try {
+      if (leer(importacion, progreso)) {
+        finalizar(id, Importacion.Status.COMPLETED, null);
+        Files.deleteIfExists(origen(importacion));
+        log.info("Import {} completed: {} rows, {} inserted, {} updated, {} rejected", id, progreso.fila,
+            progreso.insertados, progreso.actualizados, progreso.errores);
+      } else {
+        log.warn("Import {} interrupted after row {}", id, progreso.fila);
+        finalizar(id, Importacion.Status.INTERRUPTED, null);
+        Thread.currentThread().interrupt();
+      }
+    } catch (IOException | RuntimeJsonMappingException e) {
+      log.error("Import {} failed after row {}", id, progreso.fila, e);
+      finalizar(id, Importacion.Status.FAILED, "The file could not be read after row " + progreso.fila);
+    } catch (DataAccessException | TransactionException e) {
+      log.error("Import {} failed after row {}", id, progreso.fila, e);
+      finalizar(id, Importacion.Status.FAILED, "The products could not be saved after row " + progreso.fila);
+    } catch (RuntimeException e) {
+      log.error("Import {} failed after row {}", id, progreso.fila, e);
+      finalizar(id, Importacion.Status.FAILED, "The import stopped unexpectedly after row " + progreso.fila);
+    } finally {
+      if (progreso.insertados + progreso.actualizados > 0) {
+        productoSearchService.rebuild();
+      }
+    }
+  }
+
+  /**
+   * Reads the file of an import from its first unprocessed row to the end,
+   * writing the rows in batches.
+   *
+   * @return false if the import was interrupted before the end of the file
+   */
+  private boolean leer(Importacion importacion, Progreso progreso) throws IOException {
+    Long id = importacion.getId();
+    Path informe = informe(id);
+    boolean cabecera = !Files.exists(informe);
+
+    try (FileChannel channel = FileChannel.open(origen(importacion));
+        InputStream in = Channels.newInputStream(channel);
+        MappingIterator<Map<String, Object>> filas = lector(importacion.getFormato()).readValues(in);
+        OutputStream out = Files.newOutputStream(informe, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        SequenceWriter errores = csvMapper.writer(ERRORES_SCHEMA.withUseHeader(cabecera)).writeValues(out)) {
+
+      Map<String, Fila> lote = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+      List<Fila> rechazadas = new ArrayList<>();
+      long saltar = progreso.fila;
+      long numero = 0;
+      while (filas.hasNextValue()) {
+        Map<String, Object> valores = filas.nextValue();
+        if (++numero <= saltar) {
+          continue;
+        }
+        if (Thread.interrupted()) {
+          return false;
+        }
+
+        Fila fila = fila(numero, valores);
+        if (fila.error() != null) {
+          rechazadas.add(fila);
+        } else {
+          if (lote.containsKey(fila.nombre())) {
+            // A name repeated in the file: the earlier row must be written first
+            escribir(id, lote, rechazadas, progreso, errores);
+          }
+          lote.put(fila.nombre(), fila);
+        }
+        progreso.fila = numero;
+        progreso.bytes = channel.position();
+        if (lote.size() + rechazadas.size() >= properties.getBatchSize()) {
+          escribir(id, lote, rechazadas, progreso, errores);
+        }
+      }
+      progreso.bytes = channel.size();
+      escribir(id, lote, rechazadas, progreso, errores);
+      return true;
+    }
+  }
+
+  /**
+   * Writes a batch of rows together with the progress of the import. If the
+   * batch cannot be written as a whole, its rows are written one at a time
+   * and the ones that fail are rejected.
+   */
+  private void escribir(Long id, Map<String, Fila> lote, List<Fila> rechazadas, Progreso progreso,
+      SequenceWriter errores) throws IOException {
+    if (lote.isEmpty() && rechazadas.isEmpty()) {
+      return;
+    }
+    List<Fila> validas = new ArrayList<>(lote.values());
+    try {
+      int[] guardados = transactionTemplate.execute(status -> {
+        int[] resultado = upsert(validas);
+        guardarProgreso(id, progreso, resultado, rechazadas.size());
+        return resultado;
+      });
+      progreso.sumar(guardados, rechazadas.size());
+    } catch (DataAccessException | TransactionException e) {
+      log.warn("Batch of import {} ending at row {} failed, writing its rows one by one", id, progreso.fila, e);
+      int[] guardados = new int[2];
+      for (Fila fila : validas) {
+        try {
+          int[] resultado = transactionTemplate.execute(status -> upsert(List.of(fila)));
+          guardados[0] += resultado[0];
+          guardados[1] += resultado[1];
+        } catch (DataAccessException | TransactionException ex) {
+          log.warn("Row {} of import {} could not be saved", fila.numero(), id, ex);
+          rechazadas.add(new Fila(fila.numero(), fila.nombre(), null, "The product could not be saved"));
+        }
+      }
+      transactionTemplate.executeWithoutResult(status ->
+          guardarProgreso(id, progreso, guardados, rechazadas.size()));
+      progreso.sumar(guardados, rechazadas.size());
+    }
+
+    rechazadas.sort((a, b) -> Long.compare(a.numero(), b.numero()));
+    for (Fila fila : rechazadas) {
+      errores.write(new Object[] {fila.numero(), fila.nombre() == null ? "" : fila.nombre(), fila.error()});
+    }
+    errores.flush();
+    evictCaches();
+    lote.clear();
+    rechazadas.clear();
+  }
+
+  /**
+   * Inserts the rows whose name is new and updates the products whose name
+   * already exists, in one JDBC batch each. Products are modified in the
+   * database directly, so the catalog caches are invalidated once the
+   * transaction commits.
+   *
+   * @return the number of products inserted and updated
+   */
+  private int[] upsert(List<Fila> filas) {
+    if (filas.isEmpty()) {
+      return new int[2];
+    }
+    Map<String, Long> existentes = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    jdbcTemplate.query(SELECT_EXISTENTES,
+        Map.of("nombres", filas.stream().map(Fila::nombre).toList()),
+        rs -> {
+          existentes.put(rs.getString("nombre"), rs.getLong("id"));
+        });
+
+    LocalDateTime ahora = LocalDateTime.now();
+    List<SqlParameterSource> inserts = new ArrayList<>();
+    List<SqlParameterSource> updates = new ArrayList<>();
+    for (Fila fila : filas) {
+      ProductoDTO producto = fila.producto();
+      MapSqlParameterSource params = new MapSqlParameterSource()
+          .addValue("nombre", producto.nombre())
+          .addValue("descripcion", producto.descripcion())
+          .addValue("precio", producto.precio())
+          .addValue("activo", producto.activo())
+          .addValue("fecha", ahora);
+      Long existente = existentes.get(producto.nombre());
+      if (existente == null) {
+        inserts.add(params);
+      } else {
+        updates.add(params.addValue("id", existente));
+      }
+    }
+    if (!inserts.isEmpty()) {
+      jdbcTemplate.batchUpdate(INSERT_PRODUCTO, inserts.toArray(SqlParameterSource[]::new));
+    }
+    if (!updates.isEmpty()) {
+      jdbcTemplate.batchUpdate(UPDATE_PRODUCTO, updates.toArray(SqlParameterSource[]::new));
+    }
+
+    catalogVersionService.bump();
+    countCacheService.invalidate(CountCacheService.PRODUCTOS);
+    return new int[] {inserts.size(), updates.size()};
+  }
+
+  private void guardarProgreso(Long id, Progreso progreso, int[] guardados, int rechazadas) {
+    jdbcTemplate.update(UPDATE_PROGRESO, new MapSqlParameterSource()
+        .addValue("filas", progreso.fila)
+        .addValue("bytes", progreso.bytes)
+        .addValue("insertados", guardados[0])
+        .addValue("actualizados", guardados[1])
+        .addValue("errores", rechazadas)
+        .addValue("id", id));
+  }
+
+  /**
+   * Drops the products and listings kept by the second-level cache, which
+   * does not see changes made with JDBC.
+   */
+  private void evictCaches() {
+    jakarta.persistence.Cache cache = entityManagerFactory.getCache();
+    cache.evict(Producto.class);
+    cache.unwrap(org.hibernate.Cache.class).evictQueryRegions();
+  }
+
+  private void finalizar(Long id, Importacion.Status estado, String mensaje) {
+    importacionRepository.findById(id).ifPresent(importacion -> {
+      importacion.setEstado(estado);
+      importacion.setMensaje(mensaje == null || mensaje.length() <= MAX_MENSAJE_LENGTH ? mensaje
+          : mensaje.substring(0, MAX_MENSAJE_LENGTH));
+      if (estado != Importacion.Status.INTERRUPTED) {
+        importacion.setFechaFin(LocalDateTime.now());
+      }
+      importacionRepository.save(importacion);
+    });
+  }
+
+  /**
+   * Converts a row of the file into a product, or into a rejected row
+   * explaining what is wrong with it.
+   */
+  private Fila fila(long numero, Map<String, Object> valores) {
+    String nombre = texto(valores, "nombre");
+    String precio = texto(valores, "precio");
+    String activo = texto(valores, "activo");
+
+    if (precio == null) {
+      return new Fila(numero, nombre, null, "The price is mandatory");
+    }
+    BigDecimal importe;
+    try {
+      importe = new BigDecimal(precio);
+    } catch (NumberFormatException e) {
+      return new Fila(numero, nombre, null, "The price must be a number");
+    }
+    if (activo != null && !"true".equalsIgnoreCase(activo) && !"false".equalsIgnoreCase(activo)) {
+      return new Fila(numero, nombre, null, "The active flag must be true or false");
+    }
+
+    ProductoDTO producto = new ProductoDTO(nombre, texto(valores, "descripcion"), importe,
+        activo == null || Boolean.parseBoolean(activo));
+    Set<ConstraintViolation<ProductoDTO>> violaciones = validator.validate(producto);
+    if (!violaciones.isEmpty()) {
+      return new Fila(numero, nombre, null, violaciones.stream()
+          .map(ConstraintViolation::getMessage)
+          .sorted()
+          .collect(Collectors.joining("; ")));
+    }
+    return new Fila(numero, nombre, producto, null);
+  }
+
+  private static String texto(Map<String, Object> valores, String campo) {
+    Object valor = valores.get(campo);
+    if (valor == null) {
+      return null;
+    }
+    String texto = valor.toString().trim();
+    return texto.isEmpty() ? null : texto;
+  }
+
+  private ObjectReader lector(Importacion.Format formato) {
+    return switch (formato) {
+      case CSV -> csvMapper.readerFor(FILA_TYPE).with(CsvSchema.emptySchema().withHeader());
+      case JSON -> jsonMapper.readerFor(FILA_TYPE);
+    };
+  }
+
+  private static Importacion.Format formato(String nombreArchivo) {
+    String extension = StringUtils.getFilenameExtension(nombreArchivo);
+    if (extension != null) {
+      switch (extension.toLowerCase(Locale.ROOT)) {
+        case "csv":
+          return Importacion.Format.CSV;
+        case "json":
+          return Importacion.Format.JSON;
+        default:
+          break;
+      }
+    }
+    throw new IllegalArgumentException("Only .csv and .json files can be imported");
+  }
+
+  private Path origen(Importacion importacion) {
+    return properties.getDirectory().resolve(
+        importacion.getId() + "." + importacion.getFormato().name().toLowerCase(Locale.ROOT));
+  }
+
+  private Path informe(Long id) {
+    return properties.getDirectory().resolve(id + ERRORES_SUFFIX);
+  }
+
+  private ImportacionResponseDTO toDTO(Importacion importacion) {
+    int porcentaje;
+    if (importacion.getEstado() == Importacion.Status.COMPLETED) {
+      porcentaje = PERCENT;
+    } else if (importacion.getTamanoArchivo() == 0) {
+      porcentaje = 0;
+    } else {
+      porcentaje = (int) Math.min(PERCENT - 1,
+          importacion.getBytesProcesados() * PERCENT / importacion.getTamanoArchivo());
+    }
+    return new ImportacionResponseDTO(importacion.getId(), importacion.getNombreArchivo(),
+        importacion.getFormato(), importacion.getEstado(), porcentaje, importacion.getFilasProcesadas(),
+        importacion.getInsertados(), importacion.getActualizados(), importacion.getErrores(),
+        importacion.getMensaje());
+  }
+
+  /**
+   * A row of the file: the product to write, or the reason it was rejected.
+   */
+  private record Fila(long numero, String nombre, ProductoDTO producto, String error) {}
+
+  /**
+   * Position of the running import in its file and what this run has written.
+   */
+  private static final class Progreso {
+    private long fila;
+    private long bytes;
+    private long insertados;
+    private long actualizados;
+    private long errores;
+
+    Progreso(long fila) {
+      this.fila = fila;
+    }
+
+    void sumar(int[] guardados, int rechazadas) {
+      insertados += guardados[0];
+      actualizados += guardados[1];
+      errores += rechazadas;
+    }
+  }
+}
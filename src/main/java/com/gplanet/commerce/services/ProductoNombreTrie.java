@@ -0,0 +1,239 @@
+package com.gplanet.commerce.services;
+
+import com.gplanet.commerce.utilities.TextUtil;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Compressed prefix trie over the names of products, answering which names
+ * start with what the buyer has typed so far.
+ *
+ * Names are folded with {@link TextUtil#normalize} and indexed from the start
+ * of each of their words, so "Ratón inalámbrico" is found both by "rat" and
+ * by "inal". Every node keeps the best suggestions of its whole subtree,
+ * ordered by name, and updates them along the path of each change, so a
+ * lookup only walks the typed characters and copies a precomputed list.
+ *
+ * Not thread-safe: access is guarded by {@link ProductoSearchService}.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+final class ProductoNombreTrie {
+
+  private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+  private static final Comparator<Entrada> ORDEN =
+      Comparator.comparing(Entrada::clave).thenComparing(Entrada::id);
+
+  private final int maxSugerencias;
+  private final Nodo raiz = new Nodo("");
+  private final Map<Long, List<String>> claves = new HashMap<>();
+
+  /**
+   * Creates an empty trie.
+   *
+   * @param maxSugerencias Number of suggestions kept for every prefix
+   */
+  ProductoNombreTrie(int maxSugerencias) {
+    this.maxSugerencias = maxSugerencias;
+  }
+
+  /**
+   * Adds the name of a product, replacing the name it had before.
+   *
+   * @param id     The ID of the product
+   * @param nombre The name of the product
+   */
+  void add(Long id, String nombre) {
+    remove(id);
+    List<String> palabras = palabras(nombre);
+    if (palabras.isEmpty()) {
+      return;
+    }
+
+    Entrada entrada = new Entrada(id, nombre, String.join(" ", palabras));
+    Set<String> sufijos = new LinkedHashSet<>();
+    for (int i = 0; i < palabras.size(); i++) {
+      sufijos.add(String.join(" ", palabras.subList(i, palabras.size())));
+    }
+    sufijos.forEach(clave -> insertar(raiz, clave, 0, entrada));
+    claves.put(id, List.copyOf(sufijos));
+  }
+
+  /**
+   * Removes the name of a product, if it was indexed.
+   *
+   * @param id The ID of the product
+   */
+  void remove(Long id) {
+    List<String> anteriores = claves.remove(id);
+    if (anteriores != null) {
+      anteriores.forEach(clave -> quitar(raiz, clave, 0, id));
+    }
+  }
+
+  /**
+   * Returns the names that contain a word starting with the given prefix, in
+   * name order and without repeated names, up to the configured number of
+   * suggestions.
+   *
+   * @param prefijo The text typed so far
+   * @return The matching names, empty if the prefix has no letters or digits
+   */
+  List<String> sugerir(String prefijo) {
+    List<String> palabras = palabras(prefijo);
+    if (palabras.isEmpty()) {
+      return List.of();
+    }
+    String clave = String.join(" ", palabras);
+
+    Nodo nodo = raiz;
+    int desde = 0;
+    while (desde < clave.length()) {
+      nodo = nodo.hijos.get(clave.charAt(desde));
+      if (nodo == null) {
+        return List.of();
+      }
+      int comun = prefijoComun(nodo.etiqueta, clave, desde);
+      if (desde + comun < clave.length() && comun < nodo.etiqueta.length()) {
+        return List.of();
+      }
+      desde += comun;
+    }
+
+    Set<String> nombres = new LinkedHashSet<>();
+    nodo.mejores.forEach(entrada -> nombres.add(entrada.nombre()));
+    return List.copyOf(nombres);
+  }
+
+  /**
+   * Number of products indexed.
+   *
+   * @return The number of product names in the trie
+   */
+  int size() {
+    return claves.size();
+  }
+
+  private void insertar(Nodo nodo, String clave, int desde, Entrada entrada) {
+    if (desde == clave.length()) {
+      nodo.entradas.add(entrada);
+    } else {
+      char primero = clave.charAt(desde);
+      Nodo hijo = nodo.hijos.get(primero);
+      if (hijo == null) {
+        hijo = new Nodo(clave.substring(desde));
+        hijo.entradas.add(entrada);
+        actualizarMejores(hijo);
+        nodo.hijos.put(primero, hijo);
+      } else {
+        int comun = prefijoComun(hijo.etiqueta, clave, desde);
+        if (comun < hijo.etiqueta.length()) {
+          // The key leaves the edge halfway: split it at the common prefix
+          Nodo medio = new Nodo(hijo.etiqueta.substring(0, comun));
+          hijo.etiqueta = hijo.etiqueta.substring(comun);
+          medio.hijos.put(hijo.etiqueta.charAt(0), hijo);
+          nodo.hijos.put(primero, medio);
+          hijo = medio;
+        }
+        insertar(hijo, clave, desde + comun, entrada);
+      }
+    }
+    actualizarMejores(nodo);
+  }
+
+  private void quitar(Nodo nodo, String clave, int desde, Long id) {
+    if (desde == clave.length()) {
+      nodo.entradas.removeIf(entrada -> entrada.id().equals(id));
+    } else {
+      char primero = clave.charAt(desde);
+      Nodo hijo = nodo.hijos.get(primero);
+      if (hijo == null || !clave.startsWith(hijo.etiqueta, desde)) {
+        return;
+      }
+      quitar(hijo, clave, desde + hijo.etiqueta.length(), id);
+
+      // Keep the trie compressed: drop empty leaves and merge single-child chains
+      if (hijo.entradas.isEmpty() && hijo.hijos.isEmpty()) {
+        nodo.hijos.remove(primero);
+      } else if (hijo.entradas.isEmpty() && hijo.hijos.size() == 1) {
+        Nodo nieto = hijo.hijos.firstEntry().getValue();
+        nieto.etiqueta = hijo.etiqueta + nieto.etiqueta;
+        nodo.hijos.put(primero, nieto);
+      }
+    }
+    actualizarMejores(nodo);
+  }
+
+  /**
+   * Recomputes the best suggestions of a node from its own entries and the
+   * best suggestions of its children. A product indexed under several words
+   * of the same subtree is kept once.
+   */
+  private void actualizarMejores(Nodo nodo) {
+    List<Entrada> candidatas = new ArrayList<>(nodo.entradas);
+    nodo.hijos.values().forEach(hijo -> candidatas.addAll(hijo.mejores));
+    candidatas.sort(ORDEN);
+
+    List<Entrada> mejores = new ArrayList<>(Math.min(candidatas.size(), maxSugerencias));
+    Long anterior = null;
+    for (Entrada entrada : candidatas) {
+      if (mejores.size() == maxSugerencias) {
+        break;
+      }
+      // Copies of the same product are adjacent, since they sort the same
+      if (!entrada.id().equals(anterior)) {
+        mejores.add(entrada);
+        anterior = entrada.id();
+      }
+    }
+    nodo.mejores = mejores;
+  }
+
+  private static int prefijoComun(String etiqueta, String clave, int desde) {
+    int max = Math.min(etiqueta.length(), clave.length() - desde);
+    int i = 0;
+    while (i < max && etiqueta.charAt(i) == clave.charAt(desde + i)) {
+      i++;
+    }
+    return i;
+  }
+
+  private static List<String> palabras(String texto) {
+    List<String> palabras = new ArrayList<>();
+    for (String palabra : SEPARATORS.split(TextUtil.normalize(texto))) {
+      if (!palabra.isEmpty()) {
+        palabras.add(palabra);
+      }
+    }
+    return palabras;
+  }
+
+  /**
+   * A product name as suggested, with the normalized name it is ordered by.
+   */
+  private record Entrada(Long id, String nombre, String clave) {}
+
+  /**
+   * Node of the trie. The label is the part of the key on the edge from the
+   * parent; children are keyed by the first character of their label.
+   */
+  private static final class Nodo {
+    private String etiqueta;
+    private final TreeMap<Character, Nodo> hijos = new TreeMap<>();
+    private final List<Entrada> entradas = new ArrayList<>(1);
+    private List<Entrada> mejores = List.of();
+
+    private Nodo(String etiqueta) {
+      this.etiqueta = etiqueta;
+    }
+  }
+}
@@ -0,0 +1,351 @@
+package com.gplanet.commerce.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.gplanet.commerce.dtos.producto.ProductStatus;
+import com.gplanet.commerce.dtos.producto.ProductoMapper;
+import com.gplanet.commerce.dtos.producto.ProductoResponseDTO;
+import com.gplanet.commerce.entities.Producto;
+import com.gplanet.commerce.events.ProductoChangedEvent;
+import com.gplanet.commerce.repositories.ProductoRepository;
+import com.gplanet.commerce.utilities.TextUtil;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Service class that keeps an in-memory inverted index over the name and
+ * description of every product and answers text searches from it.
+ *
+ * The index is rebuilt when the application starts and is kept up to date
+ * through {@link ProductoChangedEvent}s once the originating transaction commits.
+ * Searches return ranked, paginated lists of product IDs that callers hydrate
+ * with a single batch query.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ProductoSearchService {
+
+  /** Sort property that orders results by relevance score. */
+  public static final String RELEVANCE_SORT = "relevancia";
+
+  private static final int REBUILD_CHUNK_SIZE = 1000;
+  private static final int NAME_WEIGHT = 3;
+  private static final int DESCRIPTION_WEIGHT = 1;
+  private static final int EXACT_MATCH_BONUS = 2;
+  private static final int MAX_SUGERENCIAS = 10;
+
+  private final ProductoRepository productoRepository;
+  private final ProductoMapper productoMapper;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private Indice indice = new Indice();
+  private List<Consumer<Indice>> pendientes;
+  private volatile boolean ready;
+
+  /**
+   * Rebuilds the whole index from the database, reading products in
+   * ID-ordered chunks. Changes received while the rebuild is running are
+   * replayed on the new index before it replaces the current one.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuild() {
+    log.info("Rebuilding product search index");
+    withWriteLock(() -> pendientes = new ArrayList<>());
+    try {
+      Indice nuevo = new Indice();
+      long lastId = 0L;
+      List<Producto> chunk;
+      do {
+        chunk = productoRepository.findTop1000ByIdGreaterThanOrderByIdAsc(lastId);
+        for (Producto producto : chunk) {
+          nuevo.add(productoMapper.toProductoResponseDTO(producto));
+          lastId = producto.getId();
+        }
+      } while (chunk.size() == REBUILD_CHUNK_SIZE);
+
+      withWriteLock(() -> {
+        pendientes.forEach(change -> change.accept(nuevo));
+        indice = nuevo;
+        ready = true;
+      });
+      log.info("Product search index rebuilt with {} products", nuevo.size());
+    } finally {
+      withWriteLock(() -> pendientes = null);
+    }
+  }
+
+  /**
+   * Indicates whether the index has been built and can answer searches.
+   *
+   * @return true once the first rebuild has completed
+   */
+  public boolean isReady() {
+    return ready;
+  }
+
+  /**
+   * Searches the index for products whose name or description contain every
+   * word of the search text, either as a whole word or as a word prefix.
+   *
+   * Results are ordered by the first sort property of the pageable
+   * ({@code nombre}, {@code precio}, {@code fechaCreacion} or
+   * {@value #RELEVANCE_SORT}), with relevance as a tie breaker.
+   *
+   * @param status     The status to filter products by
+   * @param searchText The text to search for
+   * @param pageable   Pagination and sorting information
+   * @return Page containing the IDs of the matching products
+   */
+  public Page<Long> search(ProductStatus status, String searchText, Pageable pageable) {
+    List<String> tokens = TextUtil.tokenize(searchText);
+    lock.readLock().lock();
+    try {
+      return indice.search(status, tokens, pageable);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Suggests the names of active products containing a word that starts with
+   * the given text, for autocompleting the storefront search. Answered from
+   * a prefix trie over the product names, without querying the database.
+   *
+   * @param prefijo The text typed so far
+   * @return Up to ten distinct product names, in name order
+   */
+  public List<String> sugerir(String prefijo) {
+    lock.readLock().lock();
+    try {
+      return indice.nombres.sugerir(prefijo);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Updates the index once the transaction that changed a product commits.
+   *
+   * @param event The event describing the product change
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onProductoChanged(ProductoChangedEvent event) {
+    index(event.producto());
+  }
+
+  /**
+   * Adds a product to the index or replaces its previous entry.
+   *
+   * @param producto The current state of the product
+   */
+  public void index(ProductoResponseDTO producto) {
+    apply(current -> current.add(producto));
+  }
+
+  /**
+   * Removes products from the index, typically because they no longer exist
+   * in the database.
+   *
+   * @param ids The IDs of the products to remove
+   */
+  public void remove(Collection<Long> ids) {
+    apply(current -> ids.forEach(current::remove));
+  }
+
+  private void apply(Consumer<Indice> change) {
+    withWriteLock(() -> {
+      change.accept(indice);
+      if (pendientes != null) {
+        pendientes.add(change);
+      }
+    });
+  }
+
+  private void withWriteLock(Runnable action) {
+    lock.writeLock().lock();
+    try {
+      action.run();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Indexed view of a single product.
+   */
+  private record Documento(
+    Long id,
+    String nombre,
+    BigDecimal precio,
+    LocalDateTime fechaCreacion,
+    boolean activo,
+    Set<String> tokens
+  ) {}
+
+  /**
+   * Non thread-safe inverted index, with a prefix trie over the names of the
+   * active products. Access is guarded by the enclosing service.
+   */
+  private static final class Indice {
+    private final Map<Long, Documento> documentos = new HashMap<>();
+    private final NavigableMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    private final ProductoNombreTrie nombres = new ProductoNombreTrie(MAX_SUGERENCIAS);
+
+    int size() {
+      return documentos.size();
+    }
+
+    void add(ProductoResponseDTO producto) {
+      remove(producto.id());
+
+      Map<String, Integer> pesos = new HashMap<>();
+      TextUtil.tokenize(producto.nombre()).forEach(token -> pesos.merge(token, NAME_WEIGHT, Integer::sum));
+      TextUtil.tokenize(producto.descripcion())
+          .forEach(token -> pesos.merge(token, DESCRIPTION_WEIGHT, Integer::sum));
+
+      documentos.put(producto.id(), new Documento(
+          producto.id(),
+          TextUtil.normalize(producto.nombre()),
+          producto.precio(),
+          producto.fechaCreacion(),
+          producto.activo(),
+          Set.copyOf(pesos.keySet())));
+      pesos.forEach((token, peso) -> postings.computeIfAbsent(token, k -> new HashMap<>()).put(producto.id(), peso));
+      if (producto.activo()) {
+        nombres.add(producto.id(), producto.nombre());
+      }
+    }
+
+    void remove(Long id) {
+      nombres.remove(id);
+      Documento documento = documentos.remove(id);
+      if (documento == null) {
+        return;
+      }
+      for (String token : documento.tokens()) {
+        Map<Long, Integer> docs = postings.get(token);
+        if (docs != null) {
+          docs.remove(id);
+          if (docs.isEmpty()) {
+            postings.remove(token);
+          }
+        }
+      }
+    }
+
+    Page<Long> search(ProductStatus status, List<String> tokens, Pageable pageable) {
+      Map<Long, Integer> scores = score(tokens);
+      Collection<Long> candidates = scores == null ? documentos.keySet() : scores.keySet();
+      Map<Long, Integer> relevance = scores == null ? Map.of() : scores;
+
+      List<Documento> matches = new ArrayList<>();
+      for (Long id : candidates) {
+        Documento documento = documentos.get(id);
+        if (status == ProductStatus.ALL || (status == ProductStatus.ACTIVE) == documento.activo()) {
+          matches.add(documento);
+        }
+      }
+
+      Comparator<Documento> order = comparator(pageable.getSort(), relevance);
+      List<Long> ids = top(matches, order, pageable).stream().map(Documento::id).toList();
+      return new PageImpl<>(ids, pageable, matches.size());
+    }
+
+    /**
+     * Scores every product matching all tokens. Returns null when there are
+     * no tokens, meaning that every product matches.
+     */
+    private Map<Long, Integer> score(List<String> tokens) {
+      Map<Long, Integer> scores = null;
+      for (String token : tokens) {
+        Map<Long, Integer> tokenScores = new HashMap<>();
+        postings.subMap(token, true, token + Character.MAX_VALUE, false).forEach((indexed, docs) -> {
+          int bonus = indexed.equals(token) ? EXACT_MATCH_BONUS : 1;
+          docs.forEach((id, peso) -> tokenScores.merge(id, peso * bonus, Math::max));
+        });
+
+        if (scores == null) {
+          scores = tokenScores;
+        } else {
+          scores.keySet().retainAll(tokenScores.keySet());
+          scores.replaceAll((id, score) -> score + tokenScores.get(id));
+        }
+        if (scores.isEmpty()) {
+          break;
+        }
+      }
+      return scores;
+    }
+
+    private static List<Documento> top(List<Documento> matches, Comparator<Documento> order, Pageable pageable) {
+      long offset = pageable.getOffset();
+      if (offset >= matches.size()) {
+        return List.of();
+      }
+      int limit = (int) Math.min(matches.size(), offset + pageable.getPageSize());
+
+      // Bounded heap keeps the cost at O(n log k) instead of sorting every match
+      PriorityQueue<Documento> heap = new PriorityQueue<>(limit + 1, order.reversed());
+      for (Documento documento : matches) {
+        heap.offer(documento);
+        if (heap.size() > limit) {
+          heap.poll();
+        }
+      }
+      List<Documento> best = new ArrayList<>(heap);
+      best.sort(order);
+      return best.subList((int) offset, best.size());
+    }
+
+    private static Comparator<Documento> comparator(Sort sort, Map<Long, Integer> relevance) {
+      Comparator<Documento> byRelevance = Comparator
+          .comparingInt((Documento documento) -> relevance.getOrDefault(documento.id(), 0))
+          .reversed();
+      Sort.Order order = sort.stream().findFirst().orElse(null);
+      if (order == null || RELEVANCE_SORT.equals(order.getProperty())) {
+        return byRelevance.thenComparing(Documento::id);
+      }
+
+      Comparator<Documento> byField = switch (order.getProperty()) {
+        case "nombre" -> Comparator.comparing(Documento::nombre);
+        case "precio" -> Comparator.comparing(Documento::precio,
+            Comparator.nullsFirst(Comparator.naturalOrder()));
+        case "fechaCreacion" -> Comparator.comparing(Documento::fechaCreacion,
+            Comparator.nullsFirst(Comparator.naturalOrder()));
+        default -> Comparator.comparing(Documento::id);
+      };
+      if (order.isDescending()) {
+        byField = byField.reversed();
+      }
+      return byField.thenComparing(byRelevance).thenComparing(Documento::id);
+    }
+  }
+}
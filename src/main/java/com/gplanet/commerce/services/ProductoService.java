@@ -3,25 +3,41 @@ package com.gplanet.commerce.services;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
+import com.gplanet.commerce.dtos.pagination.CursorPaginatedResponse;
+import com.gplanet.commerce.dtos.pagination.KeysetCursor;
 import com.gplanet.commerce.dtos.producto.ProductStatus;
 import com.gplanet.commerce.dtos.producto.ProductoDTO;
 import com.gplanet.commerce.dtos.producto.ProductoMapper;
 import com.gplanet.commerce.dtos.producto.ProductoResponseDTO;
 import com.gplanet.commerce.entities.Producto;
+import com.gplanet.commerce.events.ProductoChangedEvent;
 import com.gplanet.commerce.exceptions.ProductCreationException;
 import com.gplanet.commerce.exceptions.ResourceNotFoundException;
 import com.gplanet.commerce.repositories.ProductoRepository;
+import com.gplanet.commerce.repositories.ProductoSpecifications;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Service class that handles product-related operations including creation,
@@ -37,11 +53,18 @@ public class ProductoService {
 
   private final ProductoMapper productoMapper;
   private final ProductoRepository productoRepository;
+  private final ProductoSearchService productoSearchService;
+  private final StockService stockService;
+  private final CountCacheService countCacheService;
+  private final CatalogVersionService catalogVersionService;
+  private final ApplicationEventPublisher eventPublisher;
 
   /**
    * Lists and searches products based on the specified status and search text
    * with pagination support.
-   * Search is performed on both product name and description fields.
+   * Search is performed on both product name and description fields, using the
+   * in-memory search index once it is ready and falling back to database
+   * queries while it is still being built.
    * 
    * @param status     The status to filter products by
    * @param searchText Optional text to search within product name and description
@@ -68,39 +91,123 @@ public class ProductoService {
           status, searchText, page, size, sort, direction);
     }
 
+    boolean searching = StringUtils.hasText(searchText);
+    boolean useIndex = searching && productoSearchService.isReady();
+
+    // Relevance ordering only exists in the search index
+    String sortField = !useIndex && ProductoSearchService.RELEVANCE_SORT.equals(sort) ? "nombre" : sort;
     Sort.Direction sortDirection = Sort.Direction.fromString(direction);
-    Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sort));
-
-    Page<Producto> productosPage;
-
-    if (StringUtils.hasText(searchText)) {
-      String searchTerm = "%" + searchText.toLowerCase() + "%";
-
-      // Get paginated results based on status and search text
-      switch (status) {
-        case ACTIVE:
-          productosPage = productoRepository.findByActivoTrueAndSearch(searchTerm, pageable);
-          break;
-        case INACTIVE:
-          productosPage = productoRepository.findByActivoFalseAndSearch(searchTerm, pageable);
-          break;
-        case ALL:
-          productosPage = productoRepository.findBySearch(searchTerm, pageable);
-          break;
-        default:
-          productosPage = Page.empty(pageable);
-      }
-    } else {
-      // Original code for when no search is performed
-      productosPage = switch (status) {
-        case ACTIVE -> productoRepository.findByActivoTrue(pageable);
-        case INACTIVE -> productoRepository.findByActivoFalse(pageable);
-        case ALL -> productoRepository.findAll(pageable);
-      };
+    Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortField));
+
+    if (useIndex) {
+      return buscarEnIndice(status, searchText, pageable).map(productoMapper::toProductoResponseDTO);
+    }
+    return buscarEnBaseDeDatos(status, searching ? searchText : null, pageable);
+  }
+
+  /**
+   * Lists and searches products like {@link #listarProductos} but with keyset
+   * pagination, so deep pages cost the same as the first one and no COUNT
+   * query is issued.
+   * Searches are always resolved by the database, and relevance ordering
+   * falls back to ordering by name.
+   * 
+   * @param status     The status to filter products by
+   * @param searchText Optional text to search within product name and description
+   *                   (case-insensitive)
+   * @param cursor     Cursor returned with a previous page, or null for the first page
+   * @param size       The page size
+   * @param sort       The field to sort by
+   * @param direction  The sort direction (ASC or DESC)
+   * @return CursorPaginatedResponse containing the products of the requested page
+   */
+  public CursorPaginatedResponse<ProductoResponseDTO> scrollProductos(
+      ProductStatus status,
+      String searchText,
+      String cursor,
+      int size,
+      String sort,
+      String direction) {
+
+    if (log.isDebugEnabled()) {
+      log.debug("Scrolling products with status: {}, search: '{}' - cursor: {}, size: {}, sort: {}, direction: {}",
+          status, searchText, cursor, size, sort, direction);
+    }
+
+    String sortField = ProductoSearchService.RELEVANCE_SORT.equals(sort) ? "nombre" : sort;
+    Sort keysetSort = Sort.by(Sort.Direction.fromString(direction), sortField, "id");
+    KeysetScrollPosition position = KeysetCursor.decode(cursor, keysetSort);
+
+    Specification<Producto> spec = switch (status) {
+      case ACTIVE -> ProductoSpecifications.activo(true);
+      case INACTIVE -> ProductoSpecifications.activo(false);
+      case ALL -> Specification.where(null);
+    };
+    String searchQuery = ProductoSpecifications.fullTextQuery(searchText);
+    if (searchQuery != null) {
+      spec = spec.and(ProductoSpecifications.contiene(searchQuery, ProductoSpecifications.likePattern(searchText)));
+    }
+
+    Window<Producto> window = productoRepository.findBy(spec,
+        query -> query.sortBy(keysetSort).limit(size).scroll(position));
+
+    return CursorPaginatedResponse.fromWindow(window.map(productoMapper::toProductoResponseDTO), position, size);
+  }
+
+  /**
+   * Resolves a search through the in-memory index and hydrates the resulting
+   * page of IDs with a single batch query, preserving the index order.
+   * IDs that no longer exist in the database are evicted from the index.
+   */
+  private Page<Producto> buscarEnIndice(ProductStatus status, String searchText, Pageable pageable) {
+    Page<Long> idsPage = productoSearchService.search(status, searchText, pageable);
+    List<Long> ids = idsPage.getContent();
+
+    Map<Long, Producto> productosPorId = productoRepository.findAllById(ids).stream()
+        .collect(Collectors.toMap(Producto::getId, Function.identity()));
+
+    List<Long> missing = ids.stream().filter(id -> !productosPorId.containsKey(id)).toList();
+    if (!missing.isEmpty()) {
+      log.warn("Removing {} stale products from the search index", missing.size());
+      productoSearchService.remove(missing);
     }
 
-    // Map to DTOs
-    return productosPage.map(productoMapper::toProductoResponseDTO);
+    List<Producto> productos = ids.stream()
+        .map(productosPorId::get)
+        .filter(Objects::nonNull)
+        .toList();
+    return new PageImpl<>(productos, pageable, idsPage.getTotalElements() - missing.size());
+  }
+
+  /**
+   * Lists products from the database, searching with full-text queries until
+   * the search index is ready. The total comes from the count cache.
+   */
+  private Page<ProductoResponseDTO> buscarEnBaseDeDatos(ProductStatus status, String searchText, Pageable pageable) {
+    Boolean activo = switch (status) {
+      case ACTIVE -> true;
+      case INACTIVE -> false;
+      case ALL -> null;
+    };
+    String searchQuery = ProductoSpecifications.fullTextQuery(searchText);
+    String searchTerm = searchQuery == null ? null : ProductoSpecifications.likePattern(searchText);
+
+    Slice<ProductoResponseDTO> slice = productoRepository.findSlice(activo, searchQuery, searchTerm, pageable)
+        .map(productoMapper::toProductoResponseDTO);
+    return countCacheService.toPage(slice, CountCacheService.PRODUCTOS, status + "|" + searchTerm,
+        limit -> productoRepository.countUpTo(activo, searchQuery, searchTerm, limit));
+  }
+
+  /**
+   * Suggests names of active products for the text typed in the storefront
+   * search box. Served from the in-memory search index, never from the
+   * database, so it does not open a transaction.
+   *
+   * @param prefijo The text typed so far
+   * @return The suggested product names, empty if nothing matches
+   */
+  public List<String> sugerirNombres(String prefijo) {
+    return productoSearchService.sugerir(prefijo);
   }
 
   /**
@@ -120,7 +227,7 @@ public class ProductoService {
     Producto updatedProduct = productoRepository.save(producto);
 
     log.info("Status of the products successfully changed - ID: {}", id);
-    return productoMapper.toProductoResponseDTO(updatedProduct);
+    return publishChange(updatedProduct);
   }
 
   /**
@@ -142,7 +249,7 @@ public class ProductoService {
 
       Producto savedProducto = productoRepository.save(producto);
       log.info("Product created with ID: {}", savedProducto.getId());
-      return productoMapper.toProductoResponseDTO(savedProducto);
+      return publishChange(savedProducto);
     } catch (DataAccessException e) {
       throw new ProductCreationException("Failed to create product due to data access error");
     } catch (Exception e) {
@@ -169,7 +276,23 @@ public class ProductoService {
     Producto updatedProducto = productoRepository.save(producto);
 
     log.info("Product successfully updated - ID: {}", updatedProducto.getId());
-    return productoMapper.toProductoResponseDTO(updatedProducto);
+    return publishChange(updatedProducto);
+  }
+
+  /**
+   * Adds units to the stock of a product. The units are added in their own
+   * transaction, so the product returned is read once they are committed.
+   * 
+   * @param id       The ID of the product
+   * @param unidades The units received, greater than zero
+   * @return ProductoResponseDTO containing the product with its new stock
+   * @throws IllegalArgumentException if the units are not positive
+   * @throws ResourceNotFoundException if the product is not found
+   */
+  public ProductoResponseDTO reponerStock(Long id, int unidades) {
+    log.info("Restocking product with ID: {} - units: {}", id, unidades);
+    stockService.reponer(id, unidades);
+    return findById(id);
   }
 
   /**
@@ -185,4 +308,33 @@ public class ProductoService {
 
     return productoMapper.toProductoResponseDTO(producto);
   }
-}
\ No newline at end of file
+
+  /**
+   * Returns when a product was last modified, which identifies the version
+   * of the product shown to clients. Reads the product from the second-level
+   * cache when it is there.
+   *
+   * @param id The ID of the product
+   * @return The last modification time, or empty if the product is not found
+   *         or has never been stamped
+   */
+  public Optional<LocalDateTime> fechaModificacion(Long id) {
+    return productoRepository.findById(id).map(Producto::getFechaModificacion);
+  }
+
+  /**
+   * Maps a saved product to its response DTO, bumps the catalog version and
+   * notifies listeners of the change, so that in-memory views such as the
+   * search index and the rendered grids are refreshed once the current
+   * transaction commits.
+   *
+   * @param producto The product that was just saved
+   * @return ProductoResponseDTO containing the saved product information
+   */
+  private ProductoResponseDTO publishChange(Producto producto) {
+    ProductoResponseDTO response = productoMapper.toProductoResponseDTO(producto);
+    catalogVersionService.bump();
+    eventPublisher.publishEvent(new ProductoChangedEvent(response));
+    return response;
+  }
+}
@@ -0,0 +1,185 @@
+package com.gplanet.commerce.services;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.gplanet.commerce.entities.Producto;
+import com.gplanet.commerce.exceptions.ResourceNotFoundException;
+import com.gplanet.commerce.exceptions.StockInsuficienteException;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Service class that reserves and replenishes product stock.
+ *
+ * Stock is never read and then written: each line of an order is reserved
+ * with a single conditional UPDATE that only succeeds while there are enough
+ * units left, so concurrent checkouts of the same product wait for each
+ * other's row lock for the length of one statement instead of serializing
+ * on a {@code SELECT ... FOR UPDATE}. The lines are sent in one JDBC batch
+ * in product ID order, so checkouts lock products in the same order and
+ * cannot deadlock. Products with a null stock are not tracked and always
+ * have units left.
+ *
+ * Stock is written through JDBC only (the entity column is not updatable),
+ * so reserved products are evicted from the second-level cache once the
+ * reservation commits.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StockService {
+
+  private static final String RESERVAR =
+      "UPDATE productos SET stock = stock - ?, fecha_modificacion = CURRENT_TIMESTAMP(6) "
+      + "WHERE id = ? AND (stock IS NULL OR stock >= ?)";
+  private static final String DEVOLVER =
+      "UPDATE productos SET stock = stock + ? WHERE id = ?";
+  private static final String REPONER =
+      "UPDATE productos SET stock = COALESCE(stock, 0) + ?, fecha_modificacion = CURRENT_TIMESTAMP(6) "
+      + "WHERE id = ?";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final EntityManagerFactory entityManagerFactory;
+
+  /**
+   * Reserves the units of one order. Must be called in the transaction that
+   * writes the order, so the reservation is undone if the order is not written.
+   *
+   * @param cantidades The quantity of each product
+   * @throws StockInsuficienteException if some product does not have enough
+   *                                    units left; nothing is reserved then
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void reservar(Map<Long, Integer> cantidades) {
+    List<Long> sinStock = intentarReservar(cantidades);
+    if (!sinStock.isEmpty()) {
+      log.info("Order rejected - not enough stock of products {}", sinStock);
+      throw new StockInsuficienteException(sinStock);
+    }
+  }
+
+  /**
+   * Reserves the units of a group of orders written in the same transaction.
+   *
+   * The quantities of all the orders are reserved together first, which
+   * takes the row locks in product ID order. Only if some product cannot
+   * cover the whole group are the orders reserved one by one, in the given
+   * order, on rows this transaction already holds.
+   *
+   * @param <K>     The type of the order keys
+   * @param pedidos The quantity of each product, keyed by order
+   * @return The keys of the orders that could not be reserved
+   */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public <K> Set<K> reservarPedidos(Map<K, Map<Long, Integer>> pedidos) {
+    Map<Long, Integer> total = new TreeMap<>();
+    pedidos.values().forEach(cantidades ->
+        cantidades.forEach((id, cantidad) -> total.merge(id, cantidad, Integer::sum)));
+    if (intentarReservar(total).isEmpty()) {
+      return Set.of();
+    }
+
+    Set<K> rechazados = new LinkedHashSet<>();
+    pedidos.forEach((pedido, cantidades) -> {
+      if (!intentarReservar(cantidades).isEmpty()) {
+        rechazados.add(pedido);
+      }
+    });
+    log.info("{} of {} orders rejected - not enough stock", rechazados.size(), pedidos.size());
+    return rechazados;
+  }
+
+  /**
+   * Adds units to the stock of a product. A product whose stock was not
+   * tracked starts being tracked with the given units.
+   *
+   * @param productoId The ID of the product
+   * @param unidades   The units received, greater than zero
+   * @throws IllegalArgumentException if the units are not positive
+   * @throws ResourceNotFoundException if the product does not exist
+   */
+  @Transactional
+  public void reponer(Long productoId, int unidades) {
+    if (unidades <= 0) {
+      throw new IllegalArgumentException("The units received must be greater than zero");
+    }
+    if (jdbcTemplate.update(REPONER, unidades, productoId) == 0) {
+      throw new ResourceNotFoundException("Producto no encontrado");
+    }
+    log.info("Added {} units to the stock of product {}", unidades, productoId);
+    evictAfterCommit(List.of(productoId));
+  }
+
+  /**
+   * Reserves all the given quantities or none of them. When some line fails,
+   * the units of the lines that succeeded are given back, keeping their row
+   * locks until the transaction ends.
+   *
+   * @param cantidades The quantity of each product
+   * @return The IDs of the products without enough units, empty if all were reserved
+   */
+  private List<Long> intentarReservar(Map<Long, Integer> cantidades) {
+    if (cantidades.isEmpty()) {
+      return List.of();
+    }
+    List<Map.Entry<Long, Integer>> lineas = new ArrayList<>(new TreeMap<>(cantidades).entrySet());
+    int[] filas = jdbcTemplate.batchUpdate(RESERVAR, lineas, lineas.size(), (ps, linea) -> {
+      ps.setInt(1, linea.getValue());
+      ps.setLong(2, linea.getKey());
+      ps.setInt(3, linea.getValue());
+    })[0];
+
+    List<Long> sinStock = new ArrayList<>();
+    List<Map.Entry<Long, Integer>> reservadas = new ArrayList<>();
+    for (int i = 0; i < filas.length; i++) {
+      if (filas[i] == 0) {
+        sinStock.add(lineas.get(i).getKey());
+      } else {
+        reservadas.add(lineas.get(i));
+      }
+    }
+
+    if (sinStock.isEmpty()) {
+      evictAfterCommit(cantidades.keySet());
+    } else if (!reservadas.isEmpty()) {
+      jdbcTemplate.batchUpdate(DEVOLVER, reservadas, reservadas.size(), (ps, linea) -> {
+        ps.setInt(1, linea.getValue());
+        ps.setLong(2, linea.getKey());
+      });
+    }
+    return sinStock;
+  }
+
+  /**
+   * Evicts the given products from the second-level cache once the current
+   * transaction commits, so the next read sees their new stock.
+   */
+  private void evictAfterCommit(Iterable<Long> productoIds) {
+    List<Long> ids = new ArrayList<>();
+    productoIds.forEach(ids::add);
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        ids.forEach(id -> entityManagerFactory.getCache().evict(Producto.class, id));
+      }
+    });
+  }
+}
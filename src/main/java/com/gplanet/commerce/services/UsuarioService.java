@@ -3,15 +3,26 @@ package com.gplanet.commerce.services;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import com.gplanet.commerce.dtos.pagination.CursorPaginatedResponse;
+import com.gplanet.commerce.dtos.pagination.KeysetCursor;
 import com.gplanet.commerce.dtos.usuario.ActualizacionUsuarioDTO;
 import com.gplanet.commerce.dtos.usuario.CambioPasswdDTO;
 import com.gplanet.commerce.dtos.usuario.UsuarioAdminDTO;
@@ -43,9 +54,14 @@ import java.time.LocalDateTime;
 @RequiredArgsConstructor
 public class UsuarioService {
 
+  /** Cache of user identities (ID, name, email and role) keyed by email. */
+  public static final String IDENTIDAD_CACHE = "usuarios";
+
   private final UsuarioMapper usuarioMapper;
   private final UsuarioRepository usuarioRepository;
+  private final CountCacheService countCacheService;
   private final PasswordEncoder passwordEncoder;
+  private final CacheManager cacheManager;
 
   /**
    * Registers a new user in the system.
@@ -75,6 +91,7 @@ public class UsuarioService {
     usuario.setFechaCreacion(LocalDateTime.now());
 
     Usuario savedUsuario = usuarioRepository.save(usuario);
+    countCacheService.invalidate(CountCacheService.USUARIOS);
     log.info("User registered successfully: {}", usuarioDTO.getEmail());
 
     return usuarioMapper.toUsuarioResponseDTO(savedUsuario);
@@ -115,6 +132,7 @@ public class UsuarioService {
     usuario.setNombre(perfilDTO.nombre());
 
     usuarioRepository.save(usuario);
+    invalidarIdentidad(email, nuevoEmail);
     log.info("Profile updated successfully for user: {}", usuario.getEmail());
   }
 
@@ -155,6 +173,7 @@ public class UsuarioService {
     // Update password
     usuario.setPassword(passwordEncoder.encode(passwordDTO.getNewPassword()));
     usuarioRepository.save(usuario);
+    invalidarIdentidad(email);
     log.info("Password successfully changed for user: {}", email);
   }
 
@@ -179,11 +198,11 @@ public class UsuarioService {
     Sort.Direction sortDirection = Sort.Direction.fromString(direction);
     Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sort));
 
-    // Get paginated result
-    Page<Usuario> usuariosPage = usuarioRepository.findAll(pageable);
-
-    // Map to DTOs
-    Page<UsuarioResponseDTO> result = usuariosPage.map(usuarioMapper::toUsuarioResponseDTO);
+    // Get paginated result, taking the total from the count cache
+    Slice<UsuarioResponseDTO> slice = usuarioRepository.findAllBy(pageable)
+        .map(usuarioMapper::toUsuarioResponseDTO);
+    Page<UsuarioResponseDTO> result = countCacheService.toPage(
+        slice, CountCacheService.USUARIOS, "all", usuarioRepository::countUpTo);
 
     if(log.isDebugEnabled()) {
       log.debug("Found {} users on page {} of {}",
@@ -195,6 +214,32 @@ public class UsuarioService {
     return result;
   }
 
+  /**
+   * Lists users with keyset pagination, so deep pages cost the same as the
+   * first one and no COUNT query is issued.
+   * 
+   * @param cursor    Cursor returned with a previous page, or null for the first page
+   * @param size      The page size
+   * @param sort      The field to sort by
+   * @param direction The sort direction (ASC or DESC)
+   * @return CursorPaginatedResponse containing the users of the requested page
+   */
+  public CursorPaginatedResponse<UsuarioResponseDTO> scrollUsuarios(
+      String cursor, int size, String sort, String direction) {
+
+    if(log.isDebugEnabled()) {
+      log.debug("Scrolling users - cursor: {}, size: {}, sort: {}, direction: {}",
+          cursor, size, sort, direction);
+    }
+
+    Sort keysetSort = Sort.by(Sort.Direction.fromString(direction), sort, "id");
+    KeysetScrollPosition position = KeysetCursor.decode(cursor, keysetSort);
+
+    Window<Usuario> window = usuarioRepository.findAllBy(position, keysetSort, Limit.of(size));
+
+    return CursorPaginatedResponse.fromWindow(window.map(usuarioMapper::toUsuarioResponseDTO), position, size);
+  }
+
   /**
    * Changes the role of a user between ADMIN and USER.
    *
@@ -215,6 +260,7 @@ public class UsuarioService {
             : Usuario.Role.ADMIN);
 
     Usuario savedUser = usuarioRepository.save(usuario);
+    invalidarIdentidad(savedUser.getEmail());
     log.info("Role successfully updated for user ID: {}", userId);
 
     return usuarioMapper.toUsuarioResponseDTO(savedUser);
@@ -222,15 +268,51 @@ public class UsuarioService {
 
   /**
    * Retrieves a user's profile information.
+   * The result is cached by email, so that resolving the current user on
+   * every request does not query the user table. Profile, password and role
+   * changes evict the cached entry.
    *
    * @param email Email of the user
    * @return UsuarioResponseDTO containing the user's information
    * @throws UsernameNotFoundException if user is not found
    */
+  @Cacheable(cacheNames = IDENTIDAD_CACHE, key = "#email")
   public UsuarioResponseDTO obtenerPerfil(String email) {
     log.debug("Retrieving profile for user: {}", email);
     Usuario usuario = usuarioRepository.findByEmail(email)
         .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado"));
     return usuarioMapper.toUsuarioResponseDTO(usuario);
   }
+
+  /**
+   * Evicts the cached identities of the given emails. When called inside a
+   * transaction the entries are evicted once it commits, so that a concurrent
+   * request cannot cache the state being replaced.
+   *
+   * @param emails The emails whose cached identity is no longer valid
+   */
+  private void invalidarIdentidad(String... emails) {
+    Cache cache = cacheManager.getCache(IDENTIDAD_CACHE);
+    if (cache == null) {
+      return;
+    }
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          evict(cache, emails);
+        }
+      });
+    } else {
+      evict(cache, emails);
+    }
+  }
+
+  private static void evict(Cache cache, String... emails) {
+    for (String email : emails) {
+      if (email != null) {
+        cache.evict(email);
+      }
+    }
+  }
 }
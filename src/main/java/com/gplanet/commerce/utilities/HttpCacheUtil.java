@@ -0,0 +1,81 @@
+package com.gplanet.commerce.utilities;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+
+/**
+ * Utility class for conditional GET support on HTML fragments.
+ * Fragments carry strong ETags derived from the catalog version or from the
+ * last modification of a product, and requests whose {@code If-None-Match}
+ * still matches are answered with 304 Not Modified before any rendering.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+public final class HttpCacheUtil {
+
+  /**
+   * Policy of the public storefront fragments: the same for every visitor,
+   * so shared caches may keep them, but always revalidated.
+   */
+  public static final CacheControl STOREFRONT = CacheControl.noCache().cachePublic();
+
+  /**
+   * Policy of the admin fragments: only the admin's browser may keep them,
+   * and always revalidated.
+   */
+  public static final CacheControl ADMIN = CacheControl.noCache().cachePrivate();
+
+  /**
+   * Private constructor to prevent instantiation of this utility class.
+   * This class contains only static methods and should not be instantiated.
+   * 
+   * @throws AssertionError if this constructor is invoked
+   */
+  private HttpCacheUtil() {
+    throw new AssertionError("HttpCacheUtil class should not be instantiated");
+  }
+
+  /**
+   * Builds the ETag of a fragment rendered from the whole catalog.
+   *
+   * @param catalogVersion The catalog version the fragment is rendered from
+   * @return The ETag value
+   */
+  public static String catalogETag(long catalogVersion) {
+    return "\"catalog-" + catalogVersion + "\"";
+  }
+
+  /**
+   * Builds the ETag of a fragment rendered from a single product.
+   *
+   * @param id                The ID of the product
+   * @param fechaModificacion When the product was last modified
+   * @return The ETag value
+   */
+  public static String productoETag(Long id, LocalDateTime fechaModificacion) {
+    // Microseconds is the precision the timestamp is stored with
+    return "\"producto-" + id + "-" + fechaModificacion.truncatedTo(ChronoUnit.MICROS) + "\"";
+  }
+
+  /**
+   * Applies the cache policy and the ETag to the response, and checks whether
+   * the client already has this version of the fragment. When it does, the
+   * response is set to 304 Not Modified and nothing else should be written.
+   *
+   * @param request The current request
+   * @param policy  The cache policy of the fragment
+   * @param etag    The ETag of the current version of the fragment
+   * @return true if the client copy is still valid
+   */
+  public static boolean notModified(ServletWebRequest request, CacheControl policy, String etag) {
+    if (request.getResponse() != null) {
+      request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, policy.getHeaderValue());
+    }
+    return request.checkNotModified(etag);
+  }
+}
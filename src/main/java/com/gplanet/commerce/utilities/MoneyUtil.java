@@ -0,0 +1,63 @@
+package com.gplanet.commerce.utilities;
+
+import java.math.BigDecimal;
+
+/**
+ * Utility class for amounts of money held as a {@code long} number of cents.
+ * The order pipeline adds up prices in cents, which needs no allocation per
+ * line, and only converts to {@link BigDecimal} where amounts are read from
+ * or written to entities and DTOs. Every amount in the database has two
+ * decimals, so the conversions are exact.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+public final class MoneyUtil {
+
+  /** Number of decimals of every amount: amounts are counted in cents. */
+  public static final int SCALE = 2;
+
+  /**
+   * Private constructor to prevent instantiation of this utility class.
+   * This class contains only static methods and should not be instantiated.
+   *
+   * @throws AssertionError if this constructor is invoked
+   */
+  private MoneyUtil() {
+    throw new AssertionError("MoneyUtil class should not be instantiated");
+  }
+
+  /**
+   * Converts an amount to cents.
+   *
+   * @param amount The amount, with at most two decimals
+   * @return The amount in cents
+   * @throws ArithmeticException if the amount has fractions of a cent or
+   *                             does not fit in a long
+   */
+  public static long toCents(BigDecimal amount) {
+    return amount.movePointRight(SCALE).longValueExact();
+  }
+
+  /**
+   * Converts an amount in cents to a decimal amount with two decimals.
+   *
+   * @param cents The amount in cents
+   * @return The amount
+   */
+  public static BigDecimal fromCents(long cents) {
+    return BigDecimal.valueOf(cents, SCALE);
+  }
+
+  /**
+   * Multiplies a unit price by a quantity.
+   *
+   * @param unitCents The unit price in cents
+   * @param quantity  The number of units
+   * @return The price of all the units in cents
+   * @throws ArithmeticException if the result overflows a long
+   */
+  public static long multiply(long unitCents, int quantity) {
+    return Math.multiplyExact(unitCents, (long) quantity);
+  }
+}
@@ -0,0 +1,134 @@
+package com.gplanet.commerce.utilities;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Database work done while serving one HTTP request: the JDBC statements
+ * executed, the time spent in them and the entities loaded by Hibernate.
+ *
+ * The statistics of the request being served are bound to its thread, so
+ * the JDBC and Hibernate hooks can find them without any parameter. Work
+ * done on other threads, such as the body of a streamed response, is not
+ * counted.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+public final class SqlRequestStats {
+
+  /** Request attribute holding the statistics once the request is served. */
+  public static final String ATTRIBUTE = SqlRequestStats.class.getName();
+
+  private static final ThreadLocal<SqlRequestStats> CURRENT = new ThreadLocal<>();
+
+  private int statements;
+  private long dbNanos;
+  private int entities;
+  private final Map<String, Integer> executions = new HashMap<>();
+
+  private SqlRequestStats() {
+  }
+
+  /**
+   * Starts counting the database work of the current thread.
+   *
+   * @return The statistics being counted
+   */
+  public static SqlRequestStats start() {
+    SqlRequestStats stats = new SqlRequestStats();
+    CURRENT.set(stats);
+    return stats;
+  }
+
+  /**
+   * Returns the statistics of the current thread.
+   *
+   * @return The statistics being counted, or null if the thread is not
+   *         serving a request
+   */
+  public static SqlRequestStats current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Stops counting the database work of the current thread.
+   */
+  public static void stop() {
+    CURRENT.remove();
+  }
+
+  /**
+   * Counts one executed statement. A JDBC batch counts as one statement.
+   *
+   * @param sql   The SQL of the statement
+   * @param nanos The time spent executing it
+   */
+  public void statement(String sql, long nanos) {
+    statements++;
+    dbNanos += nanos;
+    executions.merge(sql, 1, Integer::sum);
+  }
+
+  /**
+   * Counts one entity loaded from the database.
+   */
+  public void entityLoaded() {
+    entities++;
+  }
+
+  /**
+   * Returns the number of statements executed.
+   *
+   * @return The number of statements
+   */
+  public int getStatements() {
+    return statements;
+  }
+
+  /**
+   * Returns the time spent executing statements.
+   *
+   * @return The time in milliseconds
+   */
+  public long getDbMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(dbNanos);
+  }
+
+  /**
+   * Returns the time spent executing statements.
+   *
+   * @return The time in nanoseconds
+   */
+  public long getDbNanos() {
+    return dbNanos;
+  }
+
+  /**
+   * Returns the number of entities loaded.
+   *
+   * @return The number of entities
+   */
+  public int getEntities() {
+    return entities;
+  }
+
+  /**
+   * Returns the statements executed at least the given number of times,
+   * which usually point to a lazy association loaded once per row (N+1).
+   *
+   * @param threshold The minimum number of executions
+   * @return The number of executions of each repeated statement
+   */
+  public Map<String, Integer> repeated(int threshold) {
+    Map<String, Integer> repeated = new LinkedHashMap<>();
+    executions.forEach((sql, count) -> {
+      if (count >= threshold) {
+        repeated.put(sql, count);
+      }
+    });
+    return repeated;
+  }
+}
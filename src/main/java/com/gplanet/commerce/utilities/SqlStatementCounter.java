@@ -0,0 +1,130 @@
+package com.gplanet.commerce.utilities;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+/**
+ * Utility class that wraps a {@link DataSource} so that every statement
+ * executed through its connections is counted and timed in the
+ * {@link SqlRequestStats} of the current thread. Threads that are not
+ * serving a request only pay for one thread-local lookup per statement.
+ *
+ * The wrappers are JDK proxies of the JDBC interfaces; every other call,
+ * including {@code unwrap}, goes straight to the wrapped object, so pool
+ * metrics still find the underlying pool.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+public final class SqlStatementCounter {
+
+  private static final String BATCH = "<batch>";
+
+  /**
+   * Private constructor to prevent instantiation of this utility class.
+   * This class contains only static methods and should not be instantiated.
+   * 
+   * @throws AssertionError if this constructor is invoked
+   */
+  private SqlStatementCounter() {
+    throw new AssertionError("SqlStatementCounter class should not be instantiated");
+  }
+
+  /**
+   * Wraps a data source so that the statements of its connections are counted.
+   *
+   * @param dataSource The data source to wrap
+   * @return The wrapped data source
+   */
+  public static DataSource wrap(DataSource dataSource) {
+    return proxy(DataSource.class, new Handler(dataSource) {
+      @Override
+      protected Object handle(Method method, Object[] args) throws Throwable {
+        Object result = call(method, args);
+        return result instanceof Connection connection ? connection(connection) : result;
+      }
+    });
+  }
+
+  private static Connection connection(Connection connection) {
+    return proxy(Connection.class, new Handler(connection) {
+      @Override
+      protected Object handle(Method method, Object[] args) throws Throwable {
+        Object result = call(method, args);
+        if (result instanceof Statement statement && method.getReturnType().isInterface()) {
+          // prepareStatement and prepareCall take the SQL as their first argument
+          String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+          return statement(method.getReturnType(), statement, sql);
+        }
+        return result;
+      }
+    });
+  }
+
+  private static Object statement(Class<?> type, Statement statement, String sql) {
+    return proxy(type, new Handler(statement) {
+      @Override
+      protected Object handle(Method method, Object[] args) throws Throwable {
+        SqlRequestStats stats = SqlRequestStats.current();
+        if (stats == null || !method.getName().startsWith("execute")) {
+          return call(method, args);
+        }
+        long inicio = System.nanoTime();
+        try {
+          return call(method, args);
+        } finally {
+          // Plain statements take the SQL on execute; batches of them have none
+          String executed = args != null && args.length > 0 && args[0] instanceof String s ? s : sql;
+          stats.statement(executed != null ? executed : BATCH, System.nanoTime() - inicio);
+        }
+      }
+    });
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+    return (T) Proxy.newProxyInstance(SqlStatementCounter.class.getClassLoader(), new Class<?>[] {type}, handler);
+  }
+
+  /**
+   * Invocation handler that forwards calls to the wrapped object, keeping
+   * identity semantics for {@code equals} and {@code hashCode}.
+   */
+  private abstract static class Handler implements InvocationHandler {
+    private final Object target;
+
+    Handler(Object target) {
+      this.target = target;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      switch (method.getName()) {
+        case "equals":
+          return proxy == args[0];
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "toString":
+          return "Counting" + target;
+        default:
+          return handle(method, args);
+      }
+    }
+
+    protected abstract Object handle(Method method, Object[] args) throws Throwable;
+
+    protected Object call(Method method, Object[] args) throws Throwable {
+      try {
+        return method.invoke(target, args);
+      } catch (InvocationTargetException e) {
+        throw e.getCause();
+      }
+    }
+  }
+}
@@ -0,0 +1,65 @@
+package com.gplanet.commerce.utilities;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Utility class for normalizing and tokenizing free text.
+ * Folds case and accents so that in-memory comparisons behave like the
+ * accent-insensitive utf8mb4_spanish_ci collation used by the database.
+ *
+ * @author Gustavo
+ * @version 1.0
+ */
+public final class TextUtil {
+
+  private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+  private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+  /**
+   * Private constructor to prevent instantiation of this utility class.
+   * This class contains only static methods and should not be instantiated.
+   *
+   * @throws AssertionError if this constructor is invoked
+   */
+  private TextUtil() {
+    throw new AssertionError("TextUtil class should not be instantiated");
+  }
+
+  /**
+   * Lower-cases the given text and strips its diacritical marks.
+   *
+   * @param text The text to normalize, may be null
+   * @return The normalized text, or an empty string if the input is null
+   */
+  public static String normalize(String text) {
+    if (text == null) {
+      return "";
+    }
+    String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+    return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * Splits the given text into distinct normalized tokens, keeping the order
+   * in which they first appear. Any character that is not a letter or a digit
+   * acts as a separator.
+   *
+   * @param text The text to tokenize, may be null
+   * @return The list of distinct normalized tokens, never null
+   */
+  public static List<String> tokenize(String text) {
+    Set<String> tokens = new LinkedHashSet<>();
+    for (String token : SEPARATORS.split(normalize(text))) {
+      if (!token.isEmpty()) {
+        tokens.add(token);
+      }
+    }
+    return new ArrayList<>(tokens);
+  }
+}
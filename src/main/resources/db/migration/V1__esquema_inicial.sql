@@ -0,0 +1,99 @@
+-- Initial schema, as mysql-init/shopping_db.sql created it before migrations
+-- were applied on startup (including the manual migrations 001 to 004).
+-- Databases that already have these tables are baselined at this version
+-- instead (spring.flyway.baseline-on-migrate).
+
+-- Tabla Usuario
+CREATE TABLE usuario (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    nombre VARCHAR(100) NOT NULL,
+    email VARCHAR(150) UNIQUE NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    rol ENUM('ADMIN', 'USER') NOT NULL,
+    fecha_creacion TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Tabla Productos
+CREATE TABLE productos (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    nombre VARCHAR(200) UNIQUE NOT NULL,
+    descripcion TEXT,
+    precio DECIMAL(10, 2) NOT NULL,
+    fecha_creacion TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    fecha_modificacion TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6),
+    activo BOOLEAN DEFAULT TRUE
+);
+
+-- Tabla Compras
+CREATE TABLE compras (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    usuario_id BIGINT NOT NULL,
+    fecha TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    total DECIMAL(10, 2) NOT NULL,
+    FOREIGN KEY (usuario_id) REFERENCES usuario(id)
+);
+
+-- Tabla Compra_Productos
+CREATE TABLE compra_productos (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    compra_id BIGINT NOT NULL,
+    producto_id BIGINT NOT NULL,
+    cantidad INT NOT NULL,
+    subtotal DECIMAL(10, 2) NOT NULL,
+    FOREIGN KEY (compra_id) REFERENCES compras(id),
+    FOREIGN KEY (producto_id) REFERENCES productos(id)
+);
+
+-- Pooled ID sequences for purchases, emulated with tables as MySQL has no
+-- sequences. Hibernate reserves 50 IDs per call so inserts can be batched.
+CREATE TABLE compras_seq (
+    next_val BIGINT
+);
+INSERT INTO compras_seq VALUES (1);
+
+CREATE TABLE compra_productos_seq (
+    next_val BIGINT
+);
+INSERT INTO compra_productos_seq VALUES (1);
+
+-- Bulk product imports, with the progress committed after every batch
+CREATE TABLE importaciones (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    nombre_archivo VARCHAR(255),
+    formato VARCHAR(10) NOT NULL,
+    estado VARCHAR(20) NOT NULL,
+    tamano_archivo BIGINT NOT NULL DEFAULT 0,
+    bytes_procesados BIGINT NOT NULL DEFAULT 0,
+    filas_procesadas BIGINT NOT NULL DEFAULT 0,
+    insertados BIGINT NOT NULL DEFAULT 0,
+    actualizados BIGINT NOT NULL DEFAULT 0,
+    errores BIGINT NOT NULL DEFAULT 0,
+    mensaje VARCHAR(255),
+    fecha_inicio TIMESTAMP NULL,
+    fecha_fin TIMESTAMP NULL
+);
+
+-- Hourly and daily sales statistics, updated with every purchase so that
+-- reports never scan the purchases. No foreign keys: statistics outlive
+-- deleted products and users.
+CREATE TABLE ventas_producto (
+    granularidad VARCHAR(10) NOT NULL,
+    periodo DATETIME NOT NULL,
+    producto_id BIGINT NOT NULL,
+    producto_nombre VARCHAR(200),
+    compras BIGINT NOT NULL DEFAULT 0,
+    unidades BIGINT NOT NULL DEFAULT 0,
+    importe DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (granularidad, periodo, producto_id)
+);
+
+CREATE TABLE ventas_usuario (
+    granularidad VARCHAR(10) NOT NULL,
+    periodo DATETIME NOT NULL,
+    usuario_id BIGINT NOT NULL,
+    usuario_email VARCHAR(150),
+    compras BIGINT NOT NULL DEFAULT 0,
+    unidades BIGINT NOT NULL DEFAULT 0,
+    importe DECIMAL(14, 2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (granularidad, periodo, usuario_id)
+);
@@ -0,0 +1,19 @@
+-- Indexes matching the query shapes of the repositories. InnoDB appends the
+-- primary key to every secondary index, so (activo, nombre) also serves the
+-- keyset scrolls ordered by (nombre, id).
+
+-- Product listings filter by status and sort by name, price or creation date
+CREATE INDEX idx_productos_activo_nombre ON productos (activo, nombre);
+CREATE INDEX idx_productos_activo_precio ON productos (activo, precio);
+CREATE INDEX idx_productos_activo_fecha_creacion ON productos (activo, fecha_creacion);
+
+-- Product searches while the in-memory index is not ready, and keyset searches
+CREATE FULLTEXT INDEX ft_productos_nombre_descripcion ON productos (nombre, descripcion);
+
+-- Purchase history of a customer, newest first. It also backs the foreign key,
+-- so the index MySQL created for it on usuario_id alone is redundant
+CREATE INDEX idx_compras_usuario_fecha ON compras (usuario_id, fecha);
+ALTER TABLE compras DROP INDEX usuario_id;
+
+-- Purchase listings and exports by date
+CREATE INDEX idx_compras_fecha ON compras (fecha);
@@ -0,0 +1,6 @@
+-- Units in stock of each product. Existing products are not tracked (null)
+-- until units are added to them; the check is a last line of defense
+-- against overselling, which the conditional reservations already prevent.
+ALTER TABLE productos
+    ADD COLUMN stock INT NULL,
+    ADD CONSTRAINT chk_productos_stock CHECK (stock >= 0);
@@ -0,0 +1,7 @@
+-- Key sent by the cart with each checkout, so that a resubmitted checkout
+-- finds the purchase it already created instead of creating another one.
+-- Purchases made before the column existed keep a null key, which the
+-- unique constraint does not compare.
+ALTER TABLE compras
+    ADD COLUMN clave_idempotencia VARCHAR(64) NULL,
+    ADD CONSTRAINT uk_compras_usuario_clave UNIQUE (usuario_id, clave_idempotencia);
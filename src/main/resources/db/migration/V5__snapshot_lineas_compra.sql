@@ -0,0 +1,15 @@
+-- Name and unit price of the product at the time of purchase, so that the
+-- history shows what was paid and does not need to read the products.
+-- Existing lines take the unit price they were charged and the current name.
+ALTER TABLE compra_productos
+    ADD COLUMN producto_nombre VARCHAR(200) NULL,
+    ADD COLUMN precio_unitario DECIMAL(10, 2) NULL;
+
+UPDATE compra_productos cp
+    JOIN productos p ON p.id = cp.producto_id
+    SET cp.producto_nombre = p.nombre,
+        cp.precio_unitario = ROUND(cp.subtotal / cp.cantidad, 2);
+
+ALTER TABLE compra_productos
+    MODIFY producto_nombre VARCHAR(200) NOT NULL,
+    MODIFY precio_unitario DECIMAL(10, 2) NOT NULL;
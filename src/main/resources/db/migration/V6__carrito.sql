@@ -0,0 +1,12 @@
+-- Server-side carts of signed-in users, one row per product in the cart.
+-- Carts are kept in memory and written here a few seconds after they change,
+-- so that they survive restarts and evictions from memory.
+CREATE TABLE carrito (
+    usuario_id BIGINT NOT NULL,
+    producto_id BIGINT NOT NULL,
+    cantidad INT NOT NULL,
+    posicion INT NOT NULL,
+    PRIMARY KEY (usuario_id, producto_id),
+    FOREIGN KEY (usuario_id) REFERENCES usuario(id) ON DELETE CASCADE,
+    FOREIGN KEY (producto_id) REFERENCES productos(id) ON DELETE CASCADE
+);
@@ -11,19 +11,128 @@
 class CartComponent {
     constructor() {
         this.selectedProducts = new Map();
+        // Signed-in buyers keep their cart on the server; anonymous visitors in localStorage
+        this.serverCart = document.querySelector('meta[name="server-cart"]') !== null;
+        // Queued orders are confirmed or rejected while the buyer watches
+        document.addEventListener('htmx:afterSettle', () => this.dropRejectedCheckoutKey());
         document.addEventListener('DOMContentLoaded', () => {
-            this.loadCartFromStorage();
+            if (this.serverCart) {
+                this.initializeServerCart();
+            } else {
+                this.loadCartFromStorage();
+            }
             this.initializeEventListeners();
             this.setupProductPageListeners();
         });
     }
 
+    /**
+     * Sets up the cart kept on the server
+     * - Merges the cart filled in before signing in, then forgets it
+     * - Loads the cart into the modal
+     * - Keeps the checkout button and key in step with the cart
+     * @private
+     */
+    initializeServerCart() {
+        this.dropRejectedCheckoutKey();
+        const clearCart = document.querySelector('span[data-cart-empty]');
+        if (clearCart && clearCart.dataset.cartEmpty === 'true') {
+            localStorage.removeItem('checkoutKey');
+        }
+
+        document.addEventListener('htmx:afterSettle', () => {
+            const content = document.getElementById('cartContent');
+            const button = document.getElementById('proceedToCheckoutBtn');
+            if (content && button) {
+                button.disabled = content.dataset.cartUnits === '0';
+            }
+        });
+        document.addEventListener('htmx:afterRequest', e => {
+            // A different cart is a different checkout
+            const config = e.detail.requestConfig;
+            if (config && config.verb === 'post' && config.path.startsWith('/carrito/')) {
+                localStorage.removeItem('checkoutKey');
+            }
+        });
+
+        this.mergeStoredCart().finally(() => {
+            htmx.ajax('GET', '/carrito', { target: '#cartContent', swap: 'outerHTML' });
+        });
+    }
+
+    /**
+     * Sends the cart filled in before signing in to the server and removes
+     * it from localStorage once the server has it
+     * @private
+     * @returns {Promise} Resolved when the merge is over
+     */
+    mergeStoredCart() {
+        const storedCart = localStorage.getItem('cartItems');
+        if (!storedCart) {
+            return Promise.resolve();
+        }
+
+        let items;
+        try {
+            items = JSON.parse(storedCart).map(([key, value]) => ({
+                productoId: parseInt(key),
+                cantidad: value.quantity
+            }));
+        } catch (e) {
+            console.error('Error parsing cart data:', e);
+            localStorage.removeItem('cartItems');
+            return Promise.resolve();
+        }
+
+        const csrfToken = document.querySelector('meta[name="_csrf"]').content;
+        const csrfHeader = document.querySelector('meta[name="_csrf_header"]').content;
+        return fetch('/carrito/fusionar', {
+            method: 'POST',
+            headers: { 'Content-Type': 'application/json', [csrfHeader]: csrfToken },
+            body: JSON.stringify(items)
+        }).then(response => {
+            if (response.ok) {
+                localStorage.removeItem('cartItems');
+            }
+        }).catch(error => console.error('Cart merge failed:', error));
+    }
+
+    /**
+     * Adds a product to the cart kept on the server and shows the updated cart
+     * @param {number} productId - Product ID
+     * @param {number} quantity - Quantity to add
+     */
+    addServerProduct(productId, quantity) {
+        if (!(quantity >= 1)) {
+            UiUtils.showError('Quantity must be greater than 0');
+            return;
+        }
+        htmx.ajax('POST', '/carrito/agregar', {
+            target: '#cartContent',
+            swap: 'outerHTML',
+            values: { productoId: productId, cantidad: quantity }
+        });
+    }
+
+    /**
+     * Drops the idempotency key after a rejected checkout, or a queued order
+     * rejected later, so that retrying the same cart is a new checkout instead
+     * of a replay of the rejection
+     * @private
+     */
+    dropRejectedCheckoutKey() {
+        if (document.querySelector('[data-checkout-failed="true"]')) {
+            localStorage.removeItem('checkoutKey');
+        }
+    }
+
     /**
      * Loads cart data from localStorage
      * Called on initialization
      * @private
      */
     loadCartFromStorage() {
+        this.dropRejectedCheckoutKey();
         const clearCart = document.querySelector('span[data-cart-empty]');
         if (clearCart && clearCart.dataset.cartEmpty === 'true') {
             this.clear();
@@ -55,6 +164,8 @@ class CartComponent {
         try {
             const cartData = JSON.stringify(Array.from(this.selectedProducts.entries()));
             localStorage.setItem('cartItems', cartData);
+            // A different cart is a different checkout
+            localStorage.removeItem('checkoutKey');
         } catch (e) {
             console.error('Error saving cart to storage:', e);
         }
@@ -234,6 +345,7 @@ class CartComponent {
     clear() {
         this.selectedProducts.clear();
         localStorage.removeItem('cartItems');
+        localStorage.removeItem('checkoutKey');
         this.updateCartCount();
     }
 
@@ -246,6 +358,11 @@ class CartComponent {
                 const card = button.closest('.card');
                 const quantityInput = card.querySelector('.quantity-input');
                 const quantity = parseInt(quantityInput.value);
+
+                if (this.serverCart) {
+                    this.addServerProduct(productId, quantity);
+                    return;
+                }
                 
                 const product = {
                     id: productId,
@@ -289,7 +406,9 @@ class CartComponent {
                 const response = await fetch('/usuarios/authenticated');
                 const isAuthenticated = await response.json();
 
-                if (isAuthenticated) {
+                if (isAuthenticated && this.serverCart) {
+                    this.showServerCheckoutModal();
+                } else if (isAuthenticated) {
                     this.showCheckoutModal();
                 } else {
                     window.location.href = '/usuarios/login';
@@ -349,6 +468,25 @@ class CartComponent {
         this.prepareCheckoutForm();
     }
 
+    /**
+     * Returns the idempotency key of the current cart, creating it on the
+     * first checkout attempt. The key survives reloads, so double clicks,
+     * retries and resubmits of the same cart are recognized by the server
+     * and never charged twice; it is dropped when the cart changes or is cleared.
+     * @private
+     */
+    getCheckoutKey() {
+        let key = localStorage.getItem('checkoutKey');
+        if (!key) {
+            key = typeof crypto.randomUUID === 'function'
+                ? crypto.randomUUID()
+                : Array.from(crypto.getRandomValues(new Uint8Array(16)),
+                    b => b.toString(16).padStart(2, '0')).join('');
+            localStorage.setItem('checkoutKey', key);
+        }
+        return key;
+    }
+
     prepareCheckoutForm() {
         // Obtain CSRF token afrom meta tag
         const csrfToken = document.querySelector('meta[name="_csrf"]').content;
@@ -359,17 +497,25 @@ class CartComponent {
             checkoutForm = document.createElement('form');
             checkoutForm.id = 'checkoutForm';
             checkoutForm.method = 'POST';
-            checkoutForm.action = '/compras/nueva';
+            // The cart kept on the server is checked out without sending its products
+            checkoutForm.action = this.serverCart ? '/compras/carrito' : '/compras/nueva';
             document.body.appendChild(checkoutForm);
         }
 
         // Add event listener to confirm purchase button
-        document.getElementById('confirmPurchaseBtn')?.addEventListener('click', () => {
-            if (this.selectedProducts.size === 0) {
+        document.getElementById('confirmPurchaseBtn')?.addEventListener('click', e => {
+            const summary = document.getElementById('purchaseSummary');
+            const empty = this.serverCart
+                ? summary === null || summary.dataset.cartUnits === '0'
+                : this.selectedProducts.size === 0;
+            if (empty) {
                 UiUtils.showError('Your cart is empty');
                 return;
             }
 
+            // Ignore further clicks while the purchase is submitted
+            e.currentTarget.disabled = true;
+
             // Clear existing form inputs
             checkoutForm.innerHTML = '';
 
@@ -380,6 +526,13 @@ class CartComponent {
             csrfInput.value = csrfToken;
             checkoutForm.appendChild(csrfInput);
 
+            // Add the idempotency key of this cart
+            const keyInput = document.createElement('input');
+            keyInput.type = 'hidden';
+            keyInput.name = 'claveIdempotencia';
+            keyInput.value = this.getCheckoutKey();
+            checkoutForm.appendChild(keyInput);
+
             // Add cart items as hidden inputs following the DTO structure
             this.selectedProducts.forEach((item, productId) => {
                 // Producto ID input
@@ -402,6 +555,15 @@ class CartComponent {
         });
     }
 
+    /**
+     * Loads the summary of the cart kept on the server into the checkout
+     * modal and shows it
+     */
+    showServerCheckoutModal() {
+        htmx.ajax('GET', '/carrito/resumen', { target: '#purchaseSummary', swap: 'outerHTML' })
+            .then(() => new bootstrap.Modal(document.getElementById('checkoutModal')).show());
+    }
+
     showCheckoutModal() {
         const detailsContainer = document.getElementById('purchaseDetails');
         const totalElement = document.getElementById('purchaseTotal');
@@ -3,13 +3,16 @@ package com.gplanet.commerce.controllers;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.flash;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrlPattern;
@@ -19,9 +22,12 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -34,14 +40,24 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import com.gplanet.commerce.dtos.carrito.CarritoDTO;
+import com.gplanet.commerce.dtos.carrito.CarritoLineaDTO;
 import com.gplanet.commerce.dtos.compra.CompraDTO;
 import com.gplanet.commerce.dtos.compra.CompraProductoDTO;
 import com.gplanet.commerce.dtos.compra.CompraResponseDTO;
+import com.gplanet.commerce.dtos.compra.PedidoEstadoDTO;
+import com.gplanet.commerce.dtos.compra.PedidoStatus;
+import com.gplanet.commerce.dtos.compra.ResultadoCompraDTO;
 import com.gplanet.commerce.entities.Usuario;
 import com.gplanet.commerce.security.SecurityConfig;
 import com.gplanet.commerce.security.UsuarioDetalles;
 import com.gplanet.commerce.security.UsuarioDetallesService;
+import com.gplanet.commerce.services.CarritoService;
+import com.gplanet.commerce.services.CompraIdempotenciaService;
+import com.gplanet.commerce.services.CompraIntakeService;
 import com.gplanet.commerce.services.CompraService;
+import com.gplanet.commerce.exceptions.PedidoQueueFullException;
+import com.gplanet.commerce.exceptions.StockInsuficienteException;
 import com.gplanet.commerce.exceptions.ResourceNotFoundException;
 
 @WebMvcTest(CompraController.class)
@@ -56,6 +72,15 @@ class CompraControllerTest {
   @MockitoBean
   private CompraService compraService;
 
+  @MockitoBean
+  private CompraIntakeService compraIntakeService;
+
+  @MockitoBean
+  private CompraIdempotenciaService compraIdempotenciaService;
+
+  @MockitoBean
+  private CarritoService carritoService;
+
   @MockitoBean
   private UsuarioDetallesService usuarioDetallesService;
 
@@ -127,6 +152,180 @@ class CompraControllerTest {
         .andExpect(redirectedUrl("/?compraExitosa=false"));
   }
 
+  @Test
+  @WithMockUser(roles = "USER")
+  void processPurchase_WithOutOfStockProduct_ShouldRedirectWithError() throws Exception {
+    doThrow(new StockInsuficienteException(List.of(1L)))
+        .when(compraService).realizarCompra(anyString(), any(CompraDTO.class));
+
+    mockMvc.perform(post("/compras/nueva")
+        .with(csrf())
+        .flashAttr("compraDTO", compraDTO))
+        .andExpect(status().is3xxRedirection())
+        .andExpect(redirectedUrl("/?compraExitosa=false"))
+        .andExpect(flash().attribute("toastType", "danger"));
+  }
+
+  @Test
+  @WithMockUser(roles = "USER")
+  void processPurchase_WithIntakeEnabled_ShouldQueueOrderAndRedirectWithToken() throws Exception {
+    when(compraIntakeService.isEnabled()).thenReturn(true);
+    when(compraIntakeService.enviar(anyString(), any(CompraDTO.class), any(Runnable.class)))
+        .thenReturn(new PedidoEstadoDTO("token-1", PedidoStatus.PENDING, null));
+
+    mockMvc.perform(post("/compras/nueva")
+        .with(csrf())
+        .flashAttr("compraDTO", compraDTO))
+        .andExpect(status().is3xxRedirection())
+        .andExpect(redirectedUrl("/?compraExitosa=true&pedido=token-1"));
+
+    verify(compraService, never()).realizarCompra(anyString(), any(CompraDTO.class));
+  }
+
+  @Test
+  @WithMockUser(roles = "USER")
+  void processPurchase_WithQueueFull_ShouldRedirectWithError() throws Exception {
+    when(compraIntakeService.isEnabled()).thenReturn(true);
+    when(compraIntakeService.enviar(anyString(), any(CompraDTO.class), any(Runnable.class)))
+        .thenThrow(new PedidoQueueFullException("Order intake queue is full"));
+
+    mockMvc.perform(post("/compras/nueva")
+        .with(csrf())
+        .flashAttr("compraDTO", compraDTO))
+        .andExpect(status().is3xxRedirection())
+        .andExpect(redirectedUrl("/?compraExitosa=false"))
+        .andExpect(flash().attribute("toastType", "danger"));
+  }
+
+  @Test
+  @WithMockUser(username = "test@example.com", roles = "USER")
+  void processPurchase_WithIdempotencyKey_ShouldPurchaseThroughIdempotencyStore() throws Exception {
+    CompraDTO conClave = new CompraDTO(compraDTO.productos(), "9b2c6a1e-4f7d-4e55-8a3b-2f0d1c7e9a10");
+    when(compraIdempotenciaService.ejecutar(eq("test@example.com"), eq(conClave.claveIdempotencia()), any()))
+        .thenAnswer(invocation -> invocation.<Supplier<ResultadoCompraDTO>>getArgument(2).get());
+
+    mockMvc.perform(post("/compras/nueva")
+        .with(csrf())
+        .flashAttr("compraDTO", conClave))
+        .andExpect(status().is3xxRedirection())
+        .andExpect(redirectedUrl("/?compraExitosa=true"))
+        .andExpect(flash().attribute("toastType", "success"));
+
+    verify(compraService).realizarCompra("test@example.com", conClave);
+  }
+
+  @Test
+  @WithMockUser(username = "test@example.com", roles = "USER")
+  void processPurchase_WithRepeatedIdempotencyKey_ShouldReplayOutcomeWithoutPurchasing() throws Exception {
+    CompraDTO conClave = new CompraDTO(compraDTO.productos(), "9b2c6a1e-4f7d-4e55-8a3b-2f0d1c7e9a10");
+    when(compraIdempotenciaService.ejecutar(eq("test@example.com"), eq(conClave.claveIdempotencia()), any()))
+        .thenReturn(ResultadoCompraDTO.recibida("token-1"));
+
+    mockMvc.perform(post("/compras/nueva")
+        .with(csrf())
+        .flashAttr("compraDTO", conClave))
+        .andExpect(status().is3xxRedirection())
+        .andExpect(redirectedUrl("/?compraExitosa=true&pedido=token-1"));
+
+    verify(compraService, never()).realizarCompra(anyString(), any(CompraDTO.class));
+    verify(compraIntakeService, never()).enviar(anyString(), any(CompraDTO.class), any(Runnable.class));
+  }
+
+  @Test
+  @WithMockUser(roles = "USER")
+  void processPurchase_WithMalformedIdempotencyKey_ShouldRedirectWithError() throws Exception {
+    mockMvc.perform(post("/compras/nueva")
+        .with(csrf())
+        .flashAttr("compraDTO", new CompraDTO(compraDTO.productos(), "<script>")))
+        .andExpect(status().is3xxRedirection())
+        .andExpect(redirectedUrl("/?compraExitosa=false"));
+
+    verify(compraService, never()).realizarCompra(anyString(), any(CompraDTO.class));
+  }
+
+  @Test
+  @WithMockUser(username = "test@example.com", roles = "USER")
+  void processCartPurchase_ShouldPurchaseValidatedCartAndTakeItOff() throws Exception {
+    CarritoDTO carrito = new CarritoDTO(List.of(new CarritoLineaDTO(
+        1L, "Keyboard", new BigDecimal("25.00"), 2, new BigDecimal("50.00"))), 2, new BigDecimal("50.00"));
+    when(carritoService.obtener("test@example.com")).thenReturn(carrito);
+
+    mockMvc.perform(post("/compras/carrito")
+        .with(csrf()))
+        .andExpect(status().is3xxRedirection())
+        .andExpect(redirectedUrl("/?compraExitosa=true"))
+        .andExpect(flash().attribute("toastType", "success"));
+
+    verify(compraService).realizarCompra("test@example.com", carrito, null);
+    verify(compraService, never()).realizarCompra(anyString(), any(CompraDTO.class));
+    verify(carritoService).descontar("test@example.com", carrito);
+  }
+
+  @Test
+  @WithMockUser(username = "test@example.com", roles = "USER")
+  void processCartPurchase_WithIntakeEnabled_ShouldKeepCartUntilOrderIsConfirmed() throws Exception {
+    CarritoDTO carrito = new CarritoDTO(List.of(new CarritoLineaDTO(
+        1L, "Keyboard", new BigDecimal("25.00"), 2, new BigDecimal("50.00"))), 2, new BigDecimal("50.00"));
+    when(carritoService.obtener("test@example.com")).thenReturn(carrito);
+    when(compraIntakeService.isEnabled()).thenReturn(true);
+    ArgumentCaptor<Runnable> confirmada = ArgumentCaptor.forClass(Runnable.class);
+    when(compraIntakeService.enviar(eq("test@example.com"), any(CompraDTO.class), confirmada.capture()))
+        .thenReturn(new PedidoEstadoDTO("token-1", PedidoStatus.PENDING, null));
+
+    mockMvc.perform(post("/compras/carrito")
+        .with(csrf()))
+        .andExpect(status().is3xxRedirection())
+        .andExpect(redirectedUrl("/?compraExitosa=true&pedido=token-1"));
+
+    verify(carritoService, never()).descontar(anyString(), any(CarritoDTO.class));
+    confirmada.getValue().run();
+    verify(carritoService).descontar("test@example.com", carrito);
+  }
+
+  @Test
+  @WithMockUser(username = "test@example.com", roles = "USER")
+  void processCartPurchase_WithEmptyCart_ShouldRedirectWithError() throws Exception {
+    when(carritoService.obtener("test@example.com")).thenReturn(new CarritoDTO(List.of(), 0, BigDecimal.ZERO));
+
+    mockMvc.perform(post("/compras/carrito")
+        .with(csrf()))
+        .andExpect(status().is3xxRedirection())
+        .andExpect(redirectedUrl("/?compraExitosa=false"))
+        .andExpect(flash().attribute("toastType", "danger"));
+
+    verify(compraService, never()).realizarCompra(anyString(), any(CarritoDTO.class), any());
+    verify(carritoService, never()).descontar(anyString(), any(CarritoDTO.class));
+  }
+
+  @Test
+  @WithMockUser(username = "test@example.com", roles = "USER")
+  void processCartPurchase_WithOutOfStockProduct_ShouldKeepCart() throws Exception {
+    CarritoDTO carrito = new CarritoDTO(List.of(new CarritoLineaDTO(
+        1L, "Keyboard", new BigDecimal("25.00"), 2, new BigDecimal("50.00"))), 2, new BigDecimal("50.00"));
+    when(carritoService.obtener("test@example.com")).thenReturn(carrito);
+    doThrow(new StockInsuficienteException(List.of(1L)))
+        .when(compraService).realizarCompra("test@example.com", carrito, null);
+
+    mockMvc.perform(post("/compras/carrito")
+        .with(csrf()))
+        .andExpect(status().is3xxRedirection())
+        .andExpect(redirectedUrl("/?compraExitosa=false"));
+
+    verify(carritoService, never()).descontar(anyString(), any(CarritoDTO.class));
+  }
+
+  @Test
+  @WithMockUser(username = "test@example.com", roles = "USER")
+  void estadoPedido_ShouldReturnOrderStateFragment() throws Exception {
+    PedidoEstadoDTO pedido = new PedidoEstadoDTO("token-1", PedidoStatus.CONFIRMED, 5L);
+    when(compraIntakeService.estado("test@example.com", "token-1")).thenReturn(Optional.of(pedido));
+
+    mockMvc.perform(get("/compras/pedido/token-1"))
+        .andExpect(status().isOk())
+        .andExpect(view().name("compras/pedido :: pedido-estado"))
+        .andExpect(model().attribute("pedido", pedido));
+  }
+
   @Test
   void processPurchase_WithoutAuthentication_ShouldRedirectToLogin() throws Exception {
     mockMvc.perform(post("/compras/nueva")
@@ -4,12 +4,20 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrlPattern;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -19,6 +27,7 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -28,6 +37,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.test.context.support.WithMockUser;
@@ -37,6 +47,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
+import com.gplanet.commerce.dtos.pagination.CursorPaginatedResponse;
 import com.gplanet.commerce.dtos.producto.ProductStatus;
 import com.gplanet.commerce.dtos.producto.ProductoDTO;
 import com.gplanet.commerce.dtos.producto.ProductoResponseDTO;
@@ -46,6 +57,7 @@ import com.gplanet.commerce.exceptions.ResourceNotFoundException;
 import com.gplanet.commerce.security.SecurityConfig;
 import com.gplanet.commerce.security.UsuarioDetalles;
 import com.gplanet.commerce.security.UsuarioDetallesService;
+import com.gplanet.commerce.services.CatalogVersionService;
 import com.gplanet.commerce.services.ProductoService;
 
 @WebMvcTest(ProductoController.class)
@@ -65,6 +77,9 @@ class ProductoControllerTest {
   @MockitoBean
   private UsuarioDetallesService usuarioDetallesService;
 
+  @MockitoBean
+  private CatalogVersionService catalogVersionService;
+
   private ProductoDTO productoDTO;
   private ProductoResponseDTO productoResponseDTO;
   private Usuario adminUser;
@@ -98,7 +113,8 @@ class ProductoControllerTest {
         "Test Description",
         BigDecimal.valueOf(19.99),
         LocalDateTime.now(),
-        true);
+        true,
+        null);
   }
 
   @Test
@@ -159,6 +175,35 @@ class ProductoControllerTest {
         .andExpect(model().attributeExists("producto"));
   }
 
+  @Test
+  @WithMockUser(roles = "ADMIN")
+  void getProductById_WithCurrentETag_ShouldReturnNotModified() throws Exception {
+    LocalDateTime modificado = LocalDateTime.of(2025, 5, 1, 10, 30, 15, 123_456_789);
+    when(productoService.fechaModificacion(1L)).thenReturn(Optional.of(modificado));
+
+    String etag = mockMvc.perform(get("/productos/1"))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+    mockMvc.perform(get("/productos/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+        .andExpect(status().isNotModified())
+        .andExpect(content().string(""));
+
+    verify(productoService, times(1)).findById(1L);
+  }
+
+  @Test
+  @WithMockUser(roles = "ADMIN")
+  void getProductById_AfterProductChange_ShouldReturnModal() throws Exception {
+    when(productoService.fechaModificacion(1L)).thenReturn(Optional.of(LocalDateTime.now()));
+    when(productoService.findById(1L)).thenReturn(productoResponseDTO);
+
+    mockMvc.perform(get("/productos/1").header(HttpHeaders.IF_NONE_MATCH, "\"producto-1-2020-01-01T00:00\""))
+        .andExpect(status().isOk())
+        .andExpect(view().name("productos/producto-modal :: producto-modal"));
+  }
+
   @Test
   @WithMockUser(roles = "ADMIN")
   void getProductById_WithInvalidId_ShouldReturnError() throws Exception {
@@ -194,6 +239,62 @@ class ProductoControllerTest {
         .andExpect(model().attributeExists("pagination"));
   }
 
+  @Test
+  void sugerencias_AsAnonymousUser_ShouldReturnSuggestionsFragment() throws Exception {
+    when(productoService.sugerirNombres("cam")).thenReturn(List.of("Camiseta Básica"));
+
+    mockMvc.perform(get("/productos/sugerencias").param("search", "cam"))
+        .andExpect(status().isOk())
+        .andExpect(view().name("productos/sugerencias :: sugerencias"))
+        .andExpect(model().attribute("sugerencias", List.of("Camiseta Básica")));
+  }
+
+  @Test
+  void filterProducts_WithCurrentCatalogETag_ShouldReturnNotModifiedWithoutQuerying() throws Exception {
+    when(catalogVersionService.current()).thenReturn(7L);
+
+    mockMvc.perform(get("/productos/filtrar").header(HttpHeaders.IF_NONE_MATCH, "\"catalog-7\""))
+        .andExpect(status().isNotModified())
+        .andExpect(header().string(HttpHeaders.ETAG, "\"catalog-7\""))
+        .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, public"));
+
+    verifyNoInteractions(productoService);
+  }
+
+  @Test
+  void filterProducts_WithStaleCatalogETag_ShouldRenderGrid() throws Exception {
+    when(catalogVersionService.current()).thenReturn(8L);
+    when(productoService.listarProductos(any(ProductStatus.class), anyString(), anyInt(), anyInt(), anyString(),
+        anyString()))
+        .thenReturn(new PageImpl<>(List.of(productoResponseDTO)));
+
+    mockMvc.perform(get("/productos/filtrar").header(HttpHeaders.IF_NONE_MATCH, "\"catalog-7\""))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.ETAG, "\"catalog-8\""))
+        .andExpect(view().name("productos/user-grid :: user-grid"));
+  }
+
+  @Test
+  void filterProducts_KeysetMode_ShouldRenderCursorControls() throws Exception {
+    CursorPaginatedResponse<ProductoResponseDTO> response = new CursorPaginatedResponse<>();
+    response.setContent(List.of(productoResponseDTO));
+    response.setPageSize(10);
+    response.setTotalElements(1);
+    response.setNextCursor("next-cursor");
+
+    when(productoService.scrollProductos(eq(ProductStatus.ACTIVE), anyString(), isNull(), anyInt(), anyString(),
+        anyString()))
+        .thenReturn(response);
+
+    mockMvc.perform(get("/productos/filtrar")
+        .param("mode", "KEYSET")
+        .param("size", "10"))
+        .andExpect(status().isOk())
+        .andExpect(view().name("productos/user-grid :: user-grid"))
+        .andExpect(model().attribute("pagination", response))
+        .andExpect(content().string(containsString("value=\"next-cursor\"")));
+  }
+
   @Test
   @WithMockUser(roles = "ADMIN")
   void filterAdminProducts_ShouldReturnProductPageFragment() throws Exception {
@@ -303,6 +404,35 @@ class ProductoControllerTest {
         .andExpect(model().attributeExists("toastMessage"));
   }
 
+  @Test
+  @WithMockUser(roles = "ADMIN")
+  void reponerStock_WithValidUnits_ShouldReturnUpdatedProductRow() throws Exception {
+    when(productoService.reponerStock(1L, 5)).thenReturn(productoResponseDTO);
+
+    mockMvc.perform(post("/productos/admin/reponer/1")
+        .with(csrf())
+        .param("unidades", "5"))
+        .andExpect(status().isOk())
+        .andExpect(view().name("productos/lista-admin-row :: producto-row"))
+        .andExpect(model().attribute("producto", productoResponseDTO))
+        .andExpect(model().attribute("toastType", "success"));
+  }
+
+  @Test
+  @WithMockUser(roles = "ADMIN")
+  void reponerStock_WithInvalidUnits_ShouldKeepProductRow() throws Exception {
+    when(productoService.reponerStock(1L, 0)).thenThrow(new IllegalArgumentException("Invalid units"));
+    when(productoService.findById(1L)).thenReturn(productoResponseDTO);
+
+    mockMvc.perform(post("/productos/admin/reponer/1")
+        .with(csrf())
+        .param("unidades", "0"))
+        .andExpect(status().isOk())
+        .andExpect(view().name("productos/lista-admin-row :: producto-row"))
+        .andExpect(model().attribute("producto", productoResponseDTO))
+        .andExpect(model().attribute("toastType", "danger"));
+  }
+
   @Test
   @WithMockUser(roles = "ADMIN")
   void actualizarProducto_WithInvalidId_ShouldReturnError() throws Exception {
@@ -0,0 +1,108 @@
+package com.gplanet.commerce.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.gplanet.commerce.configs.FragmentCacheProperties;
+import com.gplanet.commerce.services.CatalogVersionService;
+import com.gplanet.commerce.services.FragmentCacheService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+public class ProductoGridCacheFilterTest {
+
+  private CatalogVersionService catalogVersionService;
+  private ProductoGridCacheFilter filter;
+  private AtomicInteger renders;
+
+  @BeforeEach
+  void setUp() {
+    catalogVersionService = new CatalogVersionService();
+    filter = new ProductoGridCacheFilter(new FragmentCacheService(catalogVersionService,
+        new FragmentCacheProperties(), new SimpleMeterRegistry()));
+    renders = new AtomicInteger();
+  }
+
+  private MockHttpServletResponse perform(MockHttpServletRequest request) throws Exception {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+      @Override
+      protected void service(HttpServletRequest req, HttpServletResponse res) throws IOException {
+        res.setContentType("text/html;charset=UTF-8");
+        res.getWriter().write("<div>grid " + renders.incrementAndGet() + " – ñ</div>");
+      }
+    }));
+    return response;
+  }
+
+  private MockHttpServletRequest grid(String search) {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/productos/filtrar");
+    request.setParameter("search", search);
+    return request;
+  }
+
+  @Test
+  @DisplayName("Should render the grid once and serve repeated requests from the cache")
+  void doFilter_RepeatedRequest_ShouldServeCachedFragment() throws Exception {
+    MockHttpServletResponse first = perform(grid(""));
+    MockHttpServletResponse second = perform(grid(""));
+
+    assertThat(renders).hasValue(1);
+    assertThat(first.getHeader(ProductoGridCacheFilter.CACHE_HEADER)).isEqualTo("MISS");
+    assertThat(second.getHeader(ProductoGridCacheFilter.CACHE_HEADER)).isEqualTo("HIT");
+    assertThat(second.getContentAsString()).isEqualTo(first.getContentAsString()).contains("grid 1 – ñ");
+  }
+
+  @Test
+  @DisplayName("Should treat missing parameters like the controller defaults")
+  void doFilter_DefaultParameters_ShouldShareEntry() throws Exception {
+    perform(new MockHttpServletRequest("GET", "/productos/filtrar"));
+    MockHttpServletRequest explicit = grid("");
+    explicit.setParameter("page", "0");
+    explicit.setParameter("size", "10");
+    explicit.setParameter("sort", "nombre");
+    explicit.setParameter("direction", "ASC");
+    perform(explicit);
+    perform(grid("camiseta"));
+
+    assertThat(renders).hasValue(2);
+  }
+
+  @Test
+  @DisplayName("Should render the grid again after the catalog changes")
+  void doFilter_AfterCatalogChange_ShouldRenderAgain() throws Exception {
+    perform(grid(""));
+    catalogVersionService.bump();
+    MockHttpServletResponse response = perform(grid(""));
+
+    assertThat(renders).hasValue(2);
+    assertThat(response.getContentAsString()).contains("grid 2");
+  }
+
+  @Test
+  @DisplayName("Should answer 304 without rendering when the client has the current catalog version")
+  void doFilter_CurrentETag_ShouldReturnNotModified() throws Exception {
+    String etag = perform(grid("")).getHeader(HttpHeaders.ETAG);
+
+    MockHttpServletRequest revalidation = grid("");
+    revalidation.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+    MockHttpServletResponse response = perform(revalidation);
+
+    assertThat(response.getStatus()).isEqualTo(HttpServletResponse.SC_NOT_MODIFIED);
+    assertThat(response.getContentAsString()).isEmpty();
+    assertThat(renders).hasValue(1);
+  }
+}
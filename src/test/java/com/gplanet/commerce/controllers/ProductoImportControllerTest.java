@@ -0,0 +1,192 @@
+package com.gplanet.commerce.controllers;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.gplanet.commerce.dtos.producto.ImportacionResponseDTO;
+import com.gplanet.commerce.entities.Importacion;
+import com.gplanet.commerce.exceptions.ResourceNotFoundException;
+import com.gplanet.commerce.security.SecurityConfig;
+import com.gplanet.commerce.security.UsuarioDetallesService;
+import com.gplanet.commerce.services.ProductoImportService;
+
+@WebMvcTest(ProductoImportController.class)
+@Import(SecurityConfig.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ProductoImportControllerTest {
+
+  private MockMvc mockMvc;
+
+  @Autowired
+  private WebApplicationContext context;
+
+  @MockitoBean
+  private ProductoImportService productoImportService;
+
+  @MockitoBean
+  private UsuarioDetallesService usuarioDetallesService;
+
+  private MockMultipartFile archivo;
+  private ImportacionResponseDTO importacion;
+
+  @BeforeEach
+  void setUp() {
+    mockMvc = MockMvcBuilders
+        .webAppContextSetup(context)
+        .apply(springSecurity())
+        .build();
+
+    archivo = new MockMultipartFile("archivo", "productos.csv", "text/csv",
+        "nombre,precio\nTest Product,19.99\n".getBytes(StandardCharsets.UTF_8));
+    importacion = new ImportacionResponseDTO(1L, "productos.csv", Importacion.Format.CSV,
+        Importacion.Status.RUNNING, 0, 0, 0, 0, 0, null);
+  }
+
+  @Test
+  @WithMockUser(roles = "ADMIN")
+  void importar_WithValidFile_ShouldReturnProgressFragment() throws Exception {
+    when(productoImportService.iniciar(any())).thenReturn(importacion);
+
+    mockMvc.perform(multipart("/productos/admin/importar").file(archivo).with(csrf()))
+        .andExpect(status().isOk())
+        .andExpect(view().name("productos/importacion :: importacion-estado"))
+        .andExpect(model().attribute("importacion", importacion))
+        .andExpect(model().attribute("toastType", "success"))
+        .andExpect(content().string(containsString("every 1s")));
+  }
+
+  @Test
+  @WithMockUser(roles = "ADMIN")
+  void importar_WithUnsupportedFile_ShouldReturnErrorToast() throws Exception {
+    when(productoImportService.iniciar(any()))
+        .thenThrow(new IllegalArgumentException("Only .csv and .json files can be imported"));
+
+    mockMvc.perform(multipart("/productos/admin/importar").file(archivo).with(csrf()))
+        .andExpect(status().isOk())
+        .andExpect(view().name("empty :: empty"))
+        .andExpect(model().attribute("toastType", "danger"))
+        .andExpect(model().attribute("toastMessage", "Only .csv and .json files can be imported"));
+  }
+
+  @Test
+  @WithMockUser(roles = "ADMIN")
+  void importar_WhenFileCannotBeStored_ShouldReturnErrorToast() throws Exception {
+    when(productoImportService.iniciar(any())).thenThrow(new IOException("Disk full"));
+
+    mockMvc.perform(multipart("/productos/admin/importar").file(archivo).with(csrf()))
+        .andExpect(status().isOk())
+        .andExpect(view().name("empty :: empty"))
+        .andExpect(model().attribute("toastType", "danger"));
+  }
+
+  @Test
+  @WithMockUser(roles = "USER")
+  void importar_AsRegularUser_ShouldBeForbidden() throws Exception {
+    mockMvc.perform(multipart("/productos/admin/importar").file(archivo).with(csrf()))
+        .andExpect(status().isForbidden());
+
+    verifyNoInteractions(productoImportService);
+  }
+
+  @Test
+  @WithMockUser(roles = "ADMIN")
+  void estado_WhenCompleted_ShouldStopPolling() throws Exception {
+    ImportacionResponseDTO completada = new ImportacionResponseDTO(1L, "productos.csv", Importacion.Format.CSV,
+        Importacion.Status.COMPLETED, 100, 10, 8, 1, 1, null);
+    when(productoImportService.estado(1L)).thenReturn(Optional.of(completada));
+
+    mockMvc.perform(get("/productos/admin/importar/1"))
+        .andExpect(status().isOk())
+        .andExpect(view().name("productos/importacion :: importacion-estado"))
+        .andExpect(content().string(not(containsString("every 1s"))))
+        .andExpect(content().string(containsString("/productos/admin/importar/1/errores")));
+  }
+
+  @Test
+  @WithMockUser(roles = "ADMIN")
+  void estado_WithUnknownId_ShouldReturnErrorToast() throws Exception {
+    when(productoImportService.estado(99L)).thenReturn(Optional.empty());
+
+    mockMvc.perform(get("/productos/admin/importar/99"))
+        .andExpect(status().isOk())
+        .andExpect(view().name("empty :: empty"))
+        .andExpect(model().attribute("toastType", "danger"));
+  }
+
+  @Test
+  @WithMockUser(roles = "ADMIN")
+  void reanudar_WithInterruptedImport_ShouldReturnProgressFragment() throws Exception {
+    when(productoImportService.reanudar(1L)).thenReturn(importacion);
+
+    mockMvc.perform(post("/productos/admin/importar/1/reanudar").with(csrf()))
+        .andExpect(status().isOk())
+        .andExpect(view().name("productos/importacion :: importacion-estado"))
+        .andExpect(model().attribute("toastType", "success"));
+  }
+
+  @Test
+  @WithMockUser(roles = "ADMIN")
+  void reanudar_WhenNotResumable_ShouldReturnErrorToast() throws Exception {
+    when(productoImportService.reanudar(1L))
+        .thenThrow(new IllegalStateException("Only interrupted or failed imports can be resumed"));
+    when(productoImportService.reanudar(2L)).thenThrow(new ResourceNotFoundException("Import not found"));
+
+    mockMvc.perform(post("/productos/admin/importar/1/reanudar").with(csrf()))
+        .andExpect(view().name("empty :: empty"))
+        .andExpect(model().attribute("toastMessage", "Only interrupted or failed imports can be resumed"));
+    mockMvc.perform(post("/productos/admin/importar/2/reanudar").with(csrf()))
+        .andExpect(view().name("empty :: empty"))
+        .andExpect(model().attribute("toastMessage", "Import not found."));
+  }
+
+  @Test
+  @WithMockUser(roles = "ADMIN")
+  void errores_ShouldDownloadReport(@TempDir Path directorio) throws Exception {
+    Path informe = Files.writeString(directorio.resolve("1-errores.csv"),
+        "fila,nombre,error\n3,,The name is mandatory\n");
+    when(productoImportService.errores(1L)).thenReturn(Optional.of(informe));
+    when(productoImportService.errores(2L)).thenReturn(Optional.empty());
+
+    mockMvc.perform(get("/productos/admin/importar/1/errores"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Content-Disposition", containsString("importacion-1-errores.csv")))
+        .andExpect(content().string(containsString("The name is mandatory")));
+    mockMvc.perform(get("/productos/admin/importar/2/errores"))
+        .andExpect(status().isNotFound());
+  }
+}
@@ -191,7 +191,8 @@ class UsuarioControllerTest {
   @Test
   void mostrarPerfil_ShouldReturnPerfilViewWithUserData() throws Exception {
 
-    when(usuarioService.buscarPorEmail(anyString())).thenReturn(testUser);
+    when(usuarioService.obtenerPerfil(anyString())).thenReturn(new UsuarioResponseDTO(
+        1L, testUser.getNombre(), testUser.getEmail(), testUser.getRol(), null));
 
     mockMvc.perform(get("/usuarios/perfil").with(user(userDetails)))
         .andExpect(status().isOk())
@@ -0,0 +1,217 @@
+package com.gplanet.commerce.integration;
+
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.flash;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.gplanet.commerce.dtos.carrito.CarritoDTO;
+import com.gplanet.commerce.entities.Compra;
+import com.gplanet.commerce.entities.Producto;
+import com.gplanet.commerce.entities.Usuario;
+import com.gplanet.commerce.repositories.CompraRepository;
+import com.gplanet.commerce.security.UsuarioDetallesService;
+import com.gplanet.commerce.services.CarritoService;
+
+/**
+ * Fills carts through the HTMX endpoints and checks that they are written
+ * behind to the database, read back from it, merged with the cart of an
+ * anonymous visitor and checked out as a single purchase.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class CarritoIntegrationTest {
+
+  private static final String EMAIL = "ana@example.com";
+
+  @Autowired
+  private WebApplicationContext context;
+
+  @Autowired
+  private CompraRepository compraRepository;
+
+  @Autowired
+  private CarritoService carritoService;
+
+  @Autowired
+  private UsuarioDetallesService usuarioDetallesService;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  private MockMvc mockMvc;
+  private IntegrationFixtures fixtures;
+  private Usuario usuario;
+  private UserDetails ana;
+  private Producto teclado;
+  private Producto raton;
+
+  @BeforeEach
+  public void setup() {
+    mockMvc = MockMvcBuilders
+        .webAppContextSetup(context)
+        .apply(springSecurity())
+        .build();
+
+    carritoService.escribirPendientes();
+    jdbcTemplate.update("DELETE FROM carrito");
+    fixtures = new IntegrationFixtures(context);
+    fixtures.limpiar();
+
+    usuario = fixtures.usuario(EMAIL, "Ana", Usuario.Role.USER);
+    ana = usuarioDetallesService.loadUserByUsername(EMAIL);
+
+    teclado = fixtures.producto("Keyboard", "25.00", 10);
+    raton = fixtures.producto("Mouse", "10.00", null);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    fixtures.limpiarCompras();
+  }
+
+  @Test
+  public void agregar_ShouldShowCartAndWriteItBehind() throws Exception {
+    agregar(teclado, 2);
+    MvcResult result = mockMvc.perform(post("/carrito/agregar")
+            .param("productoId", raton.getId().toString())
+            .param("cantidad", "3")
+            .with(user(ana))
+            .with(csrf()))
+        .andExpect(status().isOk())
+        .andExpect(view().name("carrito/carrito :: carrito-contenido"))
+        .andReturn();
+    assertEquals(5, carrito(result).unidades());
+
+    carritoService.escribirPendientes();
+
+    List<Map<String, Object>> filas = jdbcTemplate.queryForList(
+        "SELECT producto_id, cantidad FROM carrito WHERE usuario_id = ? ORDER BY posicion", usuario.getId());
+    assertEquals(2, filas.size());
+    assertEquals(teclado.getId(), ((Number) filas.get(0).get("producto_id")).longValue());
+    assertEquals(3, ((Number) filas.get(1).get("cantidad")).intValue());
+  }
+
+  @Test
+  public void verCarrito_ShouldReadCartWrittenBefore() throws Exception {
+    Usuario luis = fixtures.usuario("luis@example.com", "Luis", Usuario.Role.USER);
+    jdbcTemplate.update("INSERT INTO carrito (usuario_id, producto_id, cantidad, posicion) VALUES (?, ?, ?, ?)",
+        luis.getId(), raton.getId(), 4, 0);
+
+    MvcResult result = mockMvc.perform(get("/carrito")
+            .with(user(usuarioDetallesService.loadUserByUsername("luis@example.com"))))
+        .andExpect(status().isOk())
+        .andReturn();
+
+    assertEquals(4, carrito(result).unidades());
+  }
+
+  @Test
+  public void fusionar_ShouldAddAnonymousCart() throws Exception {
+    agregar(teclado, 1);
+
+    mockMvc.perform(post("/carrito/fusionar")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("[{\"productoId\": " + teclado.getId() + ", \"cantidad\": 2},"
+                + " {\"productoId\": " + raton.getId() + ", \"cantidad\": 1},"
+                + " {\"productoId\": 999999, \"cantidad\": 1}]")
+            .with(user(ana))
+            .with(csrf()))
+        .andExpect(status().isOk());
+
+    CarritoDTO carrito = carritoService.obtener(EMAIL);
+    assertEquals(2, carrito.lineas().size());
+    assertEquals(3, carrito.lineas().get(0).cantidad());
+    assertEquals(0, new BigDecimal("85.00").compareTo(carrito.total()));
+  }
+
+  @Test
+  public void processCartPurchase_ShouldPurchaseCartOnceAndEmptyIt() throws Exception {
+    agregar(teclado, 2);
+    agregar(raton, 1);
+    carritoService.escribirPendientes();
+    String clave = UUID.randomUUID().toString();
+
+    for (int i = 0; i < 2; i++) {
+      mockMvc.perform(post("/compras/carrito")
+              .param("claveIdempotencia", clave)
+              .with(user(ana))
+              .with(csrf()))
+          .andExpect(redirectedUrl("/?compraExitosa=true"))
+          .andExpect(flash().attribute("toastType", "success"));
+    }
+
+    List<Compra> compras = compraRepository.findAll();
+    assertEquals(1, compras.size());
+    assertEquals(0, new BigDecimal("60.00").compareTo(compras.get(0).getTotal()));
+    assertEquals(8, jdbcTemplate.queryForObject(
+        "SELECT stock FROM productos WHERE id = ?", Integer.class, teclado.getId()));
+    assertTrue(carritoService.obtener(EMAIL).isEmpty());
+
+    carritoService.escribirPendientes();
+    assertEquals(0, filas());
+  }
+
+  @Test
+  public void processCartPurchase_WithEmptyCart_ShouldRedirectWithError() throws Exception {
+    mockMvc.perform(post("/compras/carrito")
+            .with(user(ana))
+            .with(csrf()))
+        .andExpect(redirectedUrl("/?compraExitosa=false"))
+        .andExpect(flash().attribute("toastType", "danger"));
+
+    assertEquals(0, compraRepository.count());
+  }
+
+  @Test
+  public void agregar_AsAnonymousUser_ShouldRedirectToLogin() throws Exception {
+    mockMvc.perform(post("/carrito/agregar")
+            .param("productoId", teclado.getId().toString())
+            .with(csrf()))
+        .andExpect(status().is3xxRedirection());
+  }
+
+  private void agregar(Producto producto, int cantidad) throws Exception {
+    mockMvc.perform(post("/carrito/agregar")
+            .param("productoId", producto.getId().toString())
+            .param("cantidad", String.valueOf(cantidad))
+            .with(user(ana))
+            .with(csrf()))
+        .andExpect(status().isOk());
+  }
+
+  private static CarritoDTO carrito(MvcResult result) {
+    return (CarritoDTO) result.getModelAndView().getModel().get("carrito");
+  }
+
+  private int filas() {
+    return jdbcTemplate.queryForObject(
+        "SELECT COUNT(*) FROM carrito WHERE usuario_id = ?", Integer.class, usuario.getId());
+  }
+}
@@ -11,6 +11,8 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 
@@ -28,6 +30,8 @@ import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
+import com.gplanet.commerce.dtos.compra.CompraResponseDTO;
+import com.gplanet.commerce.dtos.pagination.CursorPaginatedResponse;
 import com.gplanet.commerce.entities.Compra;
 import com.gplanet.commerce.entities.CompraProducto;
 import com.gplanet.commerce.entities.Producto;
@@ -281,6 +285,60 @@ public class CompraControllerIntegrationTest {
         .andExpect(model().attribute("compras", hasSize(5)));
   }
 
+  @Test
+  @Transactional
+  public void filterProducts_KeysetMode_ShouldWalkPagesWithCursors() throws Exception {
+    // Entities stay in the test transaction, so use values the database stores exactly
+    LocalDateTime now = LocalDateTime.now().withNano(0);
+    for (int i = 0; i < 7; i++) {
+      Compra compra = new Compra();
+      compra.setUsuario(testUser);
+      compra.setFecha(now.minusDays(i));
+      compra.setTotal(BigDecimal.valueOf(10.0));
+      compraRepository.save(compra);
+    }
+
+    UserDetails userDetails = usuarioDetallesService.loadUserByUsername("user@example.com");
+
+    // Walk forward until there is no next cursor
+    List<CompraResponseDTO> seen = new ArrayList<>();
+    List<CursorPaginatedResponse<CompraResponseDTO>> pages = new ArrayList<>();
+    String cursor = null;
+    do {
+      MvcResult result = mockMvc.perform(get("/compras/filtrar")
+          .param("mode", "KEYSET")
+          .param("size", "3")
+          .param("cursor", cursor)
+          .with(user(userDetails)))
+          .andExpect(status().isOk())
+          .andExpect(view().name("compras/page :: compras-page"))
+          .andReturn();
+
+      @SuppressWarnings("unchecked")
+      CursorPaginatedResponse<CompraResponseDTO> pagination =
+          (CursorPaginatedResponse<CompraResponseDTO>) result.getModelAndView().getModel().get("pagination");
+      pages.add(pagination);
+      seen.addAll(pagination.getContent());
+      cursor = pagination.getNextCursor();
+    } while (cursor != null);
+
+    assertEquals(3, pages.size());
+    assertNull(pages.get(0).getPreviousCursor());
+    assertEquals(7, seen.size());
+    for (int i = 1; i < seen.size(); i++) {
+      assertTrue(seen.get(i - 1).fecha().isAfter(seen.get(i).fecha()));
+    }
+
+    // Going back from the last page returns the middle page
+    mockMvc.perform(get("/compras/filtrar")
+        .param("mode", "KEYSET")
+        .param("size", "3")
+        .param("cursor", pages.get(2).getPreviousCursor())
+        .with(user(userDetails)))
+        .andExpect(status().isOk())
+        .andExpect(model().attribute("compras", equalTo(pages.get(1).getContent())));
+  }
+
   @Test
   @Transactional
   public void filterProducts_WithDifferentSortOrder_ShouldReturnSortedResults() throws Exception {
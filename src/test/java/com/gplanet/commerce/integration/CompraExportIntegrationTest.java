@@ -0,0 +1,159 @@
+package com.gplanet.commerce.integration;
+
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gplanet.commerce.entities.Producto;
+import com.gplanet.commerce.entities.Usuario;
+import com.gplanet.commerce.security.UsuarioDetallesService;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class CompraExportIntegrationTest {
+
+  @Autowired
+  private WebApplicationContext context;
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private UsuarioDetallesService usuarioDetallesService;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  private IntegrationFixtures fixtures;
+  private UserDetails admin;
+
+  @BeforeEach
+  public void setup() {
+    mockMvc = MockMvcBuilders
+        .webAppContextSetup(context)
+        .apply(springSecurity())
+        .build();
+
+    fixtures = new IntegrationFixtures(context);
+    fixtures.limpiar();
+
+    Usuario ana = fixtures.usuario("ana@example.com", "Ana", Usuario.Role.USER);
+    Usuario luis = fixtures.usuario("luis@example.com", "Luis, Jr.", Usuario.Role.USER);
+    fixtures.usuario("admin@example.com", "Admin User", Usuario.Role.ADMIN);
+    admin = usuarioDetallesService.loadUserByUsername("admin@example.com");
+
+    Producto teclado = fixtures.producto("Keyboard", "25.00");
+    Producto raton = fixtures.producto("Mouse", "10.00");
+
+    fixtures.compra(ana, LocalDateTime.of(2025, 1, 15, 10, 0), List.of(teclado, raton), List.of(1, 2));
+    fixtures.compra(luis, LocalDateTime.of(2025, 1, 31, 23, 30), List.of(raton), List.of(3));
+    fixtures.compra(ana, LocalDateTime.of(2025, 2, 1, 9, 0), List.of(teclado), List.of(2));
+  }
+
+  @AfterEach
+  public void tearDown() {
+    fixtures.limpiarCompras();
+  }
+
+  @Test
+  public void exportar_ShouldShowExportForm() throws Exception {
+    mockMvc.perform(get("/compras/admin/exportar").with(user(admin)))
+        .andExpect(status().isOk())
+        .andExpect(view().name("compras/exportar"));
+  }
+
+  @Test
+  public void descargarCsv_ShouldStreamOneRowPerLine() throws Exception {
+    String csv = descargar("/compras/admin/exportar/descargar?formato=CSV");
+
+    List<String> filas = csv.lines().toList();
+    assertEquals("compra_id,fecha,usuario_email,usuario_nombre,total,producto_id,producto_nombre,cantidad,subtotal",
+        filas.get(0));
+    assertEquals(5, filas.size());
+    assertTrue(filas.get(1).contains("2025-01-15T10:00,ana@example.com,Ana,45.00,"));
+    assertTrue(filas.get(1).contains(",Keyboard,1,25.00"));
+    assertTrue(filas.get(2).contains(",Mouse,2,20.00"));
+    assertTrue(filas.get(3).contains("\"Luis, Jr.\""));
+  }
+
+  @Test
+  public void descargarNdjson_WithDateRange_ShouldStreamOnePurchasePerLine() throws Exception {
+    String ndjson = descargar("/compras/admin/exportar/descargar?formato=NDJSON&desde=2025-01-01&hasta=2025-01-31");
+
+    List<String> lineas = ndjson.lines().toList();
+    assertEquals(2, lineas.size());
+
+    JsonNode primera = objectMapper.readTree(lineas.get(0));
+    assertEquals("ana@example.com", primera.get("usuarioEmail").asText());
+    assertEquals("2025-01-15T10:00:00", primera.get("fecha").asText());
+    assertEquals(2, primera.get("productos").size());
+    assertEquals("Mouse", primera.get("productos").get(1).get("productoNombre").asText());
+
+    // The last day of the range is included
+    assertEquals("luis@example.com", objectMapper.readTree(lineas.get(1)).get("usuarioEmail").asText());
+  }
+
+  @Test
+  public void descargar_WithUser_ShouldExportOnlyTheirPurchases() throws Exception {
+    String ndjson = descargar("/compras/admin/exportar/descargar?formato=NDJSON&usuario=ana@example.com");
+
+    List<String> lineas = ndjson.lines().toList();
+    assertEquals(2, lineas.size());
+    for (String linea : lineas) {
+      assertEquals("ana@example.com", objectMapper.readTree(linea).get("usuarioEmail").asText());
+    }
+  }
+
+  @Test
+  public void descargar_WithEmptyDateRange_ShouldReturnBadRequest() throws Exception {
+    mockMvc.perform(get("/compras/admin/exportar/descargar?desde=2025-02-01&hasta=2025-01-01").with(user(admin)))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  public void descargar_AsRegularUser_ShouldBeForbidden() throws Exception {
+    UserDetails ana = usuarioDetallesService.loadUserByUsername("ana@example.com");
+
+    mockMvc.perform(get("/compras/admin/exportar/descargar").with(user(ana)))
+        .andExpect(status().isForbidden());
+  }
+
+  private String descargar(String url) throws Exception {
+    MvcResult result = mockMvc.perform(get(url).with(user(admin)))
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    return mockMvc.perform(asyncDispatch(result))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Content-Disposition", containsString("attachment")))
+        .andReturn()
+        .getResponse()
+        .getContentAsString();
+  }
+}
@@ -0,0 +1,157 @@
+package com.gplanet.commerce.integration;
+
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.flash;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.gplanet.commerce.dtos.compra.CompraDTO;
+import com.gplanet.commerce.dtos.compra.CompraProductoDTO;
+import com.gplanet.commerce.dtos.compra.ResultadoCompraDTO;
+import com.gplanet.commerce.entities.Producto;
+import com.gplanet.commerce.entities.Usuario;
+import com.gplanet.commerce.repositories.CompraRepository;
+import com.gplanet.commerce.security.UsuarioDetallesService;
+import com.gplanet.commerce.services.CompraIdempotenciaService;
+import com.gplanet.commerce.services.CompraService;
+
+/**
+ * Resubmits the same checkout and checks that only one purchase is written,
+ * both when the outcome is replayed from memory and when only the unique key
+ * in the database recognizes the repeat.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class CompraIdempotenciaIntegrationTest {
+
+  private static final String EMAIL = "ana@example.com";
+
+  @Autowired
+  private WebApplicationContext context;
+
+  @Autowired
+  private CompraRepository compraRepository;
+
+  @Autowired
+  private CompraService compraService;
+
+  @Autowired
+  private CompraIdempotenciaService compraIdempotenciaService;
+
+  @Autowired
+  private UsuarioDetallesService usuarioDetallesService;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  private MockMvc mockMvc;
+  private IntegrationFixtures fixtures;
+  private UserDetails ana;
+  private Producto teclado;
+
+  @BeforeEach
+  public void setup() {
+    mockMvc = MockMvcBuilders
+        .webAppContextSetup(context)
+        .apply(springSecurity())
+        .build();
+
+    fixtures = new IntegrationFixtures(context);
+    fixtures.limpiar();
+
+    fixtures.usuario(EMAIL, "Ana", Usuario.Role.USER);
+    ana = usuarioDetallesService.loadUserByUsername(EMAIL);
+    teclado = fixtures.producto("Keyboard", "25.00", 10);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    fixtures.limpiarCompras();
+  }
+
+  @Test
+  public void processPurchase_SameKeyTwice_ShouldPurchaseOnce() throws Exception {
+    String clave = UUID.randomUUID().toString();
+
+    for (int i = 0; i < 2; i++) {
+      mockMvc.perform(post("/compras/nueva")
+              .param("productos[0].productoId", teclado.getId().toString())
+              .param("productos[0].cantidad", "2")
+              .param("claveIdempotencia", clave)
+              .with(user(ana))
+              .with(csrf()))
+          .andExpect(redirectedUrl("/?compraExitosa=true"))
+          .andExpect(flash().attribute("toastType", "success"));
+    }
+
+    assertEquals(1, compraRepository.count());
+    assertEquals(8, stock());
+  }
+
+  @Test
+  public void ejecutar_ConcurrentRepeats_ShouldPurchaseOnce() throws Exception {
+    CompraDTO compraDTO = new CompraDTO(List.of(new CompraProductoDTO(teclado.getId(), 1)), "double-click");
+    Callable<ResultadoCompraDTO> checkout = () -> compraIdempotenciaService.ejecutar(
+        EMAIL, compraDTO.claveIdempotencia(), () -> {
+          compraService.realizarCompra(EMAIL, compraDTO);
+          return ResultadoCompraDTO.completada();
+        });
+
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<ResultadoCompraDTO>> resultados = new ArrayList<>();
+      for (int i = 0; i < 20; i++) {
+        resultados.add(pool.submit(checkout));
+      }
+      for (Future<ResultadoCompraDTO> resultado : resultados) {
+        assertEquals(ResultadoCompraDTO.completada(), resultado.get());
+      }
+    } finally {
+      pool.shutdown();
+    }
+
+    assertEquals(1, compraRepository.count());
+    assertEquals(9, stock());
+  }
+
+  @Test
+  public void realizarCompra_KeyAlreadyUsed_ShouldBeRejectedByDatabase() {
+    CompraDTO compraDTO = new CompraDTO(List.of(new CompraProductoDTO(teclado.getId(), 3)), "evicted-key");
+    compraService.realizarCompra(EMAIL, compraDTO);
+
+    assertThrows(DataIntegrityViolationException.class, () -> compraService.realizarCompra(EMAIL, compraDTO));
+
+    assertEquals(1, compraRepository.count());
+    // The rejected purchase gave its units back with the rest of its transaction
+    assertEquals(7, stock());
+  }
+
+  private int stock() {
+    return jdbcTemplate.queryForObject("SELECT stock FROM productos WHERE id = ?", Integer.class, teclado.getId());
+  }
+}
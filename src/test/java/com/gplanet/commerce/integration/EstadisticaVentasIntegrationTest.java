@@ -0,0 +1,203 @@
+package com.gplanet.commerce.integration;
+
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.flash;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.gplanet.commerce.dtos.compra.CompraDTO;
+import com.gplanet.commerce.dtos.compra.CompraProductoDTO;
+import com.gplanet.commerce.dtos.estadistica.VentasProductoDTO;
+import com.gplanet.commerce.dtos.estadistica.VentasResumenDTO;
+import com.gplanet.commerce.entities.Granularity;
+import com.gplanet.commerce.entities.Producto;
+import com.gplanet.commerce.entities.Usuario;
+import com.gplanet.commerce.entities.VentaProducto;
+import com.gplanet.commerce.entities.VentaUsuario;
+import com.gplanet.commerce.repositories.VentaProductoRepository;
+import com.gplanet.commerce.repositories.VentaUsuarioRepository;
+import com.gplanet.commerce.security.UsuarioDetallesService;
+import com.gplanet.commerce.services.CompraService;
+import com.gplanet.commerce.services.EstadisticaVentasService;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class EstadisticaVentasIntegrationTest {
+
+  @Autowired
+  private WebApplicationContext context;
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private VentaProductoRepository ventaProductoRepository;
+
+  @Autowired
+  private VentaUsuarioRepository ventaUsuarioRepository;
+
+  @Autowired
+  private CompraService compraService;
+
+  @Autowired
+  private EstadisticaVentasService estadisticaVentasService;
+
+  @Autowired
+  private UsuarioDetallesService usuarioDetallesService;
+
+  private IntegrationFixtures fixtures;
+  private UserDetails admin;
+  private Usuario ana;
+  private Usuario luis;
+  private Producto teclado;
+  private Producto raton;
+
+  @BeforeEach
+  public void setup() {
+    mockMvc = MockMvcBuilders
+        .webAppContextSetup(context)
+        .apply(springSecurity())
+        .build();
+
+    fixtures = new IntegrationFixtures(context);
+    fixtures.limpiar();
+
+    ana = fixtures.usuario("ana@example.com", "Ana", Usuario.Role.USER);
+    luis = fixtures.usuario("luis@example.com", "Luis", Usuario.Role.USER);
+    fixtures.usuario("admin@example.com", "Admin User", Usuario.Role.ADMIN);
+    admin = usuarioDetallesService.loadUserByUsername("admin@example.com");
+
+    teclado = fixtures.producto("Keyboard", "25.00");
+    raton = fixtures.producto("Mouse", "10.00");
+  }
+
+  @AfterEach
+  public void tearDown() {
+    fixtures.limpiarCompras();
+  }
+
+  @Test
+  public void realizarCompra_ShouldAddToHourlyAndDailyStatistics() {
+    compraService.realizarCompra("ana@example.com", new CompraDTO(List.of(
+        new CompraProductoDTO(teclado.getId(), 1), new CompraProductoDTO(raton.getId(), 2))));
+    compraService.realizarCompra("ana@example.com", new CompraDTO(List.of(
+        new CompraProductoDTO(raton.getId(), 1))));
+    compraService.realizarCompra("luis@example.com", new CompraDTO(List.of(
+        new CompraProductoDTO(raton.getId(), 3))));
+
+    // One row per product and granularity (unless the purchases straddle an hour)
+    LocalDateTime dia = LocalDate.now().atStartOfDay();
+    VentaProducto ratonDia = ventaProductoRepository.findById(
+        new VentaProducto.Clave(Granularity.DAY, dia, raton.getId())).orElseThrow();
+    assertEquals(3, ratonDia.getCompras());
+    assertEquals(6, ratonDia.getUnidades());
+    assertEquals(0, new BigDecimal("60.00").compareTo(ratonDia.getImporte()));
+    assertEquals("Mouse", ratonDia.getProductoNombre());
+
+    VentaUsuario anaDia = ventaUsuarioRepository.findById(
+        new VentaUsuario.Clave(Granularity.DAY, dia, ana.getId())).orElseThrow();
+    assertEquals(2, anaDia.getCompras());
+    assertEquals(4, anaDia.getUnidades());
+    assertEquals(0, new BigDecimal("55.00").compareTo(anaDia.getImporte()));
+    assertEquals("ana@example.com", anaDia.getUsuarioEmail());
+
+    long horas = ventaProductoRepository.findAll().stream()
+        .filter(v -> v.getGranularidad() == Granularity.HOUR && v.getProductoId().equals(raton.getId()))
+        .mapToLong(VentaProducto::getUnidades)
+        .sum();
+    assertEquals(6, horas);
+  }
+
+  @Test
+  public void reconstruir_ShouldRebuildStatisticsFromPurchases() {
+    fixtures.compra(ana, LocalDateTime.of(2025, 1, 15, 10, 5), List.of(teclado, raton), List.of(1, 2));
+    fixtures.compra(ana, LocalDateTime.of(2025, 1, 15, 10, 40), List.of(raton), List.of(1));
+    fixtures.compra(luis, LocalDateTime.of(2025, 1, 15, 18, 0), List.of(teclado), List.of(2));
+    fixtures.compra(luis, LocalDateTime.of(2025, 1, 16, 9, 0), List.of(raton), List.of(3));
+
+    assertEquals(4, estadisticaVentasService.reconstruir(LocalDate.of(2025, 1, 15), LocalDate.of(2025, 1, 16)));
+    // Rebuilding again replaces the statistics instead of adding to them
+    assertEquals(3, estadisticaVentasService.reconstruir(LocalDate.of(2025, 1, 15), LocalDate.of(2025, 1, 15)));
+
+    VentaProducto ratonHora = ventaProductoRepository.findById(
+        new VentaProducto.Clave(Granularity.HOUR, LocalDateTime.of(2025, 1, 15, 10, 0), raton.getId())).orElseThrow();
+    assertEquals(2, ratonHora.getCompras());
+    assertEquals(3, ratonHora.getUnidades());
+
+    VentasResumenDTO resumen = estadisticaVentasService.resumen(
+        LocalDate.of(2025, 1, 15), LocalDate.of(2025, 1, 16), Granularity.DAY);
+    assertEquals(4, resumen.compras());
+    assertEquals(9, resumen.unidades());
+    assertEquals(0, new BigDecimal("115.00").compareTo(resumen.importe()));
+    assertEquals(2, resumen.serie().size());
+    assertEquals(3, resumen.serie().get(0).compras());
+
+    VentasProductoDTO primero = resumen.topProductos().get(0);
+    assertEquals(teclado.getId(), primero.productoId());
+    assertEquals(0, new BigDecimal("75.00").compareTo(primero.importe()));
+    assertEquals("luis@example.com", resumen.topUsuarios().get(0).usuarioEmail());
+
+    VentasResumenDTO horas = estadisticaVentasService.resumen(
+        LocalDate.of(2025, 1, 15), LocalDate.of(2025, 1, 15), Granularity.HOUR);
+    assertEquals(2, horas.serie().size());
+    assertEquals(LocalDateTime.of(2025, 1, 15, 18, 0), horas.serie().get(1).periodo());
+  }
+
+  @Test
+  public void estadisticas_ShouldShowDashboard() throws Exception {
+    mockMvc.perform(get("/compras/admin/estadisticas?desde=2025-01-01&hasta=2025-01-31&granularidad=HOUR")
+            .with(user(admin)))
+        .andExpect(status().isOk())
+        .andExpect(view().name("compras/estadisticas"))
+        .andExpect(model().attributeExists("resumen"));
+  }
+
+  @Test
+  public void reconstruir_ShouldRedirectToRebuiltRange() throws Exception {
+    fixtures.compra(ana, LocalDateTime.of(2025, 1, 15, 10, 0), List.of(teclado), List.of(1));
+
+    mockMvc.perform(post("/compras/admin/estadisticas/reconstruir")
+            .param("desde", "2025-01-15")
+            .param("hasta", "2025-01-15")
+            .with(user(admin))
+            .with(csrf()))
+        .andExpect(status().is3xxRedirection())
+        .andExpect(redirectedUrl("/compras/admin/estadisticas?desde=2025-01-15&hasta=2025-01-15"))
+        .andExpect(flash().attribute("toastType", "success"));
+
+    assertEquals(2, ventaUsuarioRepository.count());
+  }
+
+  @Test
+  public void estadisticas_AsRegularUser_ShouldBeForbidden() throws Exception {
+    UserDetails usuario = usuarioDetallesService.loadUserByUsername("ana@example.com");
+
+    mockMvc.perform(get("/compras/admin/estadisticas").with(user(usuario)))
+        .andExpect(status().isForbidden());
+  }
+}
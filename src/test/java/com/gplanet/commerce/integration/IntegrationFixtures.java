@@ -0,0 +1,105 @@
+package com.gplanet.commerce.integration;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.context.ApplicationContext;
+
+import com.gplanet.commerce.entities.Compra;
+import com.gplanet.commerce.entities.CompraProducto;
+import com.gplanet.commerce.entities.Producto;
+import com.gplanet.commerce.entities.Usuario;
+import com.gplanet.commerce.repositories.CompraRepository;
+import com.gplanet.commerce.repositories.ProductoRepository;
+import com.gplanet.commerce.repositories.UsuarioRepository;
+import com.gplanet.commerce.repositories.VentaProductoRepository;
+import com.gplanet.commerce.repositories.VentaUsuarioRepository;
+
+/**
+ * Test data for the integration tests that write purchases: resets the tables
+ * written by checkouts and saves users, products and purchases through the
+ * repositories of the application context.
+ */
+final class IntegrationFixtures {
+
+  /** "password", encoded. */
+  static final String PASSWORD = "$2a$10$dXJ3SW6G7P50lGmMkkmwe.20cQQubK3.HZWzG3YB1tlRy.fqvM/BG";
+
+  private final UsuarioRepository usuarioRepository;
+  private final ProductoRepository productoRepository;
+  private final CompraRepository compraRepository;
+  private final VentaProductoRepository ventaProductoRepository;
+  private final VentaUsuarioRepository ventaUsuarioRepository;
+
+  IntegrationFixtures(ApplicationContext context) {
+    usuarioRepository = context.getBean(UsuarioRepository.class);
+    productoRepository = context.getBean(ProductoRepository.class);
+    compraRepository = context.getBean(CompraRepository.class);
+    ventaProductoRepository = context.getBean(VentaProductoRepository.class);
+    ventaUsuarioRepository = context.getBean(VentaUsuarioRepository.class);
+  }
+
+  /**
+   * Deletes the purchases, the sales statistics, the users and the products.
+   */
+  void limpiar() {
+    limpiarCompras();
+    usuarioRepository.deleteAll();
+    productoRepository.deleteAll();
+  }
+
+  /**
+   * Deletes the purchases and the sales statistics. Also called after each
+   * test, since other tests delete products without deleting the purchases
+   * that refer to them.
+   */
+  void limpiarCompras() {
+    compraRepository.deleteAll();
+    ventaProductoRepository.deleteAll();
+    ventaUsuarioRepository.deleteAll();
+  }
+
+  Usuario usuario(String email, String nombre, Usuario.Role rol) {
+    Usuario usuario = new Usuario();
+    usuario.setEmail(email);
+    usuario.setPassword(PASSWORD);
+    usuario.setNombre(nombre);
+    usuario.setRol(rol);
+    return usuarioRepository.save(usuario);
+  }
+
+  Producto producto(String nombre, String precio) {
+    return producto(nombre, precio, null);
+  }
+
+  Producto producto(String nombre, String precio, Integer stock) {
+    Producto producto = new Producto();
+    producto.setNombre(nombre);
+    producto.setPrecio(new BigDecimal(precio));
+    producto.setActivo(true);
+    producto.setStock(stock);
+    return productoRepository.save(producto);
+  }
+
+  /**
+   * Saves a purchase directly, without going through checkout: stock and
+   * sales statistics are left as they are.
+   */
+  Compra compra(Usuario usuario, LocalDateTime fecha, List<Producto> productos, List<Integer> cantidades) {
+    Compra compra = new Compra();
+    compra.setUsuario(usuario);
+    compra.setFecha(fecha);
+    BigDecimal total = BigDecimal.ZERO;
+    for (int i = 0; i < productos.size(); i++) {
+      CompraProducto linea = new CompraProducto();
+      linea.setProducto(productos.get(i));
+      linea.setCantidad(cantidades.get(i));
+      linea.setSubtotal(productos.get(i).getPrecio().multiply(BigDecimal.valueOf(cantidades.get(i))));
+      compra.addCompraProducto(linea);
+      total = total.add(linea.getSubtotal());
+    }
+    compra.setTotal(total);
+    return compraRepository.save(compra);
+  }
+}
@@ -0,0 +1,73 @@
+package com.gplanet.commerce.integration;
+
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.gplanet.commerce.dtos.producto.ProductStatus;
+import com.gplanet.commerce.services.ProductoService;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("test")
+public class MetricsIntegrationTest {
+
+  @Autowired
+  private WebApplicationContext context;
+
+  @Autowired
+  private ProductoService productoService;
+
+  private MockMvc mockMvc;
+
+  @BeforeEach
+  public void setup() {
+    mockMvc = MockMvcBuilders
+        .webAppContextSetup(context)
+        .apply(springSecurity())
+        .build();
+  }
+
+  @Test
+  public void prometheus_AsAdmin_ShouldPublishServiceTimersAndPoolGauges() throws Exception {
+    productoService.listarProductos(ProductStatus.ACTIVE, null, 0, 10, "nombre", "ASC");
+    mockMvc.perform(get("/productos/filtrar"));
+
+    String scrape = mockMvc.perform(get("/actuator/prometheus").with(user("scraper").roles("ADMIN")))
+        .andExpect(status().isOk())
+        .andReturn()
+        .getResponse()
+        .getContentAsString();
+
+    assertTrue(scrape.contains("commerce_service_seconds_count{"), "service timer missing");
+    assertTrue(scrape.contains("class=\"ProductoService\""), "service tag missing");
+    assertTrue(scrape.contains("http_server_requests_seconds_bucket{"), "endpoint histogram missing");
+    assertTrue(scrape.contains("hikaricp_connections_active"), "pool gauges missing");
+  }
+
+  @Test
+  public void prometheus_WithoutCredentials_ShouldAskForBasicAuth() throws Exception {
+    mockMvc.perform(get("/actuator/prometheus"))
+        .andExpect(status().isUnauthorized());
+  }
+
+  @Test
+  public void prometheus_AsRegularUser_ShouldBeForbidden() throws Exception {
+    mockMvc.perform(get("/actuator/prometheus").with(user("shopper").roles("USER")))
+        .andExpect(status().isForbidden());
+  }
+}
@@ -0,0 +1,229 @@
+package com.gplanet.commerce.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.gplanet.commerce.configs.ProductoImportProperties;
+import com.gplanet.commerce.dtos.producto.ImportacionResponseDTO;
+import com.gplanet.commerce.entities.Importacion;
+import com.gplanet.commerce.entities.Producto;
+import com.gplanet.commerce.repositories.CompraRepository;
+import com.gplanet.commerce.repositories.ImportacionRepository;
+import com.gplanet.commerce.repositories.ProductoRepository;
+import com.gplanet.commerce.services.ProductoImportService;
+
+@SpringBootTest
+@ActiveProfiles("test")
+public class ProductoImportIntegrationTest {
+
+  private static final long TIMEOUT_MILLIS = 10_000;
+  private static final long POLL_MILLIS = 50;
+
+  @Autowired
+  private ProductoImportService productoImportService;
+
+  @Autowired
+  private ProductoImportProperties properties;
+
+  @Autowired
+  private ImportacionRepository importacionRepository;
+
+  @Autowired
+  private ProductoRepository productoRepository;
+
+  @Autowired
+  private CompraRepository compraRepository;
+
+  private int batchSize;
+
+  @BeforeEach
+  public void setup() {
+    compraRepository.deleteAll();
+    productoRepository.deleteAll();
+    importacionRepository.deleteAll();
+
+    Producto existente = new Producto();
+    existente.setNombre("Existing Product");
+    existente.setDescripcion("Old description");
+    existente.setPrecio(new BigDecimal("10.00"));
+    existente.setFechaCreacion(LocalDateTime.now());
+    existente.setActivo(true);
+    productoRepository.save(existente);
+
+    // Small batches so that every file is written in several of them
+    batchSize = properties.getBatchSize();
+    properties.setBatchSize(2);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    properties.setBatchSize(batchSize);
+  }
+
+  @Test
+  @DisplayName("CSV import inserts new products, updates existing ones and reports invalid rows")
+  public void importarCsv_ShouldUpsertProductsAndReportErrors() throws Exception {
+    String csv = """
+        nombre,descripcion,precio,activo
+        New Product,A new one,19.99,
+        Existing Product,New description,12.50,false
+        ,No name,5.00,true
+        Bad Price,Not a number,abc,true
+        Negative Price,Below zero,-1,true
+        Another Product,,7,TRUE
+        """;
+
+    ImportacionResponseDTO importacion = productoImportService.iniciar(archivo("productos.csv", csv));
+    ImportacionResponseDTO terminada = esperar(importacion.id());
+
+    assertEquals(Importacion.Status.COMPLETED, terminada.estado());
+    assertEquals(100, terminada.porcentaje());
+    assertEquals(6, terminada.filasProcesadas());
+    assertEquals(2, terminada.insertados());
+    assertEquals(1, terminada.actualizados());
+    assertEquals(3, terminada.errores());
+
+    Producto actualizado = producto("Existing Product").orElseThrow();
+    assertEquals("New description", actualizado.getDescripcion());
+    assertEquals(0, new BigDecimal("12.50").compareTo(actualizado.getPrecio()));
+    assertFalse(actualizado.isActivo());
+    assertTrue(producto("New Product").orElseThrow().isActivo());
+    assertTrue(producto("Another Product").isPresent());
+    assertEquals(3, productoRepository.count());
+
+    List<String> errores = Files.readAllLines(productoImportService.errores(importacion.id()).orElseThrow());
+    assertEquals("fila,nombre,error", errores.get(0));
+    assertEquals(4, errores.size());
+    assertTrue(errores.get(1).startsWith("3,,"));
+    assertTrue(errores.get(2).contains("The price must be a number"));
+    assertTrue(errores.get(3).contains("The price must be greater than 0"));
+  }
+
+  @Test
+  @DisplayName("JSON import reads an array of products and keeps the last row of a repeated name")
+  public void importarJson_ShouldUpsertProducts() throws Exception {
+    String json = """
+        [
+          {"nombre": "Json Product", "descripcion": "From JSON", "precio": 3.25},
+          {"nombre": "Json Product", "descripcion": "Repeated", "precio": 4.75, "activo": false},
+          {"nombre": "Existing Product", "precio": 11}
+        ]
+        """;
+
+    ImportacionResponseDTO importacion = productoImportService.iniciar(archivo("productos.json", json));
+    ImportacionResponseDTO terminada = esperar(importacion.id());
+
+    assertEquals(Importacion.Status.COMPLETED, terminada.estado());
+    assertEquals(1, terminada.insertados());
+    assertEquals(2, terminada.actualizados());
+    assertEquals(0, terminada.errores());
+
+    Producto repetido = producto("Json Product").orElseThrow();
+    assertEquals("Repeated", repetido.getDescripcion());
+    assertEquals(0, new BigDecimal("4.75").compareTo(repetido.getPrecio()));
+    assertFalse(repetido.isActivo());
+  }
+
+  @Test
+  @DisplayName("Malformed files fail the import with the row where reading stopped")
+  public void importarJsonMalformado_ShouldFail() throws Exception {
+    ImportacionResponseDTO importacion = productoImportService.iniciar(
+        archivo("productos.json", "[{\"nombre\": \"Broken\", \"precio\": 1}, {\"nombre\": "));
+    ImportacionResponseDTO terminada = esperar(importacion.id());
+
+    assertEquals(Importacion.Status.FAILED, terminada.estado());
+    assertTrue(terminada.mensaje().startsWith("The file could not be read after row 1"));
+  }
+
+  @Test
+  @DisplayName("Resumed imports skip the rows committed before the interruption")
+  public void reanudar_ShouldSkipCommittedRows() throws Exception {
+    Importacion interrumpida = new Importacion();
+    interrumpida.setNombreArchivo("productos.csv");
+    interrumpida.setFormato(Importacion.Format.CSV);
+    interrumpida.setEstado(Importacion.Status.RUNNING);
+    interrumpida.setFilasProcesadas(2);
+    interrumpida.setInsertados(2);
+    interrumpida.setFechaInicio(LocalDateTime.now());
+    interrumpida = importacionRepository.save(interrumpida);
+
+    Files.createDirectories(properties.getDirectory());
+    Path origen = properties.getDirectory().resolve(interrumpida.getId() + ".csv");
+    Files.writeString(origen, """
+        nombre,precio
+        First Product,1
+        Second Product,2
+        Third Product,3
+        """, StandardCharsets.UTF_8);
+
+    // What a restart does with the imports left running
+    productoImportService.marcarInterrumpidas();
+    assertEquals(Importacion.Status.INTERRUPTED,
+        importacionRepository.findById(interrumpida.getId()).orElseThrow().getEstado());
+
+    productoImportService.reanudar(interrumpida.getId());
+    ImportacionResponseDTO terminada = esperar(interrumpida.getId());
+
+    assertEquals(Importacion.Status.COMPLETED, terminada.estado());
+    assertEquals(3, terminada.filasProcesadas());
+    assertEquals(3, terminada.insertados());
+    assertTrue(producto("Third Product").isPresent());
+    assertFalse(producto("First Product").isPresent());
+    assertFalse(Files.exists(origen));
+  }
+
+  @Test
+  @DisplayName("Completed imports cannot be resumed")
+  public void reanudarCompletada_ShouldThrowException() throws Exception {
+    ImportacionResponseDTO importacion = productoImportService.iniciar(
+        archivo("productos.csv", "nombre,precio\nOnly Product,1\n"));
+    esperar(importacion.id());
+
+    assertThrows(IllegalStateException.class, () -> productoImportService.reanudar(importacion.id()));
+  }
+
+  @Test
+  @DisplayName("Files other than CSV or JSON are rejected")
+  public void iniciarConFormatoNoSoportado_ShouldThrowException() {
+    assertThrows(IllegalArgumentException.class,
+        () -> productoImportService.iniciar(archivo("productos.xml", "<productos/>")));
+  }
+
+  private static MockMultipartFile archivo(String nombre, String contenido) {
+    return new MockMultipartFile("archivo", nombre, "application/octet-stream",
+        contenido.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private Optional<Producto> producto(String nombre) {
+    return productoRepository.findAll().stream().filter(p -> p.getNombre().equals(nombre)).findFirst();
+  }
+
+  private ImportacionResponseDTO esperar(Long id) throws InterruptedException {
+    long limite = System.currentTimeMillis() + TIMEOUT_MILLIS;
+    ImportacionResponseDTO importacion = productoImportService.estado(id).orElseThrow();
+    while (importacion.estado() == Importacion.Status.RUNNING && System.currentTimeMillis() < limite) {
+      Thread.sleep(POLL_MILLIS);
+      importacion = productoImportService.estado(id).orElseThrow();
+    }
+    return importacion;
+  }
+}
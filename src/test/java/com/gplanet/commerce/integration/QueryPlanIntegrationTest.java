@@ -0,0 +1,206 @@
+package com.gplanet.commerce.integration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.gplanet.commerce.repositories.CompraRepository;
+import com.gplanet.commerce.repositories.ProductoRepository;
+import com.gplanet.commerce.repositories.ProductoSpecifications;
+
+/**
+ * Checks that the repository queries keep using the indexes created by the
+ * migrations. Runs the migrations against a MySQL container, executes each
+ * query shape, reads the SQL that MySQL received from the performance schema
+ * and asserts on its EXPLAIN plan. Skipped when Docker is not available.
+ */
+@SpringBootTest(properties = {
+    "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+    "spring.jpa.properties.hibernate.cache.use_query_cache=false"
+})
+@Testcontainers(disabledWithoutDocker = true)
+public class QueryPlanIntegrationTest {
+
+  private static final int PRODUCTOS = 3000;
+  private static final int USUARIOS = 20;
+  private static final int COMPRAS = 6000;
+
+  @Container
+  @ServiceConnection
+  static MySQLContainer<?> mysql = new MySQLContainer<>("mysql:9")
+      .withDatabaseName("shopping")
+      // Reading the performance schema needs more than the privileges on the database
+      .withUsername("root")
+      .withCommand("--character-set-server=utf8mb4", "--collation-server=utf8mb4_spanish_ci",
+          "--innodb-ft-min-token-size=1");
+
+  private static boolean seeded;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  @Autowired
+  private ProductoRepository productoRepository;
+
+  @Autowired
+  private CompraRepository compraRepository;
+
+  private Long usuarioId;
+
+  /**
+   * Fills the tables once, with enough rows for the optimizer to prefer the
+   * indexes over full scans and sorts.
+   */
+  @BeforeEach
+  public void seed() {
+    if (!seeded) {
+      insertarDatos();
+      seeded = true;
+    }
+    usuarioId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM usuario WHERE rol = 'USER'", Long.class);
+  }
+
+  private void insertarDatos() {
+    String[] palabras = {"wireless", "keyboard", "mouse", "monitor", "cable", "laptop", "stand", "camera"};
+    List<Object[]> productos = new ArrayList<>();
+    for (int i = 0; i < PRODUCTOS; i++) {
+      productos.add(new Object[] {
+          "Product " + i,
+          palabras[i % palabras.length] + " " + palabras[(i / palabras.length) % palabras.length] + " " + i,
+          10 + i % 500,
+          Timestamp.valueOf(LocalDateTime.now().minusMinutes(i)),
+          i % 3 != 0});
+    }
+    jdbcTemplate.batchUpdate(
+        "INSERT INTO productos (nombre, descripcion, precio, fecha_creacion, activo) VALUES (?, ?, ?, ?, ?)",
+        productos);
+
+    List<Object[]> usuarios = new ArrayList<>();
+    for (int i = 0; i < USUARIOS; i++) {
+      usuarios.add(new Object[] {"User " + i, "user" + i + "@example.com", "secret", "USER"});
+    }
+    jdbcTemplate.batchUpdate("INSERT INTO usuario (nombre, email, password, rol) VALUES (?, ?, ?, ?)", usuarios);
+    Long primerUsuario = jdbcTemplate.queryForObject(
+        "SELECT MIN(id) FROM usuario WHERE rol = 'USER'", Long.class);
+
+    List<Object[]> compras = new ArrayList<>();
+    for (int i = 0; i < COMPRAS; i++) {
+      compras.add(new Object[] {
+          primerUsuario + i % USUARIOS, Timestamp.valueOf(LocalDateTime.now().minusHours(i)), 10 + i % 100});
+    }
+    jdbcTemplate.batchUpdate("INSERT INTO compras (usuario_id, fecha, total) VALUES (?, ?, ?)", compras);
+
+    jdbcTemplate.execute("ANALYZE TABLE productos, compras, usuario");
+  }
+
+  @Test
+  public void findSlice_ByStatus_ShouldUseStatusIndexInSortOrder() {
+    for (String[] orden : new String[][] {
+        {"nombre", "idx_productos_activo_nombre"},
+        {"precio", "idx_productos_activo_precio"},
+        {"fechaCreacion", "idx_productos_activo_fecha_creacion"}}) {
+      List<Map<String, Object>> plan = explain("productos", () -> productoRepository.findSlice(
+          true, null, null, PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, orden[0]))));
+
+      assertUsesIndex(plan, orden[1]);
+      assertNoFilesort(plan);
+    }
+  }
+
+  @Test
+  public void findSlice_WithSearch_ShouldUseFullTextIndex() {
+    List<Map<String, Object>> plan = explain("productos", () -> productoRepository.findSlice(
+        true, ProductoSpecifications.fullTextQuery("wireless cam"), ProductoSpecifications.likePattern("wireless cam"),
+        PageRequest.of(0, 10, Sort.by("nombre"))));
+
+    assertUsesIndex(plan, "ft_productos_nombre_descripcion");
+  }
+
+  @Test
+  public void countUpTo_WithSearch_ShouldUseFullTextIndex() {
+    List<Map<String, Object>> plan = explain("productos", () -> productoRepository.countUpTo(
+        null, ProductoSpecifications.fullTextQuery("monitor"), ProductoSpecifications.likePattern("monitor"), 10000));
+
+    assertUsesIndex(plan, "ft_productos_nombre_descripcion");
+  }
+
+  @Test
+  public void scroll_WithSearch_ShouldUseFullTextIndex() {
+    List<Map<String, Object>> plan = explain("productos", () -> productoRepository.findBy(
+        ProductoSpecifications.activo(true).and(ProductoSpecifications.contiene(
+            ProductoSpecifications.fullTextQuery("stand"), ProductoSpecifications.likePattern("stand"))),
+        query -> query.sortBy(Sort.by("nombre", "id")).limit(10).all()));
+
+    assertUsesIndex(plan, "ft_productos_nombre_descripcion");
+  }
+
+  @Test
+  public void findSliceIdsByUsuarioId_ShouldUseUserAndDateIndex() {
+    List<Map<String, Object>> plan = explain("compras", () -> compraRepository.findSliceIdsByUsuarioId(
+        usuarioId, PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "fecha"))));
+
+    assertUsesIndex(plan, "idx_compras_usuario_fecha");
+    assertNoFilesort(plan);
+  }
+
+  @Test
+  public void findSliceIds_ShouldUseDateIndex() {
+    List<Map<String, Object>> plan = explain("compras", () -> compraRepository.findSliceIds(
+        PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "fecha"))));
+
+    assertUsesIndex(plan, "idx_compras_fecha");
+    assertNoFilesort(plan);
+  }
+
+  /**
+   * Runs the given query and explains the last statement on the given table
+   * that the connection sent, as recorded by the performance schema with its
+   * parameters already inlined by the driver.
+   */
+  private List<Map<String, Object>> explain(String tabla, Runnable query) {
+    String sql = transactionTemplate.execute(status -> {
+      Long threadId = jdbcTemplate.queryForObject(
+          "SELECT THREAD_ID FROM performance_schema.threads WHERE PROCESSLIST_ID = CONNECTION_ID()", Long.class);
+      query.run();
+      return jdbcTemplate.queryForObject(
+          "SELECT SQL_TEXT FROM performance_schema.events_statements_history "
+              + "WHERE THREAD_ID = ? AND SQL_TEXT LIKE ? AND SQL_TEXT NOT LIKE '%performance_schema%' "
+              + "ORDER BY EVENT_ID DESC LIMIT 1",
+          String.class, threadId, "select %from " + tabla + " %");
+    });
+    return jdbcTemplate.queryForList("EXPLAIN " + sql);
+  }
+
+  private static void assertUsesIndex(List<Map<String, Object>> plan, String index) {
+    assertThat(plan)
+        .as("query plan %s", plan)
+        .anyMatch(row -> index.equals(row.get("key")));
+  }
+
+  private static void assertNoFilesort(List<Map<String, Object>> plan) {
+    assertThat(plan)
+        .as("query plan %s", plan)
+        .noneMatch(row -> Objects.toString(row.get("Extra"), "").contains("filesort"));
+  }
+}
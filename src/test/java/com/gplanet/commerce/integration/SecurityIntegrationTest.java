@@ -85,7 +85,8 @@ public class SecurityIntegrationTest {
     when(usuarioRepository.findByEmail("user@example.com")).thenReturn(Optional.of(testUser));
     when(usuarioRepository.findByEmail("admin@example.com")).thenReturn(Optional.of(adminUser));
 
-    when(usuarioService.buscarPorEmail(anyString())).thenReturn(testUser);
+    when(usuarioService.obtenerPerfil(anyString())).thenReturn(new UsuarioResponseDTO(
+        1L, testUser.getNombre(), testUser.getEmail(), testUser.getRol(), null));
 
     // Mock UserDetailsService to return proper UserDetails objects
     Collection<GrantedAuthority> userAuthorities = new ArrayList<>();
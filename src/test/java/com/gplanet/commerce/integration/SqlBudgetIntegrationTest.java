@@ -0,0 +1,120 @@
+package com.gplanet.commerce.integration;
+
+import static com.gplanet.commerce.integration.SqlBudgetMatchers.maxEntities;
+import static com.gplanet.commerce.integration.SqlBudgetMatchers.maxStatements;
+import static com.gplanet.commerce.integration.SqlBudgetMatchers.stats;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.gplanet.commerce.controllers.SqlBudgetFilter;
+import com.gplanet.commerce.entities.Producto;
+import com.gplanet.commerce.entities.Usuario;
+import com.gplanet.commerce.repositories.ProductoRepository;
+import com.gplanet.commerce.security.UsuarioDetallesService;
+import com.gplanet.commerce.utilities.SqlRequestStats;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class SqlBudgetIntegrationTest {
+
+  private static final int COMPRAS = 10;
+
+  // Autowired rather than built, so that it includes the SQL budget filter
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private ApplicationContext context;
+
+  @Autowired
+  private ProductoRepository productoRepository;
+
+  @Autowired
+  private UsuarioDetallesService usuarioDetallesService;
+
+  private IntegrationFixtures fixtures;
+  private UserDetails comprador;
+
+  @BeforeEach
+  public void setup() {
+    fixtures = new IntegrationFixtures(context);
+    fixtures.limpiar();
+
+    Usuario usuario = fixtures.usuario("ana@example.com", "Ana", Usuario.Role.USER);
+    comprador = usuarioDetallesService.loadUserByUsername("ana@example.com");
+
+    Producto teclado = fixtures.producto("Keyboard", "25.00");
+    Producto raton = fixtures.producto("Mouse", "10.00");
+    for (int i = 0; i < COMPRAS; i++) {
+      fixtures.compra(usuario, LocalDateTime.now().minusDays(i), List.of(teclado, raton), List.of(1, 2));
+    }
+  }
+
+  @AfterEach
+  public void tearDown() {
+    fixtures.limpiarCompras();
+  }
+
+  @Test
+  public void filtrarCompras_ShouldUseConstantNumberOfQueries() throws Exception {
+    // One page of 10 purchases with 2 lines each: an N+1 would need more than 10 queries
+    mockMvc.perform(get("/compras/filtrar").param("size", String.valueOf(COMPRAS)).with(user(comprador)))
+        .andExpect(status().isOk())
+        .andExpect(maxStatements(5))
+        .andExpect(maxEntities(COMPRAS * 4 + 2));
+  }
+
+  @Test
+  public void filtrarCompras_ShouldReportCountsInHeaders() throws Exception {
+    MvcResult result = mockMvc.perform(get("/compras/filtrar").with(user(comprador)))
+        .andExpect(status().isOk())
+        .andExpect(header().exists(SqlBudgetFilter.STATEMENTS_HEADER))
+        .andExpect(header().exists(SqlBudgetFilter.DB_TIME_HEADER))
+        .andExpect(header().exists(SqlBudgetFilter.ENTITIES_HEADER))
+        .andReturn();
+
+    SqlRequestStats stats = stats(result);
+    assertTrue(stats.getStatements() > 0);
+    assertEquals(String.valueOf(stats.getStatements()),
+        result.getResponse().getHeader(SqlBudgetFilter.STATEMENTS_HEADER));
+    assertTrue(stats.repeated(2).isEmpty(), "No statement should repeat: " + stats.repeated(2));
+  }
+
+  @Test
+  public void statement_ShouldDetectRepeatedStatements() {
+    SqlRequestStats stats = SqlRequestStats.start();
+    try {
+      for (long id = 1; id <= 3; id++) {
+        productoRepository.existsById(id);
+      }
+    } finally {
+      SqlRequestStats.stop();
+    }
+
+    assertEquals(3, stats.getStatements());
+    Map<String, Integer> repeated = stats.repeated(3);
+    assertEquals(1, repeated.size());
+    assertEquals(3, repeated.values().iterator().next());
+  }
+}
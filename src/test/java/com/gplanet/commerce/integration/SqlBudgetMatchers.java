@@ -0,0 +1,58 @@
+package com.gplanet.commerce.integration;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import com.gplanet.commerce.utilities.SqlRequestStats;
+
+/**
+ * Result matchers on the database work of a request, for endpoints that must
+ * keep a constant number of queries. They need the MockMvc configured by
+ * {@code @AutoConfigureMockMvc}, which includes the SQL budget filter.
+ */
+public final class SqlBudgetMatchers {
+
+  private SqlBudgetMatchers() {
+  }
+
+  /**
+   * Expects the request to execute at most the given number of statements.
+   *
+   * @param max The maximum number of statements
+   * @return The matcher
+   */
+  public static ResultMatcher maxStatements(int max) {
+    return result -> {
+      int statements = stats(result).getStatements();
+      assertTrue(statements <= max, "Expected at most " + max + " statements but executed " + statements);
+    };
+  }
+
+  /**
+   * Expects the request to load at most the given number of entities.
+   *
+   * @param max The maximum number of entities
+   * @return The matcher
+   */
+  public static ResultMatcher maxEntities(int max) {
+    return result -> {
+      int entities = stats(result).getEntities();
+      assertTrue(entities <= max, "Expected at most " + max + " entities but loaded " + entities);
+    };
+  }
+
+  /**
+   * Returns the database work of a request.
+   *
+   * @param result The result of the request
+   * @return The counts of the request
+   */
+  public static SqlRequestStats stats(MvcResult result) {
+    SqlRequestStats stats = (SqlRequestStats) result.getRequest().getAttribute(SqlRequestStats.ATTRIBUTE);
+    assertNotNull(stats, "The request was not counted by the SQL budget filter");
+    return stats;
+  }
+}
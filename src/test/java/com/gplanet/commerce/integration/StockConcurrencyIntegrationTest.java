@@ -0,0 +1,206 @@
+package com.gplanet.commerce.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.gplanet.commerce.dtos.compra.CompraDTO;
+import com.gplanet.commerce.dtos.compra.CompraProductoDTO;
+import com.gplanet.commerce.dtos.compra.PedidoPendiente;
+import com.gplanet.commerce.entities.Producto;
+import com.gplanet.commerce.entities.Usuario;
+import com.gplanet.commerce.exceptions.StockInsuficienteException;
+import com.gplanet.commerce.repositories.CompraRepository;
+import com.gplanet.commerce.services.CompraService;
+import com.gplanet.commerce.services.StockService;
+
+/**
+ * Runs hundreds of checkouts in parallel against products with limited stock
+ * and checks that no unit is sold twice and that no checkout deadlocks.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class StockConcurrencyIntegrationTest {
+
+  private static final String EMAIL = "ana@example.com";
+  private static final int THREADS = 32;
+
+  @Autowired
+  private ApplicationContext context;
+
+  @Autowired
+  private CompraRepository compraRepository;
+
+  @Autowired
+  private CompraService compraService;
+
+  @Autowired
+  private StockService stockService;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  private IntegrationFixtures fixtures;
+  private Usuario ana;
+
+  @BeforeEach
+  public void setup() {
+    fixtures = new IntegrationFixtures(context);
+    fixtures.limpiar();
+    ana = fixtures.usuario(EMAIL, "Ana", Usuario.Role.USER);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    fixtures.limpiarCompras();
+  }
+
+  @Test
+  public void realizarCompra_ManyParallelCheckouts_ShouldNeverOversell() throws Exception {
+    Producto consola = fixtures.producto("Console", "10.00", 100);
+    AtomicInteger vendidas = new AtomicInteger();
+    AtomicInteger rechazadas = new AtomicInteger();
+
+    Queue<Throwable> errores = enParalelo(300, i -> {
+      try {
+        compraService.realizarCompra(EMAIL, new CompraDTO(List.of(new CompraProductoDTO(consola.getId(), 1))));
+        vendidas.incrementAndGet();
+      } catch (StockInsuficienteException e) {
+        rechazadas.incrementAndGet();
+      }
+    });
+
+    assertTrue(errores.isEmpty(), () -> "Unexpected errors: " + errores);
+    assertEquals(100, vendidas.get());
+    assertEquals(200, rechazadas.get());
+    assertEquals(0, stock(consola));
+    assertEquals(100, compraRepository.count());
+    assertEquals(100, unidadesVendidas(consola));
+  }
+
+  @Test
+  public void realizarCompra_MixedQuantities_ShouldSellExactlyTheStock() throws Exception {
+    Producto teclado = fixtures.producto("Keyboard", "10.00", 250);
+
+    Queue<Throwable> errores = enParalelo(400, i -> {
+      try {
+        compraService.realizarCompra(EMAIL,
+            new CompraDTO(List.of(new CompraProductoDTO(teclado.getId(), 1 + i % 3))));
+      } catch (StockInsuficienteException e) {
+        // Expected once the stock runs out
+      }
+    });
+
+    assertTrue(errores.isEmpty(), () -> "Unexpected errors: " + errores);
+    int restante = stock(teclado);
+    assertTrue(restante >= 0 && restante < 3, "Remaining stock: " + restante);
+    assertEquals(250 - restante, unidadesVendidas(teclado));
+  }
+
+  @Test
+  public void realizarCompra_LinesInOppositeOrders_ShouldNotDeadlock() throws Exception {
+    Producto raton = fixtures.producto("Mouse", "10.00", 1000);
+    Producto monitor = fixtures.producto("Monitor", "10.00", 1000);
+
+    Queue<Throwable> errores = enParalelo(200, i -> {
+      List<CompraProductoDTO> lineas = new ArrayList<>(List.of(
+          new CompraProductoDTO(raton.getId(), 1), new CompraProductoDTO(monitor.getId(), 2)));
+      if (i % 2 == 0) {
+        lineas = lineas.reversed();
+      }
+      compraService.realizarCompra(EMAIL, new CompraDTO(lineas));
+    });
+
+    assertTrue(errores.isEmpty(), () -> "Unexpected errors: " + errores);
+    assertEquals(800, stock(raton));
+    assertEquals(600, stock(monitor));
+  }
+
+  @Test
+  public void registrarCompras_GroupOverStock_ShouldRejectOnlyOrdersThatDoNotFit() {
+    Producto camara = fixtures.producto("Camera", "10.00", 5);
+    Producto cable = fixtures.producto("Cable", "10.00", null);
+
+    Map<String, Long> compraIds = compraService.registrarCompras(List.of(
+        pedido("a", Map.of(camara.getId(), 3, cable.getId(), 1)),
+        pedido("b", Map.of(camara.getId(), 3)),
+        pedido("c", Map.of(camara.getId(), 2, cable.getId(), 10))));
+
+    assertEquals(List.of("a", "c"), compraIds.keySet().stream().sorted().toList());
+    assertEquals(0, stock(camara));
+    assertNull(jdbcTemplate.queryForObject("SELECT stock FROM productos WHERE id = ?", Integer.class, cable.getId()));
+  }
+
+  @Test
+  public void reponer_ShouldAddUnitsAndStartTrackingUntrackedProducts() throws Exception {
+    Producto cable = fixtures.producto("Cable", "10.00", null);
+
+    Queue<Throwable> errores = enParalelo(50, i -> stockService.reponer(cable.getId(), 2));
+
+    assertTrue(errores.isEmpty(), () -> "Unexpected errors: " + errores);
+    assertEquals(100, stock(cable));
+  }
+
+  /**
+   * Runs the given checkout the given number of times from a pool of threads,
+   * all released at once, and returns the errors thrown.
+   */
+  private Queue<Throwable> enParalelo(int veces, Checkout checkout) throws InterruptedException {
+    ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+    CountDownLatch salida = new CountDownLatch(1);
+    Queue<Throwable> errores = new ConcurrentLinkedQueue<>();
+    for (int i = 0; i < veces; i++) {
+      int indice = i;
+      pool.execute(() -> {
+        try {
+          salida.await();
+          checkout.run(indice);
+        } catch (Throwable e) {
+          errores.add(e);
+        }
+      });
+    }
+    salida.countDown();
+    pool.shutdown();
+    assertTrue(pool.awaitTermination(2, TimeUnit.MINUTES), "Checkouts did not finish");
+    return errores;
+  }
+
+  private PedidoPendiente pedido(String token, Map<Long, Integer> cantidades) {
+    return new PedidoPendiente(token, EMAIL, ana.getId(), cantidades);
+  }
+
+  private int stock(Producto producto) {
+    return jdbcTemplate.queryForObject("SELECT stock FROM productos WHERE id = ?", Integer.class, producto.getId());
+  }
+
+  private long unidadesVendidas(Producto producto) {
+    return jdbcTemplate.queryForObject(
+        "SELECT COALESCE(SUM(cantidad), 0) FROM compra_productos WHERE producto_id = ?", Long.class, producto.getId());
+  }
+
+  @FunctionalInterface
+  private interface Checkout {
+    void run(int indice) throws Exception;
+  }
+}
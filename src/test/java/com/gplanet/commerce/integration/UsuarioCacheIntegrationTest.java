@@ -0,0 +1,78 @@
+package com.gplanet.commerce.integration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.gplanet.commerce.dtos.usuario.ActualizacionUsuarioDTO;
+import com.gplanet.commerce.entities.Usuario;
+import com.gplanet.commerce.services.UsuarioService;
+
+/**
+ * Checks that profile and role changes evict the cached identity of the user
+ * once their transaction commits. The test profile disables caching, so this
+ * class turns it back on, with a database of its own so that creating the
+ * schema of this context does not affect the contexts of the other tests.
+ */
+@SpringBootTest(properties = {
+    "spring.cache.type=caffeine",
+    "spring.datasource.url=jdbc:h2:mem:cachetestdb;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles("test")
+public class UsuarioCacheIntegrationTest {
+
+  private static final String EMAIL = "ana@example.com";
+
+  @Autowired
+  private ApplicationContext context;
+
+  @Autowired
+  private UsuarioService usuarioService;
+
+  @Autowired
+  private CacheManager cacheManager;
+
+  private Cache identidades;
+  private Usuario ana;
+
+  @BeforeEach
+  public void setup() {
+    IntegrationFixtures fixtures = new IntegrationFixtures(context);
+    fixtures.limpiar();
+    identidades = cacheManager.getCache(UsuarioService.IDENTIDAD_CACHE);
+    identidades.clear();
+
+    ana = fixtures.usuario(EMAIL, "Ana", Usuario.Role.USER);
+  }
+
+  @Test
+  public void actualizarPerfil_ShouldEvictCachedIdentity() {
+    usuarioService.obtenerPerfil(EMAIL);
+    assertNotNull(identidades.get(EMAIL));
+
+    usuarioService.actualizarPerfil(EMAIL, new ActualizacionUsuarioDTO("Ana María", "ana.maria@example.com"));
+
+    assertNull(identidades.get(EMAIL));
+    assertEquals("Ana María", usuarioService.obtenerPerfil("ana.maria@example.com").nombre());
+  }
+
+  @Test
+  public void cambiarRol_ShouldEvictCachedIdentity() {
+    assertEquals(Usuario.Role.USER, usuarioService.obtenerPerfil(EMAIL).rol());
+    assertNotNull(identidades.get(EMAIL));
+
+    usuarioService.cambiarRol(ana.getId());
+
+    assertNull(identidades.get(EMAIL));
+    assertEquals(Usuario.Role.ADMIN, usuarioService.obtenerPerfil(EMAIL).rol());
+  }
+}
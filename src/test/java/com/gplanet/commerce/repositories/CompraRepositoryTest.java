@@ -1,19 +1,29 @@
 package com.gplanet.commerce.repositories;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.test.context.ActiveProfiles;
 
 import com.gplanet.commerce.entities.Compra;
@@ -33,6 +43,9 @@ class CompraRepositoryTest {
   @Autowired
   private ProductoRepository productoRepository;
 
+  @Autowired
+  private TestEntityManager entityManager;
+
   private Usuario usuario;
   private Producto producto;
 
@@ -79,6 +92,36 @@ class CompraRepositoryTest {
     assertEquals(producto.getId(), savedCompra.getProductos().get(0).getProducto().getId());
   }
 
+  @Test
+  void save_CompraWithManyLines_InsertsLinesInBatches() {
+    // Arrange
+    entityManager.flush();
+    Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+        .unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+
+    Compra compra = new Compra();
+    compra.setUsuario(usuario);
+    compra.setFecha(LocalDateTime.now());
+    compra.setTotal(new BigDecimal("200.00"));
+    for (int i = 0; i < 20; i++) {
+      CompraProducto compraProducto = new CompraProducto();
+      compraProducto.setProducto(producto);
+      compraProducto.setCantidad(1);
+      compraProducto.setSubtotal(new BigDecimal("10.00"));
+      compra.addCompraProducto(compraProducto);
+    }
+
+    // Act
+    compraRepository.save(compra);
+    entityManager.flush();
+
+    // Assert: one insert per table plus a few sequence calls, rather than one statement per row
+    assertEquals(21, statistics.getEntityInsertCount());
+    assertTrue(statistics.getPrepareStatementCount() <= 6,
+        "Prepared " + statistics.getPrepareStatementCount() + " statements");
+  }
+
   @Test
   void findByUsuarioId_ExistingUser_ReturnsCompras() {
     // Arrange
@@ -154,4 +197,119 @@ class CompraRepositoryTest {
     assertTrue(comprasPage.getContent().get(0).getFecha().isAfter(yesterday));
     assertTrue(comprasPage.getContent().get(0).getFecha().isBefore(tomorrow));
   }
-}
\ No newline at end of file
+
+  private Compra crearCompra(LocalDateTime fecha, int cantidad) {
+    Compra compra = new Compra();
+    compra.setUsuario(usuario);
+    compra.setFecha(fecha);
+    compra.setTotal(producto.getPrecio().multiply(BigDecimal.valueOf(cantidad)));
+
+    CompraProducto compraProducto = new CompraProducto();
+    compraProducto.setProducto(producto);
+    compraProducto.setCantidad(cantidad);
+    compraProducto.setSubtotal(compra.getTotal());
+    compra.addCompraProducto(compraProducto);
+
+    return compraRepository.save(compra);
+  }
+
+  @Test
+  void findSliceIdsByUsuarioId_PaginatesInDatabase() {
+    // Arrange
+    LocalDateTime now = LocalDateTime.now();
+    Compra oldest = crearCompra(now.minusDays(2), 1);
+    Compra middle = crearCompra(now.minusDays(1), 2);
+    crearCompra(now, 3);
+
+    // Act
+    Slice<Long> idsPage = compraRepository.findSliceIdsByUsuarioId(
+        usuario.getId(),
+        PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "fecha")));
+    Slice<Long> firstPage = compraRepository.findSliceIds(PageRequest.of(0, 2, Sort.by(Sort.Direction.ASC, "fecha")));
+
+    // Assert
+    assertEquals(List.of(oldest.getId()), idsPage.getContent());
+    assertFalse(idsPage.hasNext());
+    assertEquals(List.of(oldest.getId(), middle.getId()), firstPage.getContent());
+    assertTrue(firstPage.hasNext());
+  }
+
+  @Test
+  void countUpTo_StopsAtLimit() {
+    // Arrange
+    LocalDateTime now = LocalDateTime.now();
+    crearCompra(now.minusDays(2), 1);
+    crearCompra(now.minusDays(1), 2);
+    crearCompra(now, 3);
+
+    // Act & Assert
+    assertEquals(3, compraRepository.countByUsuarioIdUpTo(usuario.getId(), 10));
+    assertEquals(2, compraRepository.countByUsuarioIdUpTo(usuario.getId(), 2));
+    assertEquals(0, compraRepository.countByUsuarioIdUpTo(usuario.getId() + 1, 10));
+    assertEquals(2, compraRepository.countUpTo(2));
+  }
+
+  @Test
+  void findAllWithDetailsByIdIn_LoadsAssociationsInOneQuery() {
+    // Arrange
+    Compra compra = crearCompra(LocalDateTime.now(), 2);
+    entityManager.flush();
+    entityManager.clear();
+
+    // Act
+    List<Compra> compras = compraRepository.findAllWithDetailsByIdIn(List.of(compra.getId()));
+
+    // Assert
+    assertEquals(1, compras.size());
+    Compra loaded = compras.get(0);
+    var util = entityManager.getEntityManager().getEntityManagerFactory().getPersistenceUnitUtil();
+    assertTrue(util.isLoaded(loaded, "usuario"));
+    assertTrue(util.isLoaded(loaded, "productos"));
+    // The lines carry the name and price, so the products are not joined
+    assertFalse(util.isLoaded(loaded.getProductos().get(0), "producto"));
+    assertEquals("Test User", loaded.getUsuario().getNombre());
+    assertEquals("Test Product", loaded.getProductos().get(0).getProductoNombre());
+  }
+
+  @Test
+  void findAllWithDetailsByIdIn_KeepsPriceAndNameAtPurchaseTime() {
+    // Arrange
+    Compra compra = crearCompra(LocalDateTime.now(), 2);
+    BigDecimal precioPagado = producto.getPrecio();
+    producto.setNombre("Renamed Product");
+    producto.setPrecio(precioPagado.add(BigDecimal.TEN));
+    productoRepository.save(producto);
+    entityManager.flush();
+    entityManager.clear();
+
+    // Act
+    CompraProducto linea = compraRepository.findAllWithDetailsByIdIn(List.of(compra.getId()))
+        .get(0).getProductos().get(0);
+
+    // Assert
+    assertEquals(0, precioPagado.compareTo(linea.getPrecioUnitario()));
+    assertEquals("Test Product", linea.getProductoNombre());
+  }
+
+  @Test
+  void findByUsuarioId_Keyset_SeeksPastEqualSortValues() {
+    // Arrange: three purchases share the same date, so the ID must break ties
+    LocalDateTime fecha = LocalDateTime.now().withNano(0);
+    Compra first = crearCompra(fecha, 1);
+    Compra second = crearCompra(fecha, 2);
+    Compra third = crearCompra(fecha, 3);
+    Sort sort = Sort.by(Sort.Direction.DESC, "fecha", "id");
+
+    // Act
+    Window<Compra> firstWindow = compraRepository.findByUsuarioId(
+        usuario.getId(), ScrollPosition.keyset(), sort, Limit.of(2));
+    KeysetScrollPosition next = (KeysetScrollPosition) firstWindow.positionAt(1);
+    Window<Compra> secondWindow = compraRepository.findByUsuarioId(usuario.getId(), next, sort, Limit.of(2));
+
+    // Assert
+    assertEquals(List.of(third.getId(), second.getId()), firstWindow.map(Compra::getId).getContent());
+    assertTrue(firstWindow.hasNext());
+    assertEquals(List.of(first.getId()), secondWindow.map(Compra::getId).getContent());
+    assertFalse(secondWindow.hasNext());
+  }
+}
@@ -0,0 +1,124 @@
+package com.gplanet.commerce.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.gplanet.commerce.entities.Producto;
+
+import jakarta.persistence.EntityManagerFactory;
+
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+    "spring.jpa.properties.hibernate.cache.use_query_cache=true"
+})
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductoCacheTest {
+  @Autowired
+  private ProductoRepository productoRepository;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  private Statistics statistics;
+  private Producto producto;
+
+  @BeforeEach
+  void setup() {
+    // Every repository call runs in its own committed transaction, as in production
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+    producto = new Producto();
+    producto.setNombre("Cached Product");
+    producto.setPrecio(new BigDecimal("9.99"));
+    producto.setActivo(true);
+    producto = productoRepository.save(producto);
+    entityManagerFactory.getCache().evictAll();
+    statistics.clear();
+  }
+
+  @AfterEach
+  void tearDown() {
+    productoRepository.deleteAll();
+    entityManagerFactory.getCache().evictAll();
+  }
+
+  @Test
+  void findById_SecondRead_ServedFromSecondLevelCache() {
+    // Act
+    productoRepository.findById(producto.getId());
+    productoRepository.findById(producto.getId());
+
+    // Assert
+    assertEquals(1, statistics.getSecondLevelCacheMissCount());
+    assertEquals(1, statistics.getSecondLevelCacheHitCount());
+    assertEquals(1, statistics.getEntityLoadCount());
+  }
+
+  @Test
+  void findAllById_CachedProducts_SkipsDatabase() {
+    // Arrange
+    productoRepository.findById(producto.getId());
+
+    // Act
+    List<Producto> productos = productoRepository.findAllById(List.of(producto.getId(), -1L));
+
+    // Assert
+    assertEquals(List.of(producto.getId()), productos.stream().map(Producto::getId).toList());
+    assertEquals(1, statistics.getSecondLevelCacheHitCount());
+  }
+
+  @Test
+  void save_CachedProduct_ReadsCommittedChange() {
+    // Arrange
+    Producto cached = productoRepository.findById(producto.getId()).orElseThrow();
+
+    // Act
+    cached.setNombre("Renamed Product");
+    productoRepository.save(cached);
+    Producto reloaded = productoRepository.findById(producto.getId()).orElseThrow();
+
+    // Assert
+    assertEquals("Renamed Product", reloaded.getNombre());
+  }
+
+  @Test
+  void findSlice_ProductChanged_InvalidatesQueryCache() {
+    // Arrange
+    productoRepository.findSlice(true, null, null, PageRequest.of(0, 10));
+    producto.setActivo(false);
+    productoRepository.save(producto);
+
+    // Act
+    int activos = productoRepository.findSlice(true, null, null, PageRequest.of(0, 10)).getNumberOfElements();
+
+    // Assert
+    assertEquals(0, activos);
+    assertEquals(0, statistics.getQueryCacheHitCount());
+  }
+
+  @Test
+  void findSlice_RepeatedListing_ServedFromQueryCache() {
+    // Act
+    productoRepository.findSlice(true, null, null, PageRequest.of(0, 10));
+    productoRepository.findSlice(true, null, null, PageRequest.of(0, 10));
+
+    // Assert
+    assertEquals(1, statistics.getQueryCacheMissCount());
+    assertEquals(1, statistics.getQueryCacheHitCount());
+  }
+}
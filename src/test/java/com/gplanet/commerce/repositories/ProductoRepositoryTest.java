@@ -12,8 +12,8 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.test.context.ActiveProfiles;
 
 import com.gplanet.commerce.entities.Producto;
@@ -80,10 +80,12 @@ class ProductoRepositoryTest {
     productoRepository.save(inactiveProduct);
 
     // Act
-    Page<Producto> activeProducts = productoRepository.findByActivoTrue(PageRequest.of(0, 10));
+    Slice<Producto> activeProducts = productoRepository.findSlice(true, null, null, PageRequest.of(0, 10));
 
     // Assert
-    assertEquals(1, activeProducts.getTotalElements());
+    assertEquals(1, activeProducts.getNumberOfElements());
+    assertEquals(1, productoRepository.countUpTo(true, null, null, 10));
+    assertEquals(1, productoRepository.countUpTo(false, "+product*", "%product%", 10));
     assertTrue(activeProducts.getContent().get(0).isActivo());
     assertEquals("Active Product", activeProducts.getContent().get(0).getNombre());
   }
@@ -32,6 +32,7 @@ import org.springframework.web.context.WebApplicationContext;
 import com.gplanet.commerce.dtos.producto.ProductStatus;
 import com.gplanet.commerce.dtos.producto.ProductoResponseDTO;
 import com.gplanet.commerce.dtos.usuario.UsuarioResponseDTO;
+import com.gplanet.commerce.dtos.usuario.UsuarioResponseDTO;
 import com.gplanet.commerce.entities.Usuario;
 import com.gplanet.commerce.repositories.UsuarioRepository;
 import com.gplanet.commerce.services.CompraService;
@@ -92,7 +93,8 @@ public class SecurityConfigTest {
     when(usuarioRepository.findByEmail("user@example.com")).thenReturn(Optional.of(testUser));
     when(usuarioRepository.findByEmail("admin@example.com")).thenReturn(Optional.of(adminUser));
 
-    when(usuarioService.buscarPorEmail(anyString())).thenReturn(testUser);
+    when(usuarioService.obtenerPerfil(anyString())).thenReturn(new UsuarioResponseDTO(
+        1L, testUser.getNombre(), testUser.getEmail(), testUser.getRol(), null));
 
     // Mock UserDetailsService to return proper UserDetails objects
     Collection<GrantedAuthority> userAuthorities = new ArrayList<>();
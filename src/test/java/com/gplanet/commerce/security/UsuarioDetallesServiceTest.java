@@ -8,23 +8,30 @@ import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
+import com.gplanet.commerce.dtos.usuario.UsuarioMapperImpl;
+import com.gplanet.commerce.dtos.usuario.UsuarioResponseDTO;
 import com.gplanet.commerce.entities.Usuario;
 import com.gplanet.commerce.repositories.UsuarioRepository;
+import com.gplanet.commerce.services.UsuarioService;
 
 public class UsuarioDetallesServiceTest {
 
   private UsuarioRepository usuarioRepository;
+  private CacheManager cacheManager;
   private UsuarioDetallesService usuarioDetallesService;
 
   @BeforeEach
   public void setUp() {
     usuarioRepository = mock(UsuarioRepository.class);
-    usuarioDetallesService = new UsuarioDetallesService(usuarioRepository);
+    cacheManager = new ConcurrentMapCacheManager(UsuarioService.IDENTIDAD_CACHE);
+    usuarioDetallesService = new UsuarioDetallesService(usuarioRepository, new UsuarioMapperImpl(), cacheManager);
   }
 
   @Test
@@ -50,6 +57,29 @@ public class UsuarioDetallesServiceTest {
     assertEquals("Test User", ((UsuarioDetalles) userDetails).getNombre());
   }
 
+  @Test
+  public void loadUserByUsername_UserExists_CachesIdentityWithoutPassword() {
+    // Arrange
+    Usuario usuario = new Usuario();
+    usuario.setId(7L);
+    usuario.setEmail("test@example.com");
+    usuario.setPassword("password");
+    usuario.setNombre("Test User");
+    usuario.setRol(Usuario.Role.ADMIN);
+
+    when(usuarioRepository.findByEmail("test@example.com")).thenReturn(Optional.of(usuario));
+
+    // Act
+    usuarioDetallesService.loadUserByUsername("test@example.com");
+
+    // Assert
+    UsuarioResponseDTO identidad = cacheManager.getCache(UsuarioService.IDENTIDAD_CACHE)
+        .get("test@example.com", UsuarioResponseDTO.class);
+    assertNotNull(identidad);
+    assertEquals(7L, identidad.id());
+    assertEquals(Usuario.Role.ADMIN, identidad.rol());
+  }
+
   @Test
   public void loadUserByUsername_UserDoesNotExist_ThrowsException() {
     // Arrange
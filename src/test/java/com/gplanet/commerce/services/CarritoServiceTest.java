@@ -0,0 +1,269 @@
+package com.gplanet.commerce.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.gplanet.commerce.configs.CarritoProperties;
+import com.gplanet.commerce.dtos.carrito.CarritoDTO;
+import com.gplanet.commerce.dtos.compra.CompraProductoDTO;
+import com.gplanet.commerce.dtos.usuario.UsuarioResponseDTO;
+import com.gplanet.commerce.entities.Producto;
+import com.gplanet.commerce.entities.Usuario;
+import com.gplanet.commerce.exceptions.CarritoLlenoException;
+import com.gplanet.commerce.exceptions.ResourceNotFoundException;
+import com.gplanet.commerce.repositories.ProductoRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+@ExtendWith(MockitoExtension.class)
+public class CarritoServiceTest {
+
+  private static final String EMAIL = "user@example.com";
+  private static final Long USUARIO_ID = 7L;
+
+  @Mock
+  private ProductoRepository productoRepository;
+
+  @Mock
+  private UsuarioService usuarioService;
+
+  @Mock
+  private JdbcTemplate jdbcTemplate;
+
+  @Mock
+  private TransactionTemplate transactionTemplate;
+
+  private CatalogVersionService catalogVersionService;
+  private CarritoProperties properties;
+  private CarritoService carritoService;
+  private Producto teclado;
+  private Producto raton;
+
+  @BeforeEach
+  void setUp() {
+    properties = new CarritoProperties();
+    catalogVersionService = new CatalogVersionService();
+    carritoService = new CarritoService(properties, catalogVersionService, productoRepository, usuarioService,
+        jdbcTemplate, transactionTemplate);
+
+    lenient().when(usuarioService.obtenerPerfil(EMAIL)).thenReturn(
+        new UsuarioResponseDTO(USUARIO_ID, "User", EMAIL, Usuario.Role.USER, LocalDateTime.now()));
+
+    teclado = producto(1L, "Keyboard", "25.00");
+    raton = producto(2L, "Mouse", "10.50");
+  }
+
+  @Test
+  @DisplayName("Should add up the units of a product and reuse the validation while nothing changes")
+  void agregar_ShouldSumUnitsAndValidateOncePerChange() {
+    // Arrange
+    when(productoRepository.findById(1L)).thenReturn(Optional.of(teclado));
+    when(productoRepository.findAllById(List.of(1L))).thenReturn(List.of(teclado));
+
+    // Act
+    carritoService.agregar(EMAIL, 1L, 2);
+    CarritoDTO carrito = carritoService.agregar(EMAIL, 1L, 3);
+    CarritoDTO otraVez = carritoService.obtener(EMAIL);
+
+    // Assert
+    assertEquals(1, carrito.lineas().size());
+    assertEquals(5, carrito.unidades());
+    assertEquals(0, new BigDecimal("125.00").compareTo(carrito.total()));
+    assertSame(carrito, otraVez);
+    verify(productoRepository, times(2)).findAllById(List.of(1L));
+  }
+
+  @Test
+  @DisplayName("Should cap the units of a line")
+  void agregar_OverMaxQuantity_ShouldCapUnits() {
+    // Arrange
+    properties.setMaxCantidad(10);
+    when(productoRepository.findById(1L)).thenReturn(Optional.of(teclado));
+    when(productoRepository.findAllById(List.of(1L))).thenReturn(List.of(teclado));
+
+    // Act
+    CarritoDTO carrito = carritoService.agregar(EMAIL, 1L, 50);
+
+    // Assert
+    assertEquals(10, carrito.unidades());
+  }
+
+  @Test
+  @DisplayName("Should not add products that are not active")
+  void agregar_InactiveProduct_ShouldThrowException() {
+    // Arrange
+    teclado.setActivo(false);
+    when(productoRepository.findById(1L)).thenReturn(Optional.of(teclado));
+
+    // Act & Assert
+    assertThrows(ResourceNotFoundException.class, () -> carritoService.agregar(EMAIL, 1L, 1));
+  }
+
+  @Test
+  @DisplayName("Should not add a new product to a full cart")
+  void agregar_WhenCartIsFull_ShouldThrowException() {
+    // Arrange
+    properties.setMaxLineas(1);
+    when(productoRepository.findById(anyLong())).thenAnswer(invocation ->
+        Optional.of(invocation.<Long>getArgument(0) == 1L ? teclado : raton));
+    when(productoRepository.findAllById(List.of(1L))).thenReturn(List.of(teclado));
+    carritoService.agregar(EMAIL, 1L, 1);
+
+    // Act & Assert
+    assertThrows(CarritoLlenoException.class, () -> carritoService.agregar(EMAIL, 2L, 1));
+    assertEquals(2, carritoService.agregar(EMAIL, 1L, 1).unidades());
+  }
+
+  @Test
+  @DisplayName("Should drop products deactivated after the catalog changes")
+  void obtener_AfterCatalogChange_ShouldDropInactiveProducts() {
+    // Arrange
+    when(productoRepository.findById(anyLong())).thenAnswer(invocation ->
+        Optional.of(invocation.<Long>getArgument(0) == 1L ? teclado : raton));
+    when(productoRepository.findAllById(anyList())).thenAnswer(invocation ->
+        invocation.<List<Long>>getArgument(0).stream()
+            .map(id -> id == 1L ? teclado : raton)
+            .toList());
+    carritoService.agregar(EMAIL, 1L, 1);
+    carritoService.agregar(EMAIL, 2L, 2);
+
+    // Act
+    raton.setActivo(false);
+    catalogVersionService.bump();
+    CarritoDTO carrito = carritoService.obtener(EMAIL);
+
+    // Assert
+    assertEquals(List.of(1L), carrito.lineas().stream().map(l -> l.productoId()).toList());
+    assertEquals(0, new BigDecimal("25.00").compareTo(carrito.total()));
+  }
+
+  @Test
+  @DisplayName("Should merge an anonymous cart validating all products with one query")
+  void fusionar_ShouldAddValidProductsOnly() {
+    // Arrange
+    when(productoRepository.findAllById(List.of(1L, 2L, 99L))).thenReturn(List.of(teclado, raton));
+    when(productoRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(teclado, raton));
+
+    // Act
+    CarritoDTO carrito = carritoService.fusionar(EMAIL, List.of(
+        new CompraProductoDTO(1L, 2), new CompraProductoDTO(2L, 1), new CompraProductoDTO(99L, 4),
+        new CompraProductoDTO(3L, 0)));
+
+    // Assert
+    assertEquals(List.of(1L, 2L), carrito.lineas().stream().map(l -> l.productoId()).toList());
+    assertEquals(3, carrito.unidades());
+    verify(productoRepository, never()).findById(anyLong());
+  }
+
+  @Test
+  @DisplayName("Should take off only the purchased units, keeping what was added after the checkout")
+  void descontar_ShouldKeepProductsAddedAfterCheckout() {
+    // Arrange
+    when(productoRepository.findById(anyLong())).thenAnswer(invocation ->
+        Optional.of(invocation.<Long>getArgument(0) == 1L ? teclado : raton));
+    when(productoRepository.findAllById(anyList())).thenAnswer(invocation ->
+        invocation.<List<Long>>getArgument(0).stream()
+            .map(id -> id == 1L ? teclado : raton)
+            .toList());
+    CarritoDTO comprado = carritoService.agregar(EMAIL, 1L, 2);
+    carritoService.agregar(EMAIL, 1L, 1);
+    carritoService.agregar(EMAIL, 2L, 3);
+
+    // Act
+    carritoService.descontar(EMAIL, comprado);
+    CarritoDTO carrito = carritoService.obtener(EMAIL);
+
+    // Assert
+    assertEquals(List.of(1L, 2L), carrito.lineas().stream().map(l -> l.productoId()).toList());
+    assertEquals(List.of(1, 3), carrito.lineas().stream().map(l -> l.cantidad()).toList());
+  }
+
+  @Test
+  @DisplayName("Should empty a cart that did not change after the checkout")
+  void descontar_UnchangedCart_ShouldEmptyIt() {
+    // Arrange
+    when(productoRepository.findById(1L)).thenReturn(Optional.of(teclado));
+    when(productoRepository.findAllById(List.of(1L))).thenReturn(List.of(teclado));
+    CarritoDTO comprado = carritoService.agregar(EMAIL, 1L, 2);
+
+    // Act
+    carritoService.descontar(EMAIL, comprado);
+
+    // Assert
+    assertTrue(carritoService.obtener(EMAIL).isEmpty());
+  }
+
+  @Test
+  @DisplayName("Should write a changed cart once and then leave it alone")
+  @SuppressWarnings("unchecked")
+  void escribirPendientes_ShouldWriteChangedCartOnce() {
+    // Arrange
+    doAnswer(invocation -> {
+      invocation.<Consumer<Object>>getArgument(0).accept(null);
+      return null;
+    }).when(transactionTemplate).executeWithoutResult(any());
+    when(productoRepository.findById(1L)).thenReturn(Optional.of(teclado));
+    when(productoRepository.findAllById(List.of(1L))).thenReturn(List.of(teclado));
+    carritoService.agregar(EMAIL, 1L, 2);
+
+    // Act
+    carritoService.escribirPendientes();
+    carritoService.escribirPendientes();
+
+    // Assert
+    verify(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), eq(USUARIO_ID));
+    verify(jdbcTemplate, times(1)).update(anyString(), eq(USUARIO_ID));
+    verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyList(), eq(1),
+        any(ParameterizedPreparedStatementSetter.class));
+  }
+
+  @Test
+  @DisplayName("Should keep a cart pending while the database is unreachable")
+  @SuppressWarnings("unchecked")
+  void escribirPendientes_WhenTransactionCannotStart_ShouldRetryLater() {
+    // Arrange
+    doThrow(new CannotCreateTransactionException("Connection refused"))
+        .doAnswer(invocation -> {
+          invocation.<Consumer<Object>>getArgument(0).accept(null);
+          return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    when(productoRepository.findById(1L)).thenReturn(Optional.of(teclado));
+    when(productoRepository.findAllById(List.of(1L))).thenReturn(List.of(teclado));
+    carritoService.agregar(EMAIL, 1L, 2);
+
+    // Act
+    carritoService.escribirPendientes();
+    carritoService.escribirPendientes();
+
+    // Assert
+    verify(transactionTemplate, times(2)).executeWithoutResult(any());
+    verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyList(), eq(1),
+        any(ParameterizedPreparedStatementSetter.class));
+  }
+
+  private Producto producto(Long id, String nombre, String precio) {
+    Producto producto = new Producto();
+    producto.setId(id);
+    producto.setNombre(nombre);
+    producto.setPrecio(new BigDecimal(precio));
+    producto.setActivo(true);
+    return producto;
+  }
+}
@@ -0,0 +1,148 @@
+package com.gplanet.commerce.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import com.gplanet.commerce.configs.CompraIdempotenciaProperties;
+import com.gplanet.commerce.dtos.compra.ResultadoCompraDTO;
+import com.gplanet.commerce.dtos.usuario.UsuarioResponseDTO;
+import com.gplanet.commerce.entities.Usuario;
+import com.gplanet.commerce.repositories.CompraRepository;
+
+public class CompraIdempotenciaServiceTest {
+
+  private static final String EMAIL = "ana@example.com";
+
+  private CompraRepository compraRepository;
+  private CompraIdempotenciaService compraIdempotenciaService;
+  private AtomicInteger compras;
+
+  @BeforeEach
+  void setUp() {
+    compraRepository = mock(CompraRepository.class);
+    UsuarioService usuarioService = mock(UsuarioService.class);
+    when(usuarioService.obtenerPerfil(anyString())).thenReturn(
+        new UsuarioResponseDTO(1L, "Ana", EMAIL, Usuario.Role.USER, LocalDateTime.now()));
+    compraIdempotenciaService = new CompraIdempotenciaService(
+        compraRepository, usuarioService, new CompraIdempotenciaProperties());
+    compras = new AtomicInteger();
+  }
+
+  private ResultadoCompraDTO comprar() {
+    compras.incrementAndGet();
+    return ResultadoCompraDTO.completada();
+  }
+
+  @Test
+  @DisplayName("Should replay the outcome of a repeated key without purchasing again")
+  void ejecutar_RepeatedKey_PurchasesOnce() {
+    ResultadoCompraDTO primero = compraIdempotenciaService.ejecutar(EMAIL, "k1", this::comprar);
+    ResultadoCompraDTO segundo = compraIdempotenciaService.ejecutar(EMAIL, "k1", this::comprar);
+
+    assertThat(segundo).isEqualTo(primero);
+    assertThat(compras).hasValue(1);
+  }
+
+  @Test
+  @DisplayName("Should let a rejected key be retried")
+  void ejecutar_RejectedCheckout_RunsRetry() {
+    ResultadoCompraDTO rechazo = compraIdempotenciaService.ejecutar(EMAIL, "k1",
+        () -> ResultadoCompraDTO.rechazada("Out of stock"));
+
+    ResultadoCompraDTO reintento = compraIdempotenciaService.ejecutar(EMAIL, "k1", this::comprar);
+    ResultadoCompraDTO repeticion = compraIdempotenciaService.ejecutar(EMAIL, "k1", this::comprar);
+
+    assertThat(rechazo.exitosa()).isFalse();
+    assertThat(reintento).isEqualTo(ResultadoCompraDTO.completada());
+    assertThat(repeticion).isEqualTo(reintento);
+    assertThat(compras).hasValue(1);
+  }
+
+  @Test
+  @DisplayName("Should keep keys of different users apart")
+  void ejecutar_SameKeyOtherUser_Purchases() {
+    compraIdempotenciaService.ejecutar(EMAIL, "k1", this::comprar);
+    compraIdempotenciaService.ejecutar("luis@example.com", "k1", this::comprar);
+
+    assertThat(compras).hasValue(2);
+  }
+
+  @Test
+  @DisplayName("Should not purchase when the database already has a purchase with the key")
+  void ejecutar_KeyInDatabase_ReturnsCompletedWithoutPurchasing() {
+    when(compraRepository.existsByUsuarioIdAndClaveIdempotencia(1L, "k1")).thenReturn(true);
+
+    ResultadoCompraDTO resultado = compraIdempotenciaService.ejecutar(EMAIL, "k1", this::comprar);
+
+    assertThat(resultado).isEqualTo(ResultadoCompraDTO.completada());
+    assertThat(compras).hasValue(0);
+  }
+
+  @Test
+  @DisplayName("Should treat a unique key violation as the purchase made by a concurrent request")
+  void ejecutar_UniqueKeyViolation_ReturnsCompleted() {
+    when(compraRepository.existsByUsuarioIdAndClaveIdempotencia(1L, "k1")).thenReturn(false, true);
+
+    ResultadoCompraDTO resultado = compraIdempotenciaService.ejecutar(EMAIL, "k1", () -> {
+      throw new DataIntegrityViolationException("uk_compras_usuario_clave");
+    });
+
+    assertThat(resultado).isEqualTo(ResultadoCompraDTO.completada());
+  }
+
+  @Test
+  @DisplayName("Should forget a checkout that threw, so that a retry runs it again")
+  void ejecutar_CheckoutThrew_RetryPurchases() {
+    assertThatThrownBy(() -> compraIdempotenciaService.ejecutar(EMAIL, "k1", () -> {
+      throw new IllegalStateException("database down");
+    })).isInstanceOf(IllegalStateException.class);
+
+    compraIdempotenciaService.ejecutar(EMAIL, "k1", this::comprar);
+
+    assertThat(compras).hasValue(1);
+  }
+
+  @Test
+  @DisplayName("Should make a concurrent repeat wait for the first checkout instead of purchasing")
+  void ejecutar_ConcurrentRepeat_WaitsForFirstCheckout() throws Exception {
+    CountDownLatch comprando = new CountDownLatch(1);
+    CountDownLatch terminar = new CountDownLatch(1);
+    ExecutorService pool = Executors.newFixedThreadPool(2);
+    try {
+      Future<ResultadoCompraDTO> primero = pool.submit(() -> compraIdempotenciaService.ejecutar(EMAIL, "k1", () -> {
+        comprando.countDown();
+        try {
+          terminar.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return comprar();
+      }));
+      comprando.await();
+      Future<ResultadoCompraDTO> segundo = pool.submit(
+          () -> compraIdempotenciaService.ejecutar(EMAIL, "k1", this::comprar));
+      terminar.countDown();
+
+      assertThat(segundo.get(5, TimeUnit.SECONDS)).isEqualTo(primero.get(5, TimeUnit.SECONDS));
+      assertThat(compras).hasValue(1);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,180 @@
+package com.gplanet.commerce.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import com.gplanet.commerce.configs.CompraIntakeProperties;
+import com.gplanet.commerce.dtos.compra.*;
+import com.gplanet.commerce.exceptions.PedidoQueueFullException;
+
+import java.util.List;
+import java.util.Map;
+
+@ExtendWith(MockitoExtension.class)
+public class CompraIntakeServiceTest {
+
+  private static final String EMAIL = "user@example.com";
+  private static final long WAIT_MILLIS = 5_000;
+
+  @Mock
+  private CompraService compraService;
+
+  private CompraIntakeProperties properties;
+  private CompraIntakeService compraIntakeService;
+  private CompraDTO compraDTO;
+
+  @BeforeEach
+  void setUp() {
+    properties = new CompraIntakeProperties();
+    properties.setEnabled(true);
+    compraDTO = new CompraDTO(List.of(new CompraProductoDTO(1L, 2)));
+
+    when(compraService.validarCompra(anyString(), eq(EMAIL), eq(compraDTO)))
+        .thenAnswer(invocation -> new PedidoPendiente(invocation.getArgument(0), EMAIL, 2L, Map.of(1L, 2)));
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (compraIntakeService != null) {
+      compraIntakeService.stop();
+    }
+  }
+
+  @Test
+  @DisplayName("Should write a queued order and report it as confirmed")
+  void enviar_ShouldQueueOrderAndConfirmItOnceWritten() throws InterruptedException {
+    // Arrange
+    when(compraService.registrarCompras(anyList())).thenAnswer(invocation -> {
+      List<PedidoPendiente> lote = invocation.getArgument(0);
+      return Map.of(lote.get(0).token(), 42L);
+    });
+    start();
+
+    // Act
+    PedidoEstadoDTO pendiente = compraIntakeService.enviar(EMAIL, compraDTO);
+
+    // Assert
+    assertEquals(PedidoStatus.PENDING, pendiente.status());
+    PedidoEstadoDTO estado = awaitFinal(pendiente.token());
+    assertEquals(PedidoStatus.CONFIRMED, estado.status());
+    assertEquals(42L, estado.compraId());
+  }
+
+  @Test
+  @DisplayName("Should retry a failed batch order by order and reject the ones that still fail")
+  void enviar_WhenWriteFails_ShouldRejectOrder() throws InterruptedException {
+    // Arrange
+    when(compraService.registrarCompras(anyList()))
+        .thenThrow(new DataIntegrityViolationException("constraint"));
+    start();
+
+    // Act
+    PedidoEstadoDTO pendiente = compraIntakeService.enviar(EMAIL, compraDTO);
+
+    // Assert
+    assertEquals(PedidoStatus.REJECTED, awaitFinal(pendiente.token()).status());
+  }
+
+  @Test
+  @DisplayName("Should reject an order that fails unexpectedly and keep writing the next ones")
+  void enviar_WhenWriteFailsUnexpectedly_ShouldRejectOrderAndKeepWriter() throws InterruptedException {
+    // Arrange
+    properties.setWorkers(1);
+    when(compraService.registrarCompras(anyList()))
+        .thenThrow(new ArithmeticException("long overflow"))
+        .thenThrow(new ArithmeticException("long overflow"))
+        .thenAnswer(invocation -> {
+          List<PedidoPendiente> lote = invocation.getArgument(0);
+          return Map.of(lote.get(0).token(), 43L);
+        });
+    start();
+
+    // Act
+    PedidoEstadoDTO rechazado = compraIntakeService.enviar(EMAIL, compraDTO);
+    PedidoStatus primero = awaitFinal(rechazado.token()).status();
+    PedidoEstadoDTO siguiente = compraIntakeService.enviar(EMAIL, compraDTO);
+
+    // Assert
+    assertEquals(PedidoStatus.REJECTED, primero);
+    assertEquals(PedidoStatus.CONFIRMED, awaitFinal(siguiente.token()).status());
+  }
+
+  @Test
+  @DisplayName("Should run the confirmation action of confirmed orders only")
+  void enviar_WithConfirmationAction_ShouldRunItOnlyOnceConfirmed() throws InterruptedException {
+    // Arrange
+    properties.setWorkers(1);
+    when(compraService.registrarCompras(anyList()))
+        .thenThrow(new DataIntegrityViolationException("constraint"))
+        .thenThrow(new DataIntegrityViolationException("constraint"))
+        .thenAnswer(invocation -> {
+          List<PedidoPendiente> lote = invocation.getArgument(0);
+          return Map.of(lote.get(0).token(), 44L);
+        });
+    Runnable rechazada = mock(Runnable.class);
+    Runnable confirmada = mock(Runnable.class);
+    start();
+
+    // Act
+    PedidoEstadoDTO rechazado = compraIntakeService.enviar(EMAIL, compraDTO, rechazada);
+    awaitFinal(rechazado.token());
+    PedidoEstadoDTO confirmado = compraIntakeService.enviar(EMAIL, compraDTO, confirmada);
+    awaitFinal(confirmado.token());
+
+    // Assert
+    verify(rechazada, never()).run();
+    verify(confirmada).run();
+  }
+
+  @Test
+  @DisplayName("Should reject orders once the queue is full")
+  void enviar_WhenQueueIsFull_ShouldThrowException() {
+    // Arrange
+    properties.setQueueCapacity(1);
+    properties.setWorkers(0);
+    start();
+    PedidoEstadoDTO aceptado = compraIntakeService.enviar(EMAIL, compraDTO);
+
+    // Act & Assert
+    assertThrows(PedidoQueueFullException.class, () -> compraIntakeService.enviar(EMAIL, compraDTO));
+    assertTrue(compraIntakeService.estado(EMAIL, aceptado.token()).isPresent());
+  }
+
+  @Test
+  @DisplayName("Should not show an order to another user")
+  void estado_OtherUser_ShouldReturnEmpty() {
+    // Arrange
+    properties.setWorkers(0);
+    start();
+    PedidoEstadoDTO aceptado = compraIntakeService.enviar(EMAIL, compraDTO);
+
+    // Act & Assert
+    assertTrue(compraIntakeService.estado("other@example.com", aceptado.token()).isEmpty());
+    assertTrue(compraIntakeService.estado(EMAIL, null).isEmpty());
+  }
+
+  private void start() {
+    compraIntakeService = new CompraIntakeService(compraService, properties);
+    compraIntakeService.start();
+  }
+
+  private PedidoEstadoDTO awaitFinal(String token) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+    PedidoEstadoDTO estado = compraIntakeService.estado(EMAIL, token).orElseThrow();
+    while (estado.status() == PedidoStatus.PENDING && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+      estado = compraIntakeService.estado(EMAIL, token).orElseThrow();
+    }
+    return estado;
+  }
+}
@@ -4,26 +4,33 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.*;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
+import com.gplanet.commerce.configs.CountCacheProperties;
 import com.gplanet.commerce.dtos.compra.*;
+import com.gplanet.commerce.dtos.usuario.UsuarioResponseDTO;
 import com.gplanet.commerce.entities.*;
 import com.gplanet.commerce.exceptions.ResourceNotFoundException;
+import com.gplanet.commerce.exceptions.StockInsuficienteException;
 import com.gplanet.commerce.repositories.*;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
 
 @ExtendWith(MockitoExtension.class)
 public class CompraServiceTest {
@@ -40,6 +47,21 @@ public class CompraServiceTest {
   @Mock
   private UsuarioRepository usuarioRepository;
 
+  @Mock
+  private UsuarioService usuarioService;
+
+  @Mock
+  private EstadisticaVentasService estadisticaVentasService;
+
+  @Mock
+  private StockService stockService;
+
+  @Spy
+  private CompraMetrics compraMetrics = new CompraMetrics(new SimpleMeterRegistry());
+
+  @Spy
+  private CountCacheService countCacheService = new CountCacheService(new CountCacheProperties());
+
   @InjectMocks
   private CompraService compraService;
 
@@ -117,6 +139,11 @@ public class CompraServiceTest {
         Arrays.asList(productoResponseDTO1, productoResponseDTO2));
   }
 
+  private UsuarioResponseDTO perfil(Usuario usuario) {
+    return new UsuarioResponseDTO(
+        usuario.getId(), usuario.getNombre(), usuario.getEmail(), usuario.getRol(), LocalDateTime.now());
+  }
+
   @Test
   @DisplayName("Should list all purchases when user is admin")
   void listarCompras_AdminUser_ShouldReturnAllPurchases() {
@@ -128,10 +155,11 @@ public class CompraServiceTest {
     String direction = "DESC";
 
     Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, sort));
-    Page<Compra> comprasPage = new PageImpl<>(List.of(compra));
+    Slice<Long> idsPage = new SliceImpl<>(List.of(1L), pageable, false);
 
-    when(usuarioRepository.findByEmail(email)).thenReturn(Optional.of(adminUser));
-    when(compraRepository.findAll(pageable)).thenReturn(comprasPage);
+    when(usuarioService.obtenerPerfil(email)).thenReturn(perfil(adminUser));
+    when(compraRepository.findSliceIds(pageable)).thenReturn(idsPage);
+    when(compraRepository.findAllWithDetailsByIdIn(List.of(1L))).thenReturn(List.of(compra));
     when(compraMapper.toCompraResponseDTO(compra)).thenReturn(compraResponseDTO);
 
     // Act
@@ -142,8 +170,8 @@ public class CompraServiceTest {
     assertEquals(1, result.getTotalElements());
     assertEquals(compraResponseDTO, result.getContent().get(0));
 
-    verify(compraRepository).findAll(pageable);
-    verify(compraRepository, never()).findByUsuario(any(), any());
+    verify(compraRepository).findSliceIds(pageable);
+    verify(compraRepository, never()).findSliceIdsByUsuarioId(any(), any());
   }
 
   @Test
@@ -157,10 +185,11 @@ public class CompraServiceTest {
     String direction = "ASC";
 
     Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.ASC, sort));
-    Page<Compra> comprasPage = new PageImpl<>(List.of(compra));
+    Slice<Long> idsPage = new SliceImpl<>(List.of(1L), pageable, false);
 
-    when(usuarioRepository.findByEmail(email)).thenReturn(Optional.of(regularUser));
-    when(compraRepository.findByUsuario(regularUser, pageable)).thenReturn(comprasPage);
+    when(usuarioService.obtenerPerfil(email)).thenReturn(perfil(regularUser));
+    when(compraRepository.findSliceIdsByUsuarioId(regularUser.getId(), pageable)).thenReturn(idsPage);
+    when(compraRepository.findAllWithDetailsByIdIn(List.of(1L))).thenReturn(List.of(compra));
     when(compraMapper.toCompraResponseDTO(compra)).thenReturn(compraResponseDTO);
 
     // Act
@@ -171,8 +200,54 @@ public class CompraServiceTest {
     assertEquals(1, result.getTotalElements());
     assertEquals(compraResponseDTO, result.getContent().get(0));
 
-    verify(compraRepository, never()).findAll(any(Pageable.class));
-    verify(compraRepository).findByUsuario(regularUser, pageable);
+    verify(compraRepository, never()).findSliceIds(any(Pageable.class));
+    verify(compraRepository).findSliceIdsByUsuarioId(regularUser.getId(), pageable);
+  }
+
+  @Test
+  @DisplayName("Should keep the page order of the IDs when loading purchase details")
+  void listarCompras_ShouldKeepIdOrder() {
+    // Arrange
+    String email = "admin@example.com";
+    Pageable pageable = PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "fecha"));
+
+    Compra older = new Compra();
+    older.setId(2L);
+    CompraResponseDTO olderDTO = new CompraResponseDTO(
+        2L, "Regular User", LocalDateTime.now().minusDays(1), BigDecimal.ZERO, List.of());
+
+    when(usuarioService.obtenerPerfil(email)).thenReturn(perfil(adminUser));
+    when(compraRepository.findSliceIds(pageable)).thenReturn(new SliceImpl<>(List.of(1L, 2L), pageable, false));
+    when(compraRepository.findAllWithDetailsByIdIn(List.of(1L, 2L))).thenReturn(List.of(older, compra));
+    when(compraMapper.toCompraResponseDTO(compra)).thenReturn(compraResponseDTO);
+    when(compraMapper.toCompraResponseDTO(older)).thenReturn(olderDTO);
+
+    // Act
+    Page<CompraResponseDTO> result = compraService.listarCompras(email, 0, 10, "fecha", "DESC");
+
+    // Assert
+    assertEquals(List.of(compraResponseDTO, olderDTO), result.getContent());
+  }
+
+  @Test
+  @DisplayName("Should not load purchase details for an empty page")
+  void listarCompras_EmptyPage_ShouldSkipDetailsQuery() {
+    // Arrange
+    String email = "user@example.com";
+    Pageable pageable = PageRequest.of(3, 10, Sort.by(Sort.Direction.DESC, "fecha"));
+
+    when(usuarioService.obtenerPerfil(email)).thenReturn(perfil(regularUser));
+    when(compraRepository.findSliceIdsByUsuarioId(regularUser.getId(), pageable))
+        .thenReturn(new SliceImpl<>(List.of(), pageable, false));
+    when(compraRepository.countByUsuarioIdUpTo(eq(regularUser.getId()), anyInt())).thenReturn(5L);
+
+    // Act
+    Page<CompraResponseDTO> result = compraService.listarCompras(email, 3, 10, "fecha", "DESC");
+
+    // Assert
+    assertTrue(result.getContent().isEmpty());
+    assertEquals(5, result.getTotalElements());
+    verify(compraRepository, never()).findAllWithDetailsByIdIn(any());
   }
 
   @Test
@@ -181,7 +256,7 @@ public class CompraServiceTest {
     // Arrange
     String email = "nonexistent@example.com";
 
-    when(usuarioRepository.findByEmail(email)).thenReturn(Optional.empty());
+    when(usuarioService.obtenerPerfil(email)).thenThrow(new UsernameNotFoundException("Usuario no encontrado"));
 
     // Act & Assert
     assertThrows(UsernameNotFoundException.class, () -> compraService.listarCompras(email, 0, 10, "fecha", "DESC"));
@@ -193,9 +268,9 @@ public class CompraServiceTest {
     // Arrange
     String email = "user@example.com";
 
-    when(usuarioRepository.findByEmail(email)).thenReturn(Optional.of(regularUser));
-    when(productoRepository.findById(1L)).thenReturn(Optional.of(producto1));
-    when(productoRepository.findById(2L)).thenReturn(Optional.of(producto2));
+    when(usuarioService.obtenerPerfil(email)).thenReturn(perfil(regularUser));
+    when(usuarioRepository.getReferenceById(regularUser.getId())).thenReturn(regularUser);
+    when(productoRepository.findAllById(anyCollection())).thenReturn(List.of(producto1, producto2));
     when(compraRepository.save(any(Compra.class))).thenAnswer(invocation -> {
       Compra savedCompra = invocation.getArgument(0);
       savedCompra.setId(1L);
@@ -229,6 +304,30 @@ public class CompraServiceTest {
 
       return hasProduct1 && hasProduct2;
     }));
+    verify(stockService).reservar(Map.of(1L, 2, 2L, 1));
+    verify(estadisticaVentasService).registrar(argThat(compras -> compras.size() == 1), any());
+    verify(compraMetrics).registrar(anyCollection(), eq(CompraMetrics.DIRECTA));
+    verify(usuarioRepository, never()).findByEmail(any());
+  }
+
+  @Test
+  @DisplayName("Should not write a purchase when a product is out of stock")
+  void realizarCompra_OutOfStock_ShouldNotSavePurchase() {
+    // Arrange
+    String email = "user@example.com";
+
+    when(usuarioService.obtenerPerfil(email)).thenReturn(perfil(regularUser));
+    when(usuarioRepository.getReferenceById(regularUser.getId())).thenReturn(regularUser);
+    when(productoRepository.findAllById(anyCollection())).thenReturn(List.of(producto1, producto2));
+    doThrow(new StockInsuficienteException(List.of(2L))).when(stockService).reservar(anyMap());
+
+    // Act & Assert
+    StockInsuficienteException exception = assertThrows(StockInsuficienteException.class,
+        () -> compraService.realizarCompra(email, compraDTO));
+    assertEquals(List.of(2L), exception.getProductoIds());
+
+    verify(compraRepository, never()).save(any());
+    verifyNoInteractions(estadisticaVentasService);
   }
 
   @Test
@@ -237,12 +336,13 @@ public class CompraServiceTest {
     // Arrange
     String email = "nonexistent@example.com";
 
-    when(usuarioRepository.findByEmail(email)).thenReturn(Optional.empty());
+    when(usuarioService.obtenerPerfil(email)).thenThrow(new UsernameNotFoundException("Usuario no encontrado"));
 
     // Act & Assert
     assertThrows(UsernameNotFoundException.class, () -> compraService.realizarCompra(email, compraDTO));
 
     verify(compraRepository, never()).save(any());
+    verifyNoInteractions(estadisticaVentasService);
   }
 
   @Test
@@ -251,14 +351,16 @@ public class CompraServiceTest {
     // Arrange
     String email = "user@example.com";
 
-    when(usuarioRepository.findByEmail(email)).thenReturn(Optional.of(regularUser));
-    when(productoRepository.findById(1L)).thenReturn(Optional.of(producto1));
-    when(productoRepository.findById(2L)).thenReturn(Optional.empty());
+    when(usuarioService.obtenerPerfil(email)).thenReturn(perfil(regularUser));
+    when(productoRepository.findAllById(anyCollection())).thenReturn(List.of(producto1));
 
     // Act & Assert
-    assertThrows(ResourceNotFoundException.class, () -> compraService.realizarCompra(email, compraDTO));
+    ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class,
+        () -> compraService.realizarCompra(email, compraDTO));
+    assertTrue(exception.getMessage().contains("[2]"));
 
     verify(compraRepository, never()).save(any());
+    verifyNoInteractions(stockService);
   }
 
   @Test
@@ -272,9 +374,9 @@ public class CompraServiceTest {
         new CompraProductoDTO(1L, 3),
         new CompraProductoDTO(2L, 2)));
 
-    when(usuarioRepository.findByEmail(email)).thenReturn(Optional.of(regularUser));
-    when(productoRepository.findById(1L)).thenReturn(Optional.of(producto1));
-    when(productoRepository.findById(2L)).thenReturn(Optional.of(producto2));
+    when(usuarioService.obtenerPerfil(email)).thenReturn(perfil(regularUser));
+    when(usuarioRepository.getReferenceById(regularUser.getId())).thenReturn(regularUser);
+    when(productoRepository.findAllById(anyCollection())).thenReturn(List.of(producto1, producto2));
     when(compraRepository.save(any(Compra.class))).thenAnswer(invocation -> {
       Compra savedCompra = invocation.getArgument(0);
       savedCompra.setId(1L);
@@ -300,9 +402,9 @@ public class CompraServiceTest {
     // Arrange
     String email = "user@example.com";
 
-    when(usuarioRepository.findByEmail(email)).thenReturn(Optional.of(regularUser));
-    when(productoRepository.findById(1L)).thenReturn(Optional.of(producto1));
-    when(productoRepository.findById(2L)).thenReturn(Optional.of(producto2));
+    when(usuarioService.obtenerPerfil(email)).thenReturn(perfil(regularUser));
+    when(usuarioRepository.getReferenceById(regularUser.getId())).thenReturn(regularUser);
+    when(productoRepository.findAllById(anyCollection())).thenReturn(List.of(producto1, producto2));
     when(compraRepository.save(any(Compra.class))).thenAnswer(invocation -> {
       Compra savedCompra = invocation.getArgument(0);
       savedCompra.setId(1L);
@@ -324,9 +426,159 @@ public class CompraServiceTest {
         BigDecimal expectedSubtotal = cp.getProducto().getPrecio()
             .multiply(BigDecimal.valueOf(cp.getCantidad()));
         assertEquals(expectedSubtotal, cp.getSubtotal());
+
+        // Verify the line keeps the name and price the product had
+        assertEquals(cp.getProducto().getNombre(), cp.getProductoNombre());
+        assertEquals(cp.getProducto().getPrecio(), cp.getPrecioUnitario());
       }
 
       return true;
     }));
   }
-}
\ No newline at end of file
+
+  @Test
+  @DisplayName("Should resolve all products with a single batch query")
+  void realizarCompra_ShouldLoadProductsInOneQuery() {
+    // Arrange
+    String email = "user@example.com";
+
+    when(usuarioService.obtenerPerfil(email)).thenReturn(perfil(regularUser));
+    when(usuarioRepository.getReferenceById(regularUser.getId())).thenReturn(regularUser);
+    when(productoRepository.findAllById(anyCollection())).thenReturn(List.of(producto1, producto2));
+    when(compraRepository.save(any(Compra.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+    // Act
+    compraService.realizarCompra(email, compraDTO);
+
+    // Assert
+    verify(productoRepository).findAllById(argThat(ids -> List.of(1L, 2L).equals(List.copyOf((Collection<Long>) ids))));
+    verify(productoRepository, never()).findById(anyLong());
+  }
+
+  @Test
+  @DisplayName("Should merge duplicate product lines into a single line")
+  void realizarCompra_DuplicateLines_ShouldMergeQuantities() {
+    // Arrange
+    String email = "user@example.com";
+
+    CompraDTO purchaseDto = new CompraDTO(Arrays.asList(
+        new CompraProductoDTO(1L, 2),
+        new CompraProductoDTO(2L, 1),
+        new CompraProductoDTO(1L, 3)));
+
+    when(usuarioService.obtenerPerfil(email)).thenReturn(perfil(regularUser));
+    when(usuarioRepository.getReferenceById(regularUser.getId())).thenReturn(regularUser);
+    when(productoRepository.findAllById(anyCollection())).thenReturn(List.of(producto1, producto2));
+    when(compraRepository.save(any(Compra.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+    // Act
+    compraService.realizarCompra(email, purchaseDto);
+
+    // Assert
+    verify(compraRepository).save(argThat(savedCompra -> {
+      // Expected total: (5 * 10.00) + (1 * 20.00) = 70.00
+      assertEquals(new BigDecimal("70.00"), savedCompra.getTotal());
+      assertEquals(2, savedCompra.getProductos().size());
+
+      CompraProducto merged = savedCompra.getProductos().get(0);
+      assertEquals(1L, merged.getProducto().getId());
+      assertEquals(5, merged.getCantidad());
+      assertEquals(new BigDecimal("50.00"), merged.getSubtotal());
+
+      return true;
+    }));
+  }
+
+  @Test
+  @DisplayName("Should validate an order without writing it")
+  void validarCompra_ValidOrder_ShouldReturnPendingOrderWithoutSaving() {
+    // Arrange
+    String email = "user@example.com";
+    CompraDTO purchaseDto = new CompraDTO(Arrays.asList(
+        new CompraProductoDTO(1L, 2),
+        new CompraProductoDTO(1L, 1)));
+
+    when(usuarioService.obtenerPerfil(email)).thenReturn(perfil(regularUser));
+    when(productoRepository.findAllById(anyCollection())).thenReturn(List.of(producto1));
+
+    // Act
+    PedidoPendiente pedido = compraService.validarCompra("token-1", email, purchaseDto);
+
+    // Assert
+    assertEquals("token-1", pedido.token());
+    assertEquals(regularUser.getId(), pedido.usuarioId());
+    assertEquals(Map.of(1L, 3), pedido.cantidades());
+    verify(compraRepository, never()).save(any());
+  }
+
+  @Test
+  @DisplayName("Should reject an order for missing products before queueing it")
+  void validarCompra_ProductNotFound_ShouldThrowException() {
+    // Arrange
+    String email = "user@example.com";
+
+    when(usuarioService.obtenerPerfil(email)).thenReturn(perfil(regularUser));
+    when(productoRepository.findAllById(anyCollection())).thenReturn(List.of(producto1));
+
+    // Act & Assert
+    assertThrows(ResourceNotFoundException.class,
+        () -> compraService.validarCompra("token-1", email, compraDTO));
+  }
+
+  @Test
+  @DisplayName("Should write queued orders together, skipping those whose products disappeared")
+  void registrarCompras_ShouldSaveValidOrdersInOneCall() {
+    // Arrange
+    PedidoPendiente valido = new PedidoPendiente("a", "user@example.com", 2L, Map.of(1L, 2, 2L, 1));
+    PedidoPendiente otro = new PedidoPendiente("b", "user@example.com", 2L, Map.of(2L, 3));
+    PedidoPendiente huerfano = new PedidoPendiente("c", "user@example.com", 2L, Map.of(3L, 1));
+
+    when(usuarioRepository.getReferenceById(2L)).thenReturn(regularUser);
+    when(productoRepository.findAllById(anyCollection())).thenReturn(List.of(producto1, producto2));
+    when(compraRepository.saveAll(anyCollection())).thenAnswer(invocation -> {
+      long id = 10L;
+      for (Compra saved : (Collection<Compra>) invocation.getArgument(0)) {
+        saved.setId(id++);
+      }
+      return List.copyOf((Collection<Compra>) invocation.getArgument(0));
+    });
+
+    // Act
+    Map<String, Long> compraIds = compraService.registrarCompras(List.of(valido, otro, huerfano));
+
+    // Assert
+    assertEquals(Map.of("a", 10L, "b", 11L), compraIds);
+    verify(productoRepository).findAllById(argThat(ids -> Set.copyOf((Collection<Long>) ids)
+        .equals(Set.of(1L, 2L, 3L))));
+    verify(compraRepository).saveAll(argThat((Collection<Compra> compras) -> {
+      assertEquals(2, compras.size());
+      assertEquals(new BigDecimal("40.00"), compras.iterator().next().getTotal());
+      return true;
+    }));
+  }
+
+  @Test
+  @DisplayName("Should skip queued orders whose products are out of stock")
+  void registrarCompras_OutOfStock_ShouldSkipRejectedOrders() {
+    // Arrange
+    PedidoPendiente primero = new PedidoPendiente("a", "user@example.com", 2L, Map.of(1L, 2));
+    PedidoPendiente agotado = new PedidoPendiente("b", "user@example.com", 2L, Map.of(1L, 5));
+
+    when(usuarioRepository.getReferenceById(2L)).thenReturn(regularUser);
+    when(productoRepository.findAllById(anyCollection())).thenReturn(List.of(producto1));
+    when(stockService.reservarPedidos(anyMap())).thenReturn(Set.of("b"));
+    when(compraRepository.saveAll(anyCollection())).thenAnswer(invocation -> {
+      for (Compra saved : (Collection<Compra>) invocation.getArgument(0)) {
+        saved.setId(10L);
+      }
+      return List.copyOf((Collection<Compra>) invocation.getArgument(0));
+    });
+
+    // Act
+    Map<String, Long> compraIds = compraService.registrarCompras(List.of(primero, agotado));
+
+    // Assert
+    assertEquals(Map.of("a", 10L), compraIds);
+    verify(stockService).reservarPedidos(Map.of("a", Map.of(1L, 2), "b", Map.of(1L, 5)));
+  }
+}
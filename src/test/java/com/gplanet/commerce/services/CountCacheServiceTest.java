@@ -0,0 +1,124 @@
+package com.gplanet.commerce.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntToLongFunction;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+
+import com.gplanet.commerce.configs.CountCacheProperties;
+import com.gplanet.commerce.dtos.pagination.PaginatedResponse;
+
+public class CountCacheServiceTest {
+
+  private CountCacheProperties properties;
+  private CountCacheService countCacheService;
+  private AtomicInteger counts;
+
+  @BeforeEach
+  void setUp() {
+    properties = new CountCacheProperties();
+    countCacheService = new CountCacheService(properties);
+    counts = new AtomicInteger();
+  }
+
+  private IntToLongFunction counter(long rows) {
+    return limit -> {
+      counts.incrementAndGet();
+      return Math.min(rows, limit);
+    };
+  }
+
+  private Page<String> firstPage(long rows) {
+    SliceImpl<String> slice = new SliceImpl<>(List.of("a", "b"), PageRequest.of(0, 2), true);
+    return countCacheService.toPage(slice, CountCacheService.PRODUCTOS, "ALL|null", counter(rows));
+  }
+
+  @Test
+  @DisplayName("Should reuse a cached total while it has not expired")
+  void toPage_WithinTtl_CountsOnce() {
+    assertThat(firstPage(7).getTotalElements()).isEqualTo(7);
+    assertThat(firstPage(7).getTotalElements()).isEqualTo(7);
+    assertThat(counts).hasValue(1);
+  }
+
+  @Test
+  @DisplayName("Should count again once the cached total expires")
+  void toPage_ExpiredEntry_CountsAgain() {
+    properties.setTtl(Duration.ZERO);
+
+    firstPage(7);
+    firstPage(7);
+
+    assertThat(counts).hasValue(2);
+  }
+
+  @Test
+  @DisplayName("Should count again after the region is invalidated")
+  void invalidate_DropsCachedTotals() {
+    firstPage(7);
+    countCacheService.invalidate(CountCacheService.PRODUCTOS);
+    countCacheService.invalidate(CountCacheService.COMPRAS);
+
+    assertThat(firstPage(8).getTotalElements()).isEqualTo(8);
+    assertThat(counts).hasValue(2);
+  }
+
+  @Test
+  @DisplayName("Should report an estimate when the total exceeds the count limit")
+  void toPage_LargeListing_ReportsEstimate() {
+    properties.setMaxExactCount(5);
+
+    Page<String> page = firstPage(1_000);
+
+    assertThat(page.getTotalElements()).isEqualTo(5);
+    assertThat(PaginatedResponse.fromPage(page).isTotalEstimated()).isTrue();
+  }
+
+  @Test
+  @DisplayName("Should take the exact total from the last page without counting")
+  void toPage_LastPage_SkipsCount() {
+    SliceImpl<String> slice = new SliceImpl<>(List.of("e"), PageRequest.of(2, 2), false);
+
+    Page<String> page = countCacheService.toPage(slice, CountCacheService.USUARIOS, "all", counter(99));
+
+    assertThat(page.getTotalElements()).isEqualTo(5);
+    assertThat(page.getTotalPages()).isEqualTo(3);
+    assertThat(PaginatedResponse.fromPage(page).isTotalEstimated()).isFalse();
+    assertThat(counts).hasValue(0);
+  }
+
+  @Test
+  @DisplayName("Should never report fewer rows than the page proves to exist")
+  void toPage_StaleTotal_RaisesToVisibleRows() {
+    SliceImpl<String> slice = new SliceImpl<>(List.of("c", "d"), PageRequest.of(1, 2), true);
+
+    Page<String> page = countCacheService.toPage(slice, CountCacheService.USUARIOS, "all", counter(3));
+
+    assertThat(page.getTotalElements()).isEqualTo(5);
+    assertThat(page.hasNext()).isTrue();
+  }
+
+  @Test
+  @DisplayName("Should not cache a total counted while the data was changing")
+  void count_InvalidatedWhileCounting_DoesNotCache() {
+    IntToLongFunction racingCounter = limit -> {
+      counts.incrementAndGet();
+      countCacheService.invalidate(CountCacheService.COMPRAS);
+      return 4;
+    };
+
+    countCacheService.count(CountCacheService.COMPRAS, "all", racingCounter);
+    countCacheService.count(CountCacheService.COMPRAS, "all", racingCounter);
+
+    assertThat(counts).hasValue(2);
+  }
+}
@@ -0,0 +1,61 @@
+package com.gplanet.commerce.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.gplanet.commerce.configs.FragmentCacheProperties;
+import com.gplanet.commerce.dtos.producto.ProductStatus;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class FragmentCacheServiceTest {
+
+  private static final String TEMPLATE = "productos/user-grid :: user-grid";
+
+  private CatalogVersionService catalogVersionService;
+  private FragmentCacheService fragmentCacheService;
+
+  @BeforeEach
+  void setUp() {
+    catalogVersionService = new CatalogVersionService();
+    fragmentCacheService = new FragmentCacheService(catalogVersionService, new FragmentCacheProperties(),
+        new SimpleMeterRegistry());
+  }
+
+  private FragmentCacheService.Key key(String search) {
+    return fragmentCacheService.key(TEMPLATE, ProductStatus.ACTIVE, search, "0", "10", "nombre", "ASC");
+  }
+
+  @Test
+  @DisplayName("Should return a stored fragment for the same listing parameters")
+  void get_SameParameters_ShouldReturnStoredFragment() {
+    fragmentCacheService.put(key(""), "<div>grid</div>");
+
+    assertThat(fragmentCacheService.get(key(""))).contains("<div>grid</div>");
+    assertThat(fragmentCacheService.get(key("camiseta"))).isEmpty();
+  }
+
+  @Test
+  @DisplayName("Should not return fragments rendered before the catalog changed")
+  void get_AfterCatalogChange_ShouldReturnEmpty() {
+    fragmentCacheService.put(key(""), "<div>grid</div>");
+
+    catalogVersionService.bump();
+
+    assertThat(fragmentCacheService.get(key(""))).isEmpty();
+  }
+
+  @Test
+  @DisplayName("Should not store a fragment when the catalog changed while it was rendered")
+  void put_CatalogChangedDuringRendering_ShouldNotStore() {
+    FragmentCacheService.Key key = key("");
+
+    catalogVersionService.bump();
+    fragmentCacheService.put(key, "<div>stale</div>");
+
+    assertThat(fragmentCacheService.get(key)).isEmpty();
+  }
+}
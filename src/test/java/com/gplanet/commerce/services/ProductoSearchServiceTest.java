@@ -0,0 +1,188 @@
+package com.gplanet.commerce.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import com.gplanet.commerce.dtos.producto.ProductStatus;
+import com.gplanet.commerce.dtos.producto.ProductoMapper;
+import com.gplanet.commerce.dtos.producto.ProductoResponseDTO;
+import com.gplanet.commerce.entities.Producto;
+import com.gplanet.commerce.events.ProductoChangedEvent;
+import com.gplanet.commerce.repositories.ProductoRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class ProductoSearchServiceTest {
+
+  @Mock
+  private ProductoRepository productoRepository;
+
+  @Mock
+  private ProductoMapper productoMapper;
+
+  @InjectMocks
+  private ProductoSearchService productoSearchService;
+
+  private LocalDateTime now;
+
+  @BeforeEach
+  void setUp() {
+    now = LocalDateTime.now();
+    productoSearchService.index(producto(1L, "Camiseta Básica", "Algodón orgánico", "19.99", true));
+    productoSearchService.index(producto(2L, "Pantalón Vaquero", "Corte recto de algodón", "49.99", true));
+    productoSearchService.index(producto(3L, "Camisa de Lino", "Algodón y lino para el verano", "39.99", false));
+  }
+
+  private ProductoResponseDTO producto(Long id, String nombre, String descripcion, String precio, boolean activo) {
+    return new ProductoResponseDTO(id, nombre, descripcion, new BigDecimal(precio), now.plusMinutes(id), activo, null);
+  }
+
+  private List<Long> search(ProductStatus status, String text, Sort sort) {
+    return productoSearchService.search(status, text, PageRequest.of(0, 10, sort)).getContent();
+  }
+
+  @Test
+  @DisplayName("Should match accent-insensitive words in name and description")
+  void search_AccentInsensitive_MatchesNameAndDescription() {
+    assertThat(search(ProductStatus.ALL, "ALGODON", Sort.by("nombre"))).containsExactly(3L, 1L, 2L);
+    assertThat(search(ProductStatus.ALL, "pantalon", Sort.by("nombre"))).containsExactly(2L);
+  }
+
+  @Test
+  @DisplayName("Should match word prefixes so partial input finds products")
+  void search_Prefix_MatchesWhileTyping() {
+    assertThat(search(ProductStatus.ALL, "cami", Sort.by("nombre"))).containsExactly(3L, 1L);
+  }
+
+  @Test
+  @DisplayName("Should require every search word to match")
+  void search_MultipleWords_IntersectsMatches() {
+    assertThat(search(ProductStatus.ALL, "algodón recto", Sort.by("nombre"))).containsExactly(2L);
+    assertThat(search(ProductStatus.ALL, "recto lino", Sort.by("nombre"))).isEmpty();
+  }
+
+  @Test
+  @DisplayName("Should filter results by product status")
+  void search_Status_FiltersActiveAndInactive() {
+    assertThat(search(ProductStatus.ACTIVE, "cami", Sort.by("nombre"))).containsExactly(1L);
+    assertThat(search(ProductStatus.INACTIVE, "cami", Sort.by("nombre"))).containsExactly(3L);
+  }
+
+  @Test
+  @DisplayName("Should rank name matches above description matches")
+  void search_RelevanceSort_RanksNameMatchesFirst() {
+    productoSearchService.index(producto(4L, "Sudadera", "Con capucha, combina con tu camiseta", "29.99", true));
+
+    assertThat(search(ProductStatus.ALL, "camiseta", Sort.by(ProductoSearchService.RELEVANCE_SORT)))
+        .containsExactly(1L, 4L);
+  }
+
+  @Test
+  @DisplayName("Should honour the requested sort field and direction")
+  void search_PriceDescending_OrdersByPrice() {
+    assertThat(search(ProductStatus.ALL, "a", Sort.by(Sort.Direction.DESC, "precio")))
+        .containsExactly(2L, 3L, 1L);
+  }
+
+  @Test
+  @DisplayName("Should paginate results and report the total number of matches")
+  void search_SecondPage_ReturnsRemainingIds() {
+    Page<Long> result = productoSearchService.search(
+        ProductStatus.ALL, "a", PageRequest.of(1, 2, Sort.by("precio")));
+
+    assertThat(result.getContent()).containsExactly(2L);
+    assertThat(result.getTotalElements()).isEqualTo(3);
+  }
+
+  @Test
+  @DisplayName("Should replace the previous entry when a product changes")
+  void onProductoChanged_UpdatedProduct_ReplacesOldTokens() {
+    productoSearchService.onProductoChanged(
+        new ProductoChangedEvent(producto(2L, "Chaqueta Vaquera", "Denim", "59.99", true)));
+
+    assertThat(search(ProductStatus.ALL, "pantalon", Sort.by("nombre"))).isEmpty();
+    assertThat(search(ProductStatus.ALL, "chaqueta", Sort.by("nombre"))).containsExactly(2L);
+  }
+
+  @Test
+  @DisplayName("Should suggest active product names by accent-insensitive word prefix")
+  void sugerir_Prefix_SuggestsActiveNames() {
+    assertThat(productoSearchService.sugerir("CAMÍ")).containsExactly("Camiseta Básica");
+    assertThat(productoSearchService.sugerir("vaq")).containsExactly("Pantalón Vaquero");
+    assertThat(productoSearchService.sugerir("basica  cam")).isEmpty();
+    assertThat(productoSearchService.sugerir("  ")).isEmpty();
+  }
+
+  @Test
+  @DisplayName("Should suggest names in name order and cap the number of suggestions")
+  void sugerir_ManyMatches_ReturnsFirstNamesInOrder() {
+    for (long id = 10; id < 25; id++) {
+      productoSearchService.index(producto(id, String.format("Camiseta Talla %02d", id - 9), null, "9.99", true));
+    }
+
+    List<String> sugerencias = productoSearchService.sugerir("camiseta");
+
+    assertThat(sugerencias).hasSize(10).isSorted()
+        .startsWith("Camiseta Básica", "Camiseta Talla 01")
+        .endsWith("Camiseta Talla 09");
+    assertThat(productoSearchService.sugerir("talla 1")).containsExactly(
+        "Camiseta Talla 10", "Camiseta Talla 11", "Camiseta Talla 12", "Camiseta Talla 13",
+        "Camiseta Talla 14", "Camiseta Talla 15");
+  }
+
+  @Test
+  @DisplayName("Should follow renames, deactivations and removals in the suggestions")
+  void sugerir_ProductChanges_UpdatesSuggestions() {
+    productoSearchService.onProductoChanged(
+        new ProductoChangedEvent(producto(2L, "Chaqueta Vaquera", "Denim", "59.99", true)));
+    productoSearchService.onProductoChanged(
+        new ProductoChangedEvent(producto(3L, "Camisa de Lino", "Algodón y lino para el verano", "39.99", true)));
+    productoSearchService.onProductoChanged(
+        new ProductoChangedEvent(producto(1L, "Camiseta Básica", "Algodón orgánico", "19.99", false)));
+
+    assertThat(productoSearchService.sugerir("pant")).isEmpty();
+    assertThat(productoSearchService.sugerir("vaq")).containsExactly("Chaqueta Vaquera");
+    assertThat(productoSearchService.sugerir("cami")).containsExactly("Camisa de Lino");
+
+    productoSearchService.remove(List.of(3L));
+
+    assertThat(productoSearchService.sugerir("cami")).isEmpty();
+    assertThat(productoSearchService.sugerir("c")).containsExactly("Chaqueta Vaquera");
+  }
+
+  @Test
+  @DisplayName("Should rebuild the index from the database in ID-ordered chunks")
+  void rebuild_LoadsCatalogFromRepository() {
+    Producto entity = new Producto();
+    entity.setId(10L);
+    entity.setNombre("Zapatillas");
+    entity.setActivo(true);
+
+    when(productoRepository.findTop1000ByIdGreaterThanOrderByIdAsc(anyLong()))
+        .thenReturn(List.of(entity));
+    when(productoMapper.toProductoResponseDTO(any(Producto.class)))
+        .thenReturn(producto(10L, "Zapatillas", null, "89.99", true));
+
+    productoSearchService.rebuild();
+
+    assertThat(productoSearchService.isReady()).isTrue();
+    assertThat(search(ProductStatus.ALL, "zapa", Sort.by("nombre"))).containsExactly(10L);
+    assertThat(search(ProductStatus.ALL, "camiseta", Sort.by("nombre"))).isEmpty();
+  }
+}
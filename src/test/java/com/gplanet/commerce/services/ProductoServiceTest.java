@@ -3,9 +3,13 @@ package com.gplanet.commerce.services;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -19,18 +23,26 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 
+import com.gplanet.commerce.configs.CountCacheProperties;
 import com.gplanet.commerce.dtos.producto.ProductStatus;
 import com.gplanet.commerce.dtos.producto.ProductoDTO;
 import com.gplanet.commerce.dtos.producto.ProductoMapper;
 import com.gplanet.commerce.dtos.producto.ProductoResponseDTO;
 import com.gplanet.commerce.entities.Producto;
+import com.gplanet.commerce.events.ProductoChangedEvent;
 import com.gplanet.commerce.exceptions.ResourceNotFoundException;
 import com.gplanet.commerce.repositories.ProductoRepository;
 
@@ -43,6 +55,21 @@ public class ProductoServiceTest {
   @Mock
   private ProductoRepository productoRepository;
 
+  @Mock
+  private ProductoSearchService productoSearchService;
+
+  @Mock
+  private StockService stockService;
+
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+
+  @Spy
+  private CountCacheService countCacheService = new CountCacheService(new CountCacheProperties());
+
+  @Spy
+  private CatalogVersionService catalogVersionService = new CatalogVersionService();
+
   @InjectMocks
   private ProductoService productoService;
 
@@ -79,15 +106,16 @@ public class ProductoServiceTest {
         "Test Description",
         new BigDecimal("99.99"),
         now,
-        true);
+        true,
+        null);
   }
 
   @Test
   @DisplayName("Should list active products without search text")
   void listarProductos_ActiveNoSearch_ReturnsActivePage() {
     // Arrange
-    Page<Producto> productoPage = new PageImpl<>(List.of(producto));
-    when(productoRepository.findByActivoTrue(any(Pageable.class))).thenReturn(productoPage);
+    Slice<Producto> productoPage = new SliceImpl<>(List.of(producto), PageRequest.of(0, 10), false);
+    when(productoRepository.findSlice(eq(true), isNull(), isNull(), any(Pageable.class))).thenReturn(productoPage);
     when(productoMapper.toProductoResponseDTO(any(Producto.class))).thenReturn(productoResponseDTO);
 
     // Act
@@ -98,15 +126,53 @@ public class ProductoServiceTest {
     assertThat(result).isNotNull();
     assertThat(result.getContent()).hasSize(1);
     assertThat(result.getContent().get(0)).isEqualTo(productoResponseDTO);
-    verify(productoRepository).findByActivoTrue(any(Pageable.class));
+    verify(productoRepository).findSlice(eq(true), isNull(), isNull(), any(Pageable.class));
+  }
+
+  @Test
+  @DisplayName("Should take the total from the count cache instead of counting on every request")
+  void listarProductos_MorePages_CountsOnceAndCachesTotal() {
+    // Arrange
+    Slice<Producto> firstSlice = new SliceImpl<>(List.of(producto), PageRequest.of(0, 1), true);
+    when(productoRepository.findSlice(eq(true), isNull(), isNull(), any(Pageable.class))).thenReturn(firstSlice);
+    when(productoRepository.countUpTo(eq(true), isNull(), isNull(), anyInt())).thenReturn(3L);
+    when(productoMapper.toProductoResponseDTO(any(Producto.class))).thenReturn(productoResponseDTO);
+
+    // Act
+    Page<ProductoResponseDTO> first = productoService.listarProductos(
+        ProductStatus.ACTIVE, "", 0, 1, "nombre", "ASC");
+    Page<ProductoResponseDTO> second = productoService.listarProductos(
+        ProductStatus.ACTIVE, "", 0, 1, "nombre", "ASC");
+
+    // Assert
+    assertThat(first.getTotalElements()).isEqualTo(3);
+    assertThat(second.getTotalElements()).isEqualTo(3);
+    verify(productoRepository, times(1)).countUpTo(eq(true), isNull(), isNull(), anyInt());
+  }
+
+  @Test
+  @DisplayName("Should not count when the page already reveals the total")
+  void listarProductos_LastPage_SkipsCount() {
+    // Arrange
+    Slice<Producto> productoPage = new SliceImpl<>(List.of(producto), PageRequest.of(0, 10), false);
+    when(productoRepository.findSlice(isNull(), isNull(), isNull(), any(Pageable.class))).thenReturn(productoPage);
+    when(productoMapper.toProductoResponseDTO(any(Producto.class))).thenReturn(productoResponseDTO);
+
+    // Act
+    Page<ProductoResponseDTO> result = productoService.listarProductos(
+        ProductStatus.ALL, "", 0, 10, "nombre", "ASC");
+
+    // Assert
+    assertThat(result.getTotalElements()).isEqualTo(1);
+    verify(productoRepository, never()).countUpTo(any(), any(), any(), anyInt());
   }
 
   @Test
   @DisplayName("Should list inactive products without search text")
   void listarProductos_InactiveNoSearch_ReturnsInactivePage() {
     // Arrange
-    Page<Producto> productoPage = new PageImpl<>(List.of(producto));
-    when(productoRepository.findByActivoFalse(any(Pageable.class))).thenReturn(productoPage);
+    Slice<Producto> productoPage = new SliceImpl<>(List.of(producto), PageRequest.of(0, 10), false);
+    when(productoRepository.findSlice(eq(false), isNull(), isNull(), any(Pageable.class))).thenReturn(productoPage);
     when(productoMapper.toProductoResponseDTO(any(Producto.class))).thenReturn(productoResponseDTO);
 
     // Act
@@ -116,15 +182,15 @@ public class ProductoServiceTest {
     // Assert
     assertThat(result).isNotNull();
     assertThat(result.getContent()).hasSize(1);
-    verify(productoRepository).findByActivoFalse(any(Pageable.class));
+    verify(productoRepository).findSlice(eq(false), isNull(), isNull(), any(Pageable.class));
   }
 
   @Test
   @DisplayName("Should list all products without search text")
   void listarProductos_AllNoSearch_ReturnsAllPage() {
     // Arrange
-    Page<Producto> productoPage = new PageImpl<>(List.of(producto));
-    when(productoRepository.findAll(any(Pageable.class))).thenReturn(productoPage);
+    Slice<Producto> productoPage = new SliceImpl<>(List.of(producto), PageRequest.of(0, 10), false);
+    when(productoRepository.findSlice(isNull(), isNull(), isNull(), any(Pageable.class))).thenReturn(productoPage);
     when(productoMapper.toProductoResponseDTO(any(Producto.class))).thenReturn(productoResponseDTO);
 
     // Act
@@ -134,15 +200,16 @@ public class ProductoServiceTest {
     // Assert
     assertThat(result).isNotNull();
     assertThat(result.getContent()).hasSize(1);
-    verify(productoRepository).findAll(any(Pageable.class));
+    verify(productoRepository).findSlice(isNull(), isNull(), isNull(), any(Pageable.class));
   }
 
   @Test
   @DisplayName("Should list active products with search text")
   void listarProductos_ActiveWithSearch_ReturnsSearchedActivePage() {
     // Arrange
-    Page<Producto> productoPage = new PageImpl<>(List.of(producto));
-    when(productoRepository.findByActivoTrueAndSearch(anyString(), any(Pageable.class))).thenReturn(productoPage);
+    Slice<Producto> productoPage = new SliceImpl<>(List.of(producto), PageRequest.of(0, 10), false);
+    when(productoRepository.findSlice(eq(true), anyString(), anyString(), any(Pageable.class)))
+        .thenReturn(productoPage);
     when(productoMapper.toProductoResponseDTO(any(Producto.class))).thenReturn(productoResponseDTO);
 
     // Act
@@ -152,15 +219,16 @@ public class ProductoServiceTest {
     // Assert
     assertThat(result).isNotNull();
     assertThat(result.getContent()).hasSize(1);
-    verify(productoRepository).findByActivoTrueAndSearch(eq("%test%"), any(Pageable.class));
+    verify(productoRepository).findSlice(eq(true), eq("+test*"), eq("%test%"), any(Pageable.class));
   }
 
   @Test
   @DisplayName("Should list inactive products with search text")
   void listarProductos_InactiveWithSearch_ReturnsSearchedInactivePage() {
     // Arrange
-    Page<Producto> productoPage = new PageImpl<>(List.of(producto));
-    when(productoRepository.findByActivoFalseAndSearch(anyString(), any(Pageable.class))).thenReturn(productoPage);
+    Slice<Producto> productoPage = new SliceImpl<>(List.of(producto), PageRequest.of(0, 10), false);
+    when(productoRepository.findSlice(eq(false), anyString(), anyString(), any(Pageable.class)))
+        .thenReturn(productoPage);
     when(productoMapper.toProductoResponseDTO(any(Producto.class))).thenReturn(productoResponseDTO);
 
     // Act
@@ -170,15 +238,16 @@ public class ProductoServiceTest {
     // Assert
     assertThat(result).isNotNull();
     assertThat(result.getContent()).hasSize(1);
-    verify(productoRepository).findByActivoFalseAndSearch(eq("%test%"), any(Pageable.class));
+    verify(productoRepository).findSlice(eq(false), eq("+test*"), eq("%test%"), any(Pageable.class));
   }
 
   @Test
   @DisplayName("Should list all products with search text")
   void listarProductos_AllWithSearch_ReturnsSearchedAllPage() {
     // Arrange
-    Page<Producto> productoPage = new PageImpl<>(List.of(producto));
-    when(productoRepository.findBySearch(anyString(), any(Pageable.class))).thenReturn(productoPage);
+    Slice<Producto> productoPage = new SliceImpl<>(List.of(producto), PageRequest.of(0, 10), false);
+    when(productoRepository.findSlice(isNull(), anyString(), anyString(), any(Pageable.class)))
+        .thenReturn(productoPage);
     when(productoMapper.toProductoResponseDTO(any(Producto.class))).thenReturn(productoResponseDTO);
 
     // Act
@@ -188,7 +257,55 @@ public class ProductoServiceTest {
     // Assert
     assertThat(result).isNotNull();
     assertThat(result.getContent()).hasSize(1);
-    verify(productoRepository).findBySearch(eq("%test%"), any(Pageable.class));
+    verify(productoRepository).findSlice(isNull(), eq("+test*"), eq("%test%"), any(Pageable.class));
+  }
+
+  @Test
+  @DisplayName("Should resolve searches through the index once it is ready")
+  void listarProductos_SearchWithReadyIndex_HydratesIdsInIndexOrder() {
+    // Arrange
+    Producto other = new Producto();
+    other.setId(2L);
+    other.setNombre("Other Product");
+
+    when(productoSearchService.isReady()).thenReturn(true);
+    when(productoSearchService.search(eq(ProductStatus.ACTIVE), eq("test"), any(Pageable.class)))
+        .thenReturn(new PageImpl<>(List.of(2L, 1L)));
+    when(productoRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(producto, other));
+    when(productoMapper.toProductoResponseDTO(any(Producto.class)))
+        .thenAnswer(invocation -> {
+          Producto p = invocation.getArgument(0);
+          return new ProductoResponseDTO(p.getId(), p.getNombre(), null, null, null, true, null);
+        });
+
+    // Act
+    Page<ProductoResponseDTO> result = productoService.listarProductos(
+        ProductStatus.ACTIVE, "test", 0, 10, "relevancia", "ASC");
+
+    // Assert
+    assertThat(result.getContent()).extracting(ProductoResponseDTO::id).containsExactly(2L, 1L);
+    assertThat(result.getTotalElements()).isEqualTo(2);
+    verify(productoRepository, times(0)).findSlice(eq(true), anyString(), anyString(), any(Pageable.class));
+  }
+
+  @Test
+  @DisplayName("Should evict products missing from the database from the index")
+  void listarProductos_SearchWithStaleIndexEntry_RemovesItFromIndex() {
+    // Arrange
+    when(productoSearchService.isReady()).thenReturn(true);
+    when(productoSearchService.search(eq(ProductStatus.ALL), eq("test"), any(Pageable.class)))
+        .thenReturn(new PageImpl<>(List.of(1L, 99L)));
+    when(productoRepository.findAllById(List.of(1L, 99L))).thenReturn(List.of(producto));
+    when(productoMapper.toProductoResponseDTO(producto)).thenReturn(productoResponseDTO);
+
+    // Act
+    Page<ProductoResponseDTO> result = productoService.listarProductos(
+        ProductStatus.ALL, "test", 0, 10, "nombre", "ASC");
+
+    // Assert
+    assertThat(result.getContent()).containsExactly(productoResponseDTO);
+    assertThat(result.getTotalElements()).isEqualTo(1);
+    verify(productoSearchService).remove(List.of(99L));
   }
 
   @Test
@@ -208,7 +325,7 @@ public class ProductoServiceTest {
     when(productoRepository.save(any(Producto.class))).thenReturn(updatedProducto);
 
     ProductoResponseDTO updatedResponseDTO = new ProductoResponseDTO(
-        1L, "Test Product", "Test Description", new BigDecimal("99.99"), now, false);
+        1L, "Test Product", "Test Description", new BigDecimal("99.99"), now, false, null);
     when(productoMapper.toProductoResponseDTO(any(Producto.class))).thenReturn(updatedResponseDTO);
 
     // Act
@@ -234,6 +351,7 @@ public class ProductoServiceTest {
 
     verify(productoRepository).findById(1L);
     verify(productoRepository, times(0)).save(any(Producto.class));
+    verify(catalogVersionService, never()).bump();
   }
 
   @Test
@@ -253,6 +371,8 @@ public class ProductoServiceTest {
     verify(productoMapper).toProducto(productoDTO);
     verify(productoRepository).save(any(Producto.class));
     verify(productoMapper).toProductoResponseDTO(producto);
+    verify(eventPublisher).publishEvent(new ProductoChangedEvent(productoResponseDTO));
+    verify(catalogVersionService).bump();
   }
 
   @Test
@@ -273,6 +393,7 @@ public class ProductoServiceTest {
     verify(productoMapper).updateProductoFromDTO(productoDTO, producto);
     verify(productoRepository).save(producto);
     verify(productoMapper).toProductoResponseDTO(producto);
+    verify(catalogVersionService).bump();
   }
 
   @Test
@@ -291,6 +412,23 @@ public class ProductoServiceTest {
     verify(productoRepository, times(0)).save(any());
   }
 
+  @Test
+  @DisplayName("Should add units to the stock and return the product read afterwards")
+  void reponerStock_ExistingProduct_ReturnsRestockedProduct() {
+    // Arrange
+    when(productoRepository.findById(1L)).thenReturn(Optional.of(producto));
+    when(productoMapper.toProductoResponseDTO(producto)).thenReturn(productoResponseDTO);
+
+    // Act
+    ProductoResponseDTO result = productoService.reponerStock(1L, 5);
+
+    // Assert
+    assertThat(result).isEqualTo(productoResponseDTO);
+    InOrder inOrder = inOrder(stockService, productoRepository);
+    inOrder.verify(stockService).reponer(1L, 5);
+    inOrder.verify(productoRepository).findById(1L);
+  }
+
   @Test
   @DisplayName("Should find product by ID successfully")
   void findById_ExistingProduct_ReturnsProduct() {
@@ -13,13 +13,20 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import com.gplanet.commerce.configs.CountCacheProperties;
 import com.gplanet.commerce.dtos.usuario.ActualizacionUsuarioDTO;
 import com.gplanet.commerce.dtos.usuario.CambioPasswdDTO;
 import com.gplanet.commerce.dtos.usuario.UsuarioAdminDTO;
@@ -47,6 +54,12 @@ public class UsuarioServiceTest {
   @Mock
   private PasswordEncoder passwordEncoder;
 
+  @Spy
+  private CountCacheService countCacheService = new CountCacheService(new CountCacheProperties());
+
+  @Spy
+  private CacheManager cacheManager = new ConcurrentMapCacheManager(UsuarioService.IDENTIDAD_CACHE);
+
   @InjectMocks
   private UsuarioService usuarioService;
 
@@ -186,6 +199,23 @@ public class UsuarioServiceTest {
         savedUser.getEmail().equals("updated@example.com")));
   }
 
+  @Test
+  void actualizarPerfil_ConDatosValidos_InvalidaIdentidadEnCache() {
+    // Arrange
+    Cache identidades = cacheManager.getCache(UsuarioService.IDENTIDAD_CACHE);
+    identidades.put("test@example.com", usuarioResponseDTO);
+    identidades.put("updated@example.com", usuarioResponseDTO);
+    when(usuarioRepository.findByEmail(anyString())).thenReturn(Optional.of(usuario));
+    when(usuarioRepository.existsByEmail(anyString())).thenReturn(false);
+
+    // Act
+    usuarioService.actualizarPerfil("test@example.com", actualizacionUsuarioDTO);
+
+    // Assert
+    assertNull(identidades.get("test@example.com"));
+    assertNull(identidades.get("updated@example.com"));
+  }
+
   @Test
   void actualizarPerfil_ConEmailExistente_LanzaExcepcion() {
     // Arrange
@@ -288,10 +318,10 @@ public class UsuarioServiceTest {
   void listarUsuarios_RetornaPaginaDeUsuarios() {
     // Arrange
     List<Usuario> usuariosList = List.of(usuario);
-    Page<Usuario> usuariosPage = new PageImpl<>(usuariosList);
+    Slice<Usuario> usuariosPage = new SliceImpl<>(usuariosList);
     Page<UsuarioResponseDTO> expectedResponsePage = new PageImpl<>(List.of(usuarioResponseDTO));
 
-    when(usuarioRepository.findAll(any(Pageable.class))).thenReturn(usuariosPage);
+    when(usuarioRepository.findAllBy(any(Pageable.class))).thenReturn(usuariosPage);
     when(usuarioMapper.toUsuarioResponseDTO(usuario)).thenReturn(usuarioResponseDTO);
 
     // Act
@@ -301,7 +331,7 @@ public class UsuarioServiceTest {
     assertNotNull(resultPage);
     assertEquals(1, resultPage.getTotalElements());
     assertEquals(expectedResponsePage.getContent().get(0), resultPage.getContent().get(0));
-    verify(usuarioRepository).findAll(any(Pageable.class));
+    verify(usuarioRepository).findAllBy(any(Pageable.class));
     verify(usuarioMapper).toUsuarioResponseDTO(usuario);
   }
 
@@ -334,6 +364,21 @@ public class UsuarioServiceTest {
     verify(usuarioMapper).toUsuarioResponseDTO(any(Usuario.class));
   }
 
+  @Test
+  void cambiarRol_InvalidaIdentidadEnCache() {
+    // Arrange
+    Cache identidades = cacheManager.getCache(UsuarioService.IDENTIDAD_CACHE);
+    identidades.put("test@example.com", usuarioResponseDTO);
+    when(usuarioRepository.findById(1L)).thenReturn(Optional.of(usuario));
+    when(usuarioRepository.save(any(Usuario.class))).thenReturn(usuario);
+
+    // Act
+    usuarioService.cambiarRol(1L);
+
+    // Assert
+    assertNull(identidades.get("test@example.com"));
+  }
+
   @Test
   void cambiarRol_DeAdminAUser_CambiaRolYRetornaUsuario() {
     // Arrange